@@ -22,6 +22,9 @@
 package org.wildfly.clustering.dispatcher;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import org.wildfly.clustering.group.Node;
@@ -84,6 +87,40 @@ public interface CommandDispatcher<C> extends AutoCloseable {
      */
     <R> Map<Node, Future<R>> submitOnCluster(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException;
 
+    /**
+     * Executes the specified command on the specified node, without blocking the calling thread while awaiting its response.
+     * The default implementation executes the command synchronously.
+     *
+     * @param <R>     the return value type
+     * @param command the command to execute
+     * @param node    the node to execute the command on
+     * @return a completion stage of the command execution result, which completes exceptionally if execution failed
+     * @throws CommandDispatcherException if the command could not be sent
+     */
+    default <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        try {
+            result.complete(this.executeOnNode(command, node).get());
+        } catch (ExecutionException e) {
+            result.completeExceptionally(e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * Executes the specified command on all nodes in the group, excluding the specified nodes, without blocking the calling thread while awaiting their responses.
+     * The default implementation executes the command synchronously.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param excludedNodes the set of nodes to exclude
+     * @return a completion stage of the command execution results per node
+     * @throws CommandDispatcherException if the command could not be broadcast
+     */
+    default <R> CompletionStage<Map<Node, CommandResponse<R>>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        return CompletableFuture.completedFuture(this.executeOnCluster(command, excludedNodes));
+    }
+
     /**
      * Closes any resources used by this dispatcher.
      * Once closed, a dispatcher can no longer execute commands.
@@ -0,0 +1,211 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ee;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Coarse-grained expiration of identifiers, e.g. of sessions or stateful session beans.
+ * Rather than scheduling one task per identifier, identifiers are grouped into buckets by expiration time, at a given
+ * resolution, and a single periodic task expires each elapsed bucket in one batch.
+ * Rescheduling an identifier only moves it from one bucket to another.
+ * Identifiers expire no earlier than their expiration time, and at most one resolution later.
+ * @param <I> the identifier type
+ */
+public class ExpirationWheel<I> implements AutoCloseable {
+
+    public static final Duration DEFAULT_RESOLUTION = Duration.ofSeconds(1);
+
+    private final long resolution;
+    private final Batcher<? extends Batch> batcher;
+    private final Consumer<I> expirer;
+    private final BiConsumer<I, Throwable> failureHandler;
+    // Bucket of each scheduled identifier
+    private final Map<I, Long> buckets = new ConcurrentHashMap<>();
+    // Scheduled identifiers per bucket, guarded by itself
+    private final NavigableMap<Long, Set<I>> wheel = new TreeMap<>();
+    private final Object expiration = new Object();
+    private final Future<?> future;
+
+    /**
+     * Creates an expiration wheel with the default resolution.
+     * @param executor the executor on which elapsed buckets are expired
+     * @param batcher creates the batch in which each bucket expires, or null, if expiration is not batched
+     * @param expirer expires an identifier
+     * @param failureHandler handles the failure to expire an identifier
+     */
+    public ExpirationWheel(ScheduledExecutorService executor, Batcher<? extends Batch> batcher, Consumer<I> expirer, BiConsumer<I, Throwable> failureHandler) {
+        this(executor, DEFAULT_RESOLUTION, batcher, expirer, failureHandler);
+    }
+
+    public ExpirationWheel(ScheduledExecutorService executor, Duration resolution, Batcher<? extends Batch> batcher, Consumer<I> expirer, BiConsumer<I, Throwable> failureHandler) {
+        this.resolution = resolution.toMillis();
+        this.batcher = batcher;
+        this.expirer = expirer;
+        this.failureHandler = failureHandler;
+        // Align ticks with bucket boundaries
+        long delay = this.resolution - (System.currentTimeMillis() % this.resolution);
+        this.future = executor.scheduleAtFixedRate(this::expire, delay, this.resolution, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the specified identifier to expire at the specified time, replacing any previous schedule.
+     * @param id an identifier
+     * @param time the expiration time
+     */
+    public void schedule(I id, Instant time) {
+        // Round up, so that an identifier never expires early
+        long millis = time.toEpochMilli();
+        long bucket = (millis / this.resolution) + ((millis % this.resolution) > 0 ? 1 : 0);
+        synchronized (this.wheel) {
+            Long previous = this.buckets.put(id, bucket);
+            if (previous != null) {
+                if (previous.longValue() == bucket) return;
+                this.unlink(previous, id);
+            }
+            this.wheel.computeIfAbsent(bucket, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Cancels the expiration of the specified identifier.
+     * @param id an identifier
+     * @return true, if the identifier was scheduled, false otherwise
+     */
+    public boolean cancel(I id) {
+        synchronized (this.wheel) {
+            Long bucket = this.buckets.remove(id);
+            if (bucket == null) return false;
+            this.unlink(bucket, id);
+            return true;
+        }
+    }
+
+    /**
+     * @return the identifiers currently scheduled to expire
+     */
+    public Set<I> getScheduled() {
+        return Collections.unmodifiableSet(this.buckets.keySet());
+    }
+
+    private void unlink(Long bucket, I id) {
+        Set<I> ids = this.wheel.get(bucket);
+        // Bucket may have already been detached for expiration
+        if ((ids != null) && ids.remove(id) && ids.isEmpty()) {
+            this.wheel.remove(bucket);
+        }
+    }
+
+    void expire() {
+        synchronized (this.expiration) {
+            long current = System.currentTimeMillis() / this.resolution;
+            while (!Thread.currentThread().isInterrupted()) {
+                Map.Entry<Long, Set<I>> entry;
+                synchronized (this.wheel) {
+                    entry = this.wheel.firstEntry();
+                    if ((entry == null) || (entry.getKey() > current)) return;
+                    this.wheel.pollFirstEntry();
+                }
+                Long bucket = entry.getKey();
+                List<I> ids = new ArrayList<>(entry.getValue().size());
+                for (I id : entry.getValue()) {
+                    // Skip identifiers rescheduled or cancelled since the bucket was detached
+                    if (this.buckets.remove(id, bucket)) {
+                        ids.add(id);
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    this.expire(ids);
+                }
+            }
+        }
+    }
+
+    private void expire(List<I> ids) {
+        if (this.batcher != null) {
+            try {
+                try (Batch batch = this.batcher.createBatch()) {
+                    try {
+                        ids.forEach(this.expirer);
+                    } catch (Throwable e) {
+                        batch.discard();
+                        throw e;
+                    }
+                }
+                return;
+            } catch (Throwable e) {
+                // Fall through, whether an identifier failed to expire, or the batch could not be created or closed
+            }
+        }
+        // Expire each identifier in its own batch, so that a failure does not prevent the others from expiring
+        for (I id : ids) {
+            this.expire(id);
+        }
+    }
+
+    private void expire(I id) {
+        // Any failure is handled here, since an exception thrown by the periodic task would cancel it
+        try {
+            if (this.batcher != null) {
+                try (Batch batch = this.batcher.createBatch()) {
+                    try {
+                        this.expirer.accept(id);
+                    } catch (Throwable e) {
+                        batch.discard();
+                        throw e;
+                    }
+                }
+            } else {
+                this.expirer.accept(id);
+            }
+        } catch (Throwable e) {
+            this.failureHandler.accept(id, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.future.cancel(false);
+        // Wait for any expiration in progress
+        synchronized (this.expiration) {
+            synchronized (this.wheel) {
+                this.wheel.clear();
+                this.buckets.clear();
+            }
+        }
+    }
+}
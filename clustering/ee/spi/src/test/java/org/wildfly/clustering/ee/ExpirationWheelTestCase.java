@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ee;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ExpirationWheel}.
+ */
+public class ExpirationWheelTestCase {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final Batcher<Batch> batcher = mock(Batcher.class);
+    private final Batch batch = mock(Batch.class);
+    private final List<String> expired = new CopyOnWriteArrayList<>();
+    private final BiConsumer<String, Throwable> failureHandler = mock(BiConsumer.class);
+
+    @After
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        when(this.batcher.createBatch()).thenReturn(this.batch);
+        try (ExpirationWheel<String> wheel = new ExpirationWheel<>(this.executor, Duration.ofMillis(50), this.batcher, this.expired::add, this.failureHandler)) {
+            Instant now = Instant.now();
+            wheel.schedule("expiring", now);
+            wheel.schedule("also-expiring", now);
+            wheel.schedule("canceled", now);
+            wheel.schedule("rescheduled", now);
+            wheel.schedule("immortal", now.plus(Duration.ofMinutes(1)));
+
+            assertTrue(wheel.cancel("canceled"));
+            assertFalse(wheel.cancel("unknown"));
+            wheel.schedule("rescheduled", now.plus(Duration.ofMinutes(1)));
+
+            TimeUnit.MILLISECONDS.sleep(500);
+
+            assertEquals(2, this.expired.size());
+            assertTrue(this.expired.contains("expiring"));
+            assertTrue(this.expired.contains("also-expiring"));
+            assertEquals(2, wheel.getScheduled().size());
+            assertTrue(wheel.getScheduled().contains("rescheduled"));
+            assertTrue(wheel.getScheduled().contains("immortal"));
+        }
+        // All identifiers of a bucket expire in one batch
+        verify(this.batcher).createBatch();
+        verify(this.batch).close();
+        verify(this.batch, never()).discard();
+        verifyZeroInteractions(this.failureHandler);
+    }
+
+    @Test
+    public void failure() throws InterruptedException {
+        Batch retryBatch = mock(Batch.class);
+        RuntimeException exception = new IllegalStateException();
+        when(this.batcher.createBatch()).thenReturn(this.batch, retryBatch);
+        try (ExpirationWheel<String> wheel = new ExpirationWheel<>(this.executor, Duration.ofMillis(50), this.batcher, id -> {
+            if (id.equals("failing")) throw exception;
+            this.expired.add(id);
+        }, this.failureHandler)) {
+            Instant now = Instant.now();
+            wheel.schedule("failing", now);
+            wheel.schedule("expiring", now);
+
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+        // A failure discards the bucket batch, and retries each identifier in its own batch
+        verify(this.batch).discard();
+        verify(this.batcher, times(3)).createBatch();
+        verify(retryBatch).discard();
+        verify(this.failureHandler).accept("failing", exception);
+        assertTrue(this.expired.contains("expiring"));
+    }
+
+    @Test
+    public void batchFailure() throws InterruptedException {
+        Batch retryBatch = mock(Batch.class);
+        RuntimeException exception = new IllegalStateException();
+        doThrow(exception).when(this.batch).close();
+        when(this.batcher.createBatch()).thenReturn(this.batch).thenThrow(exception).thenReturn(retryBatch);
+        try (ExpirationWheel<String> wheel = new ExpirationWheel<>(this.executor, Duration.ofMillis(50), this.batcher, this.expired::add, this.failureHandler)) {
+            wheel.schedule("uncommitted", Instant.now());
+
+            TimeUnit.MILLISECONDS.sleep(500);
+
+            // Expiration continues after a failure to commit, or to create, a batch
+            wheel.schedule("expiring", Instant.now());
+
+            TimeUnit.MILLISECONDS.sleep(500);
+
+            assertTrue(this.expired.contains("expiring"));
+            assertTrue(wheel.getScheduled().isEmpty());
+        }
+        // The commit of the bucket batch failed, so the identifier is retried in its own batch, which could not be created
+        verify(this.failureHandler).accept("uncommitted", exception);
+        verify(this.failureHandler, never()).accept(eq("expiring"), any());
+        verify(retryBatch).close();
+    }
+}
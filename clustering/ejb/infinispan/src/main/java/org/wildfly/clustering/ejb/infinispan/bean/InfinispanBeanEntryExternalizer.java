@@ -21,6 +21,8 @@
  */
 package org.wildfly.clustering.ejb.infinispan.bean;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -30,31 +32,56 @@ import org.jboss.ejb.client.SessionID;
 import org.kohsuke.MetaInfServices;
 import org.wildfly.clustering.ejb.infinispan.SessionIDSerializer;
 import org.wildfly.clustering.marshalling.Externalizer;
+import org.wildfly.clustering.marshalling.spi.LongSerializer;
 
 /**
+ * Externalizer for an {@link InfinispanBeanEntry}.
+ * Encodes the last accessed time using variable-length epoch milliseconds.
+ * Bean names are interned when read, so that the entries of a given bean share a single instance.
+ * Entries start with a format version, so that entries written in the previous format, e.g. by another member during a
+ * rolling upgrade, or to a cache store, remain readable.
+ * Such entries start with the length of the bean name, whose first byte is never 255 for a name of less than 65280 bytes.
  * @author Paul Ferraro
  */
 @MetaInfServices(Externalizer.class)
 public class InfinispanBeanEntryExternalizer implements Externalizer<InfinispanBeanEntry<SessionID>> {
 
+    static final int VERSION = 255;
+
     @Override
     public void writeObject(ObjectOutput output, InfinispanBeanEntry<SessionID> entry) throws IOException {
+        output.writeByte(VERSION);
         output.writeUTF(entry.getBeanName());
         SessionIDSerializer.INSTANCE.write(output, entry.getGroupId());
         Date lastAccessedTime = entry.getLastAccessedTime();
-        output.writeLong((lastAccessedTime != null) ? lastAccessedTime.getTime() : 0);
+        LongSerializer.VARIABLE.writeLong(output, (lastAccessedTime != null) ? lastAccessedTime.getTime() : 0);
     }
 
     @Override
     public InfinispanBeanEntry<SessionID> readObject(ObjectInput input) throws IOException, ClassNotFoundException {
-        InfinispanBeanEntry<SessionID> entry = new InfinispanBeanEntry<>(input.readUTF(), SessionIDSerializer.INSTANCE.read(input));
-        long time = input.readLong();
+        int version = input.readUnsignedByte();
+        boolean legacy = (version != VERSION);
+        String beanName = legacy ? readLegacyBeanName(input, version) : input.readUTF();
+        InfinispanBeanEntry<SessionID> entry = new InfinispanBeanEntry<>(beanName.intern(), SessionIDSerializer.INSTANCE.read(input));
+        long time = legacy ? input.readLong() : LongSerializer.VARIABLE.readLong(input);
         if (time > 0) {
             entry.setLastAccessedTime(new Date(time));
         }
         return entry;
     }
 
+    /**
+     * Reads the bean name of an entry in the previous format, given the first byte of its length, which was consumed as the version.
+     */
+    private static String readLegacyBeanName(ObjectInput input, int lengthHighByte) throws IOException {
+        int length = (lengthHighByte << 8) | input.readUnsignedByte();
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = (byte) (length >>> 8);
+        bytes[1] = (byte) length;
+        input.readFully(bytes, 2, length);
+        return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public Class<InfinispanBeanEntry<SessionID>> getTargetClass() {
@@ -27,8 +27,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.wildfly.clustering.ejb.infinispan.BeanGroupEntry;
-import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
-import org.wildfly.clustering.marshalling.spi.MarshalledValue;
 
 /**
  * The cache entry of a bean group.
@@ -40,15 +38,15 @@ import org.wildfly.clustering.marshalling.spi.MarshalledValue;
  */
 public class InfinispanBeanGroupEntry<I, T> implements BeanGroupEntry<I, T>, Function<I, AtomicInteger> {
 
-    private final MarshalledValue<Map<I, T>, MarshallingContext> beans;
+    private final MarshalledBeans<I, T> beans;
     private final Map<I, AtomicInteger> usage = new ConcurrentHashMap<>();
 
-    public InfinispanBeanGroupEntry(MarshalledValue<Map<I, T>, MarshallingContext> beans) {
+    public InfinispanBeanGroupEntry(MarshalledBeans<I, T> beans) {
         this.beans = beans;
     }
 
     @Override
-    public MarshalledValue<Map<I, T>, MarshallingContext> getBeans() {
+    public MarshalledBeans<I, T> getBeans() {
         return this.beans;
     }
 
@@ -24,30 +24,89 @@ package org.wildfly.clustering.ejb.infinispan.group;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.Map;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.kohsuke.MetaInfServices;
 import org.wildfly.clustering.marshalling.Externalizer;
-import org.wildfly.clustering.marshalling.jboss.SimpleMarshalledValue;
-import org.wildfly.clustering.marshalling.jboss.SimpleMarshalledValueExternalizer;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
 
 /**
+ * Entries start with a format prefix and version, so that entries written in the previous format, i.e. as a single
+ * marshalled map of beans, e.g. by another member during a rolling upgrade, or to a cache store, remain readable.
+ * Such entries start with the variable-length size of the marshalled map, which is never encoded as the prefix.
+ * Entries read in the previous format are written in that format until their beans are unmarshalled.
  * @author Paul Ferraro
  */
 @MetaInfServices(Externalizer.class)
 public class InfinispanBeanGroupEntryExternalizer<I, T> implements Externalizer<InfinispanBeanGroupEntry<I, T>> {
 
-    private final Externalizer<SimpleMarshalledValue<Map<I, T>>> externalizer = new SimpleMarshalledValueExternalizer<>();
+    // A variable-length 0 padded to 2 bytes, which is never written as a size
+    private static final int PREFIX_FIRST_BYTE = 0x80;
+    private static final int PREFIX_SECOND_BYTE = 0;
+    static final int VERSION = 1;
 
     @Override
     public void writeObject(ObjectOutput output, InfinispanBeanGroupEntry<I, T> entry) throws IOException {
-        SimpleMarshalledValue<Map<I, T>> value = (SimpleMarshalledValue<Map<I, T>>) entry.getBeans();
-        this.externalizer.writeObject(output, value);
+        MarshalledBeans<I, T> beans = entry.getBeans();
+        ByteBuffer map = beans.getMarshalledMap();
+        if (map != null) {
+            IndexSerializer.VARIABLE.writeInt(output, map.remaining());
+            output.write(map.array(), map.arrayOffset() + map.position(), map.remaining());
+            return;
+        }
+        List<ByteBuffer> slots = beans.getSlots();
+        output.writeByte(PREFIX_FIRST_BYTE);
+        output.writeByte(PREFIX_SECOND_BYTE);
+        output.writeByte(VERSION);
+        IndexSerializer.VARIABLE.writeInt(output, slots.size());
+        for (ByteBuffer bytes : slots) {
+            IndexSerializer.VARIABLE.writeInt(output, bytes.remaining());
+            // Writes directly from the backing array, avoiding a copy
+            output.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
     }
 
     @Override
     public InfinispanBeanGroupEntry<I, T> readObject(ObjectInput input) throws IOException, ClassNotFoundException {
-        return new InfinispanBeanGroupEntry<>(this.externalizer.readObject(input));
+        int first = input.readUnsignedByte();
+        int second = ((first & 0x80) != 0) ? input.readUnsignedByte() : -1;
+        if ((first != PREFIX_FIRST_BYTE) || (second != PREFIX_SECOND_BYTE)) {
+            return new InfinispanBeanGroupEntry<>(MarshalledBeans.ofMarshalledMap(readMap(input, first, second)));
+        }
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException(String.format("Unsupported format version %d", version));
+        }
+        int size = IndexSerializer.VARIABLE.readInt(input);
+        List<ByteBuffer> slots = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            byte[] bytes = new byte[IndexSerializer.VARIABLE.readInt(input)];
+            input.readFully(bytes);
+            slots.add(ByteBuffer.wrap(bytes));
+        }
+        return new InfinispanBeanGroupEntry<>(new MarshalledBeans<>(slots));
+    }
+
+    /**
+     * Reads the marshalled map of beans of an entry in the previous format, given the bytes of its size already read.
+     */
+    private static ByteBuffer readMap(ObjectInput input, int first, int second) throws IOException {
+        int size = first & 0x7F;
+        if ((first & 0x80) != 0) {
+            int b = second;
+            size |= (b & 0x7F) << 7;
+            for (int shift = 14; (b & 0x80) != 0; shift += 7) {
+                b = input.readUnsignedByte();
+                size |= (b & 0x7F) << shift;
+            }
+        }
+        if (size == 0) return null;
+        byte[] bytes = new byte[size];
+        input.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
     }
 
     @SuppressWarnings("unchecked")
@@ -23,7 +23,6 @@ package org.wildfly.clustering.ejb.infinispan.group;
 
 import java.util.AbstractMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
@@ -49,7 +48,7 @@ import org.wildfly.clustering.ejb.infinispan.PassivationConfiguration;
 import org.wildfly.clustering.ejb.infinispan.bean.InfinispanBeanKey;
 import org.wildfly.clustering.ejb.infinispan.logging.InfinispanEjbLogger;
 import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
-import org.wildfly.clustering.marshalling.spi.MarshalledValueFactory;
+import org.wildfly.clustering.marshalling.spi.MarshalledValue;
 
 /**
  * Encapsulates the cache mapping strategy of a bean group.
@@ -66,18 +65,18 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
     private final Cache<BeanGroupKey<I>, BeanGroupEntry<I, T>> findCache;
     private final Cache<BeanKey<I>, BeanEntry<I>> beanCache;
     private final Predicate<Map.Entry<? super BeanKey<I>, ? super BeanEntry<I>>> beanFilter;
-    private final MarshalledValueFactory<MarshallingContext> factory;
     private final MarshallingContext context;
+    private final boolean marshalling;
     private final AtomicInteger passiveCount = new AtomicInteger();
     private final PassivationListener<T> passivationListener;
 
-    public InfinispanBeanGroupFactory(Cache<BeanGroupKey<I>, BeanGroupEntry<I, T>> cache, Cache<BeanKey<I>, BeanEntry<I>> beanCache, Predicate<Map.Entry<? super BeanKey<I>, ? super BeanEntry<I>>> beanFilter, MarshalledValueFactory<MarshallingContext> factory, MarshallingContext context, CacheProperties properties, PassivationConfiguration<T> passivation) {
+    public InfinispanBeanGroupFactory(Cache<BeanGroupKey<I>, BeanGroupEntry<I, T>> cache, Cache<BeanKey<I>, BeanEntry<I>> beanCache, Predicate<Map.Entry<? super BeanKey<I>, ? super BeanEntry<I>>> beanFilter, MarshallingContext context, CacheProperties properties, PassivationConfiguration<T> passivation) {
         this.cache = cache;
         this.findCache = properties.isLockOnRead() ? cache.getAdvancedCache().withFlags(Flag.FORCE_WRITE_LOCK) : cache;
         this.beanCache = beanCache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_LISTENER_NOTIFICATION);
         this.beanFilter = beanFilter;
-        this.factory = factory;
         this.context = context;
+        this.marshalling = properties.isMarshalling();
         this.passivationListener = !properties.isPersistent() ? passivation.getPassivationListener() : null;
         this.cache.addListener(this, new BeanGroupFilter());
     }
@@ -99,7 +98,7 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
 
     @Override
     public BeanGroupEntry<I, T> createValue(I id, Void context) {
-        BeanGroupEntry<I, T> entry = new InfinispanBeanGroupEntry<>(this.factory.createMarshalledValue(new ConcurrentHashMap<>()));
+        BeanGroupEntry<I, T> entry = new InfinispanBeanGroupEntry<>(new MarshalledBeans<>(this.context));
         BeanGroupEntry<I, T> existing = this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).putIfAbsent(this.createKey(id), entry);
         return (existing == null) ? entry : existing;
     }
@@ -122,7 +121,10 @@ public class InfinispanBeanGroupFactory<I, T> implements BeanGroupFactory<I, T>
 
     @Override
     public BeanGroup<I, T> createGroup(I id, BeanGroupEntry<I, T> entry) {
-        return this.createGroup(id, entry, new CacheEntryMutator<>(this.cache, this.createKey(id), entry));
+        Mutator mutator = new CacheEntryMutator<>(this.cache, this.createKey(id), entry);
+        MarshalledValue<Map<I, T>, MarshallingContext> beans = entry.getBeans();
+        // If the entry will be marshalled anyway, skip its replication when none of its beans changed
+        return this.createGroup(id, entry, (this.marshalling && (beans instanceof MarshalledBeans)) ? new MarshalledBeansMutator((MarshalledBeans<?, ?>) beans, mutator) : mutator);
     }
 
     private BeanGroup<I, T> createGroup(I id, BeanGroupEntry<I, T> entry, Mutator mutator) {
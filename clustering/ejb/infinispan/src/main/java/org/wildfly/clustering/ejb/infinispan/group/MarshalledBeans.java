@@ -0,0 +1,539 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ejb.infinispan.group;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.SimpleDataInput;
+import org.jboss.marshalling.SimpleDataOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.wildfly.clustering.ee.Immutability;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+import org.wildfly.clustering.marshalling.spi.MarshalledValue;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * The marshalled beans of a bean group, held in slots that are marshalled independently of each other.
+ * Beans that share references, e.g. an extended persistence context, or an object passed by reference from one bean to another,
+ * occupy the same slot, so that their shared references survive unmarshalling.
+ * Such sharing is detected while marshalling, by tracking the objects reachable from the beans of each slot.
+ * Only the slots of beans that were added, removed, or accessed since this value was last marshalled are marshalled again;
+ * the remaining slots retain their marshalled form, along with the objects they reached when last marshalled, so that
+ * a bean that acquired a reference to such an object, e.g. one passed to it by reference, joins their slot.
+ * A slot that reached too many objects does not retain them, and is instead marshalled again along with any other slot.
+ * A group marshalled by a previous release, as a single map of beans, retains that form until unmarshalled.
+ *
+ * @param <I> the bean identifier type
+ * @param <T> the bean type
+ */
+public class MarshalledBeans<I, T> implements MarshalledValue<Map<I, T>, MarshallingContext> {
+    private static final long serialVersionUID = 2710563471529367845L;
+    // The maximum number of reachable objects retained per slot
+    static final int MAX_REACHABLE_OBJECTS = 1024;
+
+    private transient volatile MarshallingContext context;
+    private transient List<Slot<I>> slots;
+    // The beans of this group, or null if not yet unmarshalled
+    private transient BeanMap beans;
+    // The beans accessed since this value was last marshalled
+    private transient Set<I> accessed = ConcurrentHashMap.newKeySet();
+    // The beans of this group marshalled as a single map by a previous release, or null if none, or unmarshalled
+    private transient ByteBuffer map;
+    // Indicates whether the marshalled form of this value changed since it was last committed
+    private transient boolean dirty;
+
+    public MarshalledBeans(MarshallingContext context) {
+        this.context = context;
+        this.slots = Collections.emptyList();
+        this.beans = new BeanMap(new ConcurrentHashMap<>());
+    }
+
+    MarshalledBeans(List<ByteBuffer> slots) {
+        this.setSlots(slots);
+    }
+
+    /**
+     * Creates the marshalled beans of a group marshalled by a previous release.
+     * @param map the beans of the group, marshalled as a single map, or null if the group had no beans
+     */
+    static <I, T> MarshalledBeans<I, T> ofMarshalledMap(ByteBuffer map) {
+        MarshalledBeans<I, T> beans = new MarshalledBeans<>(Collections.emptyList());
+        beans.map = map;
+        return beans;
+    }
+
+    @Override
+    public synchronized Map<I, T> get(MarshallingContext context) throws IOException, ClassNotFoundException {
+        if (this.beans == null) {
+            this.context = context;
+            Map<I, T> beans = new ConcurrentHashMap<>();
+            for (Slot<I> slot : this.slots) {
+                slot.read(context, beans);
+            }
+            if (this.map != null) {
+                // These beans are not assigned to any slot, so each is marshalled into a slot of its own
+                beans.putAll(readMap(context, this.map));
+                this.map = null;
+            }
+            this.beans = new BeanMap(beans);
+        }
+        return this.beans;
+    }
+
+    /**
+     * Returns the beans of this group in the form marshalled by a previous release, if not yet unmarshalled.
+     * The slots of this value are only meaningful if this method returns null.
+     * @return a buffer backed by an array, or null
+     */
+    synchronized ByteBuffer getMarshalledMap() {
+        return this.map;
+    }
+
+    /**
+     * Returns the marshalled slots of this value, marshalling any slot whose beans changed.
+     * The returned buffers are backed by an array, whose readable content spans from its position to its limit.
+     * @return a list of buffers
+     * @throws IOException if the beans could not be marshalled
+     */
+    synchronized List<ByteBuffer> getSlots() throws IOException {
+        this.marshal();
+        List<ByteBuffer> result = new ArrayList<>(this.slots.size());
+        for (Slot<I> slot : this.slots) {
+            result.add(slot.bytes);
+        }
+        return result;
+    }
+
+    private void setSlots(List<ByteBuffer> slots) {
+        List<Slot<I>> result = new ArrayList<>(slots.size());
+        for (ByteBuffer bytes : slots) {
+            result.add(new Slot<>(bytes, null, null));
+        }
+        this.slots = result;
+    }
+
+    /**
+     * Marshals the slots of any beans that changed, and indicates whether the marshalled form of this value changed since
+     * it was last committed, even if it was marshalled meanwhile, e.g. to write it to a cache store, or to transfer it.
+     * @return true, if the marshalled form of this value changed since the last commit, false otherwise
+     * @throws IOException if the beans could not be marshalled
+     */
+    synchronized boolean commit() throws IOException {
+        this.marshal();
+        boolean dirty = this.dirty;
+        this.dirty = false;
+        return dirty;
+    }
+
+    /**
+     * Marshals the slots of the beans that were added, removed, or accessed since this value was last marshalled.
+     * @return true, if the marshalled form of this value changed, false otherwise
+     * @throws IOException if the beans could not be marshalled
+     */
+    synchronized boolean marshal() throws IOException {
+        BeanMap beans = this.beans;
+        // Beans that were never unmarshalled cannot have changed
+        if (beans == null) return false;
+
+        Set<I> accessed = new HashSet<>(this.accessed);
+        List<Set<I>> members = new ArrayList<>(this.slots.size() + 1);
+        List<Slot<I>> previous = new ArrayList<>(this.slots.size() + 1);
+        BitSet modified = new BitSet();
+        Set<I> assigned = new HashSet<>();
+        boolean changed = false;
+        for (Slot<I> slot : this.slots) {
+            Set<I> ids = new LinkedHashSet<>();
+            for (I id : slot.ids) {
+                if (beans.map.containsKey(id)) {
+                    ids.add(id);
+                }
+            }
+            assigned.addAll(slot.ids);
+            boolean removed = ids.size() < slot.ids.size();
+            changed |= removed;
+            if (!ids.isEmpty()) {
+                if (removed || !Collections.disjoint(ids, accessed)) {
+                    modified.set(members.size());
+                }
+                members.add(ids);
+                previous.add(slot);
+            }
+        }
+        for (I id : beans.map.keySet()) {
+            if (!assigned.contains(id)) {
+                modified.set(members.size());
+                members.add(new LinkedHashSet<>(Collections.singleton(id)));
+                previous.add(null);
+            }
+        }
+
+        SlotTracker tracker = new SlotTracker(members.size(), beans.map.keySet());
+        if (!modified.isEmpty()) {
+            for (int i = modified.nextClearBit(0); i < members.size(); i = modified.nextClearBit(i + 1)) {
+                Set<Object> reachable = previous.get(i).reachable;
+                if (reachable != null) {
+                    tracker.reached(i, reachable);
+                } else {
+                    // The objects reachable from the beans of this slot are unknown, since it was never marshalled by this member
+                    modified.set(i);
+                }
+            }
+        }
+
+        MarshallingContext context = this.context;
+        int version = context.getCurrentVersion();
+        ByteBuffer[] results = new ByteBuffer[members.size()];
+        if (!modified.isEmpty()) {
+            Marshaller marshaller = context.createMarshaller(version, tracker);
+            try {
+                for (int i = modified.nextSetBit(0); i >= 0; i = modified.nextSetBit(i + 1)) {
+                    results[i] = this.write(context, version, marshaller, members.get(i), tracker, i);
+                }
+            } finally {
+                marshaller.close();
+            }
+        }
+
+        List<Slot<I>> slots = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); ++i) {
+            if (tracker.find(i) != i) continue;
+            Set<I> ids = members.get(i);
+            Set<Object> reachable = tracker.getReachable(i);
+            boolean merged = false;
+            for (int j = i + 1; j < members.size(); ++j) {
+                if (tracker.find(j) == i) {
+                    if (!merged) {
+                        reachable = newIdentitySet(reachable);
+                    }
+                    ids.addAll(members.get(j));
+                    reachable.addAll(tracker.getReachable(j));
+                    merged = true;
+                }
+            }
+            if (merged) {
+                // Beans that share references must be marshalled within the same stream
+                Marshaller marshaller = context.createMarshaller(version);
+                ByteBuffer bytes;
+                try {
+                    bytes = this.write(context, version, marshaller, ids, null, i);
+                } catch (IOException | RuntimeException e) {
+                    marshaller.close();
+                    throw e;
+                }
+                context.release(version, marshaller);
+                slots.add(new Slot<>(bytes, ids, retain(reachable)));
+                changed = true;
+            } else if (modified.get(i)) {
+                Slot<I> slot = previous.get(i);
+                // Beans that were only read will typically marshal to the same bytes
+                changed |= (slot == null) || !slot.bytes.equals(results[i]);
+                slots.add(new Slot<>(results[i], ids, retain(reachable)));
+            } else {
+                slots.add(previous.get(i));
+            }
+        }
+        this.slots = slots;
+        this.accessed.removeAll(accessed);
+        this.dirty |= changed;
+        return changed;
+    }
+
+    private ByteBuffer write(MarshallingContext context, int version, Marshaller marshaller, Collection<I> ids, SlotTracker tracker, int slot) throws IOException {
+        Map<I, T> beans = this.beans.map;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ClassLoader loader = setThreadContextClassLoader(context.getClassLoader());
+        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
+            IndexSerializer.VARIABLE.writeInt(data, version);
+            marshaller.start(data);
+            marshaller.writeInt(ids.size());
+            for (I id : ids) {
+                marshaller.writeObject(id);
+                if (tracker != null) {
+                    tracker.slot = slot;
+                }
+                try {
+                    marshaller.writeObject(beans.get(id));
+                } finally {
+                    if (tracker != null) {
+                        tracker.slot = SlotTracker.NONE;
+                    }
+                }
+            }
+            marshaller.finish();
+            // The next stream must not refer to the instances or classes of this stream
+            marshaller.clearClassCache();
+        } finally {
+            setThreadContextClassLoader(loader);
+        }
+        return ByteBuffer.wrap(output.toByteArray());
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        ByteBuffer map = this.getMarshalledMap();
+        if (map != null) {
+            // A negative size indicates a map of beans, rather than slots
+            out.writeInt(-1);
+            out.writeInt(map.remaining());
+            out.write(map.array(), map.arrayOffset() + map.position(), map.remaining());
+            return;
+        }
+        List<ByteBuffer> slots = this.getSlots();
+        out.writeInt(slots.size());
+        for (ByteBuffer bytes : slots) {
+            out.writeInt(bytes.remaining());
+            out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int size = in.readInt();
+        if (size < 0) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            this.map = ByteBuffer.wrap(bytes);
+            size = 0;
+        }
+        List<ByteBuffer> slots = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            slots.add(ByteBuffer.wrap(bytes));
+        }
+        this.setSlots(slots);
+        this.accessed = ConcurrentHashMap.newKeySet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <I, T> Map<I, T> readMap(MarshallingContext context, ByteBuffer bytes) throws IOException, ClassNotFoundException {
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        ClassLoader loader = setThreadContextClassLoader(context.getClassLoader());
+        try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
+            int version = IndexSerializer.VARIABLE.readInt(data);
+            try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
+                unmarshaller.start(data);
+                Map<I, T> map = (Map<I, T>) unmarshaller.readObject();
+                unmarshaller.finish();
+                return map;
+            }
+        } finally {
+            setThreadContextClassLoader(loader);
+        }
+    }
+
+    private static ClassLoader setThreadContextClassLoader(ClassLoader loader) {
+        return (loader != null) ? WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader) : null;
+    }
+
+    /**
+     * Returns the specified reachable objects, if few enough to retain, otherwise null.
+     */
+    private static Set<Object> retain(Set<Object> reachable) {
+        return (reachable.size() <= MAX_REACHABLE_OBJECTS) ? reachable : null;
+    }
+
+    static Set<Object> newIdentitySet(Set<Object> objects) {
+        Set<Object> result = Collections.newSetFromMap(new IdentityHashMap<>(objects.size()));
+        result.addAll(objects);
+        return result;
+    }
+
+    /**
+     * A marshalled stream of one or more beans.
+     */
+    private static class Slot<I> {
+        final ByteBuffer bytes;
+        // The identifiers of the beans of this slot, or null if not yet unmarshalled
+        Set<I> ids;
+        // The mutable objects reachable from the beans of this slot when marshalled, or null if not marshalled by this member
+        final Set<Object> reachable;
+
+        Slot(ByteBuffer bytes, Set<I> ids, Set<Object> reachable) {
+            this.bytes = bytes;
+            this.ids = ids;
+            this.reachable = reachable;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> void read(MarshallingContext context, Map<I, T> beans) throws IOException, ClassNotFoundException {
+            ByteBuffer bytes = this.bytes;
+            ByteArrayInputStream input = new ByteArrayInputStream(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            ClassLoader loader = setThreadContextClassLoader(context.getClassLoader());
+            try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
+                int version = IndexSerializer.VARIABLE.readInt(data);
+                try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
+                    unmarshaller.start(data);
+                    int size = unmarshaller.readInt();
+                    Set<I> ids = new LinkedHashSet<>();
+                    for (int i = 0; i < size; ++i) {
+                        I id = (I) unmarshaller.readObject();
+                        beans.put(id, (T) unmarshaller.readObject());
+                        ids.add(id);
+                    }
+                    unmarshaller.finish();
+                    this.ids = ids;
+                }
+            } finally {
+                setThreadContextClassLoader(loader);
+            }
+        }
+    }
+
+    /**
+     * Visits the objects written by a marshaller, joining any slots whose beans share a mutable object.
+     */
+    private static class SlotTracker implements Consumer<Object> {
+        static final int NONE = -1;
+
+        private final Map<Object, Integer> owners = new IdentityHashMap<>();
+        private final Set<Class<?>> identifierClasses = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final int[] parents;
+        private final List<Set<Object>> reachable;
+        // The slot of the bean currently being written
+        int slot = NONE;
+
+        SlotTracker(int slots, Set<?> ids) {
+            this.parents = new int[slots];
+            this.reachable = new ArrayList<>(slots);
+            for (int i = 0; i < slots; ++i) {
+                this.parents[i] = i;
+                this.reachable.add(Collections.newSetFromMap(new IdentityHashMap<>()));
+            }
+            for (Object id : ids) {
+                this.identifierClasses.add(id.getClass());
+            }
+        }
+
+        /**
+         * Records the objects reached by a slot that is not marshalled again.
+         */
+        void reached(int slot, Set<Object> objects) {
+            for (Object object : objects) {
+                this.owners.putIfAbsent(object, slot);
+            }
+            this.reachable.set(slot, objects);
+        }
+
+        /**
+         * Returns the mutable objects reached by the specified slot.
+         */
+        Set<Object> getReachable(int slot) {
+            return this.reachable.get(slot);
+        }
+
+        @Override
+        public void accept(Object object) {
+            int slot = this.slot;
+            // Identifiers, e.g. those referenced by the proxies of other beans, are immutable
+            if ((slot == NONE) || this.identifierClasses.contains(object.getClass()) || Immutability.INSTANCE.test(object)) return;
+            this.reachable.get(slot).add(object);
+            Integer owner = this.owners.putIfAbsent(object, slot);
+            if ((owner != null) && (owner != slot)) {
+                int root1 = this.find(owner);
+                int root2 = this.find(slot);
+                if (root1 != root2) {
+                    this.parents[Math.max(root1, root2)] = Math.min(root1, root2);
+                }
+            }
+        }
+
+        /**
+         * Returns the first of the slots joined with the specified slot.
+         */
+        int find(int slot) {
+            int result = slot;
+            while (this.parents[result] != result) {
+                result = this.parents[result];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Exposes the beans of this group, recording which beans were accessed.
+     */
+    private class BeanMap extends AbstractMap<I, T> {
+        final Map<I, T> map;
+
+        BeanMap(Map<I, T> map) {
+            this.map = map;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(Object id) {
+            T bean = this.map.get(id);
+            if (bean != null) {
+                MarshalledBeans.this.accessed.add((I) id);
+            }
+            return bean;
+        }
+
+        @Override
+        public T put(I id, T bean) {
+            MarshalledBeans.this.accessed.add(id);
+            return this.map.put(id, bean);
+        }
+
+        @Override
+        public T remove(Object id) {
+            return this.map.remove(id);
+        }
+
+        @Override
+        public boolean containsKey(Object id) {
+            return this.map.containsKey(id);
+        }
+
+        @Override
+        public Set<I> keySet() {
+            return this.map.keySet();
+        }
+
+        @Override
+        public Set<Map.Entry<I, T>> entrySet() {
+            return this.map.entrySet();
+        }
+    }
+}
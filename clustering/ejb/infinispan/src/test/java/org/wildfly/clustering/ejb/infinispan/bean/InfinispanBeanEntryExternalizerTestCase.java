@@ -22,13 +22,19 @@
 
 package org.wildfly.clustering.ejb.infinispan.bean;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
 import java.util.UUID;
 
 import org.jboss.ejb.client.SessionID;
 import org.jboss.ejb.client.UUIDSessionID;
 import org.junit.Assert;
 import org.junit.Test;
+import org.wildfly.clustering.ejb.infinispan.SessionIDSerializer;
 import org.wildfly.clustering.marshalling.ExternalizerTester;
 
 /**
@@ -41,10 +47,45 @@ public class InfinispanBeanEntryExternalizerTestCase {
     public void test() throws ClassNotFoundException, IOException {
         InfinispanBeanEntry<SessionID> entry = new InfinispanBeanEntry<>("StatefulBean", new UUIDSessionID(UUID.randomUUID()));
         new ExternalizerTester<>(new InfinispanBeanEntryExternalizer(), InfinispanBeanEntryExternalizerTestCase::assertEquals).test(entry);
+
+        entry.setLastAccessedTime(new Date());
+        new ExternalizerTester<>(new InfinispanBeanEntryExternalizer(), InfinispanBeanEntryExternalizerTestCase::assertEquals).test(entry);
+    }
+
+    /**
+     * Verifies that entries written in the previous format, i.e. without a format version, are still readable.
+     */
+    @Test
+    public void legacy() throws ClassNotFoundException, IOException {
+        InfinispanBeanEntry<SessionID> entry = new InfinispanBeanEntry<>("StatefulBean", new UUIDSessionID(UUID.randomUUID()));
+        entry.setLastAccessedTime(new Date());
+        assertEquals(entry, readLegacy(entry));
+
+        // A bean name long enough for its length to start with a non-zero byte
+        StringBuilder name = new StringBuilder();
+        while (name.length() < 300) {
+            name.append("StatefulBean");
+        }
+        entry = new InfinispanBeanEntry<>(name.toString(), new UUIDSessionID(UUID.randomUUID()));
+        assertEquals(entry, readLegacy(entry));
+    }
+
+    private static InfinispanBeanEntry<SessionID> readLegacy(InfinispanBeanEntry<SessionID> entry) throws ClassNotFoundException, IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeUTF(entry.getBeanName());
+            SessionIDSerializer.INSTANCE.write(output, entry.getGroupId());
+            Date lastAccessedTime = entry.getLastAccessedTime();
+            output.writeLong((lastAccessedTime != null) ? lastAccessedTime.getTime() : 0);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return new InfinispanBeanEntryExternalizer().readObject(input);
+        }
     }
 
     static void assertEquals(InfinispanBeanEntry<SessionID> entry1, InfinispanBeanEntry<SessionID> entry2) {
         Assert.assertEquals(entry1.getBeanName(), entry2.getBeanName());
         Assert.assertEquals(entry1.getGroupId(), entry2.getGroupId());
+        Assert.assertEquals(entry1.getLastAccessedTime(), entry2.getLastAccessedTime());
     }
 }
@@ -22,8 +22,12 @@
 
 package org.wildfly.clustering.ejb.infinispan.group;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Collections;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -38,6 +42,7 @@ import org.wildfly.clustering.marshalling.ExternalizerTester;
 import org.wildfly.clustering.marshalling.jboss.MarshallingConfigurationRepository;
 import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
 import org.wildfly.clustering.marshalling.jboss.SimpleMarshalledValue;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshalledValueExternalizer;
 import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingConfigurationRepository;
 import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingContext;
 
@@ -54,11 +59,58 @@ public class InfinispanBeanGroupEntryExternalizerTestCase {
     @Test
     public void test() throws ClassNotFoundException, IOException {
         SessionID id = new UUIDSessionID(UUID.randomUUID());
-        Map<SessionID, String> beans = Collections.singletonMap(id, "bean");
-        InfinispanBeanGroupEntry<SessionID, String> entry = new InfinispanBeanGroupEntry<>(new SimpleMarshalledValue<>(beans, context));
+        InfinispanBeanGroupEntry<SessionID, String> entry = new InfinispanBeanGroupEntry<>(new MarshalledBeans<>(context));
+        entry.getBeans().get(context).put(id, "bean");
         new ExternalizerTester<>(new InfinispanBeanGroupEntryExternalizer<>(), InfinispanBeanGroupEntryExternalizerTestCase::assertEquals).test(entry);
     }
 
+    /**
+     * Verifies that entries written in the previous format, i.e. as a single marshalled map of beans, are still readable.
+     */
+    @Test
+    public void legacy() throws ClassNotFoundException, IOException {
+        InfinispanBeanGroupEntryExternalizer<SessionID, String> externalizer = new InfinispanBeanGroupEntryExternalizer<>();
+        Map<SessionID, String> beans = new HashMap<>();
+        Assert.assertEquals(beans, read(externalizer, writeLegacy(beans)).getBeans().get(context));
+
+        // Enough beans for the size of the marshalled map to span multiple bytes
+        for (int i = 0; i < 20; ++i) {
+            beans.put(new UUIDSessionID(UUID.randomUUID()), "bean" + i);
+        }
+        byte[] bytes = writeLegacy(beans);
+        InfinispanBeanGroupEntry<SessionID, String> entry = read(externalizer, bytes);
+
+        // Entries whose beans were not unmarshalled are written as read
+        Assert.assertArrayEquals(bytes, write(externalizer, entry));
+
+        // Entries whose beans were unmarshalled are written in the current format
+        Assert.assertEquals(beans, entry.getBeans().get(context));
+        Assert.assertNull(entry.getBeans().getMarshalledMap());
+        new ExternalizerTester<>(externalizer, InfinispanBeanGroupEntryExternalizerTestCase::assertEquals).test(entry);
+    }
+
+    private static byte[] writeLegacy(Map<SessionID, String> beans) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            new SimpleMarshalledValueExternalizer<Map<SessionID, String>>().writeObject(output, new SimpleMarshalledValue<>(beans, context));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] write(InfinispanBeanGroupEntryExternalizer<SessionID, String> externalizer, InfinispanBeanGroupEntry<SessionID, String> entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            externalizer.writeObject(output, entry);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static InfinispanBeanGroupEntry<SessionID, String> read(InfinispanBeanGroupEntryExternalizer<SessionID, String> externalizer, byte[] bytes) throws ClassNotFoundException, IOException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return externalizer.readObject(input);
+        }
+    }
+
     static void assertEquals(InfinispanBeanGroupEntry<SessionID, String> entry1, InfinispanBeanGroupEntry<SessionID, String> entry2) {
         try {
             Assert.assertEquals(entry1.getBeans().get(context), entry2.getBeans().get(context));
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ejb.infinispan.group;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.ejb.client.SessionID;
+import org.jboss.ejb.client.UUIDSessionID;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.marshalling.jboss.MarshallingConfigurationRepository;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingConfigurationRepository;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingContext;
+
+/**
+ * Unit test for {@link MarshalledBeans}.
+ */
+public class MarshalledBeansTestCase {
+
+    private static final MarshallerFactory factory = Marshalling.getMarshallerFactory("river", MarshalledBeansTestCase.class.getClassLoader());
+    private static final MarshallingConfigurationRepository repository = new SimpleMarshallingConfigurationRepository(new MarshallingConfiguration());
+    private static final MarshallingContext context = new SimpleMarshallingContext(factory, repository, MarshalledBeansTestCase.class.getClassLoader());
+
+    @Test
+    public void test() throws ClassNotFoundException, IOException {
+        SessionID id1 = new UUIDSessionID(UUID.randomUUID());
+        SessionID id2 = new UUIDSessionID(UUID.randomUUID());
+        SessionID id3 = new UUIDSessionID(UUID.randomUUID());
+        AtomicInteger shared = new AtomicInteger();
+
+        MarshalledBeans<SessionID, List<AtomicInteger>> value = new MarshalledBeans<>(context);
+        Map<SessionID, List<AtomicInteger>> beans = value.get(context);
+        beans.put(id1, new ArrayList<>(Collections.singletonList(shared)));
+        beans.put(id2, new ArrayList<>(Collections.singletonList(shared)));
+        beans.put(id3, new ArrayList<>(Collections.singletonList(new AtomicInteger())));
+
+        Assert.assertTrue(value.marshal());
+        // Beans sharing a mutable object occupy the same slot
+        Assert.assertEquals(2, value.getSlots().size());
+        Assert.assertFalse(value.marshal());
+
+        // Reading a bean without modifying it does not change the marshalled form
+        beans.get(id3);
+        Assert.assertFalse(value.marshal());
+
+        beans.get(id3).get(0).incrementAndGet();
+        Assert.assertTrue(value.marshal());
+
+        MarshalledBeans<SessionID, List<AtomicInteger>> copy = new MarshalledBeans<>(value.getSlots());
+        Map<SessionID, List<AtomicInteger>> result = copy.get(context);
+        Assert.assertEquals(3, result.size());
+        Assert.assertSame(result.get(id1).get(0), result.get(id2).get(0));
+        Assert.assertNotSame(result.get(id1).get(0), result.get(id3).get(0));
+        Assert.assertEquals(1, result.get(id3).get(0).get());
+
+        // Sharing established after the beans were marshalled joins their slots
+        result.get(id3).add(result.get(id1).get(0));
+        result.get(id1);
+        Assert.assertTrue(copy.marshal());
+        Assert.assertEquals(1, copy.getSlots().size());
+
+        beans.remove(id3);
+        Assert.assertTrue(value.marshal());
+        Assert.assertEquals(1, value.getSlots().size());
+        Assert.assertFalse(value.marshal());
+    }
+
+    /**
+     * An object passed by reference to a bean, and later to another bean, joins their slots, even if the first bean was
+     * not accessed since.
+     */
+    @Test
+    public void sharedAcrossPasses() throws ClassNotFoundException, IOException {
+        SessionID id1 = new UUIDSessionID(UUID.randomUUID());
+        SessionID id2 = new UUIDSessionID(UUID.randomUUID());
+        SessionID id3 = new UUIDSessionID(UUID.randomUUID());
+        AtomicInteger shared = new AtomicInteger();
+
+        MarshalledBeans<SessionID, List<AtomicInteger>> value = new MarshalledBeans<>(context);
+        Map<SessionID, List<AtomicInteger>> beans = value.get(context);
+        beans.put(id1, new ArrayList<>());
+        beans.put(id2, new ArrayList<>());
+        beans.put(id3, new ArrayList<>());
+        Assert.assertTrue(value.marshal());
+        Assert.assertEquals(3, value.getSlots().size());
+
+        beans.get(id2).add(shared);
+        Assert.assertTrue(value.marshal());
+        Assert.assertEquals(3, value.getSlots().size());
+
+        beans.get(id1).add(shared);
+        Assert.assertTrue(value.marshal());
+        Assert.assertEquals(2, value.getSlots().size());
+
+        MarshalledBeans<SessionID, List<AtomicInteger>> copy = new MarshalledBeans<>(value.getSlots());
+        Map<SessionID, List<AtomicInteger>> result = copy.get(context);
+        Assert.assertFalse(copy.marshal());
+
+        // The other slots of a group unmarshalled by this member are marshalled again to find their objects,
+        // which does not change their marshalled form
+        result.get(id3);
+        Assert.assertFalse(copy.marshal());
+        Assert.assertEquals(2, copy.getSlots().size());
+
+        Assert.assertSame(result.get(id1).get(0), result.get(id2).get(0));
+        result.get(id3).add(result.get(id1).get(0));
+        Assert.assertTrue(copy.marshal());
+        Assert.assertEquals(1, copy.getSlots().size());
+    }
+
+    /**
+     * A slot that reached too many objects to retain them still joins the slot of a bean that later shares one of them.
+     */
+    @Test
+    public void sharedWithoutRetainedObjects() throws ClassNotFoundException, IOException {
+        SessionID id1 = new UUIDSessionID(UUID.randomUUID());
+        SessionID id2 = new UUIDSessionID(UUID.randomUUID());
+        AtomicInteger shared = new AtomicInteger();
+
+        MarshalledBeans<SessionID, List<AtomicInteger>> value = new MarshalledBeans<>(context);
+        Map<SessionID, List<AtomicInteger>> beans = value.get(context);
+        List<AtomicInteger> objects = new ArrayList<>();
+        for (int i = 0; i < MarshalledBeans.MAX_REACHABLE_OBJECTS; ++i) {
+            objects.add(new AtomicInteger());
+        }
+        objects.add(shared);
+        beans.put(id1, objects);
+        beans.put(id2, new ArrayList<>());
+        Assert.assertTrue(value.marshal());
+        Assert.assertEquals(2, value.getSlots().size());
+
+        beans.get(id2).add(shared);
+        Assert.assertTrue(value.marshal());
+        Assert.assertEquals(1, value.getSlots().size());
+    }
+
+    /**
+     * Changes are committed, even if marshalled beforehand, e.g. to write the group to a cache store, or to transfer it.
+     */
+    @Test
+    public void commit() throws ClassNotFoundException, IOException {
+        SessionID id = new UUIDSessionID(UUID.randomUUID());
+        MarshalledBeans<SessionID, List<AtomicInteger>> value = new MarshalledBeans<>(context);
+        Map<SessionID, List<AtomicInteger>> beans = value.get(context);
+        beans.put(id, new ArrayList<>(Collections.singletonList(new AtomicInteger())));
+        Assert.assertTrue(value.commit());
+        Assert.assertFalse(value.commit());
+
+        AtomicInteger mutations = new AtomicInteger();
+        Mutator mutator = new MarshalledBeansMutator(value, mutations::incrementAndGet);
+
+        beans.get(id).get(0).incrementAndGet();
+        value.getSlots();
+        Assert.assertFalse(value.marshal());
+        mutator.mutate();
+        Assert.assertEquals(1, mutations.get());
+
+        // Reading a bean without modifying it does not mutate the group
+        beans.get(id);
+        value.getSlots();
+        mutator.mutate();
+        Assert.assertEquals(1, mutations.get());
+    }
+}
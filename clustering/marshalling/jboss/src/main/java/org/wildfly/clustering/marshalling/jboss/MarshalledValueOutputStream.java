@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling.jboss;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Output stream for the serialized form of a marshalled value, whose content can be handed off without copying.
+ */
+public class MarshalledValueOutputStream extends ByteArrayOutputStream {
+
+    public MarshalledValueOutputStream(int size) {
+        super(size);
+    }
+
+    /**
+     * Returns the content of this stream.
+     * The internal buffer is shared if its unused capacity is small, otherwise its content is copied into a buffer of exact size.
+     * @return a buffer backed by an array
+     */
+    public synchronized ByteBuffer getBuffer() {
+        return (this.buf.length - this.count <= this.count >>> 3) ? ByteBuffer.wrap(this.buf, 0, this.count) : ByteBuffer.wrap(Arrays.copyOf(this.buf, this.count));
+    }
+}
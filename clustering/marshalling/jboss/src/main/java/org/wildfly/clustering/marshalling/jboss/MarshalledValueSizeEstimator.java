@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling.jboss;
+
+/**
+ * Maintains a running estimate of the marshalled size of the objects of a given class.
+ * Estimates are associated with the class itself, so they do not prevent a class from being unloaded.
+ */
+class MarshalledValueSizeEstimator {
+
+    private static final int INITIAL_SIZE = 64;
+    private static final ClassValue<MarshalledValueSizeEstimator> ESTIMATORS = new ClassValue<MarshalledValueSizeEstimator>() {
+        @Override
+        protected MarshalledValueSizeEstimator computeValue(Class<?> targetClass) {
+            return new MarshalledValueSizeEstimator();
+        }
+    };
+
+    static MarshalledValueSizeEstimator forClass(Class<?> targetClass) {
+        return ESTIMATORS.get(targetClass);
+    }
+
+    // Races between concurrent updates are benign, since this is only an estimate
+    private volatile int size = INITIAL_SIZE;
+
+    /**
+     * Returns a buffer size likely to fit the marshalled form of the next object, leaving some headroom for variance.
+     * @return a buffer size
+     */
+    int getEstimatedSize() {
+        int size = this.size;
+        return size + (size >>> 4);
+    }
+
+    /**
+     * Records the marshalled size of an object, weighted against prior sizes.
+     * @param size the number of bytes written
+     */
+    void update(int size) {
+        int current = this.size;
+        // Grow immediately, to avoid repeated buffer expansion, but shrink gradually
+        this.size = (size > current) ? size : current - ((current - size) >>> 2);
+    }
+}
@@ -22,6 +22,7 @@
 package org.wildfly.clustering.marshalling.jboss;
 
 import java.io.IOException;
+import java.util.function.Consumer;
 
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.Unmarshaller;
@@ -40,4 +41,28 @@ public interface MarshallingContext extends Marshallability {
     Unmarshaller createUnmarshaller(int version) throws IOException;
 
     Marshaller createMarshaller(int version) throws IOException;
+
+    /**
+     * Creates a marshaller that passes each distinct object it writes to the specified visitor, e.g. to determine which objects are reachable from those written to a stream.
+     * The marshalled form is the same as that of {@link #createMarshaller(int)}.
+     * Such a marshaller must not be {@link #release(int, Marshaller) released} for reuse by this context.
+     * @param version a marshalling version
+     * @param visitor a visitor of marshalled objects
+     * @return a marshaller
+     * @throws IOException if the marshaller could not be created
+     * @throws UnsupportedOperationException if this context does not support visiting marshallers
+     */
+    default Marshaller createMarshaller(int version, Consumer<Object> visitor) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a finished marshaller, created via {@link #createMarshaller(int)}, to this context so that it may be reused.
+     * @param version the version with which the marshaller was created
+     * @param marshaller a finished marshaller
+     * @throws IOException if the marshaller could not be released
+     */
+    default void release(int version, Marshaller marshaller) throws IOException {
+        marshaller.close();
+    }
 }
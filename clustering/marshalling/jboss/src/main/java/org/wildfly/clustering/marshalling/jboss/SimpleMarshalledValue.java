@@ -23,11 +23,10 @@
 package org.wildfly.clustering.marshalling.jboss;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.Marshalling;
@@ -48,14 +47,14 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     private transient volatile MarshallingContext context;
     private transient volatile T object;
-    private transient volatile byte[] bytes;
+    private transient volatile ByteBuffer bytes;
 
     public SimpleMarshalledValue(T object, MarshallingContext context) {
         this.context = context;
         this.object = object;
     }
 
-    SimpleMarshalledValue(byte[] bytes) {
+    SimpleMarshalledValue(ByteBuffer bytes) {
         this.bytes = bytes;
     }
 
@@ -64,24 +63,38 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         return this.object;
     }
 
-    byte[] getBytes() throws IOException {
-        byte[] bytes = this.bytes;
+    /**
+     * Returns the serialized form of this value, marshalling its object if necessary.
+     * The returned buffer is backed by an array, whose readable content spans from its position to its limit.
+     * @return a buffer, or null if this value has no object
+     */
+    ByteBuffer getBytes() throws IOException {
+        ByteBuffer bytes = this.bytes;
         if (bytes != null) return bytes;
-        if (this.object == null) return null;
-        int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+        T object = this.object;
+        if (object == null) return null;
+        MarshallingContext context = this.context;
+        int version = context.getCurrentVersion();
+        MarshalledValueSizeEstimator estimator = MarshalledValueSizeEstimator.forClass(object.getClass());
+        MarshalledValueOutputStream output = new MarshalledValueOutputStream(estimator.getEstimatedSize());
+        ClassLoader loader = setThreadContextClassLoader(context.getClassLoader());
         try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
             IndexSerializer.VARIABLE.writeInt(data, version);
-            try (Marshaller marshaller = this.context.createMarshaller(version)) {
+            Marshaller marshaller = context.createMarshaller(version);
+            try {
                 marshaller.start(data);
-                marshaller.writeObject(this.object);
+                marshaller.writeObject(object);
                 marshaller.finish();
-                return output.toByteArray();
+            } catch (IOException | RuntimeException e) {
+                marshaller.close();
+                throw e;
             }
+            context.release(version, marshaller);
         } finally {
             setThreadContextClassLoader(loader);
         }
+        estimator.update(output.size());
+        return output.getBuffer();
     }
 
     /**
@@ -94,7 +107,8 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         if (this.object == null) {
             this.context = context;
             if (this.bytes != null) {
-                ByteArrayInputStream input = new ByteArrayInputStream(this.bytes);
+                ByteBuffer bytes = this.bytes;
+                ByteArrayInputStream input = new ByteArrayInputStream(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
                 ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
                 try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
                     int version = IndexSerializer.VARIABLE.readInt(data);
@@ -132,9 +146,9 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
             return this.object.equals(value.object);
         }
         try {
-            byte[] us = this.getBytes();
-            byte[] them = value.getBytes();
-            return ((us != null) && (them != null)) ? Arrays.equals(us, them) : (us == them);
+            ByteBuffer us = this.getBytes();
+            ByteBuffer them = value.getBytes();
+            return ((us != null) && (them != null)) ? us.equals(them) : (us == them);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -143,16 +157,16 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
     @Override
     public String toString() {
         if (this.object != null) return this.object.toString();
-        byte[] bytes = this.bytes;
+        ByteBuffer bytes = this.bytes;
         return (bytes != null) ? bytes.toString() : null;
     }
 
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
-        byte[] bytes = this.getBytes();
+        ByteBuffer bytes = this.getBytes();
         if (bytes != null) {
-            out.writeInt(bytes.length);
-            out.write(bytes);
+            out.writeInt(bytes.remaining());
+            out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
         } else {
             out.writeInt(0);
         }
@@ -161,10 +175,11 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         int size = in.readInt();
-        byte[] bytes = null;
+        ByteBuffer bytes = null;
         if (size > 0) {
-            bytes = new byte[size];
-            in.readFully(bytes);
+            byte[] array = new byte[size];
+            in.readFully(array);
+            bytes = ByteBuffer.wrap(array);
         }
         this.bytes = bytes;
     }
@@ -25,6 +25,7 @@ package org.wildfly.clustering.marshalling.jboss;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
 
 import org.kohsuke.MetaInfServices;
 import org.wildfly.clustering.marshalling.Externalizer;
@@ -43,15 +44,16 @@ public class SimpleMarshalledValueExternalizer<T> implements Externalizer<Simple
         if (bytes != null) {
             input.readFully(bytes);
         }
-        return new SimpleMarshalledValue<>(bytes);
+        return new SimpleMarshalledValue<>((bytes != null) ? ByteBuffer.wrap(bytes) : null);
     }
 
     @Override
     public void writeObject(ObjectOutput output, SimpleMarshalledValue<T> object) throws IOException {
-        byte[] bytes = object.getBytes();
-        IndexSerializer.VARIABLE.writeInt(output, (bytes != null) ? bytes.length : 0);
+        ByteBuffer bytes = object.getBytes();
+        IndexSerializer.VARIABLE.writeInt(output, (bytes != null) ? bytes.remaining() : 0);
         if (bytes != null) {
-            output.write(bytes);
+            // Writes directly from the backing array, avoiding a copy
+            output.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
         }
     }
 
@@ -24,6 +24,11 @@ package org.wildfly.clustering.marshalling.jboss;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.jboss.marshalling.ClassExternalizerFactory;
 import org.jboss.marshalling.Marshaller;
@@ -34,13 +39,17 @@ import org.jboss.marshalling.SerializabilityChecker;
 import org.jboss.marshalling.Unmarshaller;
 
 /**
+ * Marshalling context that retains a bounded number of released marshallers per version for reuse.
  * @author Paul Ferraro
  */
 public class SimpleMarshallingContext implements MarshallingContext {
 
+    private static final int MAX_IDLE_MARSHALLERS = Runtime.getRuntime().availableProcessors();
+
     private final MarshallerFactory factory;
     private final MarshallingConfigurationRepository repository;
     private final WeakReference<ClassLoader> loader;
+    private final Map<Integer, Queue<Marshaller>> idleMarshallers = new ConcurrentHashMap<>();
 
     public SimpleMarshallingContext(MarshallerFactory factory, MarshallingConfigurationRepository repository, ClassLoader loader) {
         this.factory = factory;
@@ -65,7 +74,25 @@ public class SimpleMarshallingContext implements MarshallingContext {
 
     @Override
     public Marshaller createMarshaller(int version) throws IOException {
-        return this.factory.createMarshaller(this.getMarshallingConfiguration(version));
+        Queue<Marshaller> marshallers = this.idleMarshallers.get(version);
+        Marshaller marshaller = (marshallers != null) ? marshallers.poll() : null;
+        return (marshaller != null) ? marshaller : this.factory.createMarshaller(this.getMarshallingConfiguration(version));
+    }
+
+    @Override
+    public Marshaller createMarshaller(int version, Consumer<Object> visitor) throws IOException {
+        MarshallingConfiguration configuration = this.getMarshallingConfiguration(version).clone();
+        configuration.setObjectTable(new VisitingObjectTable(configuration.getObjectTable(), visitor));
+        return this.factory.createMarshaller(configuration);
+    }
+
+    @Override
+    public void release(int version, Marshaller marshaller) throws IOException {
+        // Each marshalled stream is read by a new unmarshaller, so no state may carry over to the next stream
+        marshaller.clearClassCache();
+        if (!this.idleMarshallers.computeIfAbsent(version, key -> new ArrayBlockingQueue<>(MAX_IDLE_MARSHALLERS)).offer(marshaller)) {
+            marshaller.close();
+        }
     }
 
     private MarshallingConfiguration getMarshallingConfiguration(int version) {
@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling.jboss;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.jboss.marshalling.ObjectTable;
+import org.jboss.marshalling.Unmarshaller;
+
+/**
+ * {@link ObjectTable} decorator that passes each object consulted by a marshaller to a visitor, before delegating to the decorated table, if any.
+ * Since a marshaller only consults its object table for objects not yet written to the current stream, the visitor sees each distinct object once per stream.
+ * The marshalled form is that of the decorated table.
+ */
+class VisitingObjectTable implements ObjectTable {
+
+    private final ObjectTable table;
+    private final Consumer<Object> visitor;
+
+    VisitingObjectTable(ObjectTable table, Consumer<Object> visitor) {
+        this.table = table;
+        this.visitor = visitor;
+    }
+
+    @Override
+    public Writer getObjectWriter(Object object) throws IOException {
+        this.visitor.accept(object);
+        return (this.table != null) ? this.table.getObjectWriter(object) : null;
+    }
+
+    @Override
+    public Object readObject(Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+        if (this.table == null) {
+            throw new IllegalStateException();
+        }
+        return this.table.readObject(unmarshaller);
+    }
+}
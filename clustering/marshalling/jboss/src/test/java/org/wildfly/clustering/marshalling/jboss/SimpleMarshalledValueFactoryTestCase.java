@@ -94,6 +94,19 @@ public class SimpleMarshalledValueFactoryTestCase {
         assertNull(mv.get(this.context));
     }
 
+    /**
+     * Verifies that marshallers reused across marshalled values do not carry state from one stream to the next.
+     */
+    @Test
+    public void reuse() throws Exception {
+        for (int i = 0; i < 10; ++i) {
+            UUID uuid = UUID.randomUUID();
+            SimpleMarshalledValue<UUID> copy = replicate(this.factory.createMarshalledValue(uuid));
+
+            assertEquals(uuid, copy.get(this.context));
+        }
+    }
+
     /**
      * Test method for {@link org.jboss.ha.framework.server.SimpleMarshalledValue#equals(java.lang.Object)}.
      */
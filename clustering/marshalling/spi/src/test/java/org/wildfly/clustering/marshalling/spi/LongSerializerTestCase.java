@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.marshalling.spi;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LongSerializer}.
+ */
+public class LongSerializerTestCase {
+
+    @Test
+    public void test() throws IOException {
+        // Test marshalling of incrementing powers of 2
+        for (int i = 0; i < Long.SIZE - 2; ++i) {
+            long value = 2L << i;
+            test(value - 1);
+            test(value);
+        }
+        test(Long.MAX_VALUE);
+        test(-1L);
+        test(Long.MIN_VALUE);
+
+        // Current epoch milliseconds fit within 6 bytes
+        assertEquals(6, size(LongSerializer.VARIABLE, System.currentTimeMillis()));
+        assertEquals(1, size(LongSerializer.VARIABLE, 0L));
+        assertEquals(10, size(LongSerializer.VARIABLE, -1L));
+    }
+
+    private static void test(long value) throws IOException {
+        assertEquals(Long.BYTES, size(new LongSerializer() {}, value));
+        assertTrue(size(LongSerializer.VARIABLE, value) <= (((value >>> 56) == 0) ? Long.BYTES : Long.BYTES + 2));
+    }
+
+    private static int size(LongSerializer serializer, long value) throws IOException {
+        ByteArrayOutputStream externalizedOutput = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(externalizedOutput)) {
+            serializer.writeLong(output, value);
+        }
+
+        byte[] externalizedBytes = externalizedOutput.toByteArray();
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(externalizedBytes))) {
+            assertEquals(value, serializer.readLong(input));
+        }
+
+        return externalizedBytes.length;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandDispatcherException;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Decorates a command dispatcher such that commands submitted via {@link #executeOnNodeAsync(Command, Node)} to the same node
+ * within a short window are coalesced into a single {@link CommandBatch}, and thus a single message.
+ * All other operations are delegated to the decorated dispatcher as is.
+ * @param <C> command execution context
+ */
+public class BatchingCommandDispatcher<C> implements CommandDispatcher<C> {
+
+    private final CommandDispatcher<C> dispatcher;
+    private final ScheduledExecutorService executor;
+    private final long window;
+    private final int maxBatchSize;
+    private final Map<Node, PendingBatch> batches = new HashMap<>();
+
+    /**
+     * Creates a batching command dispatcher.
+     * @param dispatcher the decorated dispatcher
+     * @param executor the executor used to send batches whose window elapsed
+     * @param window the duration for which a batch collects commands, following its first command
+     * @param maxBatchSize the number of commands that triggers immediate sending of a batch
+     */
+    public BatchingCommandDispatcher(CommandDispatcher<C> dispatcher, ScheduledExecutorService executor, Duration window, int maxBatchSize) {
+        this.dispatcher = dispatcher;
+        this.executor = executor;
+        this.window = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public C getContext() {
+        return this.dispatcher.getContext();
+    }
+
+    @Override
+    public <R> CommandResponse<R> executeOnNode(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        return this.dispatcher.executeOnNode(command, node);
+    }
+
+    @Override
+    public <R> Map<Node, CommandResponse<R>> executeOnCluster(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        return this.dispatcher.executeOnCluster(command, excludedNodes);
+    }
+
+    @Override
+    public <R> Future<R> submitOnNode(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        return this.dispatcher.submitOnNode(command, node);
+    }
+
+    @Override
+    public <R> Map<Node, Future<R>> submitOnCluster(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        return this.dispatcher.submitOnCluster(command, excludedNodes);
+    }
+
+    @Override
+    public <R> CompletionStage<Map<Node, CommandResponse<R>>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        return this.dispatcher.executeOnClusterAsync(command, excludedNodes);
+    }
+
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        PendingBatch fullBatch = null;
+        synchronized (this.batches) {
+            PendingBatch batch = this.batches.get(node);
+            if (batch == null) {
+                PendingBatch newBatch = new PendingBatch(node);
+                batch = newBatch;
+                this.batches.put(node, batch);
+                try {
+                    newBatch.timeout = this.executor.schedule(() -> this.send(newBatch), this.window, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    this.batches.remove(node);
+                    throw new CommandDispatcherException(e);
+                }
+            }
+            batch.add(command, result);
+            if (batch.size() >= this.maxBatchSize) {
+                fullBatch = batch;
+            }
+        }
+        if (fullBatch != null) {
+            this.send(fullBatch);
+        }
+        return result;
+    }
+
+    private void send(PendingBatch batch) {
+        synchronized (this.batches) {
+            // Batch may have already been sent
+            if (!this.batches.remove(batch.node, batch)) return;
+            // Batch may be sent before its window elapsed
+            batch.timeout.cancel(false);
+        }
+        batch.send();
+    }
+
+    /**
+     * Sends any pending batches, then closes the decorated dispatcher.
+     */
+    @Override
+    public void close() {
+        List<PendingBatch> batches;
+        synchronized (this.batches) {
+            batches = new ArrayList<>(this.batches.values());
+            this.batches.clear();
+            for (PendingBatch batch : batches) {
+                batch.timeout.cancel(false);
+            }
+        }
+        for (PendingBatch batch : batches) {
+            batch.send();
+        }
+        this.dispatcher.close();
+    }
+
+    private class PendingBatch {
+        final Node node;
+        private final List<Command<?, ? super C>> commands = new ArrayList<>();
+        private final List<CompletableFuture<Object>> results = new ArrayList<>();
+        // Sends this batch once its window elapses, guarded by the pending batches
+        ScheduledFuture<?> timeout;
+
+        PendingBatch(Node node) {
+            this.node = node;
+        }
+
+        @SuppressWarnings("unchecked")
+        <R> void add(Command<R, ? super C> command, CompletableFuture<R> result) {
+            this.commands.add(command);
+            this.results.add((CompletableFuture<Object>) (CompletableFuture<?>) result);
+        }
+
+        int size() {
+            return this.commands.size();
+        }
+
+        void send() {
+            try {
+                if (this.commands.size() == 1) {
+                    // Nothing to coalesce
+                    CompletableFuture<Object> result = this.results.get(0);
+                    @SuppressWarnings("unchecked")
+                    Command<Object, ? super C> command = (Command<Object, ? super C>) this.commands.get(0);
+                    BatchingCommandDispatcher.this.dispatcher.executeOnNodeAsync(command, this.node).whenComplete((value, exception) -> {
+                        if (exception != null) {
+                            result.completeExceptionally(exception);
+                        } else {
+                            result.complete(value);
+                        }
+                    });
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Command<Object, ? super C> batch = (Command<Object, ? super C>) (Command<?, ? super C>) new CommandBatch<>(this.commands);
+                    BatchingCommandDispatcher.this.dispatcher.executeOnNodeAsync(batch, this.node).whenComplete(this::complete);
+                }
+            } catch (CommandDispatcherException | RuntimeException e) {
+                this.complete(null, e);
+            }
+        }
+
+        private void complete(Object value, Throwable exception) {
+            // The target node might not have returned batch results, e.g. if it has no corresponding dispatcher
+            Object[] values = (value instanceof Object[]) ? (Object[]) value : null;
+            for (int i = 0; i < this.results.size(); ++i) {
+                CompletableFuture<Object> result = this.results.get(i);
+                if (exception != null) {
+                    result.completeExceptionally(exception);
+                } else if ((values == null) || (values.length != this.results.size())) {
+                    result.completeExceptionally(new IllegalStateException());
+                } else if (values[i] instanceof ExecutionException) {
+                    result.completeExceptionally(((ExecutionException) values[i]).getCause());
+                } else {
+                    result.complete(values[i]);
+                }
+            }
+        }
+    }
+}
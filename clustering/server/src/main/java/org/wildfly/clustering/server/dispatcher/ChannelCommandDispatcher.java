@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
@@ -98,22 +99,36 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
         RequestOptions options = this.createRequestOptions(excludedNodes);
         try {
             Map<Address, Rsp<R>> responses = this.dispatcher.castMessage(null, buffer, options);
+            return this.createCommandResponses(responses);
+        } catch (Exception e) {
+            throw new CommandDispatcherException(e);
+        }
+    }
 
-            Map<Node, CommandResponse<R>> results = new HashMap<>();
-            for (Map.Entry<Address, Rsp<R>> entry: responses.entrySet()) {
-                Address address = entry.getKey();
-                Rsp<R> response = entry.getValue();
-                if (response.wasReceived() && !response.wasSuspected()) {
-                    results.put(this.group.createNode(address), createCommandResponse(response));
-                }
-            }
-
-            return results;
+    @Override
+    public <R> CompletionStage<Map<Node, CommandResponse<R>>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        Buffer buffer = this.createBuffer(command);
+        RequestOptions options = this.createRequestOptions(excludedNodes);
+        try {
+            // Broadcasts a single message, rather than a unicast per member
+            return this.dispatcher.<R>castMessageWithFuture(null, buffer, options).thenApply(this::createCommandResponses);
         } catch (Exception e) {
             throw new CommandDispatcherException(e);
         }
     }
 
+    private <R> Map<Node, CommandResponse<R>> createCommandResponses(Map<Address, Rsp<R>> responses) {
+        Map<Node, CommandResponse<R>> results = new HashMap<>();
+        for (Map.Entry<Address, Rsp<R>> entry: responses.entrySet()) {
+            Address address = entry.getKey();
+            Rsp<R> response = entry.getValue();
+            if (response.wasReceived() && !response.wasSuspected()) {
+                results.put(this.group.createNode(address), createCommandResponse(response));
+            }
+        }
+        return results;
+    }
+
     @Override
     public <R> Map<Node, Future<R>> submitOnCluster(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
         Set<Node> excluded = Stream.of(excludedNodes).collect(Collectors.toSet());
@@ -154,6 +169,21 @@ public class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
         }
     }
 
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        // Bypass MessageDispatcher if target node is local
+        if (this.isLocal(node)) {
+            return this.localDispatcher.executeOnNodeAsync(command, node);
+        }
+        Buffer buffer = this.createBuffer(command);
+        RequestOptions options = this.createRequestOptions();
+        try {
+            return this.dispatcher.sendMessageWithFuture(getAddress(node), buffer, options);
+        } catch (Exception e) {
+            throw new CommandDispatcherException(e);
+        }
+    }
+
     @Override
     public <R> Future<R> submitOnNode(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
         // Bypass MessageDispatcher if target node is local
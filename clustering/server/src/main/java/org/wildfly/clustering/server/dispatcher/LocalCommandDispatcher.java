@@ -26,6 +26,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -107,6 +109,22 @@ public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
         return results;
     }
 
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) {
+        if (!this.node.equals(node)) {
+            throw new UnreachableException((Address) null);
+        }
+        CompletableFuture<R> result = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                result.complete(command.execute(this.context));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
     @Override
     public void close() {
         PrivilegedAction<Void> action = () -> {
@@ -23,6 +23,7 @@
 package org.wildfly.clustering.server.dispatcher;
 
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 import org.wildfly.clustering.dispatcher.Command;
@@ -69,6 +70,16 @@ public class ManagedCommandDispatcher<C> implements CommandDispatcher<C> {
         return this.dispatcher.submitOnCluster(command, excludedNodes);
     }
 
+    @Override
+    public <R> CompletionStage<R> executeOnNodeAsync(Command<R, ? super C> command, Node node) throws CommandDispatcherException {
+        return this.dispatcher.executeOnNodeAsync(command, node);
+    }
+
+    @Override
+    public <R> CompletionStage<Map<Node, CommandResponse<R>>> executeOnClusterAsync(Command<R, ? super C> command, Node... excludedNodes) throws CommandDispatcherException {
+        return this.dispatcher.executeOnClusterAsync(command, excludedNodes);
+    }
+
     @Override
     public void close() {
         this.closeTask.run();
@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandDispatcherException;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Unit test for {@link BatchingCommandDispatcher}.
+ */
+public class BatchingCommandDispatcherTestCase {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void batch() throws Exception {
+        CommandDispatcher<String> dispatcher = mock(CommandDispatcher.class);
+        Node node = mock(Node.class);
+        String context = "context";
+
+        when(dispatcher.executeOnNodeAsync(any(Command.class), same(node))).thenAnswer(invocation -> {
+            Command<Object, String> command = (Command<Object, String>) invocation.getArguments()[0];
+            return CompletableFuture.completedFuture(command.execute(context));
+        });
+
+        try (CommandDispatcher<String> subject = new BatchingCommandDispatcher<>(dispatcher, this.executor, Duration.ofMinutes(1), 3)) {
+            CompletionStage<String> result1 = subject.executeOnNodeAsync(value -> value + "1", node);
+            CompletionStage<String> result2 = subject.executeOnNodeAsync(value -> {
+                throw new Exception(value);
+            }, node);
+
+            verify(dispatcher, never()).executeOnNodeAsync(any(Command.class), any(Node.class));
+
+            // Reaching the maximum batch size sends all 3 commands in a single batch
+            CompletionStage<String> result3 = subject.executeOnNodeAsync(value -> value + "3", node);
+
+            verify(dispatcher).executeOnNodeAsync(any(CommandBatch.class), same(node));
+
+            assertEquals("context1", result1.toCompletableFuture().get());
+            try {
+                result2.toCompletableFuture().get();
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals(context, e.getCause().getMessage());
+            }
+            assertEquals("context3", result3.toCompletableFuture().get());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void cancelWindow() throws Exception {
+        CommandDispatcher<String> dispatcher = mock(CommandDispatcher.class);
+        Node node = mock(Node.class);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+
+        when(dispatcher.executeOnNodeAsync(any(Command.class), same(node))).thenReturn(CompletableFuture.completedFuture(new Object[] { "1", "2" }));
+
+        try {
+            CommandDispatcher<String> subject = new BatchingCommandDispatcher<>(dispatcher, executor, Duration.ofMinutes(1), 2);
+            subject.executeOnNodeAsync(value -> "1", node);
+            assertEquals(1, executor.getQueue().size());
+
+            // A batch sent early no longer needs to be sent when its window elapses
+            subject.executeOnNodeAsync(value -> "2", node);
+            assertTrue(executor.getQueue().isEmpty());
+
+            // Nor does a batch sent on close
+            subject.executeOnNodeAsync(value -> "3", node);
+            assertEquals(1, executor.getQueue().size());
+            subject.close();
+            assertTrue(executor.getQueue().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void window() throws Exception {
+        CommandDispatcher<String> dispatcher = mock(CommandDispatcher.class);
+        Node node = mock(Node.class);
+        Command<String, String> command = mock(Command.class);
+
+        when(dispatcher.executeOnNodeAsync(command, node)).thenReturn(CompletableFuture.completedFuture("result"));
+
+        try (CommandDispatcher<String> subject = new BatchingCommandDispatcher<>(dispatcher, this.executor, Duration.ofMillis(10), 3)) {
+            CompletionStage<String> result = subject.executeOnNodeAsync(command, node);
+
+            // A lone command is sent as is once the window elapses
+            assertEquals("result", result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void failure() throws Exception {
+        CommandDispatcher<String> dispatcher = mock(CommandDispatcher.class);
+        Node node = mock(Node.class);
+        CommandDispatcherException exception = new CommandDispatcherException(new Exception());
+
+        when(dispatcher.executeOnNodeAsync(any(Command.class), same(node))).thenThrow(exception);
+
+        try (CommandDispatcher<String> subject = new BatchingCommandDispatcher<>(dispatcher, this.executor, Duration.ofMinutes(1), 2)) {
+            CompletionStage<String> result1 = subject.executeOnNodeAsync(value -> value, node);
+            CompletionStage<String> result2 = subject.executeOnNodeAsync(value -> value, node);
+
+            for (CompletionStage<String> result : new CompletionStage[] { result1, result2 }) {
+                try {
+                    result.toCompletableFuture().get();
+                    fail();
+                } catch (ExecutionException e) {
+                    assertSame(exception, e.getCause());
+                }
+            }
+        }
+    }
+}
@@ -99,6 +99,7 @@ public class InfinispanSessionManager<MV, AV, L> implements SessionManager<L, Tr
     private final Predicate<Object> filter = new SessionCreationMetaDataKeyFilter();
     private final Recordable<ImmutableSession> recorder;
     private final ServletContext context;
+    private final SessionAttributeFingerprinter fingerprinter;
 
     private volatile Duration defaultMaxInactiveInterval = Duration.ofMinutes(30L);
     private volatile Registration expirationRegistration;
@@ -116,6 +117,7 @@ public class InfinispanSessionManager<MV, AV, L> implements SessionManager<L, Tr
         this.memberFactory = configuration.getMemberFactory();
         this.recorder = configuration.getInactiveSessionRecorder();
         this.context = configuration.getServletContext();
+        this.fingerprinter = configuration.getAttributeFingerprinter();
     }
 
     @Override
@@ -258,6 +260,11 @@ public class InfinispanSessionManager<MV, AV, L> implements SessionManager<L, Tr
         return this.getActiveSessions().size();
     }
 
+    @Override
+    public long getAvoidedAttributeReplicationCount() {
+        return (this.fingerprinter != null) ? this.fingerprinter.getAvoidedReplicationCount() : 0L;
+    }
+
     @CacheEntryActivated
     public void activated(CacheEntryActivatedEvent<SessionCreationMetaDataKey, ?> event) {
         if (!event.isPre() && !this.properties.isPersistent()) {
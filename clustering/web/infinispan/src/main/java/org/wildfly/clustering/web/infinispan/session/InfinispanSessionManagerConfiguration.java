@@ -54,4 +54,5 @@ public interface InfinispanSessionManagerConfiguration {
     Recordable<ImmutableSession> getInactiveSessionRecorder();
     Registrar<SessionExpirationListener> getExpirationRegistar();
     Group getGroup();
+    SessionAttributeFingerprinter getAttributeFingerprinter();
 }
@@ -65,7 +65,9 @@ import org.wildfly.clustering.marshalling.spi.MarshalledValueMarshaller;
 import org.wildfly.clustering.spi.NodeFactory;
 import org.wildfly.clustering.web.IdentifierFactory;
 import org.wildfly.clustering.web.infinispan.AffinityIdentifierFactory;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
 import org.wildfly.clustering.web.infinispan.session.coarse.CoarseSessionAttributesFactory;
+import org.wildfly.clustering.web.infinispan.session.coarse.DeltaSessionAttributesFactory;
 import org.wildfly.clustering.web.infinispan.session.fine.FineSessionAttributesFactory;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.SessionExpirationListener;
@@ -101,6 +103,7 @@ public class InfinispanSessionManagerFactory<C extends Marshallability, L> imple
     private final SessionCreationMetaDataKeyFilter filter = new SessionCreationMetaDataKeyFilter();
     private final ExecutorService executor = Executors.newSingleThreadExecutor(createThreadFactory());
     private final AtomicReference<Future<?>> rehashFuture = new AtomicReference<>();
+    private final SessionAttributeFingerprinter fingerprinter;
 
     public InfinispanSessionManagerFactory(InfinispanSessionManagerFactoryConfiguration<C, L> config) {
         this.affinityFactory = config.getKeyAffinityServiceFactory();
@@ -108,12 +111,14 @@ public class InfinispanSessionManagerFactory<C extends Marshallability, L> imple
         this.memberFactory = config.getMemberFactory();
         this.batcher = new InfinispanBatcher(this.cache);
         this.properties = new InfinispanCacheProperties(this.cache.getCacheConfiguration());
-        SessionMetaDataFactory<InfinispanSessionMetaData<L>, L> metaDataFactory = new InfinispanSessionMetaDataFactory<>(config.getCache(), this.properties);
+        SessionManagerFactoryConfiguration<C, L> sessionConfig = config.getSessionManagerFactoryConfiguration();
+        this.fingerprinter = sessionConfig.isDirtyDetectionEnabled() ? new SessionAttributeFingerprinter(new MarshalledValueMarshaller<>(sessionConfig.getMarshalledValueFactory(), sessionConfig.getMarshallingContext())) : null;
+        SessionMetaDataFactory<InfinispanSessionMetaData<L>, L> metaDataFactory = new InfinispanSessionMetaDataFactory<>(config.getCache(), this.properties, sessionConfig.getAccessTimeGranularity());
         this.factory = new InfinispanSessionFactory<>(metaDataFactory, this.createSessionAttributesFactory(config), config.getSessionManagerFactoryConfiguration().getLocalContextFactory());
         CommandDispatcherFactory dispatcherFactory = config.getCommandDispatcherFactory();
         ExpiredSessionRemover<?, ?, L> remover = new ExpiredSessionRemover<>(this.factory);
         this.expirationRegistrar = remover;
-        this.scheduler = new SessionExpirationScheduler(this.batcher, remover);
+        this.scheduler = new SessionExpirationScheduler(this.batcher, remover, sessionConfig.getAccessTimeGranularity());
         this.dispatcher = dispatcherFactory.createCommandDispatcher(this.cache.getName(), this.scheduler);
         this.group = dispatcherFactory.getGroup();
         this.cache.addListener(this);
@@ -178,6 +183,11 @@ public class InfinispanSessionManagerFactory<C extends Marshallability, L> imple
             public Recordable<ImmutableSession> getInactiveSessionRecorder() {
                 return configuration.getInactiveSessionRecorder();
             }
+
+            @Override
+            public SessionAttributeFingerprinter getAttributeFingerprinter() {
+                return InfinispanSessionManagerFactory.this.fingerprinter;
+            }
         };
         return new InfinispanSessionManager<>(this.factory, config);
     }
@@ -189,10 +199,13 @@ public class InfinispanSessionManagerFactory<C extends Marshallability, L> imple
 
         switch (config.getAttributePersistenceStrategy()) {
             case FINE: {
-                return new FineSessionAttributesFactory<>(configuration.getCache(), configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties);
+                return new FineSessionAttributesFactory<>(configuration.getCache(), configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties, config.isAttributeBatchingEnabled(), this.fingerprinter);
             }
             case COARSE: {
-                return new CoarseSessionAttributesFactory<>(configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties);
+                return new CoarseSessionAttributesFactory<>(configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties, this.fingerprinter);
+            }
+            case DELTA: {
+                return new DeltaSessionAttributesFactory<>(configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), this.properties, this.fingerprinter);
             }
             default: {
                 // Impossible
@@ -213,6 +226,9 @@ public class InfinispanSessionManagerFactory<C extends Marshallability, L> imple
         }
         this.dispatcher.close();
         this.scheduler.close();
+        if (this.fingerprinter != null) {
+            InfinispanWebLogger.ROOT_LOGGER.debugf("Dirty detection avoided %d session attribute replications for %s", this.fingerprinter.getAvoidedReplicationCount(), this.cache.getName());
+        }
     }
 
     @DataRehashed
@@ -22,6 +22,8 @@
 
 package org.wildfly.clustering.web.infinispan.session;
 
+import java.time.Duration;
+
 import org.infinispan.Cache;
 import org.infinispan.context.Flag;
 import org.infinispan.notifications.Listener;
@@ -43,13 +45,19 @@ public class InfinispanSessionMetaDataFactory<L> implements SessionMetaDataFacto
     private final Cache<SessionCreationMetaDataKey, SessionCreationMetaDataEntry<L>> findCreationMetaDataCache;
     private final Cache<SessionAccessMetaDataKey, SessionAccessMetaData> accessMetaDataCache;
     private final CacheProperties properties;
+    private final Duration accessTimeGranularity;
 
-    @SuppressWarnings("unchecked")
     public InfinispanSessionMetaDataFactory(Cache<? extends Key<String>, ?> cache, CacheProperties properties) {
+        this(cache, properties, Duration.ZERO);
+    }
+
+    @SuppressWarnings("unchecked")
+    public InfinispanSessionMetaDataFactory(Cache<? extends Key<String>, ?> cache, CacheProperties properties, Duration accessTimeGranularity) {
         this.creationMetaDataCache = (Cache<SessionCreationMetaDataKey, SessionCreationMetaDataEntry<L>>) cache;
         this.findCreationMetaDataCache = properties.isLockOnRead() ? this.creationMetaDataCache.getAdvancedCache().withFlags(Flag.FORCE_WRITE_LOCK) : this.creationMetaDataCache;
         this.accessMetaDataCache = (Cache<SessionAccessMetaDataKey, SessionAccessMetaData>) cache;
         this.properties = properties;
+        this.accessTimeGranularity = accessTimeGranularity;
     }
 
     @Override
@@ -95,14 +103,14 @@ public class InfinispanSessionMetaDataFactory<L> implements SessionMetaDataFacto
 
         SessionAccessMetaDataKey accessMetaDataKey = new SessionAccessMetaDataKey(id);
         Mutator accessMutator = this.properties.isTransactional() && this.accessMetaDataCache.getAdvancedCache().getCacheEntry(accessMetaDataKey).isCreated() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.accessMetaDataCache, accessMetaDataKey, entry.getAccessMetaData());
-        SessionAccessMetaData accessMetaData = new MutableSessionAccessMetaData(entry.getAccessMetaData(), accessMutator);
+        SessionAccessMetaData accessMetaData = new MutableSessionAccessMetaData(entry.getAccessMetaData(), accessMutator, this.accessTimeGranularity);
 
-        return new SimpleSessionMetaData(creationMetaData, accessMetaData);
+        return new SimpleSessionMetaData(creationMetaData, accessMetaData, this.accessTimeGranularity);
     }
 
     @Override
     public ImmutableSessionMetaData createImmutableSessionMetaData(String id, InfinispanSessionMetaData<L> entry) {
-        return new SimpleSessionMetaData(entry.getCreationMetaData(), entry.getAccessMetaData());
+        return new SimpleSessionMetaData(entry.getCreationMetaData(), entry.getAccessMetaData(), this.accessTimeGranularity);
     }
 
     @Override
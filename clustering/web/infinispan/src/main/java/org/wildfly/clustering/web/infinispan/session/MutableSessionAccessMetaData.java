@@ -27,16 +27,25 @@ import java.time.Duration;
 import org.wildfly.clustering.ee.Mutator;
 
 /**
+ * Session access meta data that triggers a mutation of its cache entry when updated.
+ * An update within the access time granularity of the current last accessed duration is skipped, so that frequent
+ * requests for the same session do not each replicate the access meta data.
  * @author Paul Ferraro
  */
 public class MutableSessionAccessMetaData implements SessionAccessMetaData {
 
     private final SessionAccessMetaData metaData;
     private final Mutator mutator;
+    private final Duration accessTimeGranularity;
 
     public MutableSessionAccessMetaData(SessionAccessMetaData metaData, Mutator mutator) {
+        this(metaData, mutator, Duration.ZERO);
+    }
+
+    public MutableSessionAccessMetaData(SessionAccessMetaData metaData, Mutator mutator, Duration accessTimeGranularity) {
         this.metaData = metaData;
         this.mutator = mutator;
+        this.accessTimeGranularity = accessTimeGranularity;
     }
 
     @Override
@@ -46,6 +55,9 @@ public class MutableSessionAccessMetaData implements SessionAccessMetaData {
 
     @Override
     public void setLastAccessedDuration(Duration duration) {
+        Duration current = this.metaData.getLastAccessedDuration();
+        // Always record the first access, which makes the session no longer new
+        if (!current.isZero() && (duration.minus(current).compareTo(this.accessTimeGranularity) < 0)) return;
         this.metaData.setLastAccessedDuration(duration);
         this.mutator.mutate();
     }
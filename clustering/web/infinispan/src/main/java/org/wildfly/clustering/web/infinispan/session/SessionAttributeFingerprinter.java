@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+
+/**
+ * Computes a fingerprint of the marshalled form of a session attribute, so that a mutable attribute read during a
+ * request only needs to be replicated if its marshalled form changed.
+ * Also counts the replications avoided this way.
+ */
+public class SessionAttributeFingerprinter {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Marshaller<Object, ?> marshaller;
+    private final LongAdder avoidedReplications = new LongAdder();
+
+    public SessionAttributeFingerprinter(Marshaller<Object, ?> marshaller) {
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Computes the fingerprint of the specified attribute.
+     * @param attribute a session attribute
+     * @return the fingerprint of the attribute, or an empty value if the attribute could not be marshalled
+     */
+    public OptionalLong fingerprint(Object attribute) {
+        FingerprintOutputStream output = new FingerprintOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+            objectOutput.writeObject(this.marshaller.write(attribute));
+        } catch (IOException | RuntimeException e) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(output.getFingerprint());
+    }
+
+    /**
+     * Indicates whether the specified attribute changed since its fingerprint was computed.
+     * @param attribute a session attribute
+     * @param fingerprint the previous fingerprint of the attribute
+     * @return true, if the attribute needs to be replicated, false otherwise.
+     */
+    public boolean isDirty(Object attribute, OptionalLong fingerprint) {
+        if (fingerprint.isPresent() && fingerprint.equals(this.fingerprint(attribute))) {
+            this.avoidedReplications.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of mutable attributes that were not replicated since their marshalled form did not change.
+     */
+    public long getAvoidedReplicationCount() {
+        return this.avoidedReplications.sum();
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the bytes written, without retaining them.
+     */
+    private static class FingerprintOutputStream extends OutputStream {
+        private long hash = FNV_OFFSET_BASIS;
+
+        @Override
+        public void write(int b) {
+            this.hash = (this.hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            long hash = this.hash;
+            for (int i = offset; i < offset + length; ++i) {
+                hash = (hash ^ (bytes[i] & 0xff)) * FNV_PRIME;
+            }
+            this.hash = hash;
+        }
+
+        long getFingerprint() {
+            return this.hash;
+        }
+    }
+}
@@ -25,31 +25,60 @@ package org.wildfly.clustering.web.infinispan.session;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
 import java.time.Duration;
 import java.time.Instant;
 
 import org.kohsuke.MetaInfServices;
 import org.wildfly.clustering.marshalling.Externalizer;
-import org.wildfly.clustering.marshalling.spi.DefaultExternalizer;
 import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+import org.wildfly.clustering.marshalling.spi.LongSerializer;
 
 /**
- * Externalizer for {@link SessionCreationMetaDataEntry}
+ * Externalizer for {@link SessionCreationMetaDataEntry}.
+ * Encodes the creation time using variable-length epoch seconds and nanoseconds, which requires 6-10 bytes, rather than 12.
+ * Entries start with a format version, so that entries written in the previous format, e.g. by another member during a
+ * rolling upgrade, or to a cache store, remain readable.
+ * Such entries start with the fixed-length epoch seconds of the creation time, whose first byte is always 0.
  * @author Paul Ferraro
  */
 @MetaInfServices(Externalizer.class)
 public class SessionCreationMetaDataEntryExternalizer implements Externalizer<SessionCreationMetaDataEntry<Object>> {
 
+    static final int LEGACY_VERSION = 0;
+    static final int VERSION = 1;
+
     @Override
     public void writeObject(ObjectOutput output, SessionCreationMetaDataEntry<Object> entry) throws IOException {
         SessionCreationMetaData metaData = entry.getMetaData();
-        DefaultExternalizer.INSTANT.cast(Instant.class).writeObject(output, metaData.getCreationTime());
+        Instant creationTime = metaData.getCreationTime();
+        output.writeByte(VERSION);
+        LongSerializer.VARIABLE.writeLong(output, creationTime.getEpochSecond());
+        IndexSerializer.VARIABLE.writeInt(output, creationTime.getNano());
         IndexSerializer.VARIABLE.writeInt(output, (int) metaData.getMaxInactiveInterval().getSeconds());
     }
 
     @Override
     public SessionCreationMetaDataEntry<Object> readObject(ObjectInput input) throws IOException, ClassNotFoundException {
-        SessionCreationMetaData metaData = new SimpleSessionCreationMetaData(DefaultExternalizer.INSTANT.cast(Instant.class).readObject(input));
+        int version = input.readUnsignedByte();
+        Instant creationTime;
+        switch (version) {
+            case LEGACY_VERSION: {
+                // The first byte of the epoch seconds was consumed as the version
+                long seconds = ((long) input.readUnsignedByte() << 48) | ((long) input.readUnsignedShort() << 32) | (input.readInt() & 0xFFFFFFFFL);
+                creationTime = Instant.ofEpochSecond(seconds, input.readInt());
+                break;
+            }
+            case VERSION: {
+                long seconds = LongSerializer.VARIABLE.readLong(input);
+                creationTime = Instant.ofEpochSecond(seconds, IndexSerializer.VARIABLE.readInt(input));
+                break;
+            }
+            default: {
+                throw new StreamCorruptedException(String.format("Unsupported format version %d", version));
+            }
+        }
+        SessionCreationMetaData metaData = new SimpleSessionCreationMetaData(creationTime);
         metaData.setMaxInactiveInterval(Duration.ofSeconds(IndexSerializer.VARIABLE.readInt(input)));
         return new SessionCreationMetaDataEntry<>(metaData);
     }
@@ -25,18 +25,13 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 
 import org.jboss.threads.JBossThreadFactory;
-import org.wildfly.clustering.ee.Batch;
 import org.wildfly.clustering.ee.Batcher;
+import org.wildfly.clustering.ee.ExpirationWheel;
 import org.wildfly.clustering.ee.Remover;
 import org.wildfly.clustering.ee.infinispan.TransactionBatch;
 import org.wildfly.clustering.infinispan.spi.distribution.Locality;
@@ -45,18 +40,25 @@ import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
 
 /**
  * Session expiration scheduler that eagerly expires sessions as soon as they are eligible.
+ * Sessions are grouped into per-second buckets of an {@link ExpirationWheel}, and the sessions of a bucket expire within a single batch.
  * If/When Infinispan implements expiration notifications (ISPN-694), this will be obsolete.
  * @author Paul Ferraro
  */
 public class SessionExpirationScheduler implements Scheduler {
 
-    final Map<String, Future<?>> expirationFutures = new ConcurrentHashMap<>();
-    final Batcher<TransactionBatch> batcher;
-    final Remover<String> remover;
     private final ScheduledExecutorService executor;
+    private final ExpirationWheel<String> wheel;
+    private final Duration accessTimeGranularity;
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover) {
-        this(batcher, remover, createScheduledExecutor(createThreadFactory()));
+        this(batcher, remover, Duration.ZERO);
+    }
+
+    /**
+     * @param accessTimeGranularity the duration by which the last accessed time of a session may trail its actual last access
+     */
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, Duration accessTimeGranularity) {
+        this(batcher, remover, accessTimeGranularity, createScheduledExecutor(createThreadFactory()));
     }
 
     private static ThreadFactory createThreadFactory() {
@@ -76,37 +78,39 @@ public class SessionExpirationScheduler implements Scheduler {
     }
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor) {
-        this.batcher = batcher;
-        this.remover = remover;
+        this(batcher, remover, Duration.ZERO, executor);
+    }
+
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, Duration accessTimeGranularity, ScheduledExecutorService executor) {
         this.executor = executor;
+        this.accessTimeGranularity = accessTimeGranularity;
+        this.wheel = new ExpirationWheel<>(executor, batcher, id -> {
+            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", id);
+            remover.remove(id);
+        }, (id, e) -> InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, id));
     }
 
     @Override
     public void cancel(String sessionId) {
-        Future<?> future = this.expirationFutures.remove(sessionId);
-        if (future != null) {
-            future.cancel(false);
-        }
+        this.wheel.cancel(sessionId);
     }
 
     @Override
     public void schedule(String sessionId, ImmutableSessionMetaData metaData) {
         Duration maxInactiveInterval = metaData.getMaxInactiveInterval();
         if (!maxInactiveInterval.isZero()) {
-            Instant lastAccessed = metaData.getLastAccessedTime();
-            Duration delay = Duration.between(Instant.now(), lastAccessed.plus(maxInactiveInterval));
-            Runnable task = new ExpirationTask(sessionId);
-            long seconds = !delay.isNegative() ? delay.getSeconds() + 1 : 0;
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d sec", sessionId, seconds);
-            synchronized (task) {
-                this.expirationFutures.put(sessionId, this.executor.schedule(task, seconds, TimeUnit.SECONDS));
+            Instant expiration = metaData.getLastAccessedTime().plus(maxInactiveInterval).plus(this.accessTimeGranularity);
+            if (InfinispanWebLogger.ROOT_LOGGER.isTraceEnabled()) {
+                Duration delay = Duration.between(Instant.now(), expiration);
+                InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d sec", sessionId, !delay.isNegative() ? delay.getSeconds() + 1 : 0);
             }
+            this.wheel.schedule(sessionId, expiration);
         }
     }
 
     @Override
     public void cancel(Locality locality) {
-        for (String sessionId : this.expirationFutures.keySet()) {
+        for (String sessionId : this.wheel.getScheduled()) {
             if (Thread.currentThread().isInterrupted()) break;
             if (!locality.isLocal(sessionId)) {
                 this.cancel(sessionId);
@@ -116,46 +120,7 @@ public class SessionExpirationScheduler implements Scheduler {
 
     @Override
     public void close() {
+        this.wheel.close();
         this.executor.shutdown();
-        for (Future<?> future : this.expirationFutures.values()) {
-            future.cancel(true);
-        }
-        for (Future<?> future : this.expirationFutures.values()) {
-            if (!future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
-                }
-            }
-        }
-        this.expirationFutures.clear();
-    }
-
-    private class ExpirationTask implements Runnable {
-        private final String id;
-
-        ExpirationTask(String id) {
-            this.id = id;
-        }
-
-        @Override
-        public void run() {
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", this.id);
-            try (Batch batch = SessionExpirationScheduler.this.batcher.createBatch()) {
-                try {
-                    SessionExpirationScheduler.this.remover.remove(this.id);
-                } catch (Throwable e) {
-                    InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, this.id);
-                    batch.discard();
-                }
-            } finally {
-                synchronized (this) {
-                    SessionExpirationScheduler.this.expirationFutures.remove(this.id);
-                }
-            }
-        }
     }
 }
@@ -32,10 +32,19 @@ public class SimpleSessionMetaData extends AbstractImmutableSessionMetaData impl
 
     private final SessionCreationMetaData creationMetaData;
     private final SessionAccessMetaData accessMetaData;
+    private final Duration accessTimeGranularity;
 
     public SimpleSessionMetaData(SessionCreationMetaData creationMetaData, SessionAccessMetaData accessMetaData) {
+        this(creationMetaData, accessMetaData, Duration.ZERO);
+    }
+
+    /**
+     * @param accessTimeGranularity the duration by which the last accessed time may trail the actual last access
+     */
+    public SimpleSessionMetaData(SessionCreationMetaData creationMetaData, SessionAccessMetaData accessMetaData, Duration accessTimeGranularity) {
         this.creationMetaData = creationMetaData;
         this.accessMetaData = accessMetaData;
+        this.accessTimeGranularity = accessTimeGranularity;
     }
 
     @Override
@@ -44,6 +53,13 @@ public class SimpleSessionMetaData extends AbstractImmutableSessionMetaData impl
         return this.accessMetaData.getLastAccessedDuration().isZero();
     }
 
+    @Override
+    public boolean isExpired() {
+        Duration maxInactiveInterval = this.getMaxInactiveInterval();
+        // Don't expire a session whose last access within the access time granularity was not recorded
+        return !maxInactiveInterval.isZero() ? this.getLastAccessedTime().plus(maxInactiveInterval).plus(this.accessTimeGranularity).isBefore(Instant.now()) : false;
+    }
+
     @Override
     public boolean isValid() {
         return this.creationMetaData.isValid();
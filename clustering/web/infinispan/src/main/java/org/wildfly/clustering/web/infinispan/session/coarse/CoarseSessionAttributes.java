@@ -22,6 +22,7 @@
 package org.wildfly.clustering.web.infinispan.session.coarse;
 
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,11 +30,14 @@ import org.infinispan.commons.marshall.NotSerializableException;
 import org.wildfly.clustering.ee.Mutator;
 import org.wildfly.clustering.ee.infinispan.CacheProperties;
 import org.wildfly.clustering.marshalling.spi.Marshallability;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
 import org.wildfly.clustering.web.session.SessionAttributeImmutability;
 
 /**
  * Exposes session attributes for a coarse granularity session.
+ * When detecting dirty attributes, the session attributes are only replicated on {@link #close()} if the marshalled
+ * form of a mutable attribute read during the request changed.
  * @author Paul Ferraro
  */
 public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes implements SessionAttributes {
@@ -42,14 +46,19 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     private final Mutator mutator;
     private final Marshallability marshallability;
     private final CacheProperties properties;
+    private final SessionAttributeFingerprinter fingerprinter;
+    // Fingerprints of the mutable attributes read by the current request, when detecting dirty attributes
+    private final Map<String, OptionalLong> fingerprints;
 
-    public CoarseSessionAttributes(Map<String, Object> attributes, Mutator mutator, Marshallability marshallability, CacheProperties properties) {
+    public CoarseSessionAttributes(Map<String, Object> attributes, Mutator mutator, Marshallability marshallability, CacheProperties properties, SessionAttributeFingerprinter fingerprinter) {
         super(attributes);
         this.attributes = attributes;
         this.mutations = !properties.isTransactional() ? ConcurrentHashMap.newKeySet() : null;
         this.mutator = mutator;
         this.marshallability = marshallability;
         this.properties = properties;
+        this.fingerprinter = fingerprinter;
+        this.fingerprints = (fingerprinter != null) ? new ConcurrentHashMap<>() : null;
     }
 
     @Override
@@ -59,6 +68,9 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
         if (this.mutations != null) {
             this.mutations.remove(name);
         }
+        if (this.fingerprints != null) {
+            this.fingerprints.remove(name);
+        }
         return value;
     }
 
@@ -75,6 +87,9 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
         if (this.mutations != null) {
             this.mutations.remove(name);
         }
+        if (this.fingerprints != null) {
+            this.fingerprints.remove(name);
+        }
         return old;
     }
 
@@ -82,7 +97,9 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     public Object getAttribute(String name) {
         Object value = this.attributes.get(name);
         if (!SessionAttributeImmutability.INSTANCE.test(value)) {
-            if (this.mutations != null) {
+            if (this.fingerprints != null) {
+                this.fingerprints.computeIfAbsent(name, k -> this.fingerprinter.fingerprint(value));
+            } else if (this.mutations != null) {
                 this.mutations.add(name);
             } else {
                 this.mutator.mutate();
@@ -96,5 +113,19 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
         if ((this.mutations != null) && !this.mutations.isEmpty()) {
             this.mutator.mutate();
         }
+        if ((this.fingerprints != null) && !this.fingerprints.isEmpty()) {
+            boolean dirty = false;
+            for (Map.Entry<String, OptionalLong> entry : this.fingerprints.entrySet()) {
+                Object value = this.attributes.get(entry.getKey());
+                // Check every attribute, so that each avoided replication is counted
+                if ((value != null) && this.fingerprinter.isDirty(value, entry.getValue())) {
+                    dirty = true;
+                }
+            }
+            if (dirty) {
+                this.mutator.mutate();
+            }
+            this.fingerprints.clear();
+        }
     }
 }
@@ -39,6 +39,7 @@ import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
 import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
 import org.wildfly.clustering.marshalling.spi.Marshaller;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributesFactory;
 import org.wildfly.clustering.web.infinispan.session.SessionCreationMetaDataKey;
@@ -54,11 +55,13 @@ public class CoarseSessionAttributesFactory<V> implements SessionAttributesFacto
     private final Cache<SessionAttributesKey, V> cache;
     private final Marshaller<Map<String, Object>, V> marshaller;
     private final CacheProperties properties;
+    private final SessionAttributeFingerprinter fingerprinter;
 
-    public CoarseSessionAttributesFactory(Cache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties) {
+    public CoarseSessionAttributesFactory(Cache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, SessionAttributeFingerprinter fingerprinter) {
         this.cache = cache;
         this.marshaller = marshaller;
         this.properties = properties;
+        this.fingerprinter = fingerprinter;
     }
 
     @Override
@@ -94,7 +97,7 @@ public class CoarseSessionAttributesFactory<V> implements SessionAttributesFacto
     public SessionAttributes createSessionAttributes(String id, Map.Entry<Map<String, Object>, V> entry) {
         SessionAttributesKey key = new SessionAttributesKey(id);
         Mutator mutator = this.properties.isTransactional() && this.cache.getAdvancedCache().getCacheEntry(key).isCreated() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.cache, key, entry.getValue());
-        return new CoarseSessionAttributes(entry.getKey(), mutator, this.marshaller, this.properties);
+        return new CoarseSessionAttributes(entry.getKey(), mutator, this.marshaller, this.properties, this.fingerprinter);
     }
 
     @Override
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.NotSerializableException;
+import org.infinispan.context.Flag;
+import org.wildfly.clustering.ee.infinispan.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
+import org.wildfly.clustering.web.session.SessionAttributeImmutability;
+
+/**
+ * Exposes session attributes for a coarse granularity session whose changes are replicated as deltas.
+ * On {@link #close()}, only the attributes added, changed, or removed by the request are marshalled, and applied by the
+ * owners of the session attributes entry.  If the entry changed since it was read, all attributes are written instead.
+ */
+public class DeltaSessionAttributes<V> extends CoarseImmutableSessionAttributes implements SessionAttributes {
+    private final SessionAttributesKey key;
+    private final long version;
+    private final Map<String, Object> attributes;
+    private final Cache<SessionAttributesKey, SessionAttributesEntry<V>> cache;
+    private final Marshaller<Object, V> marshaller;
+    private final CacheProperties properties;
+    private final SessionAttributeFingerprinter fingerprinter;
+    private final Set<String> updates = ConcurrentHashMap.newKeySet();
+    private final Set<String> removals = ConcurrentHashMap.newKeySet();
+    // Fingerprints of the mutable attributes read by the current request, when detecting dirty attributes
+    private final Map<String, OptionalLong> fingerprints = new ConcurrentHashMap<>();
+
+    public DeltaSessionAttributes(SessionAttributesKey key, long version, Map<String, Object> attributes, Cache<SessionAttributesKey, SessionAttributesEntry<V>> cache, Marshaller<Object, V> marshaller, CacheProperties properties, SessionAttributeFingerprinter fingerprinter) {
+        super(attributes);
+        this.key = key;
+        this.version = version;
+        this.attributes = attributes;
+        this.cache = cache;
+        this.marshaller = marshaller;
+        this.properties = properties;
+        this.fingerprinter = fingerprinter;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        Object value = this.attributes.remove(name);
+        this.updates.remove(name);
+        this.fingerprints.remove(name);
+        this.removals.add(name);
+        return value;
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        if (value == null) {
+            return this.removeAttribute(name);
+        }
+        if (this.properties.isMarshalling() && !this.marshaller.isMarshallable(value)) {
+            throw new IllegalArgumentException(new NotSerializableException(value.getClass().getName()));
+        }
+        Object old = this.attributes.put(name, value);
+        this.removals.remove(name);
+        this.fingerprints.remove(name);
+        this.updates.add(name);
+        return old;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        Object value = this.attributes.get(name);
+        if (!SessionAttributeImmutability.INSTANCE.test(value) && !this.updates.contains(name)) {
+            if (this.fingerprinter != null) {
+                this.fingerprints.computeIfAbsent(name, k -> this.fingerprinter.fingerprint(value));
+            } else {
+                this.updates.add(name);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        for (Map.Entry<String, OptionalLong> entry : this.fingerprints.entrySet()) {
+            Object value = this.attributes.get(entry.getKey());
+            if ((value != null) && this.fingerprinter.isDirty(value, entry.getValue())) {
+                this.updates.add(entry.getKey());
+            }
+        }
+        this.fingerprints.clear();
+        if (this.updates.isEmpty() && this.removals.isEmpty()) return;
+
+        Map<String, V> updates = new HashMap<>();
+        for (String name : this.updates) {
+            Object value = this.attributes.get(name);
+            if (value != null) {
+                updates.put(name, this.marshaller.write(value));
+            }
+        }
+        long nextVersion = SessionAttributesEntry.createVersion();
+        SessionAttributesEntry<V> result = this.cache.compute(this.key, new SessionAttributesDelta<>(this.version, nextVersion, updates, new HashSet<>(this.removals)));
+        if ((result == null) || (result.getVersion() != nextVersion)) {
+            // The entry changed since it was read, e.g. by a concurrent request for the same session, so write all attributes
+            Map<String, V> attributes = new HashMap<>();
+            for (Map.Entry<String, Object> entry : this.attributes.entrySet()) {
+                attributes.put(entry.getKey(), this.marshaller.write(entry.getValue()));
+            }
+            this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).put(this.key, new SessionAttributesEntry<>(nextVersion, attributes));
+        }
+        this.updates.clear();
+        this.removals.clear();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntriesEvicted;
+import org.infinispan.notifications.cachelistener.event.CacheEntriesEvictedEvent;
+import org.wildfly.clustering.ee.infinispan.CacheProperties;
+import org.wildfly.clustering.infinispan.spi.distribution.Key;
+import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributesFactory;
+import org.wildfly.clustering.web.infinispan.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+
+/**
+ * {@link SessionAttributesFactory} for coarse granularity sessions whose changes are replicated as deltas.
+ * All session attributes are stored in a single versioned cache entry, in which each attribute is marshalled separately.
+ */
+@Listener(sync = false)
+public class DeltaSessionAttributesFactory<V> implements SessionAttributesFactory<Map.Entry<Map<String, Object>, SessionAttributesEntry<V>>> {
+
+    private final Cache<SessionAttributesKey, SessionAttributesEntry<V>> cache;
+    private final Marshaller<Object, V> marshaller;
+    private final CacheProperties properties;
+    private final SessionAttributeFingerprinter fingerprinter;
+
+    public DeltaSessionAttributesFactory(Cache<SessionAttributesKey, SessionAttributesEntry<V>> cache, Marshaller<Object, V> marshaller, CacheProperties properties, SessionAttributeFingerprinter fingerprinter) {
+        this.cache = cache;
+        this.marshaller = marshaller;
+        this.properties = properties;
+        this.fingerprinter = fingerprinter;
+    }
+
+    @Override
+    public Map.Entry<Map<String, Object>, SessionAttributesEntry<V>> createValue(String id, Void context) {
+        Map<String, Object> attributes = this.properties.isLockOnRead() ? new HashMap<>() : new ConcurrentHashMap<>();
+        SessionAttributesEntry<V> entry = new SessionAttributesEntry<>(SessionAttributesEntry.createVersion(), Collections.emptyMap());
+        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).put(new SessionAttributesKey(id), entry);
+        return new SimpleImmutableEntry<>(attributes, entry);
+    }
+
+    @Override
+    public Map.Entry<Map<String, Object>, SessionAttributesEntry<V>> findValue(String id) {
+        SessionAttributesEntry<V> entry = this.cache.get(new SessionAttributesKey(id));
+        if (entry != null) {
+            Map<String, V> values = entry.getAttributes();
+            Map<String, Object> attributes = this.properties.isLockOnRead() ? new HashMap<>(values.size()) : new ConcurrentHashMap<>(values.size());
+            try {
+                for (Map.Entry<String, V> value : values.entrySet()) {
+                    attributes.put(value.getKey(), this.marshaller.read(value.getValue()));
+                }
+                return new SimpleImmutableEntry<>(attributes, entry);
+            } catch (InvalidSerializedFormException e) {
+                InfinispanWebLogger.ROOT_LOGGER.failedToActivateSession(e, id);
+                this.remove(id);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(String id) {
+        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(new SessionAttributesKey(id));
+        return true;
+    }
+
+    @Override
+    public SessionAttributes createSessionAttributes(String id, Map.Entry<Map<String, Object>, SessionAttributesEntry<V>> entry) {
+        return new DeltaSessionAttributes<>(new SessionAttributesKey(id), entry.getValue().getVersion(), entry.getKey(), this.cache, this.marshaller, this.properties, this.fingerprinter);
+    }
+
+    @Override
+    public ImmutableSessionAttributes createImmutableSessionAttributes(String id, Map.Entry<Map<String, Object>, SessionAttributesEntry<V>> entry) {
+        return new CoarseImmutableSessionAttributes(entry.getKey());
+    }
+
+    @CacheEntriesEvicted
+    public void evicted(CacheEntriesEvictedEvent<Key<String>, ?> event) {
+        if (!event.isPre()) {
+            Cache<SessionAttributesKey, SessionAttributesEntry<V>> cache = this.cache.getAdvancedCache().withFlags(Flag.SKIP_LISTENER_NOTIFICATION);
+            for (Key<String> key : event.getEntries().keySet()) {
+                // Workaround for ISPN-8324
+                if (key instanceof SessionCreationMetaDataKey) {
+                    cache.evict(new SessionAttributesKey(key.getValue()));
+                }
+            }
+        }
+    }
+}
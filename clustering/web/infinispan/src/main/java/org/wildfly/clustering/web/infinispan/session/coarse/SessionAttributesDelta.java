@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * The attributes of a coarse granularity session that were added, changed, or removed by a request.
+ * Applied by the owners of the session attributes entry, so that only the changed attributes are replicated.
+ * If the entry does not have the version against which this delta was computed, the entry is returned unchanged,
+ * so that the caller can detect the divergence.
+ * @param <V> the marshalled attribute value type
+ */
+public class SessionAttributesDelta<V> implements BiFunction<SessionAttributesKey, SessionAttributesEntry<V>, SessionAttributesEntry<V>> {
+
+    private final long version;
+    private final long nextVersion;
+    private final Map<String, V> updates;
+    private final Set<String> removals;
+
+    public SessionAttributesDelta(long version, long nextVersion, Map<String, V> updates, Set<String> removals) {
+        this.version = version;
+        this.nextVersion = nextVersion;
+        this.updates = updates;
+        this.removals = removals;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public long getNextVersion() {
+        return this.nextVersion;
+    }
+
+    public Map<String, V> getUpdates() {
+        return this.updates;
+    }
+
+    public Set<String> getRemovals() {
+        return this.removals;
+    }
+
+    @Override
+    public SessionAttributesEntry<V> apply(SessionAttributesKey key, SessionAttributesEntry<V> entry) {
+        if ((entry == null) || (entry.getVersion() != this.version)) {
+            return entry;
+        }
+        Map<String, V> attributes = new HashMap<>(entry.getAttributes());
+        attributes.putAll(this.updates);
+        attributes.keySet().removeAll(this.removals);
+        return new SessionAttributesEntry<>(this.nextVersion, attributes);
+    }
+}
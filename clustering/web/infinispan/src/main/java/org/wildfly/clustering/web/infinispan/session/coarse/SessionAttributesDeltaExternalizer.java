@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.kohsuke.MetaInfServices;
+import org.wildfly.clustering.marshalling.Externalizer;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+
+/**
+ * Externalizer for {@link SessionAttributesDelta}.
+ */
+@MetaInfServices(Externalizer.class)
+public class SessionAttributesDeltaExternalizer implements Externalizer<SessionAttributesDelta<Object>> {
+
+    @Override
+    public void writeObject(ObjectOutput output, SessionAttributesDelta<Object> delta) throws IOException {
+        output.writeLong(delta.getVersion());
+        output.writeLong(delta.getNextVersion());
+        SessionAttributesEntryExternalizer.writeAttributes(output, delta.getUpdates());
+        Set<String> removals = delta.getRemovals();
+        IndexSerializer.VARIABLE.writeInt(output, removals.size());
+        for (String name : removals) {
+            output.writeUTF(name);
+        }
+    }
+
+    @Override
+    public SessionAttributesDelta<Object> readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        long version = input.readLong();
+        long nextVersion = input.readLong();
+        Map<String, Object> updates = SessionAttributesEntryExternalizer.readAttributes(input);
+        int size = IndexSerializer.VARIABLE.readInt(input);
+        Set<String> removals = new HashSet<>(size);
+        for (int i = 0; i < size; ++i) {
+            removals.add(input.readUTF());
+        }
+        return new SessionAttributesDelta<>(version, nextVersion, updates, removals);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Class<SessionAttributesDelta<Object>> getTargetClass() {
+        return (Class<SessionAttributesDelta<Object>>) (Class<?>) SessionAttributesDelta.class;
+    }
+}
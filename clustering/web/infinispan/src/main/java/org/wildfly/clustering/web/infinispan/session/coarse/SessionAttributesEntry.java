@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cache entry containing the marshalled attributes of a coarse granularity session, when replicating deltas.
+ * The version changes on every update, so that a delta can detect whether it was computed against the current attributes.
+ * Versions are random stamps rather than counters, so that a writer can also tell whether its own delta was the one applied.
+ * @param <V> the marshalled attribute value type
+ */
+public class SessionAttributesEntry<V> {
+    private final long version;
+    private final Map<String, V> attributes;
+
+    public SessionAttributesEntry(long version, Map<String, V> attributes) {
+        this.version = version;
+        this.attributes = attributes;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public Map<String, V> getAttributes() {
+        return this.attributes;
+    }
+
+    static long createVersion() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+}
@@ -21,9 +21,13 @@
  */
 package org.wildfly.clustering.web.infinispan.session.fine;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.Cache;
@@ -33,11 +37,16 @@ import org.wildfly.clustering.ee.infinispan.CacheProperties;
 import org.wildfly.clustering.ee.Mutator;
 import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
 import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
 import org.wildfly.clustering.web.session.SessionAttributeImmutability;
 
 /**
  * Exposes session attributes for fine granularity sessions.
+ * When batching, attribute writes are recorded for the duration of the request, and written to the cache via a single
+ * {@link Cache#putAll(Map)} on {@link #close()}, rather than one synchronous write per attribute.
+ * When detecting dirty attributes, a mutable attribute read during the request is only replicated on {@link #close()}
+ * if its marshalled form changed.
  * @author Paul Ferraro
  */
 public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V> implements SessionAttributes {
@@ -48,8 +57,16 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
     private final Map<String, Mutator> mutations = new ConcurrentHashMap<>();
     private final Marshaller<Object, V> marshaller;
     private final CacheProperties properties;
+    private final boolean batching;
+    // Attribute writes of the current request, when batching
+    private final Map<SessionAttributeKey, V> updates = new ConcurrentHashMap<>();
+    private final Set<SessionAttributeKey> removals = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean namesMutated = new AtomicBoolean(false);
+    private final SessionAttributeFingerprinter fingerprinter;
+    // Mutable attributes read by the current request, when detecting dirty attributes
+    private final Map<String, ReadAttribute<V>> readAttributes = new ConcurrentHashMap<>();
 
-    public FineSessionAttributes(String id, AtomicInteger sequence, ConcurrentMap<String, Integer> names, Mutator namesMutator, Cache<SessionAttributeKey, V> cache, Marshaller<Object, V> marshaller, CacheProperties properties) {
+    public FineSessionAttributes(String id, AtomicInteger sequence, ConcurrentMap<String, Integer> names, Mutator namesMutator, Cache<SessionAttributeKey, V> cache, Marshaller<Object, V> marshaller, CacheProperties properties, boolean batching, SessionAttributeFingerprinter fingerprinter) {
         super(id, names, cache, marshaller);
         this.sequence = sequence;
         this.names = names;
@@ -57,14 +74,26 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         this.cache = cache;
         this.marshaller = marshaller;
         this.properties = properties;
+        this.batching = batching;
+        this.fingerprinter = fingerprinter;
     }
 
     @Override
     public Object removeAttribute(String name) {
         Integer attributeId = this.names.remove(name);
         if (attributeId == null) return null;
-        this.namesMutator.mutate();
         SessionAttributeKey key = this.createKey(attributeId);
+        this.readAttributes.remove(name);
+        if (this.batching) {
+            this.namesMutated.set(true);
+            V value = this.updates.remove(key);
+            if (value == null) {
+                value = this.cache.get(key);
+            }
+            this.removals.add(key);
+            return this.read(name, value);
+        }
+        this.namesMutator.mutate();
         Object result = this.read(name, this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).remove(key));
         this.mutations.remove(name);
         return result;
@@ -81,10 +110,20 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         V value = this.marshaller.write(attribute);
         int currentId = this.sequence.get();
         int attributeId = this.names.computeIfAbsent(name, key -> this.sequence.incrementAndGet());
-        if (attributeId > currentId) {
+        boolean added = attributeId > currentId;
+        SessionAttributeKey key = this.createKey(attributeId);
+        this.readAttributes.remove(name);
+        if (this.batching) {
+            if (added) {
+                this.namesMutated.set(true);
+            }
+            V previous = this.updates.put(key, value);
+            // A new attribute has no previous value to read
+            return this.read(name, (previous != null || added) ? previous : this.cache.get(key));
+        }
+        if (added) {
             this.namesMutator.mutate();
         }
-        SessionAttributeKey key = this.createKey(attributeId);
         Object result = this.read(name, this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).put(key, value));
         this.mutations.remove(name);
         return result;
@@ -95,11 +134,26 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         Integer attributeId = this.names.get(name);
         if (attributeId == null) return null;
         SessionAttributeKey key = this.createKey(attributeId);
+        if (this.batching) {
+            V update = this.updates.get(key);
+            if (update != null) {
+                // Already written on close
+                return this.read(name, update);
+            }
+        }
         V value = this.cache.get(key);
         Object attribute = this.read(name, value);
         if (attribute != null) {
             // If the object is mutable, we need to indicate that the attribute should be replicated
             if (!SessionAttributeImmutability.INSTANCE.test(attribute)) {
+                if (this.fingerprinter != null) {
+                    this.readAttributes.computeIfAbsent(name, k -> new ReadAttribute<>(key, value, attribute, this.fingerprinter.fingerprint(attribute)));
+                    return attribute;
+                }
+                if (this.batching) {
+                    this.updates.putIfAbsent(key, value);
+                    return attribute;
+                }
                 Mutator mutator = this.mutations.computeIfAbsent(name, k -> new CacheEntryMutator<>(this.cache, key, value));
                 // If cache is not transactional, mutate on close instead.
                 if (this.properties.isTransactional()) {
@@ -112,6 +166,33 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
 
     @Override
     public void close() {
+        if (this.fingerprinter != null) {
+            for (ReadAttribute<V> read : this.readAttributes.values()) {
+                if (this.fingerprinter.isDirty(read.attribute, read.fingerprint)) {
+                    if (this.batching) {
+                        this.updates.putIfAbsent(read.key, read.value);
+                    } else {
+                        new CacheEntryMutator<>(this.cache, read.key, read.value).mutate();
+                    }
+                }
+            }
+            this.readAttributes.clear();
+        }
+        if (this.batching) {
+            if (!this.updates.isEmpty()) {
+                // Write a snapshot, since the updates are cleared for the next request
+                this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS, Flag.IGNORE_RETURN_VALUES).putAll(new HashMap<>(this.updates));
+                this.updates.clear();
+            }
+            // Update the attribute names after adding new attributes, but before removing old ones
+            if (this.namesMutated.compareAndSet(true, false)) {
+                this.namesMutator.mutate();
+            }
+            for (SessionAttributeKey key : this.removals) {
+                this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS, Flag.IGNORE_RETURN_VALUES).remove(key);
+            }
+            this.removals.clear();
+        }
         if (!this.properties.isTransactional()) {
             for (Mutator mutator : this.mutations.values()) {
                 mutator.mutate();
@@ -119,4 +200,18 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         }
         this.mutations.clear();
     }
+
+    private static class ReadAttribute<V> {
+        final SessionAttributeKey key;
+        final V value;
+        final Object attribute;
+        final OptionalLong fingerprint;
+
+        ReadAttribute(SessionAttributeKey key, V value, Object attribute, OptionalLong fingerprint) {
+            this.key = key;
+            this.value = value;
+            this.attribute = attribute;
+            this.fingerprint = fingerprint;
+        }
+    }
 }
@@ -40,6 +40,7 @@ import org.wildfly.clustering.infinispan.spi.distribution.Key;
 import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
 import org.wildfly.clustering.marshalling.spi.Marshaller;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributes;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributesFactory;
 import org.wildfly.clustering.web.infinispan.session.SessionCreationMetaDataKey;
@@ -58,12 +59,17 @@ public class FineSessionAttributesFactory<V> implements SessionAttributesFactory
     private final Cache<SessionAttributeKey, V> attributeCache;
     private final Marshaller<Object, V> marshaller;
     private final CacheProperties properties;
+    private final boolean batching;
+    private final SessionAttributeFingerprinter fingerprinter;
 
-    public FineSessionAttributesFactory(Cache<SessionAttributeNamesKey, SessionAttributeNamesEntry> namesCache, Cache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties) {
+    public FineSessionAttributesFactory(Cache<SessionAttributeNamesKey, SessionAttributeNamesEntry> namesCache, Cache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties, boolean batching, SessionAttributeFingerprinter fingerprinter) {
         this.namesCache = namesCache;
         this.attributeCache = attributeCache;
         this.marshaller = marshaller;
         this.properties = properties;
+        // Transactional caches already defer writes until the batch commits
+        this.batching = batching && !properties.isTransactional();
+        this.fingerprinter = fingerprinter;
     }
 
     @Override
@@ -110,7 +116,7 @@ public class FineSessionAttributesFactory<V> implements SessionAttributesFactory
     public SessionAttributes createSessionAttributes(String id, SessionAttributeNamesEntry entry) {
         SessionAttributeNamesKey key = new SessionAttributeNamesKey(id);
         Mutator mutator = this.properties.isTransactional() && this.namesCache.getAdvancedCache().getCacheEntry(key).isCreated() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.namesCache, key, entry);
-        return new FineSessionAttributes<>(id, entry.getSequence(), entry.getNames(), mutator, this.attributeCache, this.marshaller, this.properties);
+        return new FineSessionAttributes<>(id, entry.getSequence(), entry.getNames(), mutator, this.attributeCache, this.marshaller, this.properties, this.batching, this.fingerprinter);
     }
 
     @Override
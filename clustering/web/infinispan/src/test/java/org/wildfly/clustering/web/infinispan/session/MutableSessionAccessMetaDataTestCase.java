@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.wildfly.clustering.ee.Mutator;
+
+public class MutableSessionAccessMetaDataTestCase {
+    private final SessionAccessMetaData accessMetaData = mock(SessionAccessMetaData.class);
+    private final Mutator mutator = mock(Mutator.class);
+
+    @Test
+    public void setLastAccessedDuration() {
+        SessionAccessMetaData metaData = new MutableSessionAccessMetaData(this.accessMetaData, this.mutator);
+
+        when(this.accessMetaData.getLastAccessedDuration()).thenReturn(Duration.ofSeconds(1L));
+
+        metaData.setLastAccessedDuration(Duration.ofMillis(1001L));
+
+        verify(this.accessMetaData).setLastAccessedDuration(Duration.ofMillis(1001L));
+        verify(this.mutator).mutate();
+    }
+
+    @Test
+    public void setLastAccessedDurationWithinGranularity() {
+        SessionAccessMetaData metaData = new MutableSessionAccessMetaData(this.accessMetaData, this.mutator, Duration.ofSeconds(10L));
+
+        // First access is always recorded
+        when(this.accessMetaData.getLastAccessedDuration()).thenReturn(Duration.ZERO);
+
+        metaData.setLastAccessedDuration(Duration.ofSeconds(1L));
+
+        verify(this.accessMetaData).setLastAccessedDuration(Duration.ofSeconds(1L));
+        verify(this.mutator).mutate();
+
+        reset(this.accessMetaData, this.mutator);
+
+        when(this.accessMetaData.getLastAccessedDuration()).thenReturn(Duration.ofSeconds(1L));
+
+        metaData.setLastAccessedDuration(Duration.ofSeconds(5L));
+
+        verify(this.accessMetaData, never()).setLastAccessedDuration(any(Duration.class));
+        verify(this.mutator, never()).mutate();
+
+        metaData.setLastAccessedDuration(Duration.ofSeconds(11L));
+
+        verify(this.accessMetaData).setLastAccessedDuration(Duration.ofSeconds(11L));
+        verify(this.mutator).mutate();
+    }
+}
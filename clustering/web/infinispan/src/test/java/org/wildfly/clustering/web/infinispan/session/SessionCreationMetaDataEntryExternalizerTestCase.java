@@ -22,13 +22,18 @@
 
 package org.wildfly.clustering.web.infinispan.session;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.time.Duration;
 import java.time.Instant;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.wildfly.clustering.marshalling.ExternalizerTester;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
 
 /**
  * Unit test for {@link SessionCreationMetaDataEntryExternalizer}.
@@ -43,6 +48,29 @@ public class SessionCreationMetaDataEntryExternalizerTestCase {
         SessionCreationMetaDataEntry<Object> entry = new SessionCreationMetaDataEntry<>(metaData);
 
         new ExternalizerTester<>(new SessionCreationMetaDataEntryExternalizer(), SessionCreationMetaDataEntryExternalizerTestCase::assertEquals).test(entry);
+
+        // Verify sub-millisecond precision
+        metaData = new SimpleSessionCreationMetaData(Instant.ofEpochSecond(Instant.now().getEpochSecond(), 123456789));
+        new ExternalizerTester<>(new SessionCreationMetaDataEntryExternalizer(), SessionCreationMetaDataEntryExternalizerTestCase::assertEquals).test(new SessionCreationMetaDataEntry<>(metaData));
+    }
+
+    /**
+     * Verifies that entries written in the previous format, i.e. without a format version, are still readable.
+     */
+    @Test
+    public void legacy() throws ClassNotFoundException, IOException {
+        SessionCreationMetaData metaData = new SimpleSessionCreationMetaData(Instant.ofEpochSecond(Instant.now().getEpochSecond(), 123456789));
+        metaData.setMaxInactiveInterval(Duration.ofMinutes(10));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeLong(metaData.getCreationTime().getEpochSecond());
+            output.writeInt(metaData.getCreationTime().getNano());
+            IndexSerializer.VARIABLE.writeInt(output, (int) metaData.getMaxInactiveInterval().getSeconds());
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(new SessionCreationMetaDataEntry<>(metaData), new SessionCreationMetaDataEntryExternalizer().readObject(input));
+        }
     }
 
     static void assertEquals(SessionCreationMetaDataEntry<Object> entry1, SessionCreationMetaDataEntry<Object> entry2) {
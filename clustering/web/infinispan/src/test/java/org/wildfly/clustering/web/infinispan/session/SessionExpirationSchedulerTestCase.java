@@ -69,7 +69,8 @@ public class SessionExpirationSchedulerTestCase {
             scheduler.schedule(canceledSessionId, canceledSessionMetaData);
             scheduler.schedule(expiringSessionId, expiringSessionMetaData);
 
-            TimeUnit.SECONDS.sleep(1L);
+            // Sessions expire in per-second buckets, so allow for up to a second of delay
+            TimeUnit.SECONDS.sleep(2L);
 
             scheduler.cancel(canceledSessionId);
             scheduler.schedule(canceledSessionId, canceledSessionMetaData);
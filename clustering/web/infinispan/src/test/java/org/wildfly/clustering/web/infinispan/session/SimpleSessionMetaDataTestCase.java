@@ -67,6 +67,22 @@ public class SimpleSessionMetaDataTestCase {
         assertFalse(this.metaData.isExpired());
     }
 
+    @Test
+    public void isExpiredWithAccessTimeGranularity() {
+        SessionMetaData metaData = new SimpleSessionMetaData(this.creationMetaData, this.accessMetaData, Duration.ofMinutes(1L));
+
+        when(this.creationMetaData.getCreationTime()).thenReturn(Instant.now().minus(Duration.ofMinutes(10L)));
+        when(this.creationMetaData.getMaxInactiveInterval()).thenReturn(Duration.ofMinutes(5L));
+        when(this.accessMetaData.getLastAccessedDuration()).thenReturn(Duration.ofMinutes(4L).plusSeconds(30L));
+
+        // Recorded last access may trail the actual last access by up to the granularity
+        assertFalse(metaData.isExpired());
+
+        when(this.accessMetaData.getLastAccessedDuration()).thenReturn(Duration.ofMinutes(3L));
+
+        assertTrue(metaData.isExpired());
+    }
+
     @Test
     public void getCreationTime() {
         Instant expected = Instant.now();
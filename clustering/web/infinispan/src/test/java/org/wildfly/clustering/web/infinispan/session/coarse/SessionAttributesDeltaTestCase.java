@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.wildfly.clustering.marshalling.ExternalizerTester;
+
+/**
+ * Unit test for {@link SessionAttributesDelta} and {@link SessionAttributesDeltaExternalizer}.
+ */
+public class SessionAttributesDeltaTestCase {
+
+    private final SessionAttributesKey key = new SessionAttributesKey("session");
+
+    @Test
+    public void apply() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("a", "1");
+        attributes.put("b", "2");
+        attributes.put("c", "3");
+        SessionAttributesEntry<Object> entry = new SessionAttributesEntry<>(1L, attributes);
+
+        SessionAttributesDelta<Object> delta = new SessionAttributesDelta<>(1L, 2L, Collections.singletonMap("a", "updated"), Collections.singleton("b"));
+        SessionAttributesEntry<Object> result = delta.apply(this.key, entry);
+
+        assertEquals(2L, result.getVersion());
+        assertEquals(2, result.getAttributes().size());
+        assertEquals("updated", result.getAttributes().get("a"));
+        assertEquals("3", result.getAttributes().get("c"));
+        // The current entry is not modified
+        assertEquals(3, attributes.size());
+        assertEquals("1", attributes.get("a"));
+    }
+
+    @Test
+    public void applyDiverged() {
+        SessionAttributesEntry<Object> entry = new SessionAttributesEntry<>(3L, Collections.singletonMap("a", "1"));
+        SessionAttributesDelta<Object> delta = new SessionAttributesDelta<>(1L, 2L, Collections.singletonMap("a", "updated"), Collections.emptySet());
+
+        assertSame(entry, delta.apply(this.key, entry));
+        assertNull(delta.apply(this.key, null));
+    }
+
+    @Test
+    public void externalize() throws ClassNotFoundException, IOException {
+        SessionAttributesDelta<Object> delta = new SessionAttributesDelta<>(1L, 2L, Collections.singletonMap("a", "updated"), Collections.singleton("b"));
+        new ExternalizerTester<>(new SessionAttributesDeltaExternalizer(), SessionAttributesDeltaTestCase::assertDeltaEquals).test(delta);
+    }
+
+    static void assertDeltaEquals(SessionAttributesDelta<Object> delta1, SessionAttributesDelta<Object> delta2) {
+        assertEquals(delta1.getVersion(), delta2.getVersion());
+        assertEquals(delta1.getNextVersion(), delta2.getNextVersion());
+        assertEquals(delta1.getUpdates(), delta2.getUpdates());
+        assertEquals(delta1.getRemovals(), delta2.getRemovals());
+    }
+}
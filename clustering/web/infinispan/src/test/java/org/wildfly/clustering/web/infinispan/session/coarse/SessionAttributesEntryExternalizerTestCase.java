@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.coarse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.clustering.marshalling.ExternalizerTester;
+
+/**
+ * Unit test for {@link SessionAttributesEntryExternalizer}.
+ */
+public class SessionAttributesEntryExternalizerTestCase {
+
+    @Test
+    public void test() throws ClassNotFoundException, IOException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("a", "1");
+        attributes.put("b", 2);
+        new ExternalizerTester<>(new SessionAttributesEntryExternalizer(), SessionAttributesEntryExternalizerTestCase::assertEquals).test(new SessionAttributesEntry<>(10L, attributes));
+    }
+
+    static void assertEquals(SessionAttributesEntry<Object> entry1, SessionAttributesEntry<Object> entry2) {
+        Assert.assertEquals(entry1.getVersion(), entry2.getVersion());
+        Assert.assertEquals(entry1.getAttributes(), entry2.getAttributes());
+    }
+}
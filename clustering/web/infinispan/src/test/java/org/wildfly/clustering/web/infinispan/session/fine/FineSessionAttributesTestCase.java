@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.fine;
+
+import static org.junit.Assert.*;
+import static org.mockito.AdditionalAnswers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.infinispan.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
+
+/**
+ * Unit test for {@link FineSessionAttributes}.
+ */
+public class FineSessionAttributesTestCase {
+    private final String id = "session";
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final ConcurrentMap<String, Integer> names = new ConcurrentHashMap<>();
+    private final Mutator namesMutator = mock(Mutator.class);
+    private final Cache<SessionAttributeKey, Object> cache = mock(Cache.class);
+    private final AdvancedCache<SessionAttributeKey, Object> advancedCache = mock(AdvancedCache.class);
+    private final Marshaller<Object, Object> marshaller = mock(Marshaller.class);
+    private final CacheProperties properties = mock(CacheProperties.class);
+
+    @Before
+    public void init() throws Exception {
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.advancedCache.withFlags(Flag.FORCE_SYNCHRONOUS)).thenReturn(this.advancedCache);
+        when(this.advancedCache.withFlags(Flag.FORCE_SYNCHRONOUS, Flag.IGNORE_RETURN_VALUES)).thenReturn(this.advancedCache);
+        when(this.marshaller.write(any())).then(returnsFirstArg());
+        when(this.marshaller.read(any())).then(returnsFirstArg());
+        when(this.properties.isTransactional()).thenReturn(false);
+    }
+
+    @Test
+    public void setAttributes() {
+        FineSessionAttributes<Object> attributes = new FineSessionAttributes<>(this.id, this.sequence, this.names, this.namesMutator, this.cache, this.marshaller, this.properties, false, null);
+
+        for (int i = 0; i < 5; ++i) {
+            assertNull(attributes.setAttribute("attribute" + i, "value" + i));
+        }
+        attributes.close();
+
+        // One synchronous write per attribute
+        verify(this.advancedCache, times(5)).put(any(SessionAttributeKey.class), any());
+        verify(this.namesMutator, times(5)).mutate();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void setAttributesBatched() {
+        FineSessionAttributes<Object> attributes = new FineSessionAttributes<>(this.id, this.sequence, this.names, this.namesMutator, this.cache, this.marshaller, this.properties, true, null);
+
+        for (int i = 0; i < 5; ++i) {
+            assertNull(attributes.setAttribute("attribute" + i, "value" + i));
+        }
+        assertEquals("value4", attributes.setAttribute("attribute4", "updated"));
+
+        // Reads see the writes of the request
+        assertEquals("value2", attributes.getAttribute("attribute2"));
+        assertEquals("updated", attributes.getAttribute("attribute4"));
+
+        verify(this.cache, never()).get(any());
+        verify(this.advancedCache, never()).put(any(SessionAttributeKey.class), any());
+        verify(this.advancedCache, never()).putAll(any(Map.class));
+        verify(this.namesMutator, never()).mutate();
+
+        attributes.close();
+
+        // A single write for all attributes
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(this.advancedCache).putAll(captor.capture());
+        Map<SessionAttributeKey, Object> updates = captor.getValue();
+        assertEquals(5, updates.size());
+        assertEquals("updated", updates.get(new SessionAttributeKey(this.id, this.names.get("attribute4"))));
+        verify(this.advancedCache, never()).put(any(SessionAttributeKey.class), any());
+        verify(this.namesMutator).mutate();
+    }
+
+    @Test
+    public void removeAttributeBatched() {
+        this.names.put("attribute", this.sequence.incrementAndGet());
+        SessionAttributeKey key = new SessionAttributeKey(this.id, 1);
+        when(this.cache.get(key)).thenReturn("value");
+
+        FineSessionAttributes<Object> attributes = new FineSessionAttributes<>(this.id, this.sequence, this.names, this.namesMutator, this.cache, this.marshaller, this.properties, true, null);
+
+        assertEquals("value", attributes.removeAttribute("attribute"));
+        assertNull(attributes.getAttribute("attribute"));
+        verify(this.advancedCache, never()).remove(key);
+
+        attributes.close();
+
+        verify(this.namesMutator).mutate();
+        verify(this.advancedCache).remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void dirtyDetection() {
+        this.names.put("attribute", this.sequence.incrementAndGet());
+        SessionAttributeKey key = new SessionAttributeKey(this.id, 1);
+        when(this.cache.get(key)).thenReturn(new ArrayList<>(Arrays.asList("value")));
+        SessionAttributeFingerprinter fingerprinter = new SessionAttributeFingerprinter(this.marshaller);
+
+        FineSessionAttributes<Object> attributes = new FineSessionAttributes<>(this.id, this.sequence, this.names, this.namesMutator, this.cache, this.marshaller, this.properties, true, fingerprinter);
+        assertEquals(Arrays.asList("value"), attributes.getAttribute("attribute"));
+        attributes.close();
+
+        // A mutable attribute that was read, but not modified, is not replicated
+        verify(this.advancedCache, never()).putAll(any(Map.class));
+        assertEquals(1L, fingerprinter.getAvoidedReplicationCount());
+
+        attributes = new FineSessionAttributes<>(this.id, this.sequence, this.names, this.namesMutator, this.cache, this.marshaller, this.properties, true, fingerprinter);
+        ((List<String>) attributes.getAttribute("attribute")).add("updated");
+        attributes.close();
+
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(this.advancedCache).putAll(captor.capture());
+        assertEquals(Arrays.asList("value", "updated"), captor.getValue().get(key));
+        assertEquals(1L, fingerprinter.getAvoidedReplicationCount());
+    }
+}
@@ -32,4 +32,11 @@ public interface ActiveSessionStatistics {
      * @return The number of active sessions
      */
     long getActiveSessionCount();
+
+    /**
+     * @return The number of mutable session attributes read by a request that were not replicated, since they were not modified
+     */
+    default long getAvoidedAttributeReplicationCount() {
+        return 0L;
+    }
 }
@@ -21,6 +21,8 @@
  */
 package org.wildfly.clustering.web.session;
 
+import java.time.Duration;
+
 import org.wildfly.clustering.marshalling.spi.Marshallability;
 import org.wildfly.clustering.marshalling.spi.MarshalledValueFactory;
 import org.wildfly.clustering.web.LocalContextFactory;
@@ -30,7 +32,11 @@ import org.wildfly.clustering.web.LocalContextFactory;
  * @author Paul Ferraro
  */
 public interface SessionManagerFactoryConfiguration<C extends Marshallability, L> {
-    enum SessionAttributePersistenceStrategy { COARSE, FINE }
+    /**
+     * Indicates how session attributes are persisted.
+     * {@link #DELTA} persists all attributes of a session together, like {@link #COARSE}, but only replicates the attributes changed by a request.
+     */
+    enum SessionAttributePersistenceStrategy { COARSE, FINE, DELTA }
 
     int getMaxActiveSessions();
 
@@ -47,4 +53,23 @@ public interface SessionManagerFactoryConfiguration<C extends Marshallability, L
     C getMarshallingContext();
 
     LocalContextFactory<L> getLocalContextFactory();
+
+    /**
+     * Indicates whether mutable session attributes should only be replicated if their marshalled form changed.
+     * @return true, if dirty detection is enabled, false otherwise
+     */
+    boolean isDirtyDetectionEnabled();
+
+    /**
+     * Returns the duration within which subsequent accesses of a session do not update its replicated last accessed time.
+     * @return a duration, where zero records every access
+     */
+    Duration getAccessTimeGranularity();
+
+    /**
+     * Indicates whether the attribute writes of a request to a session with {@link SessionAttributePersistenceStrategy#FINE} persistence
+     * should be deferred until the request completes, if the cache is not transactional.
+     * @return true, if attribute batching is enabled, false otherwise
+     */
+    boolean isAttributeBatchingEnabled();
 }
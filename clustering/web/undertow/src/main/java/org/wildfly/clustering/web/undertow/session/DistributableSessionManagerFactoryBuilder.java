@@ -23,6 +23,7 @@ package org.wildfly.clustering.web.undertow.session;
 
 import java.io.Externalizable;
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -113,7 +114,8 @@ public class DistributableSessionManagerFactoryBuilder implements CapabilityServ
 
             @Override
             public SessionAttributePersistenceStrategy getAttributePersistenceStrategy() {
-                return strategies.get(config.getGranularity());
+                SessionAttributePersistenceStrategy strategy = strategies.get(config.getGranularity());
+                return ((strategy == SessionAttributePersistenceStrategy.COARSE) && config.isDeltaReplicationEnabled()) ? SessionAttributePersistenceStrategy.DELTA : strategy;
             }
 
             @Override
@@ -145,6 +147,21 @@ public class DistributableSessionManagerFactoryBuilder implements CapabilityServ
             public LocalContextFactory<LocalSessionContext> getLocalContextFactory() {
                 return localContextFactory;
             }
+
+            @Override
+            public boolean isDirtyDetectionEnabled() {
+                return config.isDirtyDetectionEnabled();
+            }
+
+            @Override
+            public Duration getAccessTimeGranularity() {
+                return config.getAccessTimeGranularity();
+            }
+
+            @Override
+            public boolean isAttributeBatchingEnabled() {
+                return config.isAttributeBatchingEnabled();
+            }
         };
         this.factoryBuilder = provider.getBuilder(configuration);
     }
@@ -26,13 +26,14 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.wildfly.clustering.web.session.ActiveSessionStatistics;
 import org.wildfly.clustering.web.session.InactiveSessionStatistics;
+import org.wildfly.extension.undertow.session.SessionReplicationStatistics;
 
 import io.undertow.server.session.Session;
 
 /**
  * @author Paul Ferraro
  */
-public class DistributableSessionManagerStatistics implements RecordableSessionManagerStatistics {
+public class DistributableSessionManagerStatistics implements RecordableSessionManagerStatistics, SessionReplicationStatistics {
 
     private final InactiveSessionStatistics inactiveSessionStatistics;
     private final ActiveSessionStatistics activeSessionStatistics;
@@ -73,6 +74,11 @@ public class DistributableSessionManagerStatistics implements RecordableSessionM
         return this.activeSessionStatistics.getActiveSessionCount();
     }
 
+    @Override
+    public long getAvoidedAttributeReplicationCount() {
+        return this.activeSessionStatistics.getAvoidedAttributeReplicationCount();
+    }
+
     @Override
     public long getExpiredSessionCount() {
         return this.inactiveSessionStatistics.getExpiredSessionCount();
@@ -26,6 +26,8 @@ public class ComponentClientInstance implements Serializable {
 
     private final Map<Object, Object> contextInformation = new HashMap<Object, Object>();
     private volatile boolean constructionComplete = false;
+    // Alternating keys and values of the view instance data, captured on construction completion
+    private transient volatile Object[] viewInstanceData;
 
     public Object getViewInstanceData(final Object key) {
         return contextInformation.get(key);
@@ -39,13 +41,37 @@ public class ComponentClientInstance implements Serializable {
     }
 
     void prepareInterceptorContext(InterceptorContext interceptorContext){
-        for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
-            interceptorContext.putPrivateData(entry.getKey(), entry.getValue());
+        Object[] data = viewInstanceData;
+        if (data == null) {
+            if (!constructionComplete) {
+                for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
+                    interceptorContext.putPrivateData(entry.getKey(), entry.getValue());
+                }
+                return;
+            }
+            // Instance was deserialized
+            data = captureViewInstanceData();
+        }
+        for (int i = 0; i < data.length; i += 2) {
+            interceptorContext.putPrivateData(data[i], data[i + 1]);
         }
     }
 
     void constructionComplete() {
+        captureViewInstanceData();
         constructionComplete = true;
     }
 
+    private Object[] captureViewInstanceData() {
+        // The view instance data can no longer change, so invocations need not iterate over the map
+        final Object[] data = new Object[contextInformation.size() * 2];
+        int index = 0;
+        for (Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
+            data[index++] = entry.getKey();
+            data[index++] = entry.getValue();
+        }
+        viewInstanceData = data;
+        return data;
+    }
+
 }
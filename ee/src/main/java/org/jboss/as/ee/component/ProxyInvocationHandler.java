@@ -43,6 +43,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
 
     private final Map<Method, Interceptor> interceptors;
     private final ComponentView componentView;
+    private final Component component;
     private final ComponentClientInstance instance;
 
     /**
@@ -56,6 +57,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         this.interceptors = interceptors;
         this.instance = instance;
         this.componentView = componentView;
+        this.component = componentView.getComponent();
     }
 
     /** {@inheritDoc} */
@@ -67,7 +69,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         final InterceptorContext context = new InterceptorContext();
         // special location for original proxy
         context.putPrivateData(Object.class, proxy);
-        context.putPrivateData(Component.class, componentView.getComponent());
+        context.putPrivateData(Component.class, component);
         context.putPrivateData(ComponentView.class, componentView);
         context.putPrivateData(SecurityDomain.class, WildFlySecurityManager.isChecking() ?
                 AccessController.doPrivileged((PrivilegedAction<SecurityDomain>) SecurityDomain::getCurrent) :
@@ -75,7 +77,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         instance.prepareInterceptorContext(context);
         context.setParameters(args);
         context.setMethod(method);
-        // setup the public context data
+        // setup the public context data; its table is only allocated if an interceptor adds to it
         context.setContextData(new HashMap<String, Object>());
         context.setBlockingCaller(true);
         return interceptor.processInvocation(context);
@@ -142,6 +142,8 @@ public final class ViewService implements Service<ComponentView> {
     class View implements ComponentView {
 
         private final Component component;
+        // Non-null if invocations must wait for the component to start
+        private final BasicComponent basicComponent;
         private final Map<Method, Interceptor> viewInterceptors;
         private final Map<MethodDescription, Method> methods;
         private final Map<Class<?>, Object> privateData;
@@ -149,6 +151,7 @@ public final class ViewService implements Service<ComponentView> {
         View(final Map<Class<?>, Object> privateData) {
             this.privateData = privateData;
             component = componentInjector.getValue();
+            basicComponent = (component instanceof BasicComponent) ? (BasicComponent) component : null;
             //we need to build the view interceptor chain
             this.viewInterceptors = new IdentityHashMap<Method, Interceptor>();
             this.methods = new HashMap<MethodDescription, Method>();
@@ -190,8 +193,8 @@ public final class ViewService implements Service<ComponentView> {
 
         @Override
         public Object invoke(InterceptorContext interceptorContext) throws Exception {
-            if(component instanceof BasicComponent) {
-                ((BasicComponent) component).waitForComponentStart();
+            if(basicComponent != null) {
+                basicComponent.waitForComponentStart();
             }
             final Method method = interceptorContext.getMethod();
             final Interceptor interceptor = viewInterceptors.get(method);
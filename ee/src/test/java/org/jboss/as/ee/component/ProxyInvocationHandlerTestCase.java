@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the interceptor context prepared by {@link ProxyInvocationHandler} for each invocation of a component view proxy.
+ */
+public class ProxyInvocationHandlerTestCase {
+
+    private final List<InterceptorContext> contexts = new ArrayList<>();
+    private Component component;
+    private ComponentView view;
+    private Map<Method, Interceptor> interceptors;
+    private Method method;
+
+    @Before
+    public void init() throws NoSuchMethodException {
+        this.component = proxy(Component.class, (proxy, method, args) -> null);
+        this.view = proxy(ComponentView.class, (proxy, method, args) -> method.getName().equals("getComponent") ? this.component : null);
+        this.method = Comparable.class.getMethod("compareTo", Object.class);
+        // JDK proxies, unlike the generated view proxies, do not pass the same Method instance on each invocation
+        this.interceptors = new HashMap<>();
+        this.interceptors.put(this.method, context -> {
+            this.contexts.add(context);
+            return 0;
+        });
+    }
+
+    @Test
+    public void reusedProxy() throws Throwable {
+        ComponentClientInstance instance = new ComponentClientInstance();
+        instance.setViewInstanceData("key", "value");
+        instance.setViewInstanceData(String.class, "other");
+        instance.constructionComplete();
+
+        Comparable<?> proxy = this.createProxy(instance);
+        proxy.compareTo(null);
+        proxy.compareTo(null);
+
+        assertEquals(2, this.contexts.size());
+        assertNotSame(this.contexts.get(0), this.contexts.get(1));
+        for (InterceptorContext context : this.contexts) {
+            this.assertContext(proxy, context);
+        }
+    }
+
+    @Test
+    public void duringConstruction() throws Throwable {
+        ComponentClientInstance instance = new ComponentClientInstance();
+        instance.setViewInstanceData("key", "value");
+        Comparable<?> proxy = this.createProxy(instance);
+        // e.g. a post construct interceptor, which can still add view instance data
+        proxy.compareTo(null);
+        instance.setViewInstanceData(String.class, "other");
+        instance.constructionComplete();
+        proxy.compareTo(null);
+
+        assertEquals(2, this.contexts.size());
+        assertEquals("value", this.contexts.get(0).getPrivateData("key"));
+        assertSame(this.component, this.contexts.get(0).getPrivateData(Component.class));
+        this.assertContext(proxy, this.contexts.get(1));
+    }
+
+    @Test
+    public void deserializedInstance() throws Throwable {
+        ComponentClientInstance instance = new ComponentClientInstance();
+        instance.setViewInstanceData("key", "value");
+        instance.setViewInstanceData(String.class, "other");
+        instance.constructionComplete();
+
+        Comparable<?> proxy = this.createProxy(copy(instance));
+        proxy.compareTo(null);
+        proxy.compareTo(null);
+
+        assertEquals(2, this.contexts.size());
+        for (InterceptorContext context : this.contexts) {
+            this.assertContext(proxy, context);
+        }
+    }
+
+    private void assertContext(Object proxy, InterceptorContext context) {
+        assertSame(proxy, context.getPrivateData(Object.class));
+        assertSame(this.component, context.getPrivateData(Component.class));
+        assertSame(this.view, context.getPrivateData(ComponentView.class));
+        assertEquals("value", context.getPrivateData("key"));
+        assertEquals("other", context.getPrivateData(String.class));
+        assertEquals(this.method, context.getMethod());
+    }
+
+    private Comparable<?> createProxy(ComponentClientInstance instance) {
+        return proxy(Comparable.class, new ProxyInvocationHandler(this.interceptors, instance, this.view));
+    }
+
+    private static <T> T proxy(Class<T> targetClass, java.lang.reflect.InvocationHandler handler) {
+        return targetClass.cast(Proxy.newProxyInstance(ProxyInvocationHandlerTestCase.class.getClassLoader(), new Class<?>[] { targetClass }, handler));
+    }
+
+    private static ComponentClientInstance copy(ComponentClientInstance instance) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(instance);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (ComponentClientInstance) input.readObject();
+        }
+    }
+}
@@ -94,6 +94,20 @@ public interface Cache<K, V extends Identifiable<K>> extends AffinitySupport<K>,
 
     int getTotalSize();
 
+    /**
+     * Returns the mean time, in microseconds, taken to passivate a bean, if reported by this cache.
+     */
+    default long getAveragePassivationTime() {
+        return 0;
+    }
+
+    /**
+     * Returns the mean time, in microseconds, taken to activate a bean, if reported by this cache.
+     */
+    default long getAverageActivationTime() {
+        return 0;
+    }
+
     /**
      * Checks whether the supplied {@link Throwable} is remotable meaning it can be safely sent to the client over the wire.
      */
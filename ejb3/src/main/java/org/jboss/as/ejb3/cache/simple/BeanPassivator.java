@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.SimpleDataInput;
+import org.jboss.marshalling.SimpleDataOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.wildfly.clustering.ejb.PassivationListener;
+import org.wildfly.clustering.marshalling.jboss.MarshalledValueOutputStream;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Passivates the beans of a {@link SimpleCache} to a {@link SegmentedFileStore}, using the versioned marshalling configuration of the deployment.
+ * Records the number and duration of passivations and activations.
+ *
+ * @param <K> the cache key type
+ * @param <V> the cache value type
+ */
+class BeanPassivator<K, V> implements AutoCloseable {
+
+    private final SegmentedFileStore<K> store;
+    private final MarshallingContext context;
+    private final PassivationListener<V> listener;
+    private final LongAdder passivations = new LongAdder();
+    private final LongAdder passivationTime = new LongAdder();
+    private final LongAdder activations = new LongAdder();
+    private final LongAdder activationTime = new LongAdder();
+
+    BeanPassivator(SegmentedFileStore<K> store, MarshallingContext context, PassivationListener<V> listener) {
+        this.store = store;
+        this.context = context;
+        this.listener = listener;
+    }
+
+    /**
+     * Invokes the pre-passivate callbacks of the specified bean and writes it to the store.
+     * If the bean could not be written, its post-activate callbacks are invoked, so that it may remain in use.
+     */
+    void passivate(K id, V bean) throws IOException {
+        long start = System.nanoTime();
+        this.listener.prePassivate(bean);
+        try {
+            this.store.write(id, this.marshal(bean));
+        } catch (IOException | RuntimeException e) {
+            this.listener.postActivate(bean);
+            throw e;
+        }
+        this.passivations.increment();
+        this.passivationTime.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Removes the specified bean from the store and invokes its post-activate callbacks.
+     * The bean remains in the store if it could not be unmarshalled.
+     * @return the activated bean, or null if the store did not contain the specified bean
+     */
+    V activate(K id) throws IOException, ClassNotFoundException {
+        long start = System.nanoTime();
+        ByteBuffer data = this.store.read(id);
+        if (data == null) return null;
+        V bean = this.unmarshal(data);
+        this.store.discard(id);
+        this.listener.postActivate(bean);
+        this.activations.increment();
+        this.activationTime.add(System.nanoTime() - start);
+        return bean;
+    }
+
+    /**
+     * Removes the specified bean from the store, without activating it.
+     */
+    boolean discard(K id) {
+        return this.store.discard(id);
+    }
+
+    boolean contains(K id) {
+        return this.store.contains(id);
+    }
+
+    /**
+     * Returns the mean time, in microseconds, taken to passivate a bean.
+     */
+    long getAveragePassivationTime() {
+        return average(this.passivationTime, this.passivations);
+    }
+
+    /**
+     * Returns the mean time, in microseconds, taken to activate a bean.
+     */
+    long getAverageActivationTime() {
+        return average(this.activationTime, this.activations);
+    }
+
+    @Override
+    public void close() {
+        this.store.close();
+    }
+
+    private ByteBuffer marshal(V bean) throws IOException {
+        MarshallingContext context = this.context;
+        int version = context.getCurrentVersion();
+        MarshalledValueOutputStream output = new MarshalledValueOutputStream(512);
+        ClassLoader loader = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(context.getClassLoader());
+        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
+            IndexSerializer.VARIABLE.writeInt(data, version);
+            Marshaller marshaller = context.createMarshaller(version);
+            try {
+                marshaller.start(data);
+                marshaller.writeObject(bean);
+                marshaller.finish();
+            } catch (IOException | RuntimeException e) {
+                marshaller.close();
+                throw e;
+            }
+            context.release(version, marshaller);
+        } finally {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+        }
+        return output.getBuffer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unmarshal(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+        MarshallingContext context = this.context;
+        ByteArrayInputStream input = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        ClassLoader loader = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(context.getClassLoader());
+        try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
+            int version = IndexSerializer.VARIABLE.readInt(data);
+            try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
+                unmarshaller.start(data);
+                V bean = (V) unmarshaller.readObject();
+                unmarshaller.finish();
+                return bean;
+            }
+        } finally {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+        }
+    }
+
+    private static long average(LongAdder time, LongAdder count) {
+        long n = count.sum();
+        return (n > 0) ? TimeUnit.NANOSECONDS.toMicros(time.sum()) / n : 0;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores records in a sequence of memory-mapped segment files, so that their contents are held by the operating system rather than the heap.
+ * Records are appended to the current segment; a segment is recycled once all of its records are removed.
+ * Records larger than a segment are written to a dedicated segment, which is deleted once its record is removed.
+ * The contents of this store, and its directory, do not survive {@link #close()}.
+ *
+ * @param <K> the record key type
+ */
+class SegmentedFileStore<K> implements AutoCloseable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 4 << 20;
+    // Number of empty segments retained for reuse, beyond which empty segments are deleted
+    private static final int MAX_FREE_SEGMENTS = 2;
+
+    private final Map<K, Record> records = new HashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private final Deque<Segment> freeSegments = new ArrayDeque<>();
+    private final Path directory;
+    private final int segmentSize;
+    private Segment current;
+    private int nextSegment = 0;
+
+    SegmentedFileStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    SegmentedFileStore(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Writes the remaining bytes of the specified buffer as the record of the specified key, replacing any existing record.
+     */
+    synchronized void write(K key, ByteBuffer data) throws IOException {
+        this.free(this.records.remove(key));
+        int length = data.remaining();
+        Segment segment = this.allocate(length);
+        int offset = segment.append(data);
+        this.records.put(key, new Record(segment, offset, length));
+    }
+
+    /**
+     * Reads the record of the specified key, without removing it.
+     * @return the contents of the record, or null if there was no such record
+     */
+    synchronized ByteBuffer read(K key) {
+        Record record = this.records.get(key);
+        if (record == null) return null;
+        ByteBuffer data = ByteBuffer.allocate(record.length);
+        record.segment.read(record.offset, data);
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Removes the record of the specified key.
+     * @return the contents of the removed record, or null if there was no such record
+     */
+    synchronized ByteBuffer remove(K key) {
+        Record record = this.records.remove(key);
+        if (record == null) return null;
+        ByteBuffer data = ByteBuffer.allocate(record.length);
+        record.segment.read(record.offset, data);
+        data.flip();
+        this.free(record);
+        return data;
+    }
+
+    /**
+     * Removes the record of the specified key, without reading it.
+     * @return true, if a record was removed, false otherwise
+     */
+    synchronized boolean discard(K key) {
+        Record record = this.records.remove(key);
+        this.free(record);
+        return record != null;
+    }
+
+    synchronized boolean contains(K key) {
+        return this.records.containsKey(key);
+    }
+
+    synchronized int size() {
+        return this.records.size();
+    }
+
+    /**
+     * Returns the number of segment files currently held by this store.
+     */
+    synchronized int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    /**
+     * Discards all records and deletes the segment files of this store.
+     */
+    @Override
+    public synchronized void close() {
+        this.records.clear();
+        this.freeSegments.clear();
+        this.current = null;
+        for (Segment segment : this.segments) {
+            segment.close();
+        }
+        this.segments.clear();
+        try {
+            Files.deleteIfExists(this.directory);
+        } catch (IOException e) {
+            this.directory.toFile().deleteOnExit();
+        }
+    }
+
+    private Segment allocate(int length) throws IOException {
+        if (length > this.segmentSize) {
+            return this.createSegment(length);
+        }
+        Segment current = this.current;
+        if ((current != null) && (current.remaining() >= length)) {
+            return current;
+        }
+        Segment segment = this.freeSegments.pollFirst();
+        if (segment == null) {
+            segment = this.createSegment(this.segmentSize);
+        }
+        this.current = segment;
+        // The previous segment can only be recycled once it is no longer the target of new records
+        if ((current != null) && current.isEmpty()) {
+            this.recycle(current);
+        }
+        return segment;
+    }
+
+    private void free(Record record) {
+        if (record != null) {
+            Segment segment = record.segment;
+            if (segment.release()) {
+                if (segment == this.current) {
+                    segment.reset();
+                } else {
+                    this.recycle(segment);
+                }
+            }
+        }
+    }
+
+    private void recycle(Segment segment) {
+        if ((segment.capacity() == this.segmentSize) && (this.freeSegments.size() < MAX_FREE_SEGMENTS)) {
+            segment.reset();
+            this.freeSegments.addLast(segment);
+        } else {
+            this.segments.remove(segment);
+            segment.close();
+        }
+    }
+
+    private Segment createSegment(int size) throws IOException {
+        Segment segment = new Segment(this.directory.resolve(Integer.toString(this.nextSegment++)), size);
+        this.segments.add(segment);
+        return segment;
+    }
+
+    private static class Record {
+        final Segment segment;
+        final int offset;
+        final int length;
+
+        Record(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position = 0;
+        private int records = 0;
+
+        Segment(Path path, int size) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException | RuntimeException e) {
+                this.close();
+                throw e;
+            }
+        }
+
+        int capacity() {
+            return this.buffer.capacity();
+        }
+
+        int remaining() {
+            return this.buffer.capacity() - this.position;
+        }
+
+        boolean isEmpty() {
+            return this.records == 0;
+        }
+
+        int append(ByteBuffer data) {
+            int offset = this.position;
+            int length = data.remaining();
+            ByteBuffer target = this.buffer.duplicate();
+            target.position(offset);
+            target.put(data);
+            this.position += length;
+            this.records += 1;
+            return offset;
+        }
+
+        void read(int offset, ByteBuffer target) {
+            ByteBuffer source = this.buffer.duplicate();
+            source.position(offset);
+            source.limit(offset + target.remaining());
+            target.put(source);
+        }
+
+        /**
+         * @return true, if this segment no longer contains any records
+         */
+        boolean release() {
+            this.records -= 1;
+            return this.records == 0;
+        }
+
+        void reset() {
+            this.position = 0;
+        }
+
+        void close() {
+            try {
+                this.channel.close();
+                // The mapping itself is released once the buffer is garbage collected
+                Files.deleteIfExists(this.path);
+            } catch (IOException e) {
+                this.path.toFile().deleteOnExit();
+            }
+        }
+    }
+}
@@ -21,13 +21,17 @@
  */
 package org.jboss.as.ejb3.cache.simple;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.as.ejb3.cache.Cache;
@@ -38,10 +42,14 @@ import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.ejb.client.Affinity;
 import org.jboss.ejb.client.NodeAffinity;
+import org.wildfly.clustering.ee.ExpirationWheel;
 import org.wildfly.clustering.ejb.IdentifierFactory;
 
 /**
  * Simple {@link Cache} implementation using in-memory storage and eager expiration.
+ * Released beans are grouped into per-second buckets of an {@link ExpirationWheel}, rather than each scheduling its own removal task.
+ * If configured with a {@link BeanPassivator}, the least recently used idle beans are passivated to local disk whenever the number of beans held in memory exceeds a maximum size,
+ * and are activated again on their next access.
  *
  * @author Paul Ferraro
  *
@@ -50,48 +58,58 @@ import org.wildfly.clustering.ejb.IdentifierFactory;
  */
 public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
 
-    final Map<K, Future<?>> expirationFutures = new ConcurrentHashMap<>();
     private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
     private final StatefulObjectFactory<V> factory;
     private final IdentifierFactory<K> identifierFactory;
     private final StatefulTimeoutInfo timeout;
     private final ServerEnvironment environment;
     private final ScheduledExecutorService executor;
+    private final BeanPassivator<K, V> passivator;
+    private final int maxSize;
+    private final AtomicInteger passivated = new AtomicInteger();
+    private final AtomicBoolean passivating = new AtomicBoolean();
+    private volatile ExpirationWheel<K> expiration;
 
     public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor) {
+        this(factory, identifierFactory, timeout, environment, executor, null, 0);
+    }
+
+    SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor, BeanPassivator<K, V> passivator, int maxSize) {
         this.factory = factory;
         this.identifierFactory = identifierFactory;
         this.timeout = timeout;
         this.environment = environment;
         this.executor = executor;
+        this.passivator = passivator;
+        this.maxSize = maxSize;
     }
 
     @Override
     public void start() {
-        // Do nothing
+        if ((this.timeout != null) && (this.timeout.getValue() > 0)) {
+            this.expiration = new ExpirationWheel<>(this.executor, null, this::remove, (key, e) -> EjbLogger.ROOT_LOGGER.failedToExpireStatefulSessionBean(key, e));
+        }
     }
 
     @Override
     public void stop() {
-        for (Future<?> future: this.expirationFutures.values()) {
-            future.cancel(true);
-        }
-        for (Future<?> future: this.expirationFutures.values()) {
-            if (!future.isCancelled() && !future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
-                }
-            }
+        ExpirationWheel<K> expiration = this.expiration;
+        if (expiration != null) {
+            expiration.close();
+            this.expiration = null;
         }
         for(Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
-            this.factory.destroyInstance(entry.getValue().getValue());
+            // Passivated beans are discarded without invoking their PreDestroy callbacks
+            V value = entry.getValue().getValue();
+            if (value != null) {
+                this.factory.destroyInstance(value);
+            }
         }
-        this.expirationFutures.clear();
         this.entries.clear();
+        if (this.passivator != null) {
+            this.passivator.close();
+            this.passivated.set(0);
+        }
     }
 
     @Override
@@ -117,32 +135,89 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         }
         V bean = this.factory.createInstance();
         this.entries.put(bean.getId(), new Entry<>(bean));
+        this.schedulePassivation();
         return bean;
     }
 
     @Override
     public void discard(V value) {
-        this.entries.remove(value.getId());
+        K id = value.getId();
+        Entry<V> entry = this.entries.remove(id);
+        if ((entry != null) && (this.passivator != null)) {
+            synchronized (entry) {
+                if ((entry.getValue() == null) && this.passivator.discard(id)) {
+                    this.passivated.decrementAndGet();
+                }
+            }
+        }
     }
 
     @Override
     public void remove(K key) {
         Entry<V> entry = this.entries.remove(key);
         if (entry != null) {
-            this.factory.destroyInstance(entry.getValue());
+            if (this.passivator == null) {
+                this.factory.destroyInstance(entry.getValue());
+                return;
+            }
+            V value;
+            synchronized (entry) {
+                value = entry.getValue();
+                // The EJB specification allows a passivated bean to be removed without invoking its PreDestroy callbacks
+                if ((value == null) && this.passivator.discard(key)) {
+                    this.passivated.decrementAndGet();
+                }
+            }
+            if (value != null) {
+                this.factory.destroyInstance(value);
+            }
         }
     }
 
     @Override
     public V get(K key) {
-        Future<?> future = this.expirationFutures.get(key);
-        if (future != null) {
-            future.cancel(true);
+        ExpirationWheel<K> expiration = this.expiration;
+        if (expiration != null) {
+            expiration.cancel(key);
         }
         Entry<V> entry = this.entries.get(key);
         if (entry == null) return null;
-        entry.use();
-        return entry.getValue();
+        if (this.passivator == null) {
+            entry.use();
+            return entry.getValue();
+        }
+        V value;
+        // Use the entry while holding its monitor, so that its bean cannot be returned while it is being passivated
+        synchronized (entry) {
+            entry.use();
+            value = entry.getValue();
+            if (value != null) return value;
+            value = this.activate(key, entry);
+        }
+        if (value != null) {
+            this.schedulePassivation();
+        }
+        return value;
+    }
+
+    /**
+     * Activates the bean of the specified entry, whose monitor is held by the caller.
+     * @return the activated bean, or null if it was removed concurrently
+     */
+    private V activate(K key, Entry<V> entry) {
+        V value;
+        try {
+            value = this.passivator.activate(key);
+        } catch (Exception e) {
+            this.entries.remove(key, entry);
+            this.passivated.decrementAndGet();
+            throw EjbLogger.ROOT_LOGGER.activationFailed(e, key);
+        }
+        if (value != null) {
+            entry.setValue(value);
+            this.passivated.decrementAndGet();
+        }
+        return value;
     }
 
     @Override
@@ -157,55 +232,102 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         if ((entry != null) && entry.done()) {
             if (this.timeout != null) {
                 long value = this.timeout.getValue();
-                if (value > 0) {
+                ExpirationWheel<K> expiration = this.expiration;
+                if ((value > 0) && (expiration != null)) {
                     TimeUnit unit = this.timeout.getTimeUnit();
-                    RemoveTask task = new RemoveTask(id);
-                    // Make sure the expiration future map insertion happens before map removal (during task execution).
-                    synchronized (task) {
-                        this.expirationFutures.put(id, this.executor.schedule(task, value, unit));
-                    }
+                    expiration.schedule(id, Instant.now().plusMillis(unit.toMillis(value)));
                 } else if (value == 0) {
                     // The EJB specification allows a 0 timeout, which means the bean is immediately eligible for removal.
                     // However, removing it directly is faster than scheduling it for immediate removal.
                     remove(id);
+                    return;
                 }
             }
+            this.schedulePassivation();
         }
     }
 
     @Override
     public int getCacheSize() {
-        return this.entries.size();
+        return this.entries.size() - this.passivated.get();
     }
 
     @Override
     public int getPassivatedCount() {
-        return 0;
+        return this.passivated.get();
     }
 
     @Override
     public int getTotalSize() {
-        return this.getCacheSize();
+        return this.entries.size();
     }
 
-    class RemoveTask implements Runnable {
-        private final K key;
+    @Override
+    public long getAveragePassivationTime() {
+        return (this.passivator != null) ? this.passivator.getAveragePassivationTime() : 0;
+    }
 
-        RemoveTask(K key) {
-            this.key = key;
+    @Override
+    public long getAverageActivationTime() {
+        return (this.passivator != null) ? this.passivator.getAverageActivationTime() : 0;
+    }
+
+    private void schedulePassivation() {
+        if ((this.passivator != null) && (this.getCacheSize() > this.maxSize) && this.passivating.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::passivate);
+            } catch (RejectedExecutionException e) {
+                this.passivating.set(false);
+            }
         }
+    }
 
-        @Override
-        public synchronized void run() {
-            if (!Thread.currentThread().isInterrupted()) {
-                SimpleCache.this.remove(this.key);
+    /**
+     * Passivates the least recently used idle beans until the number of beans held in memory no longer exceeds the maximum size.
+     */
+    void passivate() {
+        try {
+            int excess = this.getCacheSize() - this.maxSize;
+            if (excess <= 0) return;
+            List<IdleEntry<K, V>> candidates = new ArrayList<>();
+            for (Map.Entry<K, Entry<V>> entry : this.entries.entrySet()) {
+                Entry<V> value = entry.getValue();
+                if (value.isIdle()) {
+                    candidates.add(new IdleEntry<>(entry.getKey(), value));
+                }
             }
-            SimpleCache.this.expirationFutures.remove(this.key);
+            candidates.sort(Comparator.comparingLong(IdleEntry::getLastUsed));
+            for (IdleEntry<K, V> candidate : candidates) {
+                if (excess <= 0) break;
+                if (this.passivate(candidate.getKey(), candidate.getEntry())) {
+                    excess -= 1;
+                }
+            }
+        } finally {
+            this.passivating.set(false);
+        }
+    }
+
+    private boolean passivate(K key, Entry<V> entry) {
+        synchronized (entry) {
+            V value = entry.getValue();
+            // Skip beans that were used, passivated or removed since they were selected
+            if ((value == null) || !entry.isIdle() || (this.entries.get(key) != entry)) return false;
+            try {
+                this.passivator.passivate(key, value);
+            } catch (Exception e) {
+                EjbLogger.ROOT_LOGGER.failedToPassivateStatefulSessionBean(key, e);
+                return false;
+            }
+            entry.setValue(null);
+            this.passivated.incrementAndGet();
+            return true;
         }
     }
 
     static class Entry<V> {
-        private final V value;
+        private volatile V value;
+        private volatile long lastUsed = System.nanoTime();
         private final AtomicInteger usage = new AtomicInteger();
 
         Entry(V value) {
@@ -214,14 +336,56 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
 
         void use() {
             this.usage.incrementAndGet();
+            this.lastUsed = System.nanoTime();
         }
 
         boolean done() {
+            this.lastUsed = System.nanoTime();
             return this.usage.decrementAndGet() == 0;
         }
 
+        boolean isIdle() {
+            return this.usage.get() == 0;
+        }
+
+        long getLastUsed() {
+            return this.lastUsed;
+        }
+
+        /**
+         * @return the bean, or null if it is passivated
+         */
         V getValue() {
             return this.value;
         }
+
+        void setValue(V value) {
+            this.value = value;
+        }
+    }
+
+    private static class IdleEntry<K, V> {
+        private final K key;
+        private final Entry<V> entry;
+        // Captured on selection, since the last use time of the entry may change while sorting
+        private final long lastUsed;
+
+        IdleEntry(K key, Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+            this.lastUsed = entry.getLastUsed();
+        }
+
+        K getKey() {
+            return this.key;
+        }
+
+        Entry<V> getEntry() {
+            return this.entry;
+        }
+
+        long getLastUsed() {
+            return this.lastUsed;
+        }
     }
 }
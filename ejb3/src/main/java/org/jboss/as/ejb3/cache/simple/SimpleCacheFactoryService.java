@@ -21,13 +21,18 @@
  */
 package org.jboss.as.ejb3.cache.simple;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.jboss.as.ejb3.cache.Cache;
 import org.jboss.as.ejb3.cache.CacheFactory;
 import org.jboss.as.ejb3.cache.Identifiable;
 import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.as.ejb3.component.stateful.MarshallingConfigurationRepositoryValue;
 import org.jboss.as.ejb3.component.stateful.StatefulTimeoutInfo;
+import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.as.server.ServerEnvironmentService;
 import org.jboss.msc.service.AbstractService;
@@ -38,6 +43,9 @@ import org.jboss.msc.value.InjectedValue;
 import org.wildfly.clustering.ejb.BeanContext;
 import org.wildfly.clustering.ejb.IdentifierFactory;
 import org.wildfly.clustering.ejb.PassivationListener;
+import org.wildfly.clustering.marshalling.jboss.MarshallingConfigurationRepository;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingContextFactory;
 
 /**
  * Service that provides a simple {@link CacheFactory}.
@@ -50,19 +58,32 @@ import org.wildfly.clustering.ejb.PassivationListener;
 public class SimpleCacheFactoryService<K, V extends Identifiable<K>> extends AbstractService<CacheFactory<K, V>> implements CacheFactory<K, V> {
 
     public static <K, V extends Identifiable<K>> ServiceBuilder<CacheFactory<K, V>> build(String name, ServiceTarget target, ServiceName serviceName, BeanContext context, StatefulTimeoutInfo timeout) {
-        SimpleCacheFactoryService<K, V> service = new SimpleCacheFactoryService<>(timeout);
-        return target.addService(serviceName, service)
+        return build(name, target, serviceName, context, timeout, 0);
+    }
+
+    public static <K, V extends Identifiable<K>> ServiceBuilder<CacheFactory<K, V>> build(String name, ServiceTarget target, ServiceName serviceName, BeanContext context, StatefulTimeoutInfo timeout, int maxSize) {
+        SimpleCacheFactoryService<K, V> service = new SimpleCacheFactoryService<>(context, timeout, maxSize);
+        ServiceBuilder<CacheFactory<K, V>> builder = target.addService(serviceName, service)
                 .addDependency(ServerEnvironmentService.SERVICE_NAME, ServerEnvironment.class, service.environment)
                 .addDependency(context.getDeploymentUnitServiceName().append(name, "expiration"), ScheduledExecutorService.class, service.executor)
         ;
+        if (maxSize > 0) {
+            builder.addDependency(MarshallingConfigurationRepositoryValue.getServiceName(context.getDeploymentUnitServiceName()), MarshallingConfigurationRepository.class, service.repository);
+        }
+        return builder;
     }
 
     private final InjectedValue<ServerEnvironment> environment = new InjectedValue<>();
     private final InjectedValue<ScheduledExecutorService> executor = new InjectedValue<>();
+    private final InjectedValue<MarshallingConfigurationRepository> repository = new InjectedValue<>();
+    private final BeanContext context;
     private final StatefulTimeoutInfo timeout;
+    private final int maxSize;
 
-    private SimpleCacheFactoryService(StatefulTimeoutInfo timeout) {
+    private SimpleCacheFactoryService(BeanContext context, StatefulTimeoutInfo timeout, int maxSize) {
+        this.context = context;
         this.timeout = timeout;
+        this.maxSize = maxSize;
     }
 
     @Override
@@ -72,6 +93,26 @@ public class SimpleCacheFactoryService<K, V extends Identifiable<K>> extends Abs
 
     @Override
     public Cache<K, V> createCache(IdentifierFactory<K> identifierFactory, StatefulObjectFactory<V> factory, PassivationListener<V> passivationListener) {
-        return new SimpleCache<>(factory, identifierFactory, this.timeout, this.environment.getValue(), this.executor.getValue());
+        if (this.maxSize <= 0) {
+            return new SimpleCache<>(factory, identifierFactory, this.timeout, this.environment.getValue(), this.executor.getValue());
+        }
+        MarshallingContext context = new SimpleMarshallingContextFactory().createMarshallingContext(this.repository.getValue(), this.context.getClassLoader());
+        SegmentedFileStore<K> store = new SegmentedFileStore<>(this.createPassivationDirectory());
+        return new SimpleCache<>(factory, identifierFactory, this.timeout, this.environment.getValue(), this.executor.getValue(), new BeanPassivator<>(store, context, passivationListener), this.maxSize);
+    }
+
+    /**
+     * Creates a directory, unique to this cache, beneath the server data directory.
+     */
+    private Path createPassivationDirectory() {
+        Path parent = this.environment.getValue().getServerDataDir().toPath().resolve("ejb3").resolve("passivation");
+        try {
+            Files.createDirectories(parent);
+            return Files.createTempDirectory(parent, this.context.getBeanName());
+        } catch (IOException e) {
+            RuntimeException exception = EjbLogger.ROOT_LOGGER.passivationDirectoryCreationFailed(parent.toString());
+            exception.initCause(e);
+            throw exception;
+        }
     }
 }
@@ -29,10 +29,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Invocation metrics of a component, and of each of its methods. Totals are kept in {@link LongAdder}s, and execution
+ * times of each method are also recorded in a {@link LatencyHistogram}, so that concurrent invocations neither allocate
+ * nor contend on a shared counter.
+ *
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class InvocationMetrics {
@@ -40,11 +45,13 @@ public class InvocationMetrics {
         final long invocations;
         final long executionTime;
         final long waitTime;
+        private final LatencyHistogram.Snapshot executionTimes;
 
-        private Values(final long invocations, final long waitTime, final long executionTime) {
+        private Values(final long invocations, final long waitTime, final long executionTime, final LatencyHistogram.Snapshot executionTimes) {
             this.invocations = invocations;
             this.executionTime = executionTime;
             this.waitTime = waitTime;
+            this.executionTimes = executionTimes;
         }
 
         public long getExecutionTime() {
@@ -58,40 +65,68 @@ public class InvocationMetrics {
         public long getWaitTime() {
             return waitTime;
         }
+
+        /**
+         * @param percentile a percentile between 0 and 100
+         * @return the execution time, in microseconds, below which the given percentile of invocations completed
+         */
+        public long getExecutionTimePercentile(final double percentile) {
+            return executionTimes.getPercentile(percentile);
+        }
+
+        /**
+         * @return the longest execution time, in microseconds
+         */
+        public long getMaxExecutionTime() {
+            return executionTimes.getMax();
+        }
     }
 
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    private static class MethodMetrics {
+        final LongAdder invocations = new LongAdder();
+        final LongAdder executionTime = new LongAdder();
+        final LongAdder waitTime = new LongAdder();
+        final LatencyHistogram executionTimes = new LatencyHistogram();
+
+        Values values() {
+            return new Values(invocations.sum(), waitTime.sum(), TimeUnit.NANOSECONDS.toMillis(executionTime.sum()), executionTimes.snapshot());
+        }
+    }
+
+    private final LongAdder invocations = new LongAdder();
+    // in nanoseconds
+    private final LongAdder executionTime = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
 
-    private final ConcurrentMap<String, AtomicReference<Values>> methods = new ConcurrentHashMap<String, AtomicReference<Values>>();
+    private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<String, MethodMetrics>();
 
+    /**
+     * @param invocationWaitTime the wait time in milliseconds
+     * @param invocationExecutionTime the execution time in nanoseconds
+     */
     void finishInvocation(final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                break;
-        }
-        final AtomicReference<Values> methodValues = ref(methods, method.getName());
-        for (;;) {
-            final Values oldv = methodValues.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (methodValues.compareAndSet(oldv, newv))
-                break;
-        }
+        invocations.increment();
+        waitTime.add(invocationWaitTime);
+        executionTime.add(invocationExecutionTime);
+        final MethodMetrics methodMetrics = metrics(methods, method.getName());
+        methodMetrics.invocations.increment();
+        methodMetrics.waitTime.add(invocationWaitTime);
+        methodMetrics.executionTime.add(invocationExecutionTime);
+        methodMetrics.executionTimes.record(TimeUnit.NANOSECONDS.toMicros(invocationExecutionTime));
     }
 
-    private static AtomicReference<Values> ref(final ConcurrentMap<String, AtomicReference<Values>> map, final String key) {
-        AtomicReference<Values> ref = map.get(key);
-        if (ref == null) {
-            ref = new AtomicReference<Values>(new Values(0, 0, 0));
-            final AtomicReference<Values> prevRef = map.putIfAbsent(key, ref);
-            if (prevRef != null)
-                ref = prevRef;
+    private static MethodMetrics metrics(final ConcurrentMap<String, MethodMetrics> map, final String key) {
+        MethodMetrics metrics = map.get(key);
+        if (metrics == null) {
+            metrics = new MethodMetrics();
+            final MethodMetrics prevMetrics = map.putIfAbsent(key, metrics);
+            if (prevMetrics != null)
+                metrics = prevMetrics;
         }
-        return ref;
+        return metrics;
     }
 
     public long getConcurrent() {
@@ -99,11 +134,11 @@ public class InvocationMetrics {
     }
 
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return TimeUnit.NANOSECONDS.toMillis(executionTime.sum());
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return invocations.sum();
     }
 
     public Map<String, Values> getMethods() {
@@ -113,7 +148,7 @@ public class InvocationMetrics {
                 return new AbstractSet<Entry<String, Values>>() {
                     @Override
                     public Iterator<Entry<String, Values>> iterator() {
-                        final Iterator<Entry<String, AtomicReference<Values>>> delegate = methods.entrySet().iterator();
+                        final Iterator<Entry<String, MethodMetrics>> delegate = methods.entrySet().iterator();
                         return new Iterator<Entry<String, Values>>() {
                             @Override
                             public boolean hasNext() {
@@ -122,7 +157,7 @@ public class InvocationMetrics {
 
                             @Override
                             public Entry<String, Values> next() {
-                                final Entry<String, AtomicReference<Values>> next = delegate.next();
+                                final Entry<String, MethodMetrics> next = delegate.next();
                                 return new Entry<String, Values>() {
                                     @Override
                                     public String getKey() {
@@ -131,7 +166,7 @@ public class InvocationMetrics {
 
                                     @Override
                                     public Values getValue() {
-                                        return next.getValue().get();
+                                        return next.getValue().values();
                                     }
 
                                     @Override
@@ -162,7 +197,7 @@ public class InvocationMetrics {
     }
 
     public long getWaitTime() {
-        return values.get().waitTime;
+        return waitTime.sum();
     }
 
     void startInvocation() {
@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A concurrent histogram of latencies, in microseconds, with log-linear buckets in the manner of HdrHistogram. Latencies
+ * below 32 microseconds are counted exactly. Above that, each power of two range is split into 16 equal buckets, so a
+ * reported percentile exceeds the recorded latency by at most 1/16. Latencies of 2^36 microseconds or more are counted
+ * in the last bucket.
+ * <p>
+ * Counts are kept in a single array until concurrent recordings are observed to contend, at which point further arrays
+ * are added, up to one per processor, and each thread records into one of them.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+    private static final int MAX_EXPONENT = 36;
+    static final long MAX_VALUE = 1L << MAX_EXPONENT;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * HALF_SUB_BUCKETS;
+    private static final int MAX_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    private volatile AtomicLongArray[] stripes = new AtomicLongArray[] { new AtomicLongArray(BUCKETS) };
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long micros) {
+        final int bucket = bucket(micros);
+        final AtomicLongArray[] stripes = this.stripes;
+        final AtomicLongArray counts = stripes[stripe() & (stripes.length - 1)];
+        final long count = counts.get(bucket);
+        if (!counts.compareAndSet(bucket, count, count + 1)) {
+            counts.incrementAndGet(bucket);
+            this.expand(stripes);
+        }
+        if (micros > this.max.get()) {
+            this.max.accumulate(micros);
+        }
+    }
+
+    private void expand(AtomicLongArray[] stripes) {
+        if (stripes.length < MAX_STRIPES && this.stripes == stripes) {
+            synchronized (this) {
+                if (this.stripes == stripes) {
+                    final AtomicLongArray[] expanded = new AtomicLongArray[stripes.length << 1];
+                    System.arraycopy(stripes, 0, expanded, 0, stripes.length);
+                    for (int i = stripes.length; i < expanded.length; ++i) {
+                        expanded[i] = new AtomicLongArray(BUCKETS);
+                    }
+                    this.stripes = expanded;
+                }
+            }
+        }
+    }
+
+    private static int stripe() {
+        final long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> 32);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        if (value >= MAX_VALUE) {
+            return BUCKETS - 1;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the highest value counted in the given bucket
+     */
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / HALF_SUB_BUCKETS - 1;
+        final long lowest = (long) (bucket % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    Snapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < BUCKETS; ++i) {
+                final long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(counts, total, this.max.get());
+    }
+
+    /**
+     * The counts of a histogram at a point in time.
+     */
+    static final class Snapshot {
+
+        private final long[] counts;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long total, long max) {
+            this.counts = counts;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * @param percentile a percentile between 0 and 100
+         * @return the latency, in microseconds, below which the given percentile of recorded latencies fall
+         */
+        long getPercentile(double percentile) {
+            if (this.total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * this.total));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                cumulative += this.counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(highestValue(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        long getMax() {
+            return this.max;
+        }
+    }
+}
@@ -229,6 +229,10 @@ public class MessageDrivenComponent extends EJBComponent implements PooledCompon
 
         super.start();
 
+        if (this.pool != null) {
+            this.pool.prewarm();
+        }
+
         synchronized (this) {
             this.started = true;
             if (this.deliveryActive && !suspended) {
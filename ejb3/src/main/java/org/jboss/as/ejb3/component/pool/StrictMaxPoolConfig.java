@@ -24,8 +24,11 @@ package org.jboss.as.ejb3.component.pool;
 
 import org.jboss.as.ejb3.pool.Pool;
 import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+import org.jboss.as.ejb3.pool.strictmax.AdaptiveStrictMaxPool;
 import org.jboss.as.ejb3.pool.strictmax.StrictMaxPool;
+import org.jboss.as.ejb3.pool.strictmax.StripedStrictMaxPool;
 
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,6 +42,31 @@ public class StrictMaxPoolConfig extends PoolConfig {
 
     public static final TimeUnit DEFAULT_TIMEOUT_UNIT = TimeUnit.MINUTES;
 
+    public static final PoolType DEFAULT_POOL_TYPE = PoolType.QUEUE;
+
+    public static final int DEFAULT_MIN_POOL_SIZE = 0;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 10;
+
+    public static final TimeUnit DEFAULT_IDLE_TIMEOUT_UNIT = TimeUnit.MINUTES;
+
+    /**
+     * The implementations of a strict max pool.
+     */
+    public enum PoolType {
+        /**
+         * A single free list guarded by a single semaphore, see {@link StrictMaxPool}.
+         */
+        QUEUE,
+        /**
+         * Free lists striped by thread, with work stealing, see {@link StripedStrictMaxPool}.
+         */
+        STRIPED,
+        /**
+         * Striped free lists, pre-warmed to a minimum size and shrunk when idle, see {@link AdaptiveStrictMaxPool}.
+         */
+        ADAPTIVE
+    }
 
     private volatile int maxPoolSize;
 
@@ -46,16 +74,38 @@ public class StrictMaxPoolConfig extends PoolConfig {
 
     private volatile long timeout;
 
+    private volatile PoolType poolType;
+
+    private volatile int minPoolSize = DEFAULT_MIN_POOL_SIZE;
+
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private volatile TimeUnit idleTimeoutUnit = DEFAULT_IDLE_TIMEOUT_UNIT;
+
+    private volatile ScheduledExecutorService executor;
+
     public StrictMaxPoolConfig(final String poolName, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(poolName, maxSize, timeout, timeUnit, DEFAULT_POOL_TYPE);
+    }
+
+    public StrictMaxPoolConfig(final String poolName, int maxSize, long timeout, TimeUnit timeUnit, PoolType poolType) {
         super(poolName);
         this.maxPoolSize = maxSize;
         this.timeout = timeout;
         this.timeoutUnit = timeUnit;
+        this.poolType = poolType;
     }
 
     @Override
     public <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory) {
-        return new StrictMaxPool<T>(statelessObjectFactory, this.maxPoolSize, this.timeout, this.timeoutUnit);
+        switch (this.poolType) {
+            case STRIPED:
+                return new StripedStrictMaxPool<T>(statelessObjectFactory, this.maxPoolSize, this.timeout, this.timeoutUnit);
+            case ADAPTIVE:
+                return new AdaptiveStrictMaxPool<T>(statelessObjectFactory, this.minPoolSize, this.maxPoolSize, this.timeout, this.timeoutUnit, this.idleTimeout, this.idleTimeoutUnit, this.executor);
+            default:
+                return new StrictMaxPool<T>(statelessObjectFactory, this.maxPoolSize, this.timeout, this.timeoutUnit);
+        }
     }
 
     public int getMaxPoolSize() {
@@ -82,6 +132,45 @@ public class StrictMaxPoolConfig extends PoolConfig {
         this.timeout = timeout;
     }
 
+    public PoolType getPoolType() {
+        return poolType;
+    }
+
+    public void setPoolType(PoolType poolType) {
+        this.poolType = poolType;
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public TimeUnit getIdleTimeoutUnit() {
+        return idleTimeoutUnit;
+    }
+
+    public void setIdleTimeoutUnit(TimeUnit idleTimeoutUnit) {
+        this.idleTimeoutUnit = idleTimeoutUnit;
+    }
+
+    /**
+     * Sets the executor that pre-warms and shrinks adaptive pools.
+     */
+    void setExecutor(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
     @Override
     public String toString() {
         return "StrictMaxPoolConfig{" +
@@ -89,6 +178,10 @@ public class StrictMaxPoolConfig extends PoolConfig {
                 ", maxPoolSize=" + maxPoolSize +
                 ", timeoutUnit=" + timeoutUnit +
                 ", timeout=" + timeout +
+                ", poolType=" + poolType +
+                ", minPoolSize=" + minPoolSize +
+                ", idleTimeout=" + idleTimeout +
+                ", idleTimeoutUnit=" + idleTimeoutUnit +
                 '}';
     }
 }
@@ -22,6 +22,11 @@
 
 package org.jboss.as.ejb3.component.pool;
 
+import static java.security.AccessController.doPrivileged;
+
+import java.security.PrivilegedAction;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.ejb3.logging.EjbLogger;
@@ -32,6 +37,7 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
 
 /**
  * User: jpai
@@ -46,8 +52,17 @@ public class StrictMaxPoolConfigService implements Service<StrictMaxPoolConfig>
 
     public static final ServiceName DEFAULT_ENTITY_POOL_CONFIG_SERVICE_NAME = EJB_POOL_CONFIG_BASE_SERVICE_NAME.append("entity-default");
 
+    private static final ThreadFactory THREAD_FACTORY = doPrivileged(new PrivilegedAction<JBossThreadFactory>() {
+        @Override
+        public JBossThreadFactory run() {
+            return new JBossThreadFactory(new ThreadGroup(StrictMaxPoolConfig.class.getSimpleName()), Boolean.TRUE, null, "%G - %t", null, null);
+        }
+    });
+
     private final StrictMaxPoolConfig poolConfig;
 
+    private volatile ScheduledThreadPoolExecutor executor;
+
     private final InjectedValue<Integer> maxThreadsInjector = new InjectedValue<>();
 
     private volatile int declaredMaxSize;
@@ -58,14 +73,23 @@ public class StrictMaxPoolConfigService implements Service<StrictMaxPoolConfig>
 
 
     public StrictMaxPoolConfigService(final String poolName, int declaredMaxSize, Derive derive, long timeout, TimeUnit timeUnit) {
+        this(poolName, declaredMaxSize, derive, timeout, timeUnit, StrictMaxPoolConfig.DEFAULT_POOL_TYPE);
+    }
+
+    public StrictMaxPoolConfigService(final String poolName, int declaredMaxSize, Derive derive, long timeout, TimeUnit timeUnit, StrictMaxPoolConfig.PoolType poolType) {
         this.declaredMaxSize = declaredMaxSize;
         this.derive = derive;
-        this.poolConfig = new StrictMaxPoolConfig(poolName, declaredMaxSize, timeout, timeUnit);
+        this.poolConfig = new StrictMaxPoolConfig(poolName, declaredMaxSize, timeout, timeUnit, poolType);
     }
 
     @Override
     public void start(StartContext context) throws StartException {
         setDerive(derive);
+        // Threads are only created once an adaptive pool schedules its maintenance
+        this.executor = new ScheduledThreadPoolExecutor(1, THREAD_FACTORY);
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        poolConfig.setExecutor(this.executor);
     }
 
     private int calcMaxFromWorkPools() {
@@ -115,9 +139,26 @@ public class StrictMaxPoolConfigService implements Service<StrictMaxPoolConfig>
         poolConfig.setTimeoutUnit(timeUnit);
     }
 
+    public void setPoolType(StrictMaxPoolConfig.PoolType poolType) {
+        poolConfig.setPoolType(poolType);
+    }
+
+    public void setMinPoolSize(int minPoolSize) {
+        poolConfig.setMinPoolSize(minPoolSize);
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        poolConfig.setIdleTimeout(idleTimeout);
+    }
+
+    public void setIdleTimeoutUnit(TimeUnit idleTimeoutUnit) {
+        poolConfig.setIdleTimeoutUnit(idleTimeoutUnit);
+    }
+
     @Override
     public void stop(StopContext context) {
-
+        poolConfig.setExecutor(null);
+        this.executor.shutdownNow();
     }
 
     @Override
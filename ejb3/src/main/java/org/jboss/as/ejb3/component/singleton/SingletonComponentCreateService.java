@@ -41,6 +41,7 @@ public class SingletonComponentCreateService extends SessionBeanComponentCreateS
     private final boolean initOnStartup;
     private final List<ServiceName> dependsOn;
     private final InjectedValue<DefaultAccessTimeoutService> defaultAccessTimeoutService = new InjectedValue<DefaultAccessTimeoutService>();
+    private final InjectedValue<SingletonLockModeService> lockModeService = new InjectedValue<SingletonLockModeService>();
 
     public SingletonComponentCreateService(final ComponentConfiguration componentConfiguration, final ApplicationExceptions ejbJarConfiguration, final boolean initOnStartup, final List<ServiceName> dependsOn) {
         super(componentConfiguration, ejbJarConfiguration);
@@ -64,4 +65,13 @@ public class SingletonComponentCreateService extends SessionBeanComponentCreateS
     Injector<DefaultAccessTimeoutService> getDefaultAccessTimeoutInjector() {
         return this.defaultAccessTimeoutService;
     }
+
+    public SingletonLockMode getLockMode() {
+        final SingletonLockModeService service = lockModeService.getOptionalValue();
+        return service != null ? service.getLockMode() : SingletonLockMode.STANDARD;
+    }
+
+    Injector<SingletonLockModeService> getLockModeInjector() {
+        return this.lockModeService;
+    }
 }
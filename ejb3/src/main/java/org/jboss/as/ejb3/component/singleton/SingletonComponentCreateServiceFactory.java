@@ -52,12 +52,13 @@ public class SingletonComponentCreateServiceFactory extends EJBComponentCreateSe
         if (this.ejbJarConfiguration == null) {
             throw EjbLogger.ROOT_LOGGER.ejbJarConfigNotBeenSet(this, configuration.getComponentName());
         }
-        // setup an injection dependency to inject the DefaultAccessTimeoutService in the singleton bean
-        // component create service
+        // setup an injection dependency to inject the DefaultAccessTimeoutService and the SingletonLockModeService
+        // in the singleton bean component create service
         configuration.getCreateDependencies().add(new DependencyConfigurator<SingletonComponentCreateService>() {
             @Override
             public void configureDependency(ServiceBuilder<?> serviceBuilder, SingletonComponentCreateService componentCreateService) throws DeploymentUnitProcessingException {
                 serviceBuilder.addDependency(DefaultAccessTimeoutService.SINGLETON_SERVICE_NAME, DefaultAccessTimeoutService.class, componentCreateService.getDefaultAccessTimeoutInjector());
+                serviceBuilder.addDependency(ServiceBuilder.DependencyType.OPTIONAL, SingletonLockModeService.SERVICE_NAME, SingletonLockModeService.class, componentCreateService.getLockModeInjector());
             }
         });
         return new SingletonComponentCreateService(configuration, this.ejbJarConfiguration, this.initOnStartup, dependsOn);
@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.singleton;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * The lock used for container managed concurrency of singleton beans.
+ */
+public enum SingletonLockMode {
+
+    /**
+     * An {@link EJBReadWriteLock}
+     */
+    STANDARD("standard") {
+        @Override
+        ReadWriteLock createLock() {
+            return new EJBReadWriteLock();
+        }
+    },
+    /**
+     * A {@link StripedEJBReadWriteLock}, whose read lock scales across cores at the expense of the write lock
+     */
+    STRIPED("striped") {
+        @Override
+        ReadWriteLock createLock() {
+            return new StripedEJBReadWriteLock();
+        }
+    };
+
+    private final String value;
+
+    SingletonLockMode(String value) {
+        this.value = value;
+    }
+
+    abstract ReadWriteLock createLock();
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    public static SingletonLockMode fromValue(String value) {
+        for (SingletonLockMode mode : values()) {
+            if (mode.value.equals(value)) {
+                return mode;
+            }
+        }
+        return valueOf(value);
+    }
+}
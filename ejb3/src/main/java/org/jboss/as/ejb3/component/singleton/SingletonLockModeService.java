@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.singleton;
+
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * Service that manages the {@link SingletonLockMode} of singleton beans. A change applies to singleton beans started
+ * afterwards.
+ */
+public class SingletonLockModeService implements Service<SingletonLockModeService> {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("ejb3", "singletonLockMode");
+
+    private volatile SingletonLockMode value;
+
+    public SingletonLockModeService(final SingletonLockMode value) {
+        this.value = value;
+    }
+
+    public SingletonLockMode getLockMode() {
+        return value;
+    }
+
+    public void setLockMode(final SingletonLockMode value) {
+        this.value = value;
+    }
+
+    @Override
+    public void start(final StartContext context) throws StartException {
+
+    }
+
+    @Override
+    public void stop(final StopContext context) {
+
+    }
+
+    @Override
+    public SingletonLockModeService getValue() throws IllegalStateException, IllegalArgumentException {
+        return this;
+    }
+}
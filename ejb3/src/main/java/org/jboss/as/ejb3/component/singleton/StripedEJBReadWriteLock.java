@@ -0,0 +1,335 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.singleton;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+
+/**
+ * A {@link ReadWriteLock} with the same semantics as {@link EJBReadWriteLock}, whose read lock scales across cores.
+ * <p>
+ * Readers register themselves in one of several padded counters, chosen per thread, so that concurrent readers do not
+ * contend on a single shared word. A writer first excludes other writers, then announces itself and waits for all
+ * counters to drain. Readers which observe a writer back off and wait for it to release the lock. Writes are therefore
+ * more expensive than with {@link EJBReadWriteLock}, which makes this lock suited to singletons invoked mostly with
+ * {@link javax.ejb.LockType#READ}.
+ * <p>
+ * Both locks are reentrant, the write lock holder may acquire the read lock, and a thread holding the read lock which
+ * requests the write lock gets an {@link javax.ejb.IllegalLoopbackException}.
+ */
+public class StripedEJBReadWriteLock implements ReadWriteLock {
+
+    /**
+     * Number of ints in a counter slot, so that each counter sits on its own cache line
+     */
+    private static final int PADDING = 16;
+    private static final int MAX_STRIPES = 64;
+    private static final int MAX_SPINS = 64;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int stripeMask;
+
+    /**
+     * The number of read locks held, per stripe
+     */
+    private final AtomicIntegerArray readers;
+
+    /**
+     * Excludes writers from each other, and is used by readers to wait for a writer to finish
+     */
+    private final ReentrantLock writer = new ReentrantLock();
+
+    /**
+     * Set while a writer holds, or waits for readers to release, the lock
+     */
+    private volatile boolean writing;
+
+    private final ThreadLocal<ReadHolds> readHolds = ThreadLocal.withInitial(ReadHolds::new);
+
+    private final Lock readLock = new ReadLock();
+
+    private final Lock writeLock = new WriteLock();
+
+    public StripedEJBReadWriteLock() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    StripedEJBReadWriteLock(int concurrency) {
+        int stripes = Math.min(Integer.highestOneBit(Math.max(concurrency, 1) * 2 - 1), MAX_STRIPES);
+        this.stripeMask = stripes - 1;
+        this.readers = new AtomicIntegerArray((stripes + 1) * PADDING);
+    }
+
+    /**
+     * The read locks held by a thread, and the counter it registers them in
+     */
+    private final class ReadHolds {
+        final int index;
+        int count;
+
+        ReadHolds() {
+            long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+            this.index = ((int) (id >>> 32) & stripeMask) * PADDING + PADDING;
+        }
+    }
+
+    public class ReadLock implements Lock {
+
+        @Override
+        public void lock() {
+            final ReadHolds holds = readHolds.get();
+            while (!tryAcquireRead(holds)) {
+                writer.lock();
+                writer.unlock();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            final ReadHolds holds = readHolds.get();
+            while (!tryAcquireRead(holds)) {
+                writer.lockInterruptibly();
+                writer.unlock();
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            return tryAcquireRead(readHolds.get());
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            final ReadHolds holds = readHolds.get();
+            if (tryAcquireRead(holds)) {
+                return true;
+            }
+            final long deadline = System.nanoTime() + unit.toNanos(time);
+            do {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !writer.tryLock(remaining, TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+                writer.unlock();
+            } while (!tryAcquireRead(holds));
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            final ReadHolds holds = readHolds.get();
+            if (holds.count == 0) {
+                throw new IllegalMonitorStateException();
+            }
+            holds.count--;
+            readers.decrementAndGet(holds.index);
+        }
+
+        /**
+         * No implementation provided
+         *
+         * @throws UnsupportedOperationException
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public class WriteLock implements Lock {
+
+        @Override
+        public void lock() {
+            checkLoopback();
+            writer.lock();
+            if (writer.getHoldCount() == 1) {
+                writing = true;
+                awaitReadersUninterruptibly();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            checkLoopback();
+            writer.lockInterruptibly();
+            if (writer.getHoldCount() == 1) {
+                writing = true;
+                try {
+                    awaitReaders(false, 0);
+                } catch (InterruptedException e) {
+                    release();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            checkLoopback();
+            if (!writer.tryLock()) {
+                return false;
+            }
+            if (writer.getHoldCount() == 1) {
+                writing = true;
+                if (!readersDrained()) {
+                    release();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            checkLoopback();
+            final long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!writer.tryLock(time, unit)) {
+                return false;
+            }
+            if (writer.getHoldCount() == 1) {
+                writing = true;
+                boolean drained = false;
+                try {
+                    drained = awaitReaders(true, deadline);
+                } finally {
+                    if (!drained) {
+                        release();
+                    }
+                }
+                return drained;
+            }
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            if (!writer.isHeldByCurrentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            release();
+        }
+
+        /**
+         * Not implemented
+         *
+         * @throws UnsupportedOperationException
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Registers a read lock, unless a writer holds or waits for the lock. A thread which already holds the read lock,
+     * or holds the write lock, never waits.
+     */
+    private boolean tryAcquireRead(ReadHolds holds) {
+        readers.incrementAndGet(holds.index);
+        if (!writing || holds.count > 0 || writer.isHeldByCurrentThread()) {
+            holds.count++;
+            return true;
+        }
+        readers.decrementAndGet(holds.index);
+        return false;
+    }
+
+    /**
+     * Waits until no thread holds the read lock.
+     *
+     * @return false if the deadline passed
+     */
+    private boolean awaitReaders(boolean timed, long deadline) throws InterruptedException {
+        for (int spins = 0; !readersDrained(); ++spins) {
+            if (timed && deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (spins < MAX_SPINS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        return true;
+    }
+
+    private void awaitReadersUninterruptibly() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                awaitReaders(false, 0);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean readersDrained() {
+        for (int i = PADDING; i < readers.length(); i += PADDING) {
+            if (readers.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void release() {
+        if (writer.getHoldCount() == 1) {
+            writing = false;
+        }
+        writer.unlock();
+    }
+
+    /**
+     * Ensures that the current thread doesn't hold any read locks. If
+     * the thread holds any read locks, this method throws a {@link javax.ejb.IllegalLoopbackException}.
+     */
+    private void checkLoopback() {
+        if (readHolds.get().count > 0) {
+            throw EjbLogger.ROOT_LOGGER.failToUpgradeToWriteLock();
+        }
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+}
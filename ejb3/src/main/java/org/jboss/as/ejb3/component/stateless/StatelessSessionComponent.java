@@ -114,6 +114,14 @@ public class StatelessSessionComponent extends SessionBeanComponent implements P
     }
 
 
+    @Override
+    public synchronized void start() {
+        super.start();
+        if(this.pool!=null){
+            this.pool.prewarm();
+        }
+    }
+
     @Override
     public void done() {
         if(this.pool!=null){
@@ -3150,4 +3150,31 @@ public interface EjbLogger extends BasicLogger {
     @LogMessage(level = ERROR)
     @Message(id = 502, value = "Exception checking if timer %s should run")
     void exceptionCheckingIfTimerShouldRun(Timer timer, @Cause Exception e);
+
+    @LogMessage(level = WARN)
+    @Message(id = 503, value = "Failed to pre-create an instance for bean instance pool %s")
+    void failedToCreatePooledInstance(Object pool, @Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 504, value = "Failed to run scheduled timer task %s")
+    void failedToRunTimingWheelTask(Object task, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 505, value = "Failed to write %d timer changes to the database, they will be retried")
+    void failedToWriteTimerChanges(int count, @Cause Throwable cause);
+
+    @Message(id = 506, value = "%s is not a valid timer journal")
+    IOException invalidTimerJournal(File file);
+
+    @LogMessage(level = WARN)
+    @Message(id = 507, value = "Failed to expire stateful session bean %s")
+    void failedToExpireStatefulSessionBean(Object id, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 508, value = "Failed to passivate stateful session bean %s, it will remain in memory")
+    void failedToPassivateStatefulSessionBean(Object id, @Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 509, value = "Failed to write the changes of timer %s to the database, they are discarded")
+    void discardedTimerChanges(String timerId, @Cause Throwable cause);
 }
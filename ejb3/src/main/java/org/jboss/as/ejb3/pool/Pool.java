@@ -57,6 +57,16 @@ public interface Pool<T> {
 
     int getRemoveCount();
 
+    /**
+     * Returns the number of idle instances that were evicted from this pool.
+     * Pools that never shrink do not evict instances.
+     *
+     * @return the number of evicted instances
+     */
+    default int getEvictionCount() {
+        return 0;
+    }
+
     /**
      * Release the object from use.
      *
@@ -75,4 +85,11 @@ public interface Pool<T> {
      * Stop the pool.
      */
     void stop();
+
+    /**
+     * Invoked once the component of this pool has started, i.e. once instances can be created without blocking.
+     * Pools that create instances ahead of demand start doing so here, rather than on {@link #start()}.
+     */
+    default void prewarm() {
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A striped strict max pool that sizes itself between a minimum and its maximum.
+ * <p/>
+ * Once its component has started, the pool creates its minimum number of instances in the background. Once per idle timeout, the pool
+ * compares its size with the peak number of instances in use since the previous check: instances beyond that peak
+ * (and beyond the minimum) were not needed for a whole idle timeout, and the least recently used of them are evicted.
+ * If callers had to wait for instances to be created during that period, the pool creates instances in the background,
+ * up to the observed peak, ahead of the next burst.
+ */
+public class AdaptiveStrictMaxPool<T> extends StripedStrictMaxPool<T> {
+
+    private final int minSize;
+    private final long idleTimeout;
+    private final TimeUnit idleTimeoutUnit;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicInteger peak = new AtomicInteger(0);
+    private final AtomicInteger misses = new AtomicInteger(0);
+    private final AtomicInteger evictions = new AtomicInteger(0);
+    // Only accessed by the maintenance tasks
+    private int nextStripe = 0;
+
+    private volatile Future<?> prewarmFuture;
+    private volatile Future<?> maintenanceFuture;
+
+    public AdaptiveStrictMaxPool(StatelessObjectFactory<T> factory, int minSize, int maxSize, long timeout, TimeUnit timeUnit, long idleTimeout, TimeUnit idleTimeoutUnit, ScheduledExecutorService executor) {
+        super(factory, maxSize, timeout, timeUnit);
+        this.minSize = Math.min(minSize, maxSize);
+        this.idleTimeout = idleTimeout;
+        this.idleTimeoutUnit = idleTimeoutUnit;
+        this.executor = executor;
+    }
+
+    @Override
+    public T get() {
+        T bean = super.get();
+        int inUse = this.getMaxSize() - this.getAvailableCount();
+        if (inUse > this.peak.get()) {
+            this.peak.accumulateAndGet(inUse, Math::max);
+        }
+        return bean;
+    }
+
+    @Override
+    protected T create() {
+        // Only called by get() when no free instance was available
+        this.misses.incrementAndGet();
+        return super.create();
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        this.maintenanceFuture = this.executor.scheduleWithFixedDelay(this::maintain, this.idleTimeout, this.idleTimeout, this.idleTimeoutUnit);
+    }
+
+    /**
+     * Creates the minimum number of instances in the background.
+     * This is deferred until the component has started, since instance creation blocks until then, and the executor
+     * is shared by all pools of the same configuration.
+     */
+    @Override
+    public void prewarm() {
+        this.prewarmFuture = this.executor.submit(() -> this.fill(this.minSize));
+    }
+
+    @Override
+    public void stop() {
+        cancel(this.maintenanceFuture);
+        cancel(this.prewarmFuture);
+        super.stop();
+    }
+
+    public int getMinSize() {
+        return this.minSize;
+    }
+
+    @Override
+    public int getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    /**
+     * Evicts instances that were idle since the previous invocation, and pre-creates instances if callers had to wait
+     * for their creation.
+     */
+    void maintain() {
+        int inUse = this.getMaxSize() - this.getAvailableCount();
+        int peak = this.peak.getAndSet(inUse);
+        int misses = this.misses.getAndSet(0);
+        int target = Math.max(this.minSize, peak);
+
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s: size = %d, peak = %d, misses = %d", this, this.getCurrentSize(), peak, misses);
+        }
+
+        for (int excess = this.getCurrentSize() - target; excess > 0; --excess) {
+            T bean = this.pollEldest(this.nextStripe++);
+            if (bean == null) {
+                break;
+            }
+            this.evictions.incrementAndGet();
+            this.destroy(bean);
+        }
+        if (misses > 0) {
+            this.fill(target);
+        }
+    }
+
+    /**
+     * Creates free instances until this pool reaches the specified size.
+     * Each creation holds a permit, so that pre-created and in-use instances never exceed the maximum size.
+     */
+    private void fill(int size) {
+        while ((this.getCurrentSize() < size) && this.tryAcquirePermit()) {
+            try {
+                this.offer(super.create(), this.nextStripe++);
+            } catch (RuntimeException e) {
+                // Creation fails if the pool was stopped before its component started
+                if (!Thread.currentThread().isInterrupted()) {
+                    ROOT_LOGGER.failedToCreatePooledInstance(this, e);
+                }
+                return;
+            } finally {
+                this.releasePermit();
+            }
+        }
+    }
+
+    private static void cancel(Future<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+}
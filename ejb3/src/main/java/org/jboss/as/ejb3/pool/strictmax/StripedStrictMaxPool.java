@@ -0,0 +1,295 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A pool with a maximum size, whose free instances are spread over a number of stripes.
+ * <p/>
+ * Unlike {@link StrictMaxPool}, which funnels every thread through a single semaphore and a single queue, this pool
+ * hands out permits through a CAS on a counter and only falls back to a lock when no permit is available. Released
+ * instances are pushed to the stripe of the releasing thread and are preferably taken back from that same stripe;
+ * a thread whose stripe is empty steals from the other stripes before creating a new instance.
+ */
+public class StripedStrictMaxPool<T> extends AbstractPool<T> {
+
+    private static final int MAX_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    /**
+     * The maximum number of instances allowed in the pool
+     */
+    private final int maxSize;
+    /**
+     * The time to wait for a permit.
+     */
+    private final long timeout;
+    private final TimeUnit timeUnit;
+    /**
+     * The free lists, one per stripe. The number of stripes is a power of two.
+     */
+    private final Deque<T>[] stripes;
+    private final int mask;
+    /**
+     * The number of permits that can still be handed out
+     */
+    private final AtomicInteger permits;
+    /**
+     * The number of threads that are about to wait, or are waiting, for a permit
+     */
+    private final AtomicInteger waiters = new AtomicInteger(0);
+    private final Lock lock = new ReentrantLock();
+    private final Condition released = this.lock.newCondition();
+
+    @SuppressWarnings("unchecked")
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
+        super(factory);
+        this.maxSize = maxSize;
+        this.permits = new AtomicInteger(maxSize);
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(maxSize, 1)));
+        this.stripes = new Deque[stripes];
+        for (int i = 0; i < stripes; ++i) {
+            this.stripes[i] = new ConcurrentLinkedDeque<>();
+        }
+        this.mask = stripes - 1;
+    }
+
+    @Override
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+
+        this.releasePermit();
+
+        // Let the super do any other remove stuff
+        super.doRemove(ctx);
+    }
+
+    @Override
+    public int getCurrentSize() {
+        return this.getCreateCount() - this.getRemoveCount();
+    }
+
+    @Override
+    public int getAvailableCount() {
+        return this.permits.get();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        throw EjbLogger.ROOT_LOGGER.methodNotImplemented();
+    }
+
+    /**
+     * Get an instance without identity.
+     * Can be used by finders,create-methods, and activation
+     *
+     * @return Context /w instance
+     */
+    @Override
+    public T get() {
+        this.acquirePermit();
+
+        T bean = this.poll();
+
+        if (bean != null) {
+            //we found a bean instance in the pool, return it
+            return bean;
+        }
+
+        try {
+            // Pool is empty, create an instance
+            bean = this.create();
+        } finally {
+            if (bean == null) {
+                this.releasePermit();
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Return an instance after invocation.
+     *
+     * @param obj the instance
+     */
+    @Override
+    public void release(T obj) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", this.permits.get(), this.maxSize, this);
+        }
+
+        this.stripes[this.stripe()].offerFirst(obj);
+
+        this.releasePermit();
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+
+        this.releasePermit();
+        // let the super do the other remove stuff
+        super.doRemove(ctx);
+    }
+
+    @Override
+    public void start() {
+        // Nothing to start
+    }
+
+    @Override
+    public void stop() {
+        for (Deque<T> stripe : this.stripes) {
+            for (T obj = stripe.poll(); obj != null; obj = stripe.poll()) {
+                this.destroy(obj);
+            }
+        }
+    }
+
+    /**
+     * Takes a free instance, preferring the most recently released instance of the current thread's stripe, and
+     * otherwise stealing the least recently released instance of another stripe.
+     *
+     * @return a free instance, or null, if no stripe holds a free instance
+     */
+    protected T poll() {
+        int home = this.stripe();
+        T bean = this.stripes[home].pollFirst();
+        for (int i = 1; (bean == null) && (i < this.stripes.length); ++i) {
+            bean = this.stripes[(home + i) & this.mask].pollLast();
+        }
+        return bean;
+    }
+
+    /**
+     * Adds a free instance to the cold end of the specified stripe, without returning a permit.
+     *
+     * @param bean a free instance
+     * @param index a stripe index, which need not be within range
+     */
+    protected void offer(T bean, int index) {
+        this.stripes[index & this.mask].offerLast(bean);
+    }
+
+    /**
+     * Takes the least recently released free instance of the first non-empty stripe, starting from the specified stripe.
+     *
+     * @param index a stripe index, which need not be within range
+     * @return a free instance, or null, if no stripe holds a free instance
+     */
+    protected T pollEldest(int index) {
+        T bean = null;
+        for (int i = 0; (bean == null) && (i < this.stripes.length); ++i) {
+            bean = this.stripes[(index + i) & this.mask].pollLast();
+        }
+        return bean;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        // Spread the bits of the thread id, so that sequentially created threads do not share a stripe
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    /**
+     * Attempts to acquire a permit without waiting.
+     *
+     * @return true, if a permit was acquired, false otherwise
+     */
+    protected boolean tryAcquirePermit() {
+        int current = this.permits.get();
+        while (current > 0) {
+            if (this.permits.compareAndSet(current, current - 1)) {
+                return true;
+            }
+            current = this.permits.get();
+        }
+        return false;
+    }
+
+    private void acquirePermit() {
+        if (this.tryAcquirePermit()) {
+            return;
+        }
+
+        long nanos = this.timeUnit.toNanos(this.timeout);
+        this.lock.lock();
+        try {
+            // Announce ourselves before re-checking, so that a concurrent release either sees us or we see its permit
+            this.waiters.incrementAndGet();
+            try {
+                while (!this.tryAcquirePermit()) {
+                    if (nanos <= 0L) {
+                        throw EjbLogger.ROOT_LOGGER.failedToAcquirePermit(this.timeout, this.timeUnit);
+                    }
+                    nanos = this.released.awaitNanos(nanos);
+                }
+            } finally {
+                this.waiters.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            throw EjbLogger.ROOT_LOGGER.acquireSemaphoreInterrupted();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit to this pool, waking up a waiting thread, if any.
+     */
+    protected void releasePermit() {
+        this.permits.incrementAndGet();
+        if (this.waiters.get() > 0) {
+            this.lock.lock();
+            try {
+                this.released.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
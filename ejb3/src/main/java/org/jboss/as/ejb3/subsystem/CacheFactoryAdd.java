@@ -65,20 +65,21 @@ public class CacheFactoryAdd extends AbstractAddStepHandler {
 
         ModelNode passivationStoreModel = CacheFactoryResourceDefinition.PASSIVATION_STORE.resolveModelAttribute(context,model);
         String passivationStore = passivationStoreModel.isDefined() ? passivationStoreModel.asString() : null;
+        int maxSize = CacheFactoryResourceDefinition.MAX_SIZE.resolveModelAttribute(context, model).asInt();
 
         final Collection<String> unwrappedAliasValues = CacheFactoryResourceDefinition.ALIASES.unwrap(context,model);
         final Set<String> aliases = unwrappedAliasValues != null ? new HashSet<>(unwrappedAliasValues) : Collections.<String>emptySet();
         ServiceTarget target = context.getServiceTarget();
-        ServiceBuilder<?> builder = buildCacheFactoryBuilder(target, name, passivationStore);
+        ServiceBuilder<?> builder = buildCacheFactoryBuilder(target, name, passivationStore, maxSize);
         for (String alias: aliases) {
             builder.addAliases(CacheFactoryBuilderService.getServiceName(alias));
         }
         builder.install();
     }
 
-    private static ServiceBuilder<?> buildCacheFactoryBuilder(ServiceTarget target, String name, String passivationStore) {
+    private static ServiceBuilder<?> buildCacheFactoryBuilder(ServiceTarget target, String name, String passivationStore, int maxSize) {
         if (passivationStore == null) {
-            return new SimpleCacheFactoryBuilderService<>(name).build(target);
+            return new SimpleCacheFactoryBuilderService<>(name, maxSize).build(target);
         }
         return new DelegateCacheFactoryBuilderService<>(name, DistributableCacheFactoryBuilderService.getServiceName(passivationStore)).build(target);
     }
@@ -28,9 +28,11 @@ import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 
 /**
@@ -50,7 +52,20 @@ public class CacheFactoryResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_NONE)
                     .build();
 
-    private static final AttributeDefinition[] ATTRIBUTES = { ALIASES, PASSIVATION_STORE };
+    /**
+     * The number of beans a cache without a passivation store holds in memory before passivating idle beans to local disk.
+     * 0 disables passivation.
+     */
+    public static final SimpleAttributeDefinition MAX_SIZE =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MAX_SIZE, ModelType.INT, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.MAX_SIZE.getLocalName())
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(0, Integer.MAX_VALUE, true, true))
+                    .setDefaultValue(new ModelNode(0))
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .build();
+
+    private static final AttributeDefinition[] ATTRIBUTES = { ALIASES, PASSIVATION_STORE, MAX_SIZE };
     private static final CacheFactoryAdd ADD_HANDLER = new CacheFactoryAdd(ATTRIBUTES);
     private static final CacheFactoryRemove REMOVE_HANDLER = new CacheFactoryRemove(ADD_HANDLER);
 
@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.subsystem;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.as.ejb3.timerservice.persistence.database.DatabaseTimerPersistence;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * Reads the write-behind statistics of a database data store.
+ */
+public class DatabaseDataStoreMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+    @Override
+    protected void executeRuntimeStep(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+        final String storeName = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.OP_ADDR)).getLastElement().getValue();
+        final String metric = operation.require(ModelDescriptionConstants.NAME).asString();
+        final ServiceName serviceName = TimerPersistence.SERVICE_NAME.append(storeName);
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(serviceName);
+        if (controller == null || controller.getState() != ServiceController.State.UP) {
+            return;
+        }
+        final DatabaseTimerPersistence persistence = (DatabaseTimerPersistence) controller.getValue();
+        final ModelNode result = context.getResult();
+        if (DatabaseDataStoreResourceDefinition.FLUSH_COUNT.getName().equals(metric)) {
+            result.set(persistence.getFlushCount());
+        } else if (DatabaseDataStoreResourceDefinition.FLUSHED_TIMER_COUNT.getName().equals(metric)) {
+            result.set(persistence.getFlushedTimerCount());
+        } else if (DatabaseDataStoreResourceDefinition.LAST_FLUSH_SIZE.getName().equals(metric)) {
+            result.set(persistence.getLastFlushSize());
+        } else if (DatabaseDataStoreResourceDefinition.LAST_FLUSH_DURATION.getName().equals(metric)) {
+            result.set(persistence.getLastFlushDuration());
+        }
+    }
+}
@@ -32,6 +32,8 @@ import org.jboss.as.controller.ServiceRemoveStepHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
 import org.jboss.as.controller.operations.validation.ModelTypeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
@@ -85,6 +87,36 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
                     .setDefaultValue(new ModelNode(true))
                     .build();
 
+    public static final SimpleAttributeDefinition WRITE_BEHIND_INTERVAL =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.WRITE_BEHIND_INTERVAL, ModelType.INT, true)
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+                    .setValidator(new IntRangeValidator(0, Integer.MAX_VALUE, true, true))
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setDefaultValue(new ModelNode(0))
+                    .build();
+
+    public static final SimpleAttributeDefinition FLUSH_COUNT =
+            new SimpleAttributeDefinitionBuilder("flush-count", ModelType.LONG, false)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition FLUSHED_TIMER_COUNT =
+            new SimpleAttributeDefinitionBuilder("flushed-timer-count", ModelType.LONG, false)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition LAST_FLUSH_SIZE =
+            new SimpleAttributeDefinitionBuilder("last-flush-size", ModelType.INT, false)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition LAST_FLUSH_DURATION =
+            new SimpleAttributeDefinitionBuilder("last-flush-duration", ModelType.LONG, false)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .build();
+
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
     static {
@@ -94,6 +126,7 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
         map.put(PARTITION.getName(), PARTITION);
         map.put(REFRESH_INTERVAL.getName(), REFRESH_INTERVAL);
         map.put(ALLOW_EXECUTION.getName(), ALLOW_EXECUTION);
+        map.put(WRITE_BEHIND_INTERVAL.getName(), WRITE_BEHIND_INTERVAL);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
@@ -110,6 +143,10 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
         for (AttributeDefinition attr : ATTRIBUTES.values()) {
             resourceRegistration.registerReadWriteAttribute(attr, null, new ReloadRequiredWriteAttributeHandler(attr));
         }
+        DatabaseDataStoreMetricsHandler metricsHandler = new DatabaseDataStoreMetricsHandler();
+        for (AttributeDefinition metric : new AttributeDefinition[] { FLUSH_COUNT, FLUSHED_TIMER_COUNT, LAST_FLUSH_SIZE, LAST_FLUSH_DURATION }) {
+            resourceRegistration.registerMetric(metric, metricsHandler);
+        }
     }
 
 }
@@ -385,7 +385,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
                     missingRequiredAttributes.remove(EJB3SubsystemXMLAttribute.DEFAULT_ACCESS_TIMEOUT);
                     break;
                 default:
-                    throw unexpectedAttribute(reader, i);
+                    parseSingletonBeanAttribute(reader, i, attribute, value, ejb3SubsystemAddOperation);
             }
         }
         requireNoContent(reader);
@@ -394,6 +394,13 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
         }
     }
 
+    /**
+     * Parses a singleton attribute introduced by a later schema version.
+     */
+    void parseSingletonBeanAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode ejb3SubsystemAddOperation) throws XMLStreamException {
+        throw unexpectedAttribute(reader, index);
+    }
+
     private void parsePools(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
         // no attributes expected
         requireNoAttributes(reader);
@@ -488,7 +495,8 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
         for (int i = 0; i < reader.getAttributeCount(); i++) {
             requireNoNamespaceAttribute(reader, i);
             final String value = reader.getAttributeValue(i);
-            switch (EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i))) {
+            final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+            switch (attribute) {
                 case NAME: {
                     name = value;
                     break;
@@ -504,7 +512,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
                     break;
                 }
                 default: {
-                    throw unexpectedAttribute(reader, i);
+                    parseCacheAttribute(reader, i, attribute, value, operation);
                 }
             }
         }
@@ -517,6 +525,13 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>
         operations.add(operation);
     }
 
+    /**
+     * Parses a cache attribute introduced by a later schema version.
+     */
+    void parseCacheAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        throw unexpectedAttribute(reader, index);
+    }
+
     @SuppressWarnings("deprecation")
     protected void parsePassivationStores(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
         // no attributes expected
@@ -227,7 +227,7 @@ public class EJB3Subsystem40Parser extends EJB3Subsystem30Parser {
                     StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
                     break;
                 default:
-                    throw unexpectedAttribute(reader, i);
+                    parseStrictMaxPoolAttribute(reader, i, attribute, value, operation);
             }
         }
         requireNoContent(reader);
@@ -241,6 +241,13 @@ public class EJB3Subsystem40Parser extends EJB3Subsystem30Parser {
         operations.add(operation);
     }
 
+    /**
+     * Parses a strict-max-pool attribute introduced by a later schema version.
+     */
+    void parseStrictMaxPoolAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        throw unexpectedAttribute(reader, index);
+    }
+
     private XMLStreamException mutuallyExclusiveAttributes(XMLExtendedStreamReader reader) {
         return EjbLogger.ROOT_LOGGER.mutuallyExclusiveAttributes(reader.getLocation(), MAX_POOL_SIZE, DERIVE_SIZE);
     }
@@ -90,6 +90,70 @@ public class EJB3Subsystem50Parser extends EJB3Subsystem40Parser {
         }
     }
 
+    @Override
+    void parseSingletonBeanAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode ejb3SubsystemAddOperation) throws XMLStreamException {
+        switch (attribute) {
+            case LOCK_MODE:
+                EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE.parseAndSetParameter(value, ejb3SubsystemAddOperation, reader);
+                break;
+            default:
+                super.parseSingletonBeanAttribute(reader, index, attribute, value, ejb3SubsystemAddOperation);
+        }
+    }
+
+    @Override
+    void parseCacheAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        switch (attribute) {
+            case MAX_SIZE:
+                CacheFactoryResourceDefinition.MAX_SIZE.parseAndSetParameter(value, operation, reader);
+                break;
+            default:
+                super.parseCacheAttribute(reader, index, attribute, value, operation);
+        }
+    }
+
+    @Override
+    void parseStrictMaxPoolAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        switch (attribute) {
+            case POOL_TYPE:
+                StrictMaxPoolResourceDefinition.POOL_TYPE.parseAndSetParameter(value, operation, reader);
+                break;
+            case MIN_POOL_SIZE:
+                StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.parseAndSetParameter(value, operation, reader);
+                break;
+            case INSTANCE_IDLE_TIMEOUT:
+                StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT.parseAndSetParameter(value, operation, reader);
+                break;
+            case INSTANCE_IDLE_TIMEOUT_UNIT:
+                StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
+                break;
+            default:
+                super.parseStrictMaxPoolAttribute(reader, index, attribute, value, operation);
+        }
+    }
+
+    @Override
+    void parseFileDataStoreAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        switch (attribute) {
+            case STORE_FORMAT:
+                FileDataStoreResourceDefinition.STORE_FORMAT.parseAndSetParameter(value, operation, reader);
+                break;
+            default:
+                super.parseFileDataStoreAttribute(reader, index, attribute, value, operation);
+        }
+    }
+
+    @Override
+    void parseDatabaseDataStoreAttribute(final XMLExtendedStreamReader reader, final int index, final EJB3SubsystemXMLAttribute attribute, final String value, final ModelNode operation) throws XMLStreamException {
+        switch (attribute) {
+            case WRITE_BEHIND_INTERVAL:
+                DatabaseDataStoreResourceDefinition.WRITE_BEHIND_INTERVAL.parseAndSetParameter(value, operation, reader);
+                break;
+            default:
+                super.parseDatabaseDataStoreAttribute(reader, index, attribute, value, operation);
+        }
+    }
+
     private void parseApplicationSecurityDomains(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
         requireNoAttributes(reader);
         boolean applicationSecurityDomainFound = false;
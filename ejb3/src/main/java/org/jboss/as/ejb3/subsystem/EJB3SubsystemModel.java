@@ -73,6 +73,10 @@ public interface EJB3SubsystemModel {
     String MAX_POOL_SIZE = "max-pool-size";
     String DERIVE_SIZE = "derive-size";
     String DERIVED_SIZE = "derived-size";
+    String POOL_TYPE = "pool-type";
+    String MIN_POOL_SIZE = "min-pool-size";
+    String INSTANCE_IDLE_TIMEOUT = "instance-idle-timeout";
+    String INSTANCE_IDLE_TIMEOUT_UNIT = "instance-idle-timeout-unit";
 
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
 
@@ -83,6 +87,7 @@ public interface EJB3SubsystemModel {
     String PATH = "path";
 
     String DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT = "default-singleton-bean-access-timeout";
+    String SINGLETON_BEAN_LOCK_MODE = "singleton-bean-lock-mode";
     String DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT = "default-stateful-bean-access-timeout";
     String DEFAULT_DATA_STORE = "default-data-store";
 
@@ -135,6 +140,8 @@ public interface EJB3SubsystemModel {
     String PARTITION  = "partition";
     String REFRESH_INTERVAL = "refresh-interval";
     String ALLOW_EXECUTION = "allow-execution";
+    String WRITE_BEHIND_INTERVAL = "write-behind-interval";
+    String STORE_FORMAT = "store-format";
 
     String STATIC_URLS = "static-urls";
 
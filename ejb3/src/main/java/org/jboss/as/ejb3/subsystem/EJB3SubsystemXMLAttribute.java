@@ -61,15 +61,19 @@ public enum EJB3SubsystemXMLAttribute {
     @Deprecated IDLE_TIMEOUT_UNIT("idle-timeout-unit"),
     INSTANCE_ACQUISITION_TIMEOUT("instance-acquisition-timeout"),
     INSTANCE_ACQUISITION_TIMEOUT_UNIT("instance-acquisition-timeout-unit"),
+    INSTANCE_IDLE_TIMEOUT("instance-idle-timeout"),
+    INSTANCE_IDLE_TIMEOUT_UNIT("instance-idle-timeout-unit"),
 
     KEEPALIVE_TIME("keepalive-time"),
 
     LOCAL_RECEIVER_PASS_BY_VALUE("local-receiver-pass-by-value"),
+    LOCK_MODE("lock-mode"),
 
     MAX_POOL_SIZE("max-pool-size"),
     MAX_SIZE("max-size"),
     DERIVE_SIZE("derive-size"),
     MAX_THREADS("max-threads"),
+    MIN_POOL_SIZE("min-pool-size"),
 
     NAME("name"),
 
@@ -83,12 +87,14 @@ public enum EJB3SubsystemXMLAttribute {
     PASSIVATION_STORE_REF("passivation-store-ref"),
     PATH("path"),
     POOL_NAME("pool-name"),
+    POOL_TYPE("pool-type"),
 
     RELATIVE_TO("relative-to"),
     RESOURCE_ADAPTER_NAME("resource-adapter-name"),
 
     @Deprecated SESSIONS_PATH("sessions-path"),
     STATIC_URLS("static-urls"),
+    STORE_FORMAT("store-format"),
     @Deprecated SUBDIRECTORY_COUNT("subdirectory-count"),
 
     THREAD_POOL_NAME("thread-pool-name"),
@@ -98,6 +104,8 @@ public enum EJB3SubsystemXMLAttribute {
 
     VALUE("value"),
 
+    WRITE_BEHIND_INTERVAL("write-behind-interval"),
+
     ACTIVE("active"),
 
     EXECUTE_IN_WORKER("execute-in-worker"),
@@ -34,7 +34,13 @@ import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_SFSB_CACHE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_SFSB_PASSIVATION_DISABLED_CACHE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.EXECUTE_IN_WORKER;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.REFRESH_INTERVAL;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STORE_FORMAT;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.WRITE_BEHIND_INTERVAL;
 import static org.jboss.as.ejb3.subsystem.StrictMaxPoolResourceDefinition.DERIVE_SIZE;
+import static org.jboss.as.ejb3.subsystem.StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT;
+import static org.jboss.as.ejb3.subsystem.StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT_UNIT;
+import static org.jboss.as.ejb3.subsystem.StrictMaxPoolResourceDefinition.MIN_POOL_SIZE;
+import static org.jboss.as.ejb3.subsystem.StrictMaxPoolResourceDefinition.POOL_TYPE;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -62,6 +68,7 @@ import org.jboss.as.controller.transform.description.RejectAttributeChecker;
 import org.jboss.as.controller.transform.description.ResourceTransformationDescriptionBuilder;
 import org.jboss.as.controller.transform.description.TransformationDescription;
 import org.jboss.as.controller.transform.description.TransformationDescriptionBuilder;
+import org.jboss.as.ejb3.component.singleton.SingletonLockMode;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.clustering.ejb.BeanManagerFactoryBuilderConfiguration;
@@ -127,6 +134,8 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
 
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.ALLOW_EJB_NAME_REGEX);
         builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.ALLOW_EJB_NAME_REGEX);
+        builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(SingletonLockMode.STANDARD.toString())), EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE);
+        builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE);
 
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.ENABLE_GRACEFUL_TXN_SHUTDOWN)
                 .addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.ENABLE_GRACEFUL_TXN_SHUTDOWN);
@@ -135,6 +144,7 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
         registerRemoteTransformers(builder);
         registerMdbDeliveryGroupTransformers(builder);
         registerStrictMaxPoolTransformers(builder);
+        registerCacheTransformers(builder);
         registerApplicationSecurityDomainDTransformers(builder);
         registerIdentityTransformers(builder);
         builder.rejectChildResource(PathElement.pathElement(EJB3SubsystemModel.REMOTING_PROFILE));
@@ -157,13 +167,17 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
                 .end();
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.ALLOW_EJB_NAME_REGEX);
         builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.ALLOW_EJB_NAME_REGEX);
+        builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(SingletonLockMode.STANDARD.toString())), EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE);
+        builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE);
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.ENABLE_GRACEFUL_TXN_SHUTDOWN);
         builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.ENABLE_GRACEFUL_TXN_SHUTDOWN);
         registerMdbDeliveryGroupTransformers(builder);
         registerRemoteTransformers(builder);
         registerStrictMaxPoolTransformers(builder);
+        registerCacheTransformers(builder);
         registerApplicationSecurityDomainDTransformers(builder);
         registerIdentityTransformers(builder);
+        registerDataStoreTransformers_4_0_0(builder.addChildResource(EJB3SubsystemModel.TIMER_SERVICE_PATH));
 
         // Rename new statistics-enabled attribute to old enable-statistics
         builder.getAttributeBuilder().addRename(EJB3SubsystemModel.STATISTICS_ENABLED, EJB3SubsystemModel.ENABLE_STATISTICS);
@@ -181,10 +195,16 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
 
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.ALLOW_EJB_NAME_REGEX);
         builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.ALLOW_EJB_NAME_REGEX);
+        builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(SingletonLockMode.STANDARD.toString())), EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE);
+        builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.SINGLETON_BEAN_LOCK_MODE);
 
         builder.getAttributeBuilder().setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), EJB3SubsystemRootResourceDefinition.ENABLE_GRACEFUL_TXN_SHUTDOWN);
         builder.getAttributeBuilder().addRejectCheck(RejectAttributeChecker.DEFINED, EJB3SubsystemRootResourceDefinition.ENABLE_GRACEFUL_TXN_SHUTDOWN);
 
+        registerStrictMaxPoolTransformers_4_0_0(builder.addChildResource(PathElement.pathElement(EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL)));
+        registerCacheTransformers(builder);
+        registerDataStoreTransformers_4_0_0(builder.addChildResource(EJB3SubsystemModel.TIMER_SERVICE_PATH));
+
         // Rename new statistics-enabled attribute to old enable-statistics
         builder.getAttributeBuilder()
                .addRename(EJB3SubsystemModel.STATISTICS_ENABLED, EJB3SubsystemModel.ENABLE_STATISTICS);
@@ -210,10 +230,26 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
     }
 
     private static void registerStrictMaxPoolTransformers(ResourceTransformationDescriptionBuilder parent) {
-        parent.addChildResource(PathElement.pathElement(EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL))
-                .getAttributeBuilder()
+        ResourceTransformationDescriptionBuilder strictMaxPool = parent.addChildResource(PathElement.pathElement(EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL));
+        strictMaxPool.getAttributeBuilder()
                 .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(StrictMaxPoolResourceDefinition.DeriveSize.NONE.toString())), DERIVE_SIZE)
                 .addRejectCheck(RejectAttributeChecker.DEFINED, DERIVE_SIZE);
+        registerStrictMaxPoolTransformers_4_0_0(strictMaxPool);
+    }
+
+    private static void registerStrictMaxPoolTransformers_4_0_0(ResourceTransformationDescriptionBuilder strictMaxPool) {
+        strictMaxPool.getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(StrictMaxPoolResourceDefinition.PoolType.QUEUE.toString())), POOL_TYPE)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, POOL_TYPE)
+                // Only meaningful for adaptive pools, which are rejected above
+                .setDiscard(DiscardAttributeChecker.ALWAYS, MIN_POOL_SIZE, INSTANCE_IDLE_TIMEOUT, INSTANCE_IDLE_TIMEOUT_UNIT);
+    }
+
+    private static void registerCacheTransformers(ResourceTransformationDescriptionBuilder parent) {
+        parent.addChildResource(PathElement.pathElement(EJB3SubsystemModel.CACHE)).getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(0)), CacheFactoryResourceDefinition.MAX_SIZE)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, CacheFactoryResourceDefinition.MAX_SIZE)
+                .end();
     }
 
     private static void registerMdbDeliveryGroupTransformers(ResourceTransformationDescriptionBuilder parent) {
@@ -240,6 +276,7 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
                 .inheritResourceAttributeDefinitions()
                 .setCustomOperationTransformer(dataStoreTransformer)
                 .end();
+        registerFileDataStoreTransformers_4_0_0(fileDataStore);
 
     }
 
@@ -250,6 +287,25 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
                         .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(-1)), REFRESH_INTERVAL)
                         .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(true)), ALLOW_EXECUTION)
                         .addRejectCheck(RejectAttributeChecker.DEFINED, REFRESH_INTERVAL, ALLOW_EXECUTION);
+        registerDatabaseDataStoreTransformers_4_0_0(db);
+        registerFileDataStoreTransformers_4_0_0(timerService.addChildResource(EJB3SubsystemModel.FILE_DATA_STORE_PATH));
+    }
+
+    private static void registerDataStoreTransformers_4_0_0(ResourceTransformationDescriptionBuilder timerService) {
+        registerFileDataStoreTransformers_4_0_0(timerService.addChildResource(EJB3SubsystemModel.FILE_DATA_STORE_PATH));
+        registerDatabaseDataStoreTransformers_4_0_0(timerService.addChildResource(EJB3SubsystemModel.DATABASE_DATA_STORE_PATH));
+    }
+
+    private static void registerFileDataStoreTransformers_4_0_0(ResourceTransformationDescriptionBuilder fileDataStore) {
+        fileDataStore.getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(FileDataStoreResourceDefinition.StoreFormat.XML.toString())), STORE_FORMAT)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, STORE_FORMAT);
+    }
+
+    private static void registerDatabaseDataStoreTransformers_4_0_0(ResourceTransformationDescriptionBuilder databaseDataStore) {
+        databaseDataStore.getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(0)), WRITE_BEHIND_INTERVAL)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, WRITE_BEHIND_INTERVAL);
     }
 
     private static class DataStoreTransformer implements CombinedTransformer {
@@ -295,6 +351,10 @@ public class EJBTransformers implements ExtensionTransformerRegistration {
                     && untransformedModel.get(EJB3SubsystemModel.DATABASE_DATA_STORE).keys().size() > 0)
                     || untransformedModel.get(EJB3SubsystemModel.FILE_DATA_STORE).keys().size() > 1) {
                 rejectIncompatibleDataStores(context, address);
+            } else if (fileStore.hasDefined(STORE_FORMAT)
+                    && !fileStore.get(STORE_FORMAT).equals(new ModelNode(FileDataStoreResourceDefinition.StoreFormat.XML.toString()))) {
+                //the legacy timer service does not support the journal
+                rejectIncompatibleDataStores(context, address);
             }
 
             ModelNode path = fileStore.get(EJB3SubsystemModel.PATH);
@@ -68,7 +68,9 @@ public class FileDataStoreAdd extends AbstractAddStepHandler {
         final String relativeTo = relativeToNode.isDefined() ? relativeToNode.asString() : null;
 
 
-        final FileTimerPersistence fileTimerPersistence = new FileTimerPersistence(true, path, relativeTo);
+        final boolean journalEnabled = FileDataStoreResourceDefinition.isJournalEnabled(context, model);
+
+        final FileTimerPersistence fileTimerPersistence = new FileTimerPersistence(true, journalEnabled, path, relativeTo);
         final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
         final ServiceName serviceName = TimerPersistence.SERVICE_NAME.append(address.getLastElement().getValue());
         context.getServiceTarget().addService(serviceName, fileTimerPersistence)
@@ -27,11 +27,14 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.ReloadRequiredWriteAttributeHandler;
 import org.jboss.as.controller.ServiceRemoveStepHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.operations.validation.EnumValidator;
 import org.jboss.as.controller.operations.validation.ModelTypeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
@@ -40,6 +43,7 @@ import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.controller.services.path.PathManager;
 import org.jboss.as.controller.services.path.ResolvePathHandler;
 import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 
 /**
@@ -60,6 +64,14 @@ public class FileDataStoreResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
                     .build();
 
+    public static final SimpleAttributeDefinition STORE_FORMAT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.STORE_FORMAT, ModelType.STRING, true)
+                    .setAllowExpression(true)
+                    .setValidator(new EnumValidator<>(StoreFormat.class, true, true))
+                    .setDefaultValue(new ModelNode(StoreFormat.XML.toString()))
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .build();
+
     private final PathManager pathManager;
 
     public static final Map<String, AttributeDefinition> ATTRIBUTES;
@@ -68,10 +80,42 @@ public class FileDataStoreResourceDefinition extends SimpleResourceDefinition {
         Map<String, AttributeDefinition> map = new LinkedHashMap<String, AttributeDefinition>();
         map.put(PATH.getName(), PATH);
         map.put(RELATIVE_TO.getName(), RELATIVE_TO);
+        map.put(STORE_FORMAT.getName(), STORE_FORMAT);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
 
+    private static final String XML_VALUE = "xml";
+    private static final String JOURNAL_VALUE = "journal";
+
+    enum StoreFormat {
+        XML(XML_VALUE),
+        JOURNAL(JOURNAL_VALUE);
+
+        private final String value;
+
+        StoreFormat(String value) {
+            this.value = value;
+        }
+
+        public String toString() {
+            return value;
+        }
+
+        public static StoreFormat fromValue(String value) {
+            switch (value) {
+                case XML_VALUE: return XML;
+                case JOURNAL_VALUE: return JOURNAL;
+                default:
+                    return valueOf(value);
+            }
+        }
+    }
+
+    static boolean isJournalEnabled(OperationContext context, ModelNode fileDataStoreModel) throws OperationFailedException {
+        return StoreFormat.fromValue(STORE_FORMAT.resolveModelAttribute(context, fileDataStoreModel).asString()) == StoreFormat.JOURNAL;
+    }
+
     public FileDataStoreResourceDefinition(final PathManager pathManager) {
         super(EJB3SubsystemModel.FILE_DATA_STORE_PATH,
                 EJB3Extension.getResourceDescriptionResolver(EJB3SubsystemModel.FILE_DATA_STORE),
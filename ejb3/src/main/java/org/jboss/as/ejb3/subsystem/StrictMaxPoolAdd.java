@@ -73,8 +73,12 @@ public class StrictMaxPoolAdd extends AbstractAddStepHandler {
         final Derive derive = StrictMaxPoolResourceDefinition.parseDeriveSize(context, strictMaxPoolModel);
         final long timeout = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.resolveModelAttribute(context, strictMaxPoolModel).asLong();
         final String unit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.resolveModelAttribute(context, strictMaxPoolModel).asString();
+        final StrictMaxPoolConfig.PoolType poolType = StrictMaxPoolResourceDefinition.parsePoolType(context, strictMaxPoolModel);
         // create and install the service
-        final StrictMaxPoolConfigService poolConfigService = new StrictMaxPoolConfigService(poolName, maxPoolSize, derive, timeout, TimeUnit.valueOf(unit));
+        final StrictMaxPoolConfigService poolConfigService = new StrictMaxPoolConfigService(poolName, maxPoolSize, derive, timeout, TimeUnit.valueOf(unit), poolType);
+        poolConfigService.setMinPoolSize(StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.resolveModelAttribute(context, strictMaxPoolModel).asInt());
+        poolConfigService.setIdleTimeout(StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT.resolveModelAttribute(context, strictMaxPoolModel).asLong());
+        poolConfigService.setIdleTimeoutUnit(TimeUnit.valueOf(StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT_UNIT.resolveModelAttribute(context, strictMaxPoolModel).asString()));
 
 
         final ServiceName serviceName = StrictMaxPoolConfigService.EJB_POOL_CONFIG_BASE_SERVICE_NAME.append(poolName);
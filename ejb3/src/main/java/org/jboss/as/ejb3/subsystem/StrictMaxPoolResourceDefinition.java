@@ -95,6 +95,34 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_NONE)
                     .setAllowExpression(true)
                     .build();
+    public static final SimpleAttributeDefinition POOL_TYPE =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.POOL_TYPE, ModelType.STRING, true)
+                    .setAllowExpression(true)
+                    .setValidator(new EnumValidator<>(PoolType.class, true, true))
+                    .setDefaultValue(new ModelNode(PoolType.QUEUE.toString()))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+    public static final SimpleAttributeDefinition MIN_POOL_SIZE =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MIN_POOL_SIZE, ModelType.INT, true)
+                    .setDefaultValue(new ModelNode().set(StrictMaxPoolConfig.DEFAULT_MIN_POOL_SIZE))
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(0, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+    public static final SimpleAttributeDefinition INSTANCE_IDLE_TIMEOUT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.INSTANCE_IDLE_TIMEOUT, ModelType.LONG, true)
+                    .setDefaultValue(new ModelNode().set(StrictMaxPoolConfig.DEFAULT_IDLE_TIMEOUT))
+                    .setAllowExpression(true)
+                    .setValidator(new LongRangeValidator(1, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+    public static final SimpleAttributeDefinition INSTANCE_IDLE_TIMEOUT_UNIT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.INSTANCE_IDLE_TIMEOUT_UNIT, ModelType.STRING, true)
+                    .setValidator(new TimeUnitValidator(true,true))
+                    .setDefaultValue(new ModelNode().set(StrictMaxPoolConfig.DEFAULT_IDLE_TIMEOUT_UNIT.name()))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .setAllowExpression(true)
+                    .build();
     public static final SimpleAttributeDefinition DERIVED_SIZE =
             new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.DERIVED_SIZE, ModelType.INT, true)
                     .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
@@ -108,6 +136,10 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
         map.put(DERIVE_SIZE.getName(), DERIVE_SIZE);
         map.put(INSTANCE_ACQUISITION_TIMEOUT.getName(), INSTANCE_ACQUISITION_TIMEOUT);
         map.put(INSTANCE_ACQUISITION_TIMEOUT_UNIT.getName(), INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+        map.put(POOL_TYPE.getName(), POOL_TYPE);
+        map.put(MIN_POOL_SIZE.getName(), MIN_POOL_SIZE);
+        map.put(INSTANCE_IDLE_TIMEOUT.getName(), INSTANCE_IDLE_TIMEOUT);
+        map.put(INSTANCE_IDLE_TIMEOUT_UNIT.getName(), INSTANCE_IDLE_TIMEOUT_UNIT);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
@@ -146,6 +178,46 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    private static final String QUEUE_VALUE = "queue";
+    private static final String STRIPED_VALUE = "striped";
+    private static final String ADAPTIVE_VALUE = "adaptive";
+
+    enum PoolType {
+        QUEUE(QUEUE_VALUE, StrictMaxPoolConfig.PoolType.QUEUE),
+        STRIPED(STRIPED_VALUE, StrictMaxPoolConfig.PoolType.STRIPED),
+        ADAPTIVE(ADAPTIVE_VALUE, StrictMaxPoolConfig.PoolType.ADAPTIVE);
+
+        private final String value;
+        private final StrictMaxPoolConfig.PoolType type;
+
+        PoolType(String value, StrictMaxPoolConfig.PoolType type) {
+            this.value = value;
+            this.type = type;
+        }
+
+        StrictMaxPoolConfig.PoolType getType() {
+            return this.type;
+        }
+
+        public String toString() {
+            return value;
+        }
+
+        public static PoolType fromValue(String value) {
+            switch (value) {
+                case QUEUE_VALUE: return QUEUE;
+                case STRIPED_VALUE: return STRIPED;
+                case ADAPTIVE_VALUE: return ADAPTIVE;
+                default:
+                    return valueOf(value);
+            }
+        }
+    }
+
+    static StrictMaxPoolConfig.PoolType parsePoolType(OperationContext context, ModelNode strictMaxPoolModel) throws OperationFailedException {
+        return PoolType.fromValue(POOL_TYPE.resolveModelAttribute(context, strictMaxPoolModel).asString()).getType();
+    }
+
     static Derive parseDeriveSize(OperationContext context, ModelNode strictMaxPoolModel) throws OperationFailedException {
         ModelNode dsNode = StrictMaxPoolResourceDefinition.DERIVE_SIZE.resolveModelAttribute(context, strictMaxPoolModel);
         if (dsNode.isDefined()) {
@@ -79,6 +79,15 @@ class StrictMaxPoolWriteHandler extends AbstractWriteAttributeHandler<Void> {
                 } else if (StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.getName().equals(attributeName)) {
                     String timeoutUnit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.resolveModelAttribute(context, model).asString();
                     smpc.setTimeoutUnit(TimeUnit.valueOf(timeoutUnit));
+                } else if (StrictMaxPoolResourceDefinition.POOL_TYPE.getName().equals(attributeName)) {
+                    smpc.setPoolType(StrictMaxPoolResourceDefinition.parsePoolType(context, model));
+                } else if (StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.getName().equals(attributeName)) {
+                    smpc.setMinPoolSize(StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.resolveModelAttribute(context, model).asInt());
+                } else if (StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT.getName().equals(attributeName)) {
+                    smpc.setIdleTimeout(StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT.resolveModelAttribute(context, model).asLong());
+                } else if (StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT_UNIT.getName().equals(attributeName)) {
+                    String idleTimeoutUnit = StrictMaxPoolResourceDefinition.INSTANCE_IDLE_TIMEOUT_UNIT.resolveModelAttribute(context, model).asString();
+                    smpc.setIdleTimeoutUnit(TimeUnit.valueOf(idleTimeoutUnit));
                 }
             }
         }
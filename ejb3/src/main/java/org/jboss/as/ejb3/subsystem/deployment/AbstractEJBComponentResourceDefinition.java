@@ -34,6 +34,7 @@ import org.jboss.as.controller.PrimitiveListAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -80,7 +81,32 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
-    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME)
+    private static final AttributeDefinition EXECUTION_TIME_P50 = new SimpleAttributeDefinitionBuilder("execution-time-p50", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition EXECUTION_TIME_P90 = new SimpleAttributeDefinitionBuilder("execution-time-p90", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition EXECUTION_TIME_P99 = new SimpleAttributeDefinitionBuilder("execution-time-p99", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition EXECUTION_TIME_MAX = new SimpleAttributeDefinitionBuilder("execution-time-max", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME,
+                    EXECUTION_TIME_P50, EXECUTION_TIME_P90, EXECUTION_TIME_P99, EXECUTION_TIME_MAX)
             .setRequired(false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
@@ -112,6 +138,18 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
+    private static final AttributeDefinition AVERAGE_PASSIVATION_TIME = new SimpleAttributeDefinitionBuilder("average-passivation-time", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition AVERAGE_ACTIVATION_TIME = new SimpleAttributeDefinitionBuilder("average-activation-time", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0))
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     // Pool attributes
 
     public static final SimpleAttributeDefinition POOL_AVAILABLE_COUNT = new SimpleAttributeDefinitionBuilder("pool-available-count", ModelType.INT, false)
@@ -125,6 +163,8 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
     public static final SimpleAttributeDefinition POOL_REMOVE_COUNT = new SimpleAttributeDefinitionBuilder("pool-remove-count", ModelType.INT, false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
+    public static final SimpleAttributeDefinition POOL_EVICTION_COUNT = new SimpleAttributeDefinitionBuilder("pool-eviction-count", ModelType.INT, false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
     public static final SimpleAttributeDefinition POOL_MAX_SIZE = new SimpleAttributeDefinitionBuilder("pool-max-size", ModelType.INT, false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
 
@@ -153,6 +193,7 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             resourceRegistration.registerReadOnlyAttribute(POOL_NAME, handler);
             resourceRegistration.registerReadOnlyAttribute(POOL_REMOVE_COUNT, handler);
             resourceRegistration.registerReadOnlyAttribute(POOL_CURRENT_SIZE, handler);
+            resourceRegistration.registerReadOnlyAttribute(POOL_EVICTION_COUNT, handler);
             resourceRegistration.registerReadWriteAttribute(POOL_MAX_SIZE, handler, handler);
         }
 
@@ -175,6 +216,18 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     context.getResult().set(((StatefulSessionComponent)component).getCache().getTotalSize());
                 }
             });
+            resourceRegistration.registerMetric(AVERAGE_PASSIVATION_TIME, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(((StatefulSessionComponent)component).getCache().getAveragePassivationTime());
+                }
+            });
+            resourceRegistration.registerMetric(AVERAGE_ACTIVATION_TIME, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().set(((StatefulSessionComponent)component).getCache().getAverageActivationTime());
+                }
+            });
         }
 
         resourceRegistration.registerMetric(EXECUTION_TIME, new AbstractRuntimeMetricsHandler() {
@@ -211,6 +264,10 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     result.get("execution-time").set(values.getExecutionTime());
                     result.get("invocations").set(values.getInvocations());
                     result.get("wait-time").set(values.getWaitTime());
+                    result.get(EXECUTION_TIME_P50.getName()).set(values.getExecutionTimePercentile(50));
+                    result.get(EXECUTION_TIME_P90.getName()).set(values.getExecutionTimePercentile(90));
+                    result.get(EXECUTION_TIME_P99.getName()).set(values.getExecutionTimePercentile(99));
+                    result.get(EXECUTION_TIME_MAX.getName()).set(values.getMaxExecutionTime());
                     context.getResult().get(entry.getKey()).set(result);
                 }
             }
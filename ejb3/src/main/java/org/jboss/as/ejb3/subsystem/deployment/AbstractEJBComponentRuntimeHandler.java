@@ -50,6 +50,7 @@ import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourc
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_AVAILABLE_COUNT;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_CREATE_COUNT;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_CURRENT_SIZE;
+import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_EVICTION_COUNT;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_MAX_SIZE;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_NAME;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_REMOVE_COUNT;
@@ -160,6 +161,12 @@ public abstract class AbstractEJBComponentRuntimeHandler<T extends EJBComponent>
             if (pool != null) {
                 result.set(pool.getCurrentSize());
             }
+        } else if (hasPool && POOL_EVICTION_COUNT.getName().equals(attributeName)) {
+            final Pool<?> pool = componentType.getPool(component);
+            final ModelNode result = context.getResult();
+            if (pool != null) {
+                result.set(pool.getEvictionCount());
+            }
         } else if (hasPool && POOL_MAX_SIZE.getName().equals(attributeName)) {
             final Pool<?> pool = componentType.getPool(component);
             final ModelNode result = context.getResult();
@@ -22,7 +22,6 @@
 package org.jboss.as.ejb3.timerservice;
 
 import java.lang.reflect.Method;
-import java.util.Calendar;
 import java.util.Date;
 
 import javax.ejb.EJBException;
@@ -93,9 +92,9 @@ public class CalendarTimer extends TimerImpl {
 
         if (builder.nextDate == null && builder.newTimer) {
             // compute the next timeout (from "now")
-            Calendar nextTimeout = this.calendarTimeout.getNextTimeout();
-            if (nextTimeout != null) {
-                this.nextExpiration = nextTimeout.getTime();
+            long nextTimeout = this.calendarTimeout.getNextTimeout(System.currentTimeMillis());
+            if (nextTimeout != CalendarBasedTimeout.NO_MORE_TIMEOUTS) {
+                this.nextExpiration = new Date(nextTimeout);
             }
         }
     }
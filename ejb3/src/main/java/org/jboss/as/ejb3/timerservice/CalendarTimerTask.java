@@ -21,10 +21,9 @@
  */
 package org.jboss.as.ejb3.timerservice;
 
-import java.util.Calendar;
 import java.util.Date;
-import java.util.GregorianCalendar;
 
+import org.jboss.as.ejb3.timerservice.schedule.CalendarBasedTimeout;
 import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
 
 /**
@@ -75,12 +74,10 @@ public class CalendarTimerTask extends TimerTask<CalendarTimer> {
         if (currentTimeout == null) {
             return null;
         }
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(currentTimeout);
         // now compute the next timeout date
-        Calendar nextTimeout = ((CalendarTimer) timer).getCalendarTimeout().getNextTimeout(cal);
-        if (nextTimeout != null) {
-            return nextTimeout.getTime();
+        long nextTimeout = ((CalendarTimer) timer).getCalendarTimeout().getNextTimeout(currentTimeout.getTime());
+        if (nextTimeout != CalendarBasedTimeout.NO_MORE_TIMEOUTS) {
+            return new Date(nextTimeout);
         }
         return null;
     }
@@ -36,7 +36,9 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.ejb.EJBException;
 import javax.ejb.ScheduleExpression;
@@ -100,7 +102,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private final InjectedValue<ExecutorService> executorServiceInjectedValue = new InjectedValue<ExecutorService>();
 
-    private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TimingWheel> timingWheelInjectedValue = new InjectedValue<TimingWheel>();
 
     private final InjectedValue<TimedObjectInvoker> timedObjectInvoker = new InjectedValue<TimedObjectInvoker>();
 
@@ -117,12 +119,12 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     /**
      * All timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> timers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final Map<String, TimerImpl> timers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
-     * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
+     * Holds the {@link Task} of each of the timer tasks that have been scheduled
      */
-    private final Map<String, java.util.TimerTask> scheduledTimerFutures = new HashMap<String, java.util.TimerTask>();
+    private final Map<String, Task> scheduledTimerFutures = new HashMap<String, Task>();
 
     /**
      * Key that is used to store timers that are waiting on transaction completion in the transaction local
@@ -210,7 +212,6 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         this.transactionManager = null;
         IoUtils.safeClose(listenerHandle);
         listenerHandle = null;
-        timerInjectedValue.getValue().purge(); //WFLY-3823
     }
 
 
@@ -399,13 +400,11 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         Object pk = currentPrimaryKey();
         final Set<Timer> activeTimers = new HashSet<Timer>();
         // get all active timers for this timerservice
-        synchronized (this.timers) {
-            for (final TimerImpl timer : this.timers.values()) {
-                // Less disruptive way to get WFLY-8457 fixed.
-                if (timer.isActive() || (!timer.isActive() && timer.getState() == TimerState.ACTIVE)) {
-                    if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
-                        activeTimers.add(timer);
-                    }
+        for (final TimerImpl timer : this.timers.values()) {
+            // Less disruptive way to get WFLY-8457 fixed.
+            if (timer.isActive() || (!timer.isActive() && timer.getState() == TimerState.ACTIVE)) {
+                if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
+                    activeTimers.add(timer);
                 }
             }
         }
@@ -885,13 +884,13 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
                 EJB3_TIMER_LOGGER.debugv("Scheduling timer {0} at fixed rate, starting at {1} milliseconds from now with repeated interval={2}",
                         timer, delay, intervalDuration);
                 // schedule the task
-                this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration);
+                task.timeout = this.timingWheelInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration, TimeUnit.MILLISECONDS);
                 // maintain it in timerservice for future use (like cancellation)
                 this.scheduledTimerFutures.put(timer.getId(), task);
             } else {
                 EJB3_TIMER_LOGGER.debugv("Scheduling a single action timer {0} starting at {1} milliseconds from now", timer, delay);
                 // schedule the task
-                this.timerInjectedValue.getValue().schedule(task, delay);
+                task.timeout = this.timingWheelInjectedValue.getValue().schedule(task, delay, TimeUnit.MILLISECONDS);
                 // maintain it in timerservice for future use (like cancellation)
                 this.scheduledTimerFutures.put(timer.getId(), task);
 
@@ -906,7 +905,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      */
     protected void cancelTimeout(final TimerImpl timer) {
         synchronized (this.scheduledTimerFutures) {
-            java.util.TimerTask timerTask = this.scheduledTimerFutures.remove(timer.getId());
+            Task timerTask = this.scheduledTimerFutures.remove(timer.getId());
             if (timerTask != null) {
                 timerTask.cancel();
             }
@@ -1071,8 +1070,8 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return executorServiceInjectedValue;
     }
 
-    public InjectedValue<java.util.Timer> getTimerInjectedValue() {
-        return timerInjectedValue;
+    public InjectedValue<TimingWheel> getTimingWheelInjectedValue() {
+        return timingWheelInjectedValue;
     }
 
     public InjectedValue<TimerPersistence> getTimerPersistence() {
@@ -1190,10 +1189,14 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         }
     }
 
-    private class Task extends java.util.TimerTask {
+    private class Task implements Runnable {
 
         private final TimerTask<?> delegate;
         private final ControlPoint controlPoint;
+        /**
+         * The handle of this task within the timing wheel, set while holding the lock on scheduledTimerFutures
+         */
+        volatile TimingWheel.Timeout timeout;
         /**
          * This is true if a task is queued up to be run by the request controller,
          * used to stop timer tasks banking up when the container is suspended.
@@ -1226,10 +1229,10 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
             }
         }
 
-        @Override
         public boolean cancel() {
             delegate.cancel();
-            return super.cancel();
+            final TimingWheel.Timeout timeout = this.timeout;
+            return timeout != null && timeout.cancel();
         }
     }
 
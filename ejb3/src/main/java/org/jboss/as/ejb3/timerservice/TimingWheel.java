@@ -0,0 +1,375 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.EJB3_TIMER_LOGGER;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel, which schedules and cancels tasks in constant time, regardless of the number of scheduled tasks.
+ * <p/>
+ * Unlike {@link java.util.Timer}, whose binary heap costs O(log n) per operation under a single lock, and which retains
+ * cancelled tasks until they would have expired (WFLY-3823), the wheel hashes each task into one of a fixed number of
+ * buckets according to its deadline. Tasks further away than one revolution of the wheel remain in their bucket for the
+ * corresponding number of rounds.
+ * <p/>
+ * Buckets are only accessed by the worker thread. New and cancelled tasks are handed over to the worker through
+ * lock-free queues, and a cancelled task is unlinked from its bucket on the next tick. Tasks expire up to one tick
+ * late, and run on the worker thread: they are expected to hand off their actual work to an executor.
+ */
+public class TimingWheel {
+
+    /**
+     * A task scheduled by a {@link TimingWheel}.
+     */
+    public interface Timeout {
+        /**
+         * Cancels this timeout. A task already running completes, but a periodic task does not run again.
+         *
+         * @return true, if this timeout was cancelled by this invocation, false if it was already cancelled or has expired
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+    }
+
+    public static final long DEFAULT_TICK_DURATION = 10;
+    public static final TimeUnit DEFAULT_TICK_UNIT = TimeUnit.MILLISECONDS;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /**
+     * Bounds the number of new tasks the worker moves into the wheel per tick, so that a burst of scheduling cannot
+     * delay the expiration of due tasks indefinitely
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final ThreadFactory threadFactory;
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private volatile Thread worker;
+    private volatile boolean running;
+    // Only accessed by the worker thread
+    private long startTime;
+    private long tick;
+
+    public TimingWheel(ThreadFactory threadFactory) {
+        this(threadFactory, DEFAULT_TICK_DURATION, DEFAULT_TICK_UNIT, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * @param threadFactory creates the worker thread
+     * @param tickDuration the duration of a tick, i.e. the precision of this wheel
+     * @param unit the unit of the tick duration
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    public TimingWheel(ThreadFactory threadFactory, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this.threadFactory = threadFactory;
+        this.tickDuration = Math.max(unit.toNanos(tickDuration), 1L);
+        int buckets = (ticksPerWheel <= 1) ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; ++i) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+    }
+
+    public synchronized void start() {
+        if (this.worker == null) {
+            this.running = true;
+            this.worker = this.threadFactory.newThread(this::work);
+            this.worker.start();
+        }
+    }
+
+    /**
+     * Stops the worker thread and drops all tasks that have not expired yet.
+     */
+    public synchronized void stop() {
+        Thread worker = this.worker;
+        if (worker == null) {
+            return;
+        }
+        this.running = false;
+        worker.interrupt();
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        this.worker = null;
+        for (Bucket bucket : this.wheel) {
+            bucket.clear();
+        }
+        this.pending.clear();
+        this.cancelled.clear();
+        this.size.set(0);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schedules a task to run once.
+     *
+     * @param task the task
+     * @param delay the delay before the task runs
+     * @param unit the unit of the delay
+     * @return a handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return this.schedule(task, unit.toNanos(delay), 0L);
+    }
+
+    /**
+     * Schedules a task to run periodically. As with {@link java.util.Timer#scheduleAtFixedRate(java.util.TimerTask, long, long)},
+     * each deadline is computed from the previous deadline, rather than from the end of the previous run.
+     *
+     * @param task the task
+     * @param delay the delay before the task runs for the first time
+     * @param period the time between successive runs, which must be positive
+     * @param unit the unit of the delay and the period
+     * @return a handle to cancel the task
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long delay, long period, TimeUnit unit) {
+        return this.schedule(task, unit.toNanos(delay), unit.toNanos(period));
+    }
+
+    /**
+     * @return the number of tasks that are scheduled, and were neither cancelled nor, if they run once, expired
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    private Timeout schedule(Runnable task, long delay, long period) {
+        Entry entry = new Entry(this, task, System.nanoTime() + Math.max(delay, 0L), period);
+        this.size.incrementAndGet();
+        this.pending.offer(entry);
+        return entry;
+    }
+
+    private void work() {
+        this.startTime = System.nanoTime();
+        this.tick = 0L;
+        while (this.running) {
+            long now = this.awaitTick();
+            if (now != Long.MIN_VALUE) {
+                this.unlinkCancelled();
+                this.transferPending();
+                this.wheel[(int) (this.tick & this.mask)].expire(now);
+                this.tick += 1;
+            }
+        }
+    }
+
+    /**
+     * Sleeps until the start of the next tick.
+     *
+     * @return the current time, or {@link Long#MIN_VALUE} if the worker was interrupted
+     */
+    private long awaitTick() {
+        long deadline = this.startTime + this.tickDuration * (this.tick + 1);
+        for (;;) {
+            long now = System.nanoTime();
+            long sleep = deadline - now;
+            if (sleep <= 0L) {
+                return now;
+            }
+            LockSupport.parkNanos(this, sleep);
+            if (Thread.interrupted()) {
+                return Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        for (Entry entry = this.cancelled.poll(); entry != null; entry = this.cancelled.poll()) {
+            Bucket bucket = entry.bucket;
+            if (bucket != null) {
+                bucket.remove(entry);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+            Entry entry = this.pending.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.state != Entry.SCHEDULED) {
+                continue;
+            }
+            long expiration = (entry.deadline - this.startTime) / this.tickDuration;
+            entry.rounds = (expiration - this.tick) / this.wheel.length;
+            // A deadline that has already passed expires on the current tick
+            long ticks = Math.max(expiration, this.tick);
+            this.wheel[(int) (ticks & this.mask)].add(entry);
+        }
+    }
+
+    private void expire(Entry entry) {
+        if (entry.period > 0L) {
+            if (entry.state == Entry.SCHEDULED) {
+                entry.run();
+                // Checked again, since the task may have been cancelled while running
+                if (entry.state == Entry.SCHEDULED) {
+                    entry.deadline += entry.period;
+                    this.pending.offer(entry);
+                }
+            }
+        } else if (Entry.STATE_UPDATER.compareAndSet(entry, Entry.SCHEDULED, Entry.EXPIRED)) {
+            this.size.decrementAndGet();
+            entry.run();
+        }
+    }
+
+    private static final class Entry implements Timeout {
+        static final int SCHEDULED = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        static final AtomicIntegerFieldUpdater<Entry> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        final long period;
+        volatile int state = SCHEDULED;
+        // Only accessed by the worker thread
+        long deadline;
+        long rounds;
+        Bucket bucket;
+        Entry previous;
+        Entry next;
+
+        Entry(TimingWheel wheel, Runnable task, long deadline, long period) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, SCHEDULED, CANCELLED)) {
+                return false;
+            }
+            this.wheel.size.decrementAndGet();
+            this.wheel.cancelled.offer(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.state == CANCELLED;
+        }
+
+        void run() {
+            try {
+                this.task.run();
+            } catch (Throwable e) {
+                EJB3_TIMER_LOGGER.failedToRunTimingWheelTask(this.task, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.task.toString();
+        }
+    }
+
+    /**
+     * A doubly linked list of entries, only accessed by the worker thread.
+     */
+    private final class Bucket {
+        private Entry head;
+        private Entry tail;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = entry;
+            } else {
+                this.tail.next = entry;
+                entry.previous = this.tail;
+                this.tail = entry;
+            }
+        }
+
+        void remove(Entry entry) {
+            if (entry.previous != null) {
+                entry.previous.next = entry.next;
+            } else {
+                this.head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.previous = entry.previous;
+            } else {
+                this.tail = entry.previous;
+            }
+            entry.previous = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+
+        void expire(long now) {
+            Entry entry = this.head;
+            while (entry != null) {
+                Entry next = entry.next;
+                if (entry.state != Entry.SCHEDULED) {
+                    this.remove(entry);
+                } else if ((entry.rounds <= 0L) && (entry.deadline - now <= 0L)) {
+                    this.remove(entry);
+                    TimingWheel.this.expire(entry);
+                } else {
+                    entry.rounds -= 1;
+                }
+                entry = next;
+            }
+        }
+
+        void clear() {
+            for (Entry entry = this.head; entry != null; ) {
+                Entry next = entry.next;
+                entry.previous = null;
+                entry.next = null;
+                entry.bucket = null;
+                entry = next;
+            }
+            this.head = this.tail = null;
+        }
+    }
+}
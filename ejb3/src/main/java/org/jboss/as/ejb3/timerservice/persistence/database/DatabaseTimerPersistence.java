@@ -41,26 +41,38 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
 import javax.transaction.NotSupportedException;
+import javax.transaction.InvalidTransactionException;
 import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
+import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
 
+import org.jboss.as.ejb3.component.stateful.CurrentSynchronizationCallback;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.timerservice.CalendarTimer;
 import org.jboss.as.ejb3.timerservice.TimerImpl;
@@ -101,6 +113,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final Map<String, TimerChangeListener> changeListeners = Collections.synchronizedMap(new HashMap<String, TimerChangeListener>());
 
     private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistry = new InjectedValue<TransactionSynchronizationRegistry>();
+    private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
 
     private final Map<String, Set<String>> knownTimerIds = new HashMap<>();
 
@@ -116,12 +130,25 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final int refreshInterval;
     /** Flag whether this instance should execute persistent timers*/
     private final boolean allowExecution;
+    /** Interval in millis to write coalesced timer changes to the persistence store, or 0 to write them immediately*/
+    private final int writeBehindInterval;
+    /** Timer changes made outside of a transaction, which are not written yet, keyed by timer id*/
+    private final ConcurrentMap<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    /** Key of the timer changes made within the current transaction*/
+    private final Object transactionKey = new Object();
+    /** Serializes writes of pending changes, so that the changes of a timer are written in order*/
+    private final Object flushLock = new Object();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedTimerCount = new AtomicLong();
+    private volatile int lastFlushSize;
+    private volatile long lastFlushDuration;
     private volatile ManagedReference managedReference;
     private volatile DataSource dataSource;
     private volatile Properties sql;
     private MarshallerFactory factory;
     private MarshallingConfiguration configuration;
     private RefreshTask refreshTask;
+    private FlushTask flushTask;
 
     /** Names for the different SQL commands stored in the properties*/
     private static final String CREATE_TABLE = "create-table";
@@ -135,11 +162,16 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private static final String SCHEDULER_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
     public DatabaseTimerPersistence(final String database, String partition, String nodeName, int refreshInterval, boolean allowExecution) {
+        this(database, partition, nodeName, refreshInterval, allowExecution, 0);
+    }
+
+    public DatabaseTimerPersistence(final String database, String partition, String nodeName, int refreshInterval, boolean allowExecution, int writeBehindInterval) {
         this.database = database;
         this.partition = partition;
         this.nodeName = nodeName;
         this.refreshInterval = refreshInterval;
         this.allowExecution = allowExecution;
+        this.writeBehindInterval = writeBehindInterval;
     }
 
     @Override
@@ -167,6 +199,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             refreshTask = new RefreshTask();
             timerInjectedValue.getValue().schedule(refreshTask, refreshInterval, refreshInterval);
         }
+        if (writeBehindInterval > 0) {
+            flushTask = new FlushTask();
+            timerInjectedValue.getValue().schedule(flushTask, writeBehindInterval, writeBehindInterval);
+        }
     }
 
     @Override
@@ -174,6 +210,11 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         if (refreshTask != null) {
             refreshTask.cancel();
         }
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+            flushPendingWrites(pendingWrites.keySet());
+        }
         knownTimerIds.clear();
         managedReference.release();
         managedReference = null;
@@ -319,6 +360,13 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void addTimer(final TimerImpl timerEntity) {
+        if (writeBehindInterval > 0) {
+            synchronized (this) {
+                knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
+            }
+            writeBehind(timerEntity, true);
+            return;
+        }
         String createTimer = sql(CREATE_TIMER);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -342,18 +390,26 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void persistTimer(final TimerImpl timerEntity) {
+        if (writeBehindInterval > 0) {
+            synchronized (this) {
+                if (isRemoved(timerEntity)) {
+                    knownTimerIds.get(timerEntity.getTimedObjectId()).remove(timerEntity.getId());
+                } else {
+                    knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
+                }
+            }
+            writeBehind(timerEntity, false);
+            return;
+        }
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
             connection = dataSource.getConnection();
-            if (timerEntity.getState() == TimerState.CANCELED ||
-                    timerEntity.getState() == TimerState.EXPIRED) {
+            if (isRemoved(timerEntity)) {
                 String deleteTimer = sql(DELETE_TIMER);
                 statement = connection.prepareStatement(deleteTimer);
-                statement.setString(1, timerEntity.getTimedObjectId());
-                statement.setString(2, timerEntity.getId());
-                statement.setString(3, partition);
+                deleteParameters(timerEntity, statement);
                 statement.execute();
                 synchronized (this) {
                     knownTimerIds.get(timerEntity.getTimedObjectId()).remove(timerEntity.getId());
@@ -364,15 +420,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
                 }
                 String updateTimer = sql(UPDATE_TIMER);
                 statement = connection.prepareStatement(updateTimer);
-                statement.setTimestamp(1, timestamp(timerEntity.getNextExpiration()));
-                statement.setTimestamp(2, timestamp(timerEntity.getPreviousRun()));
-                statement.setString(3, timerEntity.getState().name());
-                setNodeName(timerEntity.getState(), statement, 4);
-                // WHERE CLAUSE
-                statement.setString(5, timerEntity.getTimedObjectId());
-                statement.setString(6, timerEntity.getId());
-                statement.setString(7, partition);
-                statement.setString(8, nodeName);   // only persist if this node or empty
+                updateParameters(timerEntity, statement);
                 statement.execute();
             }
         } catch (SQLException e) {
@@ -390,6 +438,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             //timers never execute on this node
             return false;
         }
+        if (writeBehindInterval > 0) {
+            // the row of the timer must be up to date, or even exist, for the update below to succeed
+            flushPendingWrites(Collections.singleton(timer.getId()));
+        }
         String loadTimer = sql(UPDATE_RUNNING);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -442,6 +494,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public List<TimerImpl> loadActiveTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        flushPendingWrites(pendingWrites.keySet());
         String loadTimer = sql(LOAD_ALL_TIMERS);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -581,16 +634,288 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         return new Holder(ret, requiresReset);
     }
 
+    /**
+     * Records a timer change to be written later: on completion of the current transaction, if any, so that the change
+     * commits or rolls back with the transaction, or otherwise by the next flush task. Successive changes of a timer
+     * are coalesced into a single write of its most recent state.
+     */
+    private void writeBehind(final TimerImpl timerEntity, final boolean newTimer) {
+        final TransactionSynchronizationRegistry tsr = transactionSynchronizationRegistry.getValue();
+        if (tsr.getTransactionKey() == null) {
+            pendingWrites.merge(timerEntity.getId(), new PendingWrite(timerEntity, newTimer), (previous, current) -> current.merge(previous));
+            return;
+        }
+        if (isBeforeCompletion()) {
+            // too late to register a synchronization, write the change now, within the transaction
+            try {
+                writeBatch(Collections.singletonList(new PendingWrite(timerEntity, newTimer)), false);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, PendingWrite> writes = (Map<String, PendingWrite>) tsr.getResource(transactionKey);
+        if (writes == null) {
+            writes = new HashMap<>();
+            tsr.putResource(transactionKey, writes);
+            tsr.registerInterposedSynchronization(new FlushTransactionSynchronization(writes));
+        }
+        writes.merge(timerEntity.getId(), new PendingWrite(timerEntity, newTimer), (previous, current) -> current.merge(previous));
+    }
+
+    private boolean isBeforeCompletion() {
+        final CurrentSynchronizationCallback.CallbackType type = CurrentSynchronizationCallback.get();
+        return type == CurrentSynchronizationCallback.CallbackType.BEFORE_COMPLETION;
+    }
+
+    /**
+     * Writes the pending changes of the specified timers. If none of the changes could be written, e.g. because the
+     * database is unavailable, they are kept for the next attempt.
+     */
+    private void flushPendingWrites(final Collection<String> timerIds) {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            final List<PendingWrite> writes = takePendingWrites(timerIds);
+            if (writes.isEmpty()) {
+                return;
+            }
+            // these changes were made outside of a transaction, so they must not depend on the outcome of the
+            // transaction of the current thread, if any
+            final TransactionManager tm = transactionManager.getValue();
+            Transaction suspended = null;
+            try {
+                suspended = tm.suspend();
+                writePendingWrites(writes);
+            } catch (SystemException | RuntimeException e) {
+                EjbLogger.EJB3_TIMER_LOGGER.failedToWriteTimerChanges(writes.size(), e);
+                restorePendingWrites(writes);
+            } finally {
+                if (suspended != null) {
+                    try {
+                        tm.resume(suspended);
+                    } catch (InvalidTransactionException | SystemException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the specified changes as a single local transaction. If that fails, each change is written on its own,
+     * so that a change that can never be written does not prevent the others from being written. Such a change is
+     * discarded, unless no change could be written at all.
+     */
+    private void writePendingWrites(final List<PendingWrite> writes) {
+        try {
+            writeBatch(writes, true);
+            return;
+        } catch (SQLException e) {
+            EjbLogger.EJB3_TIMER_LOGGER.debugf(e, "Writing %d timer changes failed, writing them one at a time", writes.size());
+        }
+        final Map<PendingWrite, SQLException> failures = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            try {
+                writePendingWrite(write);
+            } catch (SQLException e) {
+                failures.put(write, e);
+            }
+        }
+        if (failures.size() == writes.size()) {
+            EjbLogger.EJB3_TIMER_LOGGER.failedToWriteTimerChanges(writes.size(), failures.values().iterator().next());
+            restorePendingWrites(writes);
+        } else {
+            for (Map.Entry<PendingWrite, SQLException> failure : failures.entrySet()) {
+                EjbLogger.EJB3_TIMER_LOGGER.discardedTimerChanges(failure.getKey().timer.getId(), failure.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes a single change as a local transaction. A created timer whose row already exists, e.g. because a previous
+     * write committed without reporting its outcome, is updated instead.
+     */
+    private void writePendingWrite(final PendingWrite write) throws SQLException {
+        try {
+            writeBatch(Collections.singletonList(write), true);
+        } catch (SQLException e) {
+            if (!write.newTimer || !timerExists(write.timer)) {
+                throw e;
+            }
+            writeBatch(Collections.singletonList(write.existing()), true);
+        }
+    }
+
+    private boolean timerExists(final TimerImpl timer) throws SQLException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(sql(LOAD_TIMER));
+            statement.setString(1, timer.getTimedObjectId());
+            statement.setString(2, timer.getId());
+            statement.setString(3, partition);
+            resultSet = statement.executeQuery();
+            return resultSet.next();
+        } finally {
+            safeClose(resultSet);
+            safeClose(statement);
+            safeClose(connection);
+        }
+    }
+
+    private List<PendingWrite> takePendingWrites(final Collection<String> timerIds) {
+        final List<PendingWrite> writes = new ArrayList<>();
+        for (String timerId : timerIds) {
+            PendingWrite write = pendingWrites.remove(timerId);
+            if (write != null) {
+                writes.add(write);
+            }
+        }
+        return writes;
+    }
+
+    private void restorePendingWrites(final List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            // a more recent change of the same timer supersedes the restored state, but not the need to create it
+            pendingWrites.merge(write.timer.getId(), write, (current, restored) -> current.merge(restored));
+        }
+    }
+
+    /**
+     * Writes the recorded state of the specified timers using JDBC batches.
+     *
+     * @param local whether the batches should be committed as a single local transaction, rather than within the
+     *              transaction associated with the current thread
+     */
+    private void writeBatch(final List<PendingWrite> writes, final boolean local) throws SQLException {
+        final long start = System.nanoTime();
+        Connection connection = null;
+        PreparedStatement insert = null;
+        PreparedStatement update = null;
+        PreparedStatement delete = null;
+        boolean autoCommit = true;
+        boolean committed = false;
+        try {
+            connection = dataSource.getConnection();
+            if (local) {
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+            }
+            for (PendingWrite write : writes) {
+                final TimerImpl timer = write.timer;
+                if (write.newTimer) {
+                    // a timer that was created and removed since the last write never reaches the database
+                    if (!isRemoved(write.state)) {
+                        if (insert == null) {
+                            insert = connection.prepareStatement(sql(CREATE_TIMER));
+                        }
+                        statementParameters(timer, write.state, write.nextExpiration, write.previousRun, insert);
+                        insert.addBatch();
+                    }
+                } else if (isRemoved(write.state)) {
+                    if (delete == null) {
+                        delete = connection.prepareStatement(sql(DELETE_TIMER));
+                    }
+                    deleteParameters(timer, delete);
+                    delete.addBatch();
+                } else {
+                    if (update == null) {
+                        update = connection.prepareStatement(sql(UPDATE_TIMER));
+                    }
+                    updateParameters(timer, write.state, write.nextExpiration, write.previousRun, update);
+                    update.addBatch();
+                }
+            }
+            // inserts first, so that no update ever targets a timer created within the same batch
+            if (insert != null) {
+                insert.executeBatch();
+            }
+            if (update != null) {
+                update.executeBatch();
+            }
+            if (delete != null) {
+                delete.executeBatch();
+            }
+            if (local) {
+                connection.commit();
+            }
+            committed = true;
+        } finally {
+            if (local && !committed && connection != null) {
+                try {
+                    connection.rollback();
+                } catch (SQLException e) {
+                    EjbLogger.EJB3_TIMER_LOGGER.tracef(e, "Rolling back timer changes failed");
+                }
+            }
+            if (local && autoCommit && connection != null) {
+                // the connection returns to the pool
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    EjbLogger.EJB3_TIMER_LOGGER.tracef(e, "Restoring auto-commit failed");
+                }
+            }
+            safeClose(insert);
+            safeClose(update);
+            safeClose(delete);
+            safeClose(connection);
+        }
+        flushCount.incrementAndGet();
+        flushedTimerCount.addAndGet(writes.size());
+        lastFlushSize = writes.size();
+        lastFlushDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static boolean isRemoved(final TimerImpl timerEntity) {
+        return isRemoved(timerEntity.getState());
+    }
+
+    private static boolean isRemoved(final TimerState state) {
+        return state == TimerState.CANCELED || state == TimerState.EXPIRED;
+    }
+
+    private void updateParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        updateParameters(timerEntity, timerEntity.getState(), timerEntity.getNextExpiration(), timerEntity.getPreviousRun(), statement);
+    }
+
+    private void updateParameters(final TimerImpl timerEntity, final TimerState state, final Date nextExpiration, final Date previousRun, final PreparedStatement statement) throws SQLException {
+        statement.setTimestamp(1, timestamp(nextExpiration));
+        statement.setTimestamp(2, timestamp(previousRun));
+        statement.setString(3, state.name());
+        setNodeName(state, statement, 4);
+        // WHERE CLAUSE
+        statement.setString(5, timerEntity.getTimedObjectId());
+        statement.setString(6, timerEntity.getId());
+        statement.setString(7, partition);
+        statement.setString(8, nodeName);   // only persist if this node or empty
+    }
+
+    private void deleteParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        statement.setString(1, timerEntity.getTimedObjectId());
+        statement.setString(2, timerEntity.getId());
+        statement.setString(3, partition);
+    }
+
     private void statementParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        statementParameters(timerEntity, timerEntity.getState(), timerEntity.getNextExpiration(), timerEntity.getPreviousRun(), statement);
+    }
+
+    private void statementParameters(final TimerImpl timerEntity, final TimerState state, final Date nextExpiration, final Date previousRun, final PreparedStatement statement) throws SQLException {
         statement.setString(1, timerEntity.getId());
         statement.setString(2, timerEntity.getTimedObjectId());
         statement.setTimestamp(3, timestamp(timerEntity.getInitialExpiration()));
         statement.setLong(4, timerEntity.getInterval());
-        statement.setTimestamp(5, timestamp(timerEntity.getNextExpiration()));
-        statement.setTimestamp(6, timestamp(timerEntity.getPreviousRun()));
+        statement.setTimestamp(5, timestamp(nextExpiration));
+        statement.setTimestamp(6, timestamp(previousRun));
         statement.setString(7, serialize((Serializable) timerEntity.getPrimaryKey()));
         statement.setString(8, serialize(timerEntity.getTimerInfo()));
-        statement.setString(9, timerEntity.getState().name());
+        statement.setString(9, state.name());
 
         if (timerEntity instanceof CalendarTimer) {
             final CalendarTimer c = (CalendarTimer) timerEntity;
@@ -741,6 +1066,42 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         return timerInjectedValue;
     }
 
+    public InjectedValue<TransactionSynchronizationRegistry> getTransactionSynchronizationRegistry() {
+        return transactionSynchronizationRegistry;
+    }
+
+    public InjectedValue<TransactionManager> getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * @return the number of batched writes of coalesced timer changes
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * @return the number of timers written by all batched writes
+     */
+    public long getFlushedTimerCount() {
+        return flushedTimerCount.get();
+    }
+
+    /**
+     * @return the number of timers written by the last batched write
+     */
+    public int getLastFlushSize() {
+        return lastFlushSize;
+    }
+
+    /**
+     * @return the duration of the last batched write, in milliseconds
+     */
+    public long getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
     private static void safeClose(final Closeable resource) {
         try {
             if (resource != null) {
@@ -789,6 +1150,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         public void run() {
             if (running.compareAndSet(false, true)) {
                 try {
+                    // timers created on this node must be in the database, or they would be considered removed
+                    flushPendingWrites(pendingWrites.keySet());
                     Set<String> timedObjects;
                     synchronized (DatabaseTimerPersistence.this) {
                         timedObjects = new HashSet<>(knownTimerIds.keySet());
@@ -870,4 +1233,93 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             return requiresReset;
         }
     }
+
+    /**
+     * A timer change that is not written yet.
+     * The mutable state of the timer is recorded along with the change, since the timer may change further before the
+     * write, e.g. within a transaction that later rolls back.
+     */
+    private static final class PendingWrite {
+        final TimerImpl timer;
+        /** Whether the timer was created since its last write, i.e. it does not exist in the database yet*/
+        final boolean newTimer;
+        final TimerState state;
+        final Date nextExpiration;
+        final Date previousRun;
+
+        PendingWrite(final TimerImpl timer, final boolean newTimer) {
+            this(timer, newTimer, timer.getState(), copy(timer.getNextExpiration()), copy(timer.getPreviousRun()));
+        }
+
+        private PendingWrite(final TimerImpl timer, final boolean newTimer, final TimerState state, final Date nextExpiration, final Date previousRun) {
+            this.timer = timer;
+            this.newTimer = newTimer;
+            this.state = state;
+            this.nextExpiration = nextExpiration;
+            this.previousRun = previousRun;
+        }
+
+        /**
+         * Coalesces this change with a previous change of the same timer.
+         */
+        PendingWrite merge(final PendingWrite previous) {
+            return previous.newTimer && !newTimer ? new PendingWrite(timer, true, state, nextExpiration, previousRun) : this;
+        }
+
+        /**
+         * Returns this change, as a change of a timer that exists in the database.
+         */
+        PendingWrite existing() {
+            return new PendingWrite(timer, false, state, nextExpiration, previousRun);
+        }
+
+        private static Date copy(final Date date) {
+            return date == null ? null : new Date(date.getTime());
+        }
+    }
+
+    private class FlushTask extends TimerTask {
+
+        @Override
+        public void run() {
+            flushPendingWrites(pendingWrites.keySet());
+        }
+    }
+
+    /**
+     * Writes the timer changes made within a transaction before it completes, together with any earlier changes of the
+     * same timers that were made outside of a transaction.
+     */
+    private final class FlushTransactionSynchronization implements Synchronization {
+
+        private final Map<String, PendingWrite> writes;
+        private List<PendingWrite> taken = Collections.emptyList();
+
+        FlushTransactionSynchronization(final Map<String, PendingWrite> writes) {
+            this.writes = writes;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            synchronized (flushLock) {
+                taken = takePendingWrites(writes.keySet());
+                for (PendingWrite previous : taken) {
+                    writes.merge(previous.timer.getId(), previous, PendingWrite::merge);
+                }
+                try {
+                    writeBatch(new ArrayList<>(writes.values()), false);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            if (status != Status.STATUS_COMMITTED) {
+                // the changes made outside of a transaction still need to be written
+                restorePendingWrites(taken);
+            }
+        }
+    }
 }
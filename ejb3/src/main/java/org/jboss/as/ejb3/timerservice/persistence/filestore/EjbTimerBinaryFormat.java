@@ -0,0 +1,213 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.timerservice.CalendarTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimeoutMethod;
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+
+/**
+ * The binary representation of a timer within a {@link TimerJournal}. It holds the same state as the XML
+ * representation written by {@link EjbTimerXmlPersister}, without the cost of XML serialization and base64 encoding.
+ */
+class EjbTimerBinaryFormat {
+
+    private static final byte TIMER = 0;
+    private static final byte CALENDAR_TIMER = 1;
+
+    private final MarshallerFactory factory;
+    private final MarshallingConfiguration configuration;
+
+    EjbTimerBinaryFormat(MarshallerFactory factory, MarshallingConfiguration configuration) {
+        this.factory = factory;
+        this.configuration = configuration;
+    }
+
+    byte[] write(TimerImpl timer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream output = new DataOutputStream(bytes);
+        boolean calendarTimer = timer instanceof CalendarTimer;
+        output.writeByte(calendarTimer ? CALENDAR_TIMER : TIMER);
+        output.writeUTF(timer.getTimedObjectId());
+        output.writeUTF(timer.getId());
+        writeDate(output, timer.getInitialExpiration());
+        output.writeLong(timer.getInterval());
+        writeDate(output, timer.getNextExpiration());
+        writeDate(output, timer.getPreviousRun());
+        output.writeUTF(timer.getState().name());
+        this.writeObject(output, timer.getTimerInfo());
+        this.writeObject(output, timer.getPrimaryKey());
+        if (calendarTimer) {
+            CalendarTimer calendar = (CalendarTimer) timer;
+            ScheduleExpression schedule = calendar.getScheduleExpression();
+            writeString(output, schedule.getSecond());
+            writeString(output, schedule.getMinute());
+            writeString(output, schedule.getHour());
+            writeString(output, schedule.getDayOfWeek());
+            writeString(output, schedule.getDayOfMonth());
+            writeString(output, schedule.getMonth());
+            writeString(output, schedule.getYear());
+            writeDate(output, schedule.getStart());
+            writeDate(output, schedule.getEnd());
+            writeString(output, schedule.getTimezone());
+            output.writeBoolean(calendar.isAutoTimer());
+            if (calendar.isAutoTimer()) {
+                Method method = calendar.getTimeoutMethod();
+                output.writeUTF(method.getDeclaringClass().getName());
+                output.writeUTF(method.getName());
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                output.writeInt(parameterTypes.length);
+                for (Class<?> parameterType : parameterTypes) {
+                    output.writeUTF(parameterType.getName());
+                }
+            }
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the timer, or null if the timeout method of an automatic timer no longer exists
+     */
+    TimerImpl read(byte[] data, TimerServiceImpl timerService) throws IOException, ClassNotFoundException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        boolean calendarTimer = input.readByte() == CALENDAR_TIMER;
+        CalendarTimer.Builder calendarBuilder = calendarTimer ? CalendarTimer.builder() : null;
+        TimerImpl.Builder builder = calendarTimer ? calendarBuilder : TimerImpl.builder();
+        builder.setTimedObjectId(input.readUTF())
+                .setId(input.readUTF())
+                .setInitialDate(readDate(input))
+                .setRepeatInterval(input.readLong())
+                .setNextDate(readDate(input))
+                .setPreviousRun(readDate(input))
+                .setTimerState(TimerState.valueOf(input.readUTF()))
+                .setInfo((Serializable) this.readObject(input))
+                .setPrimaryKey(this.readObject(input))
+                .setPersistent(true);
+        if (!calendarTimer) {
+            return builder.build(timerService);
+        }
+        calendarBuilder.setScheduleExprSecond(readString(input))
+                .setScheduleExprMinute(readString(input))
+                .setScheduleExprHour(readString(input))
+                .setScheduleExprDayOfWeek(readString(input))
+                .setScheduleExprDayOfMonth(readString(input))
+                .setScheduleExprMonth(readString(input))
+                .setScheduleExprYear(readString(input))
+                .setScheduleExprStartDate(readDate(input))
+                .setScheduleExprEndDate(readDate(input))
+                .setScheduleExprTimezone(readString(input));
+        boolean autoTimer = input.readBoolean();
+        calendarBuilder.setAutoTimer(autoTimer);
+        if (autoTimer) {
+            String declaringClass = input.readUTF();
+            String methodName = input.readUTF();
+            String[] parameterTypes = new String[input.readInt()];
+            for (int i = 0; i < parameterTypes.length; ++i) {
+                parameterTypes[i] = input.readUTF();
+            }
+            Method timeoutMethod = CalendarTimer.getTimeoutMethod(new TimeoutMethod(declaringClass, methodName, parameterTypes), timerService.getTimedObjectInvoker().getValue().getClassLoader());
+            if (timeoutMethod == null) {
+                EjbLogger.EJB3_TIMER_LOGGER.timerReinstatementFailed(calendarBuilder.getTimedObjectId(), calendarBuilder.getId(), null);
+                return null;
+            }
+            calendarBuilder.setTimeoutMethod(timeoutMethod);
+        }
+        return calendarBuilder.build(timerService);
+    }
+
+    private void writeObject(DataOutput output, Object object) throws IOException {
+        if (object == null) {
+            output.writeInt(-1);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Marshaller marshaller = this.factory.createMarshaller(this.configuration);
+        marshaller.start(new OutputStreamByteOutput(bytes));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        marshaller.flush();
+        output.writeInt(bytes.size());
+        output.write(bytes.toByteArray());
+    }
+
+    private Object readObject(DataInput input) throws IOException, ClassNotFoundException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] data = new byte[length];
+        input.readFully(data);
+        Unmarshaller unmarshaller = this.factory.createUnmarshaller(this.configuration);
+        unmarshaller.start(new ByteBufferInput(ByteBuffer.wrap(data)));
+        try {
+            return unmarshaller.readObject();
+        } finally {
+            unmarshaller.close();
+        }
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeDate(DataOutput output, Date date) throws IOException {
+        output.writeBoolean(date != null);
+        if (date != null) {
+            output.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(DataInput input) throws IOException {
+        return input.readBoolean() ? new Date(input.readLong()) : null;
+    }
+}
@@ -84,8 +84,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
     private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
 
     private final boolean createIfNotExists;
+    private final boolean journalEnabled;
     private MarshallerFactory factory;
     private MarshallingConfiguration configuration;
+    private EjbTimerBinaryFormat binaryFormat;
     private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
     private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistry = new InjectedValue<TransactionSynchronizationRegistry>();
     private final InjectedValue<ModuleLoader> moduleLoader = new InjectedValue<ModuleLoader>();
@@ -97,13 +99,23 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<String, Lock>();
     private final ConcurrentMap<String, String> directories = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, TimerJournal> journals = new ConcurrentHashMap<String, TimerJournal>();
 
     public FileTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
+        this(createIfNotExists, false, path, pathRelativeTo);
+    }
+
+    /**
+     * @param journalEnabled if true, the timers of each timed object are stored in an append-only {@link TimerJournal},
+     *                       rather than in an XML file per timer. Timers stored in the other format are migrated on first use.
+     */
+    public FileTimerPersistence(final boolean createIfNotExists, final boolean journalEnabled, final String path, final String pathRelativeTo) {
         final SecurityManager sm = System.getSecurityManager();
         if (sm != null) {
             sm.checkPermission(FILE_PERMISSION);
         }
         this.createIfNotExists = createIfNotExists;
+        this.journalEnabled = journalEnabled;
         this.path = path;
         this.pathRelativeTo = pathRelativeTo;
     }
@@ -130,6 +142,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
         this.configuration = configuration;
         this.factory = factory;
+        this.binaryFormat = new EjbTimerBinaryFormat(factory, configuration);
         if (pathRelativeTo != null) {
             callbackHandle = pathManager.getValue().registerCallback(pathRelativeTo, PathManager.ReloadServerCallback.create(), PathManager.Event.UPDATED, PathManager.Event.REMOVED);
         }
@@ -150,6 +163,16 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     @Override
     public void stop(final StopContext context) {
+        for (Map.Entry<String, TimerJournal> entry : journals.entrySet()) {
+            final Lock lock = getLock(entry.getKey());
+            try {
+                lock.lock();
+                closeJournal(entry.getValue());
+            } finally {
+                lock.unlock();
+            }
+        }
+        journals.clear();
         locks.clear();
         directories.clear();
         if (callbackHandle != null) {
@@ -157,6 +180,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         }
         factory = null;
         configuration = null;
+        binaryFormat = null;
     }
 
     @Override
@@ -213,6 +237,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             if (status == Status.STATUS_NO_TRANSACTION ||
                     status == Status.STATUS_UNKNOWN || isBeforeCompletion()
                     || status == Status.STATUS_COMMITTED) {
+                if (journalEnabled) {
+                    writeJournal(timer, newTimer);
+                    return;
+                }
                 Map<String, TimerImpl> map = getTimers(timer.getTimedObjectId(), timer.getTimerService());
                 if (timer.getState() == TimerState.CANCELED ||
                         timer.getState() == TimerState.EXPIRED) {
@@ -253,6 +281,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             lock.lock();
             locks.remove(timedObjectId);
             directories.remove(timedObjectId);
+            final TimerJournal journal = journals.remove(timedObjectId);
+            if (journal != null) {
+                closeJournal(journal);
+            }
         } finally {
             lock.unlock();
         }
@@ -331,6 +363,9 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
      * @return The timers for the object
      */
     private Map<String, TimerImpl> getTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        if (journalEnabled) {
+            return loadTimersFromJournal(timedObjectId, timerService);
+        }
         return loadTimersFromFile(timedObjectId, timerService);
     }
 
@@ -339,9 +374,12 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         String directory = getDirectory(timedObjectId);
 
         timers.putAll(LegacyFileStore.loadTimersFromFile(timedObjectId, timerService, directory, factory, configuration));
-        for(Map.Entry<String, TimerImpl> entry : timers.entrySet()) {
-            writeFile(entry.getValue()); //write legacy timers into the new format
-            //the legacy code handling code will write a marker file, to make sure that the old timers will not be loaded on next restart.
+        if (!journalEnabled) {
+            //when the journal is enabled, legacy timers are migrated into the journal instead
+            for (Map.Entry<String, TimerImpl> entry : timers.entrySet()) {
+                writeFile(entry.getValue()); //write legacy timers into the new format
+                //the legacy code handling code will write a marker file, to make sure that the old timers will not be loaded on next restart.
+            }
         }
         final File file = new File(directory);
         if (!file.exists()) {
@@ -351,6 +389,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             EJB3_TIMER_LOGGER.failToRestoreTimers(file);
             return timers;
         }
+        if (!journalEnabled && TimerJournal.exists(file)) {
+            //the journal was disabled, write its timers into the XML format
+            migrateJournal(timedObjectId, timerService, file);
+        }
 
         final XMLMapper mapper = createMapper(timerService);
 
@@ -459,7 +501,9 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
                     }
                     try {
                         lock.lock();
-                        if (status == Status.STATUS_COMMITTED) {
+                        if (status == Status.STATUS_COMMITTED && journalEnabled) {
+                            writeJournal(timer, newTimer);
+                        } else if (status == Status.STATUS_COMMITTED) {
                             final Map<String, TimerImpl> map = getTimers(timer.getTimedObjectId(), timer.getTimerService());
                             if (timer.getState() == TimerState.CANCELED ||
                                     timer.getState() == TimerState.EXPIRED) {
@@ -511,6 +555,126 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         }
     }
 
+    /**
+     * Appends a timer change to the journal of its timed object. Should be called under lock
+     */
+    private void writeJournal(TimerImpl timer, boolean newTimer) {
+        try {
+            final TimerJournal journal = getJournal(timer.getTimedObjectId(), timer.getTimerService());
+            if (timer.getState() == TimerState.CANCELED ||
+                    timer.getState() == TimerState.EXPIRED) {
+                journal.remove(timer.getId());
+            } else if (newTimer || journal.contains(timer.getId())) {
+                //if it is not a new timer and is not in the journal then it has
+                //been removed by another thread.
+                final byte[] data;
+                try {
+                    data = binaryFormat.write(timer);
+                } catch (IOException e) {
+                    EJB3_TIMER_LOGGER.failedToPersistTimer(timer, e);
+                    return;
+                }
+                journal.put(timer.getId(), data);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Map<String, TimerImpl> loadTimersFromJournal(String timedObjectId, TimerServiceImpl timerService) {
+        try {
+            return readJournal(getJournal(timedObjectId, timerService), timedObjectId, timerService);
+        } catch (IOException e) {
+            EJB3_TIMER_LOGGER.failToRestoreTimersForObjectId(timedObjectId, e);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Gets the journal of a timed object, opening it if necessary. The first time a journal is created, the timers
+     * of the timed object are migrated from the XML and legacy formats. Should be called under lock
+     */
+    private TimerJournal getJournal(String timedObjectId, TimerServiceImpl timerService) throws IOException {
+        TimerJournal journal = journals.get(timedObjectId);
+        if (journal != null) {
+            return journal;
+        }
+        final File directory = new File(getDirectory(timedObjectId));
+        final boolean migrate = !TimerJournal.exists(directory);
+        final Map<String, TimerImpl> timers = migrate ? loadTimersFromFile(timedObjectId, timerService) : Collections.<String, TimerImpl>emptyMap();
+        journal = new TimerJournal(directory);
+        journal.open();
+        try {
+            for (TimerImpl timer : timers.values()) {
+                journal.put(timer.getId(), binaryFormat.write(timer));
+            }
+            //the XML files are only deleted once the journal holding their timers is on disk
+            journal.checkpoint();
+        } catch (IOException e) {
+            //make sure the migration is attempted again
+            safeClose(journal);
+            TimerJournal.delete(directory);
+            throw e;
+        }
+        //also deletes the files left behind if a previous migration was interrupted
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".xml")) {
+                    file.delete();
+                }
+            }
+        }
+        journals.put(timedObjectId, journal);
+        return journal;
+    }
+
+    private Map<String, TimerImpl> readJournal(TimerJournal journal, String timedObjectId, TimerServiceImpl timerService) throws IOException {
+        final Map<String, TimerImpl> timers = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : journal.readAll().entrySet()) {
+            try {
+                final TimerImpl timer = binaryFormat.read(entry.getValue(), timerService);
+                if (timer != null) {
+                    timers.put(timer.getId(), timer);
+                } else {
+                    //the timeout method no longer exists
+                    journal.remove(entry.getKey());
+                }
+            } catch (Exception e) {
+                EJB3_TIMER_LOGGER.timerReinstatementFailed(timedObjectId, entry.getKey(), e);
+            }
+        }
+        return timers;
+    }
+
+    /**
+     * Writes the timers of a journal into XML files, then deletes the journal. Should be called under lock
+     */
+    private void migrateJournal(String timedObjectId, TimerServiceImpl timerService, File directory) {
+        final TimerJournal journal = new TimerJournal(directory);
+        try {
+            try {
+                journal.open();
+                for (TimerImpl timer : readJournal(journal, timedObjectId, timerService).values()) {
+                    writeFile(timer);
+                }
+            } finally {
+                safeClose(journal);
+            }
+            TimerJournal.delete(directory);
+        } catch (IOException e) {
+            EJB3_TIMER_LOGGER.failToRestoreTimersForObjectId(timedObjectId, e);
+        }
+    }
+
+    private static void closeJournal(TimerJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            EJB3_TIMER_LOGGER.failToCloseFile(e);
+        }
+    }
+
     public InjectedValue<TransactionManager> getTransactionManager() {
         return transactionManager;
     }
@@ -0,0 +1,475 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.jboss.as.ejb3.logging.EjbLogger.EJB3_TIMER_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the persistent timers of a timed object.
+ * <p/>
+ * Each change of a timer appends a record to the log, rather than rewriting a file per timer. The location of the
+ * current record of each timer is tracked in memory. Once superseded records make up most of the log, the live records
+ * are copied into a new log, which then atomically replaces the previous one.
+ * <p/>
+ * The locations of the live records are checkpointed into a memory-mapped index on compaction and on close. On open,
+ * only the records referenced by the index, and the records appended after the last checkpoint, are read. A record
+ * torn by a crash fails its checksum and is truncated.
+ * <p/>
+ * This class is not thread safe, callers are expected to hold the lock of the timed object.
+ */
+class TimerJournal implements Closeable {
+
+    static final String LOG_FILE = "timers.journal";
+    static final String INDEX_FILE = "timers.index";
+    private static final String COMPACTION_FILE = LOG_FILE + ".compact";
+
+    /**
+     * The size the log must reach before it is compacted
+     */
+    static final long DEFAULT_COMPACTION_THRESHOLD = 1 << 20;
+
+    private static final int MAGIC = 0x454a4254;
+    private static final int VERSION = 1;
+    // magic, version, generation
+    private static final int LOG_HEADER_SIZE = 16;
+    // length, checksum
+    private static final int RECORD_HEADER_SIZE = 8;
+    // magic, version, generation, log size, count, checksum
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int INDEX_CHECKSUM_POSITION = 28;
+    private static final int INDEX_ENTRY_SIZE = 8;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private final File directory;
+    private final long compactionThreshold;
+    private final Map<String, Location> records = new HashMap<>();
+
+    private FileChannel log;
+    // Incremented by each compaction, so that an index left behind by a previous log is ignored
+    private long generation;
+    private long size;
+    private long liveSize;
+
+    TimerJournal(File directory) {
+        this(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    TimerJournal(File directory, long compactionThreshold) {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * @return true, if the specified directory contains a journal
+     */
+    static boolean exists(File directory) {
+        return new File(directory, LOG_FILE).exists();
+    }
+
+    /**
+     * @return true, if the specified file name belongs to a journal
+     */
+    static boolean isJournalFile(String name) {
+        return name.equals(LOG_FILE) || name.equals(INDEX_FILE) || name.equals(COMPACTION_FILE);
+    }
+
+    /**
+     * Deletes the journal in the specified directory, if any.
+     */
+    static void delete(File directory) throws IOException {
+        for (String name : new String[] { LOG_FILE, INDEX_FILE, COMPACTION_FILE }) {
+            Files.deleteIfExists(new File(directory, name).toPath());
+        }
+    }
+
+    /**
+     * Opens this journal, creating it if necessary, and replays its log.
+     */
+    void open() throws IOException {
+        Files.deleteIfExists(this.path(COMPACTION_FILE));
+        this.log = FileChannel.open(this.path(LOG_FILE), CREATE, READ, WRITE);
+        try {
+            if (this.log.size() < LOG_HEADER_SIZE) {
+                // A new log, or one whose creation was interrupted
+                this.generation = 0L;
+                writeHeader(this.log, this.generation);
+                this.size = LOG_HEADER_SIZE;
+            } else {
+                ByteBuffer header = this.read(0L, LOG_HEADER_SIZE);
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw EJB3_TIMER_LOGGER.invalidTimerJournal(this.path(LOG_FILE).toFile());
+                }
+                this.generation = header.getLong();
+                this.size = this.replay(this.readIndex());
+                if (this.size < this.log.size()) {
+                    // Discard the record torn by a crash
+                    this.log.truncate(this.size);
+                }
+            }
+            if (this.isCompactionNeeded()) {
+                this.compact();
+            }
+        } catch (IOException | RuntimeException e) {
+            this.log.close();
+            this.log = null;
+            throw e;
+        }
+    }
+
+    boolean contains(String id) {
+        return this.records.containsKey(id);
+    }
+
+    int size() {
+        return this.records.size();
+    }
+
+    /**
+     * @return the current payloads of all timers in this journal, in the order of their records
+     */
+    Map<String, byte[]> readAll() throws IOException {
+        List<Map.Entry<String, Location>> entries = this.sortedRecords();
+        Map<String, byte[]> payloads = new LinkedHashMap<>();
+        for (Map.Entry<String, Location> entry : entries) {
+            Record record = this.readRecord(entry.getValue().offset, this.size);
+            if (record == null) {
+                throw EJB3_TIMER_LOGGER.invalidTimerJournal(this.path(LOG_FILE).toFile());
+            }
+            payloads.put(entry.getKey(), record.payload);
+        }
+        return payloads;
+    }
+
+    /**
+     * Records the current state of a timer.
+     */
+    void put(String id, byte[] payload) throws IOException {
+        this.append(PUT, id, payload);
+    }
+
+    /**
+     * Records the removal of a timer.
+     */
+    void remove(String id) throws IOException {
+        if (this.records.containsKey(id)) {
+            this.append(REMOVE, id, NO_PAYLOAD);
+        }
+    }
+
+    /**
+     * Forces the log to disk, and writes the locations of the live records into the index.
+     */
+    void checkpoint() throws IOException {
+        this.log.force(false);
+        int count = this.records.size();
+        try (FileChannel channel = FileChannel.open(this.path(INDEX_FILE), CREATE, READ, WRITE)) {
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0L, INDEX_HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE);
+            index.putInt(MAGIC).putInt(VERSION).putLong(this.generation).putLong(this.size).putInt(count);
+            index.position(INDEX_HEADER_SIZE);
+            for (Location location : this.records.values()) {
+                index.putLong(location.offset);
+            }
+            // Written last, so that an interrupted checkpoint leaves an index that fails its checksum
+            index.putInt(INDEX_CHECKSUM_POSITION, checksum(index, count));
+            index.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.log != null) {
+            try {
+                this.checkpoint();
+            } finally {
+                this.log.close();
+                this.log = null;
+                this.records.clear();
+            }
+        }
+    }
+
+    private void append(byte type, String id, byte[] payload) throws IOException {
+        ByteBuffer buffer = encode(type, id, payload);
+        int length = buffer.remaining();
+        long offset = this.size;
+        this.write(this.log, buffer, offset);
+        this.size += length;
+        this.apply(new Record(type, id, offset, length, null));
+        if (this.isCompactionNeeded()) {
+            this.compact();
+        }
+    }
+
+    private void apply(Record record) {
+        Location previous = (record.type == PUT) ? this.records.put(record.id, new Location(record.offset, record.length)) : this.records.remove(record.id);
+        if (previous != null) {
+            this.liveSize -= previous.length;
+        }
+        if (record.type == PUT) {
+            this.liveSize += record.length;
+        }
+    }
+
+    private boolean isCompactionNeeded() {
+        // Compact once superseded and removal records outweigh the live records
+        return (this.size >= this.compactionThreshold) && (this.size - LOG_HEADER_SIZE - this.liveSize > this.liveSize);
+    }
+
+    /**
+     * Copies the live records into a new log, which replaces the current log.
+     */
+    private void compact() throws IOException {
+        long generation = this.generation + 1;
+        Path compaction = this.path(COMPACTION_FILE);
+        Map<String, Location> compacted = new HashMap<>();
+        long size = LOG_HEADER_SIZE;
+        try (FileChannel channel = FileChannel.open(compaction, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            writeHeader(channel, generation);
+            for (Map.Entry<String, Location> entry : this.sortedRecords()) {
+                Location location = entry.getValue();
+                this.write(channel, this.read(location.offset, location.length), size);
+                compacted.put(entry.getKey(), new Location(size, location.length));
+                size += location.length;
+            }
+            channel.force(true);
+        }
+        this.log.close();
+        try {
+            Files.move(compaction, this.path(LOG_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            this.log = FileChannel.open(this.path(LOG_FILE), READ, WRITE);
+        }
+        this.generation = generation;
+        this.size = size;
+        this.liveSize = size - LOG_HEADER_SIZE;
+        this.records.clear();
+        this.records.putAll(compacted);
+        this.checkpoint();
+    }
+
+    /**
+     * Loads the live records referenced by the index.
+     *
+     * @return the offset of the first record appended after the index was written
+     */
+    private long readIndex() throws IOException {
+        Path path = this.path(INDEX_FILE);
+        if (!Files.exists(path)) {
+            return LOG_HEADER_SIZE;
+        }
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long indexSize = channel.size();
+            if (indexSize < INDEX_HEADER_SIZE) {
+                return LOG_HEADER_SIZE;
+            }
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0L, indexSize);
+            if (index.getInt() != MAGIC || index.getInt() != VERSION || index.getLong() != this.generation) {
+                return LOG_HEADER_SIZE;
+            }
+            long logSize = index.getLong();
+            int count = index.getInt();
+            if (logSize < LOG_HEADER_SIZE || logSize > this.log.size() || count < 0 || INDEX_HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE > indexSize
+                    || index.getInt() != checksum(index, count)) {
+                return LOG_HEADER_SIZE;
+            }
+            for (int i = 0; i < count; ++i) {
+                Record record = this.readRecord(index.getLong(), logSize);
+                if (record == null || record.type != PUT) {
+                    // Fall back to replaying the whole log
+                    this.records.clear();
+                    this.liveSize = 0L;
+                    return LOG_HEADER_SIZE;
+                }
+                this.apply(record);
+            }
+            return logSize;
+        }
+    }
+
+    /**
+     * Applies the records starting at the specified offset, up to the end of the log, or up to the first torn record.
+     *
+     * @return the offset following the last valid record
+     */
+    private long replay(long offset) throws IOException {
+        long limit = this.log.size();
+        for (Record record = this.readRecord(offset, limit); record != null; record = this.readRecord(offset, limit)) {
+            this.apply(record);
+            offset += record.length;
+        }
+        return offset;
+    }
+
+    /**
+     * @return the record at the specified offset, or null if there is no complete and valid record before the limit
+     */
+    private Record readRecord(long offset, long limit) throws IOException {
+        if (offset < LOG_HEADER_SIZE || offset + RECORD_HEADER_SIZE > limit) {
+            return null;
+        }
+        ByteBuffer header = this.read(offset, RECORD_HEADER_SIZE);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        // A record contains at least its type and the length of its id
+        if (length < 3 || offset + RECORD_HEADER_SIZE + length > limit) {
+            return null;
+        }
+        ByteBuffer body = this.read(offset + RECORD_HEADER_SIZE, length);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(body.array()));
+        byte type = input.readByte();
+        if (type != PUT && type != REMOVE) {
+            return null;
+        }
+        String id = input.readUTF();
+        byte[] payload = new byte[input.available()];
+        input.readFully(payload);
+        return new Record(type, id, offset, RECORD_HEADER_SIZE + length, payload);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (this.log.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private List<Map.Entry<String, Location>> sortedRecords() {
+        List<Map.Entry<String, Location>> entries = new ArrayList<>(this.records.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().offset));
+        return entries;
+    }
+
+    private Path path(String name) {
+        return new File(this.directory, name).toPath();
+    }
+
+    private static void writeHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(generation).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static ByteBuffer encode(byte type, String id, byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER_SIZE + 3 + id.length() + payload.length);
+        DataOutputStream output = new DataOutputStream(bytes);
+        // Placeholder for the length and checksum
+        output.writeLong(0L);
+        output.writeByte(type);
+        output.writeUTF(id);
+        output.write(payload);
+        output.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buffer.remaining() - RECORD_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, length);
+        buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+        return buffer;
+    }
+
+    /**
+     * Computes the checksum of the index header, excluding the checksum itself, and of the specified number of entries.
+     */
+    private static int checksum(ByteBuffer index, int count) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = index.duplicate();
+        buffer.position(0);
+        buffer.limit(INDEX_CHECKSUM_POSITION);
+        crc.update(buffer);
+        buffer.limit(INDEX_HEADER_SIZE + count * INDEX_ENTRY_SIZE);
+        buffer.position(INDEX_HEADER_SIZE);
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+
+    private static final class Location {
+        final long offset;
+        final int length;
+
+        Location(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Record {
+        final byte type;
+        final String id;
+        final long offset;
+        final int length;
+        final byte[] payload;
+
+        Record(byte type, String id, long offset, int length, byte[] payload) {
+            this.type = type;
+            this.id = id;
+            this.offset = offset;
+            this.length = length;
+            this.payload = payload;
+        }
+    }
+}
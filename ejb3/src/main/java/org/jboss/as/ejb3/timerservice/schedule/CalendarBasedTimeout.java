@@ -49,6 +49,16 @@ import static org.jboss.as.ejb3.logging.EjbLogger.EJB3_TIMER_LOGGER;
  */
 public class CalendarBasedTimeout {
 
+    /**
+     * Returned by {@link #getNextTimeout(long)} when there are no more timeouts
+     */
+    public static final long NO_MORE_TIMEOUTS = Long.MIN_VALUE;
+
+    /**
+     * Returned by {@link #computeNextTimeout(long, boolean)} when the next timeout is to be computed
+     * by {@link #computeNextTimeout(Calendar, boolean)}
+     */
+    private static final long UNRESOLVED = Long.MAX_VALUE;
 
     /**
      * The {@link javax.ejb.ScheduleExpression} from which this {@link CalendarBasedTimeout}
@@ -102,6 +112,23 @@ public class CalendarBasedTimeout {
      */
     private TimeZone timezone;
 
+    /**
+     * The schedule compiled into bitmaps, from which the next timeout is computed without {@link Calendar} instances
+     */
+    private CompiledSchedule compiledSchedule;
+
+    /**
+     * The offsets of the timezone, or null if they are unknown
+     */
+    private ZoneOffsetTable zoneOffsets;
+
+    /**
+     * The start and end of the schedule, in milliseconds, or {@link Long#MIN_VALUE} and {@link Long#MAX_VALUE}
+     * respectively if there are none
+     */
+    private long startTime;
+    private long endTime;
+
     /**
      * Creates a {@link CalendarBasedTimeout} from the passed <code>schedule</code>.
      * <p>
@@ -151,6 +178,13 @@ public class CalendarBasedTimeout {
         } else {
             this.timezone = TimeZone.getDefault();
         }
+        this.compiledSchedule = new CompiledSchedule(this.second, this.minute, this.hour, this.dayOfWeek, this.isDayOfWeekWildcard(),
+                this.dayOfMonth, this.isDayOfMonthWildcard(), this.month, this.year);
+        this.zoneOffsets = ZoneOffsetTable.of(this.timezone);
+        Date start = schedule.getStart();
+        this.startTime = (start != null) ? start.getTime() : Long.MIN_VALUE;
+        Date end = schedule.getEnd();
+        this.endTime = (end != null) ? end.getTime() : Long.MAX_VALUE;
 
         // Now that we have parsed the values from the ScheduleExpression,
         // determine and set the first timeout (relative to the current time)
@@ -194,7 +228,83 @@ public class CalendarBasedTimeout {
         return getNextTimeout(currentCal, true);
     }
 
+    /**
+     * Returns the next timeout after the passed time. Unlike {@link #getNextTimeout(Calendar)}, this does not
+     * create any {@link Calendar} instances, unless the timezone changes its offset from UTC within a day of
+     * the passed time or of the next timeout.
+     *
+     * @param currentTime the time, in milliseconds
+     * @return the next timeout in milliseconds, or {@link #NO_MORE_TIMEOUTS} if there are none
+     */
+    public long getNextTimeout(long currentTime) {
+        long nextTimeout = this.computeNextTimeout(currentTime, true);
+        if (nextTimeout == UNRESOLVED) {
+            Calendar currentCal = new GregorianCalendar(this.timezone);
+            currentCal.setTimeInMillis(currentTime);
+            Calendar nextCal = this.computeNextTimeout(currentCal, true);
+            return (nextCal != null) ? nextCal.getTimeInMillis() : NO_MORE_TIMEOUTS;
+        }
+        return nextTimeout;
+    }
+
     private Calendar getNextTimeout(Calendar currentCal, boolean increment) {
+        long nextTimeout = this.computeNextTimeout(currentCal.getTimeInMillis(), increment);
+        if (nextTimeout == UNRESOLVED) {
+            return this.computeNextTimeout(currentCal, increment);
+        }
+        if (nextTimeout == NO_MORE_TIMEOUTS) {
+            return null;
+        }
+        Calendar nextCal = new GregorianCalendar(this.timezone);
+        nextCal.setFirstDayOfWeek(Calendar.SUNDAY);
+        nextCal.setTimeInMillis(nextTimeout);
+        return nextCal;
+    }
+
+    /**
+     * Computes the next timeout from the {@link CompiledSchedule}, in the local time of the timezone.
+     * Around a change of the offset of the timezone, the local time of the next timeout depends on the offset
+     * in effect at each step of {@link #computeNextTimeout(Calendar, boolean)} (see WFLY-9537), so the
+     * computation is left to it.
+     *
+     * @return the next timeout in milliseconds, {@link #NO_MORE_TIMEOUTS}, or {@link #UNRESOLVED}
+     */
+    private long computeNextTimeout(long currentTime, boolean increment) {
+        if (this.zoneOffsets == null) {
+            return UNRESOLVED;
+        }
+        if (currentTime > this.endTime) {
+            return NO_MORE_TIMEOUTS;
+        }
+        long time;
+        if (currentTime < this.startTime) {
+            // the start time may include milliseconds, which are kept, as in computeNextTimeout(Calendar, boolean)
+            time = this.startTime;
+        } else {
+            time = increment ? currentTime + 1000 : currentTime;
+            time -= Math.floorMod(time, 1000);
+        }
+        long epochSecond = Math.floorDiv(time, 1000);
+        if (!this.zoneOffsets.isUniform(epochSecond - CompiledSchedule.SECONDS_PER_DAY, epochSecond + CompiledSchedule.SECONDS_PER_DAY)) {
+            return UNRESOLVED;
+        }
+        int offset = this.zoneOffsets.getOffset(epochSecond);
+        long nextLocalTime = this.compiledSchedule.getNextMatch(epochSecond + offset);
+        if (nextLocalTime == CompiledSchedule.NO_MATCH) {
+            return NO_MORE_TIMEOUTS;
+        }
+        long nextEpochSecond = nextLocalTime - this.zoneOffsets.getOffset(nextLocalTime - offset);
+        if (!this.zoneOffsets.isUniform(nextEpochSecond - CompiledSchedule.SECONDS_PER_DAY, nextEpochSecond + CompiledSchedule.SECONDS_PER_DAY)) {
+            return UNRESOLVED;
+        }
+        long nextTimeout = nextEpochSecond * 1000 + Math.floorMod(time, 1000);
+        return (nextTimeout > this.endTime) ? NO_MORE_TIMEOUTS : nextTimeout;
+    }
+
+    /**
+     * Computes the next timeout by walking a {@link Calendar} field by field.
+     */
+    Calendar computeNextTimeout(Calendar currentCal, boolean increment) {
         if (this.noMoreTimeouts(currentCal)) {
             return null;
         }
@@ -328,6 +438,11 @@ public class CalendarBasedTimeout {
 
         if (nextCal.get(Calendar.MONTH) != currentMonth) {
             nextCal = computeNextMonth(nextCal);
+            if (nextCal == null) {
+                return null;
+            }
+            // the first day of the next matching month is not necessarily a matching day-of-week
+            nextCal = computeNextDayOfWeek(nextCal);
         }
         return nextCal;
     }
@@ -0,0 +1,252 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import java.util.BitSet;
+
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfMonth;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfWeek;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Hour;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Minute;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Month;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Second;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Year;
+
+/**
+ * A {@link javax.ejb.ScheduleExpression} compiled into one bitmap per attribute, from which the next matching date
+ * and time is computed arithmetically, without creating any objects.
+ * <p>
+ * Date and times are local to the timezone of the schedule, and expressed as the number of seconds since
+ * 1970-01-01T00:00:00 in the proleptic Gregorian calendar.
+ * </p>
+ */
+final class CompiledSchedule {
+
+    /**
+     * Returned by {@link #getNextMatch(long)} when the schedule has no more matches
+     */
+    static final long NO_MATCH = Long.MIN_VALUE;
+
+    static final int SECONDS_PER_DAY = 86400;
+
+    private static final int DAYS_PER_400_YEARS = 146097;
+
+    /**
+     * The number of days from 0000-03-01 to 1970-01-01
+     */
+    private static final int DAYS_0000_TO_1970 = 719468;
+
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+
+    /**
+     * The first matching time, in seconds of the day
+     */
+    private final int firstTime;
+
+    /**
+     * The matching months, from bit 1 for January to bit 12 for December
+     */
+    private final long months;
+
+    /**
+     * The matching years, or null if every year matches
+     */
+    private final BitSet years;
+
+    private final DayOfMonth dayOfMonth;
+    private final boolean dayOfMonthWildcard;
+    private final boolean dayOfWeekWildcard;
+
+    /**
+     * The days of a month matching the day-of-week, indexed by the day-of-week of its first day, from 0 for Sunday
+     */
+    private final long[] daysOfWeek = new long[7];
+
+    CompiledSchedule(Second second, Minute minute, Hour hour, DayOfWeek dayOfWeek, boolean dayOfWeekWildcard, DayOfMonth dayOfMonth, boolean dayOfMonthWildcard, Month month, Year year) {
+        this.seconds = toBitmap(second.getAbsoluteValues());
+        this.minutes = toBitmap(minute.getAbsoluteValues());
+        this.hours = toBitmap(hour.getAbsoluteValues());
+        this.firstTime = hour.getFirst() * 3600 + minute.getFirst() * 60 + second.getFirst();
+        this.months = toBitmap(month.getAbsoluteValues());
+        this.years = year.isWildcard() ? null : year.getAbsoluteValues();
+        this.dayOfMonth = dayOfMonth;
+        this.dayOfMonthWildcard = dayOfMonthWildcard;
+        this.dayOfWeekWildcard = dayOfWeekWildcard;
+        BitSet matchingDaysOfWeek = dayOfWeek.getAbsoluteValues();
+        if (matchingDaysOfWeek.get(7)) {
+            // 7 and 0 are both Sunday
+            matchingDaysOfWeek.set(0);
+        }
+        for (int firstDayOfWeek = 0; firstDayOfWeek < 7; firstDayOfWeek++) {
+            for (int day = 1; day <= 31; day++) {
+                if (matchingDaysOfWeek.get((firstDayOfWeek + day - 1) % 7)) {
+                    this.daysOfWeek[firstDayOfWeek] |= 1L << day;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first date and time matching this schedule, which is not before the passed date and time.
+     *
+     * @param time a local date and time
+     * @return the next matching local date and time, or {@link #NO_MATCH} if there is none up to {@link Year#MAX_YEAR}
+     */
+    long getNextMatch(long time) {
+        long epochDay = Math.floorDiv(time, SECONDS_PER_DAY);
+        int nextTime = this.getNextTime((int) Math.floorMod(time, SECONDS_PER_DAY));
+        if (nextTime < 0) {
+            epochDay++;
+            nextTime = this.firstTime;
+        }
+
+        // convert the epoch day to a year, month and day-of-month
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, DAYS_PER_400_YEARS);
+        int dayOfEra = (int) (days - era * DAYS_PER_400_YEARS);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = era * 400 + yearOfEra + (month <= 2 ? 1 : 0);
+
+        while (year <= Year.MAX_YEAR) {
+            if (this.years != null && !this.years.get((int) year)) {
+                int nextYear = (year < 0) ? -1 : this.years.nextSetBit((int) year);
+                if (nextYear < 0) {
+                    return NO_MATCH;
+                }
+                year = nextYear;
+                month = 1;
+                day = 1;
+                nextTime = this.firstTime;
+            }
+            long nextMonths = this.months & (-1L << month);
+            if (nextMonths == 0) {
+                year++;
+                month = 1;
+                day = 1;
+                nextTime = this.firstTime;
+                continue;
+            }
+            int nextMonth = Long.numberOfTrailingZeros(nextMonths);
+            if (nextMonth != month) {
+                month = nextMonth;
+                day = 1;
+                nextTime = this.firstTime;
+            }
+            long nextDays = this.getDaysOfMonth(year, month) & (-1L << day);
+            if (nextDays == 0) {
+                if (++month > 12) {
+                    year++;
+                    month = 1;
+                }
+                day = 1;
+                nextTime = this.firstTime;
+                continue;
+            }
+            int nextDay = Long.numberOfTrailingZeros(nextDays);
+            if (nextDay != day) {
+                day = nextDay;
+                nextTime = this.firstTime;
+            }
+            return toEpochDay(year, month, day) * SECONDS_PER_DAY + nextTime;
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * @return the first matching time, in seconds of the day, which is not before the passed time,
+     * or -1 if there is none on that day
+     */
+    private int getNextTime(int time) {
+        int hour = time / 3600;
+        int minute = time / 60 % 60;
+        int second = time % 60;
+        if ((this.hours & (1L << hour)) != 0) {
+            if ((this.minutes & (1L << minute)) != 0) {
+                long nextSeconds = this.seconds & (-1L << second);
+                if (nextSeconds != 0) {
+                    return hour * 3600 + minute * 60 + Long.numberOfTrailingZeros(nextSeconds);
+                }
+            }
+            long nextMinutes = this.minutes & (-2L << minute);
+            if (nextMinutes != 0) {
+                return hour * 3600 + Long.numberOfTrailingZeros(nextMinutes) * 60 + Long.numberOfTrailingZeros(this.seconds);
+            }
+        }
+        long nextHours = this.hours & (-2L << hour);
+        if (nextHours != 0) {
+            return Long.numberOfTrailingZeros(nextHours) * 3600 + Long.numberOfTrailingZeros(this.minutes) * 60 + Long.numberOfTrailingZeros(this.seconds);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the days of a month matching the day-of-month and day-of-week. If neither is a wildcard, a day matches
+     * if it matches either of them.
+     */
+    private long getDaysOfMonth(long year, int month) {
+        int lastDayOfMonth = lengthOfMonth(year, month);
+        int firstDayOfWeek = (int) Math.floorMod(toEpochDay(year, month, 1) + 4, 7);
+        long daysOfWeek = this.daysOfWeek[firstDayOfWeek] & ((2L << lastDayOfMonth) - 2);
+        if (this.dayOfMonthWildcard) {
+            return daysOfWeek;
+        }
+        long daysOfMonth = this.dayOfMonth.getEligibleDaysOfMonth(lastDayOfMonth, firstDayOfWeek + 1);
+        if (this.dayOfWeekWildcard) {
+            return daysOfMonth;
+        }
+        return daysOfMonth | daysOfWeek;
+    }
+
+    private static long toEpochDay(long year, int month, int day) {
+        long shiftedYear = (month <= 2) ? year - 1 : year;
+        long era = Math.floorDiv(shiftedYear, 400);
+        int yearOfEra = (int) (shiftedYear - era * 400);
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(long year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static long toBitmap(BitSet values) {
+        long[] words = values.toLongArray();
+        return (words.length > 0) ? words[0] : 0;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The offsets from UTC of a timezone, precomputed with the transitions between them from 1970 to 2100, so that the
+ * offset of an instant is found by a binary search, without creating any objects.
+ * Tables are shared by all schedules of the same timezone.
+ * <p>
+ * The transitions are those of {@link ZoneRules}, which may not agree with {@link TimeZone} for future years that
+ * the latter computes from its last rule. A table only covers instants up to the first disagreement.
+ * </p>
+ */
+final class ZoneOffsetTable {
+
+    private static final ConcurrentMap<ZoneId, ZoneOffsetTable> TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * 1970-01-01T00:00:00Z
+     */
+    private static final long MIN_EPOCH_SECOND = 0L;
+
+    /**
+     * 2100-01-01T00:00:00Z
+     */
+    private static final long MAX_EPOCH_SECOND = 4102444800L;
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    /**
+     * The end of the instants covered by this table, in epoch seconds
+     */
+    private final long maxEpochSecond;
+
+    /**
+     * The instants of the transitions, in epoch seconds
+     */
+    private final long[] transitions;
+
+    /**
+     * The offsets in seconds, where offset <i>n</i> applies before transition <i>n</i>, and the last offset
+     * after the last transition
+     */
+    private final int[] offsets;
+
+    private ZoneOffsetTable(ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        long[] transitions = new long[16];
+        int[] offsets = new int[17];
+        int count = 0;
+        Instant instant = Instant.ofEpochSecond(MIN_EPOCH_SECOND);
+        offsets[0] = rules.getOffset(instant).getTotalSeconds();
+        ZoneOffsetTransition transition = rules.nextTransition(instant);
+        while (transition != null && transition.toEpochSecond() < MAX_EPOCH_SECOND) {
+            if (count == transitions.length) {
+                transitions = Arrays.copyOf(transitions, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            transitions[count] = transition.toEpochSecond();
+            offsets[++count] = transition.getOffsetAfter().getTotalSeconds();
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        this.transitions = Arrays.copyOf(transitions, count);
+        this.offsets = Arrays.copyOf(offsets, count + 1);
+        this.maxEpochSecond = this.verify(TimeZone.getTimeZone(zone));
+    }
+
+    /**
+     * Compares the offsets of this table with those of the passed timezone, daily and around each transition.
+     *
+     * @return the end of the instants for which the offsets agree
+     */
+    private long verify(TimeZone timezone) {
+        int index = 0;
+        for (long epochSecond = MIN_EPOCH_SECOND; epochSecond < MAX_EPOCH_SECOND; epochSecond += SECONDS_PER_DAY) {
+            while (index < this.transitions.length && this.transitions[index] < epochSecond + SECONDS_PER_DAY) {
+                long transition = this.transitions[index++];
+                if (!this.agrees(timezone, transition - 1) || !this.agrees(timezone, transition)) {
+                    return transition - SECONDS_PER_DAY;
+                }
+            }
+            if (!this.agrees(timezone, epochSecond)) {
+                return epochSecond - SECONDS_PER_DAY;
+            }
+        }
+        return MAX_EPOCH_SECOND;
+    }
+
+    private boolean agrees(TimeZone timezone, long epochSecond) {
+        return timezone.getOffset(epochSecond * 1000) == this.getOffset(epochSecond) * 1000;
+    }
+
+    /**
+     * Returns the table of the passed timezone.
+     *
+     * @param timezone a timezone
+     * @return the table, or null if the rules of the timezone are not those of a region or offset known to
+     * {@link ZoneId}, as may be the case for a custom {@link java.util.SimpleTimeZone}
+     */
+    static ZoneOffsetTable of(TimeZone timezone) {
+        ZoneId zone;
+        try {
+            zone = timezone.toZoneId();
+        } catch (DateTimeException e) {
+            return null;
+        }
+        if (!TimeZone.getTimeZone(zone).hasSameRules(timezone)) {
+            return null;
+        }
+        return TABLES.computeIfAbsent(zone, ZoneOffsetTable::new);
+    }
+
+    /**
+     * Returns true if the passed instants are covered by this table, and there is no transition between them.
+     *
+     * @param from an instant, in epoch seconds
+     * @param to a later instant, in epoch seconds
+     * @return true if the offset is the same from one instant to the other
+     */
+    boolean isUniform(long from, long to) {
+        if (from < MIN_EPOCH_SECOND || to >= this.maxEpochSecond) {
+            return false;
+        }
+        int index = this.indexOf(from);
+        return index == this.transitions.length || this.transitions[index] > to;
+    }
+
+    /**
+     * Returns the offset at the passed instant.
+     *
+     * @param epochSecond an instant, in epoch seconds
+     * @return the offset from UTC in seconds
+     */
+    int getOffset(long epochSecond) {
+        return this.offsets[this.indexOf(epochSecond)];
+    }
+
+    /**
+     * @return the index of the first transition after the passed instant
+     */
+    private int indexOf(long epochSecond) {
+        int index = Arrays.binarySearch(this.transitions, epochSecond);
+        return (index < 0) ? -index - 1 : index + 1;
+    }
+}
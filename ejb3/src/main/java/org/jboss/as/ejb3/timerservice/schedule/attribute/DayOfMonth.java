@@ -124,6 +124,24 @@ public class DayOfMonth extends IntegerBasedExpression {
 
     }
 
+    /**
+     * The encoded week of the last day-of-week of a month, for example "Last Fri"
+     */
+    private static final int LAST_WEEK = 6;
+
+    /**
+     * The absolute values, as a bitmap in which bit <i>n</i> is set if day <i>n</i> matches
+     */
+    private long absoluteDaysOfMonth;
+
+    /**
+     * The relative values, as the start and end of ranges encoded by {@link #encodeDayOfMonth(String)}.
+     * A relative single value is a range whose start and end are the same.
+     */
+    private final int[] relativeStarts;
+
+    private final int[] relativeEnds;
+
 
     /**
      * Creates a {@link DayOfMonth} by parsing the passed {@link String} <code>value</code>
@@ -139,6 +157,25 @@ public class DayOfMonth extends IntegerBasedExpression {
      */
     public DayOfMonth(String value) {
         super(value);
+        for (Integer day : this.absoluteValues) {
+            if (day > 0) {
+                this.absoluteDaysOfMonth |= 1L << day;
+            }
+        }
+        this.relativeStarts = new int[this.relativeValues.size()];
+        this.relativeEnds = new int[this.relativeValues.size()];
+        int index = 0;
+        for (ScheduleValue relativeValue : this.relativeValues) {
+            if (relativeValue instanceof RangeValue) {
+                RangeValue range = (RangeValue) relativeValue;
+                this.relativeStarts[index] = this.encodeDayOfMonth(range.getStart());
+                this.relativeEnds[index] = this.encodeDayOfMonth(range.getEnd());
+            } else {
+                this.relativeStarts[index] = this.encodeDayOfMonth(((SingleValue) relativeValue).getValue());
+                this.relativeEnds[index] = this.relativeStarts[index];
+            }
+            index++;
+        }
     }
 
     /**
@@ -383,6 +420,83 @@ public class DayOfMonth extends IntegerBasedExpression {
         return eligibleDaysOfMonth.first();
     }
 
+    /**
+     * Returns the days of a month matched by this {@link DayOfMonth}, as a bitmap in which bit <i>n</i> is set if
+     * day <i>n</i> matches. Unlike {@link #getNextMatch(Calendar)}, relative values are resolved arithmetically
+     * from the length of the month and the day-of-week of its first day, without creating any objects.
+     *
+     * @param lastDayOfMonth The number of days in the month
+     * @param firstDayOfWeek The {@link Calendar} day-of-week of the first day of the month
+     * @return the matching days of the month
+     */
+    public long getEligibleDaysOfMonth(int lastDayOfMonth, int firstDayOfWeek) {
+        if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
+            return daysOfMonth(1, lastDayOfMonth);
+        }
+        long eligibleDaysOfMonth = this.absoluteDaysOfMonth;
+        for (int i = 0; i < this.relativeStarts.length; i++) {
+            int start = resolveDayOfMonth(this.relativeStarts[i], lastDayOfMonth, firstDayOfWeek);
+            int end = resolveDayOfMonth(this.relativeEnds[i], lastDayOfMonth, firstDayOfWeek);
+            if (start > end) {
+                // a range "x-y" with x larger than y is equivalent to "x-max, min-y"
+                eligibleDaysOfMonth |= daysOfMonth(start, MAX_DAY_OF_MONTH) | daysOfMonth(1, end);
+            } else {
+                eligibleDaysOfMonth |= daysOfMonth(start, end);
+            }
+        }
+        return eligibleDaysOfMonth & daysOfMonth(1, lastDayOfMonth);
+    }
+
+    /**
+     * Encodes a value of a relative range or single value as an int:
+     * <ul>
+     * <li>an absolute day-of-month as itself</li>
+     * <li>"Last" as 0, and a negative day-of-month as itself</li>
+     * <li>a day-of-week based value as 100 times its week (1 to 5, or {@link #LAST_WEEK}) plus
+     * its {@link Calendar} day-of-week</li>
+     * </ul>
+     */
+    private int encodeDayOfMonth(String value) {
+        if (this.isRelativeValue(value) == false) {
+            Integer dayOfMonth = this.parseInt(value);
+            this.assertValid(dayOfMonth);
+            return dayOfMonth;
+        }
+        String trimmedValue = value.trim();
+        if (trimmedValue.equalsIgnoreCase("last")) {
+            return 0;
+        }
+        if (this.isValidNegativeDayOfMonth(trimmedValue)) {
+            return Integer.parseInt(trimmedValue);
+        }
+        String[] parts = trimmedValue.split("\\s+");
+        String ordinal = parts[0].toLowerCase(Locale.ENGLISH);
+        int week = ordinal.equals("last") ? LAST_WEEK : ORDINAL_TO_WEEK_NUMBER_MAPPING.get(ordinal);
+        return week * 100 + DAY_OF_MONTH_ALIAS.get(parts[1].toLowerCase(Locale.ENGLISH));
+    }
+
+    private static int resolveDayOfMonth(int encodedDayOfMonth, int lastDayOfMonth, int firstDayOfWeek) {
+        if (encodedDayOfMonth <= 0) {
+            return lastDayOfMonth + encodedDayOfMonth;
+        }
+        if (encodedDayOfMonth <= MAX_DAY_OF_MONTH) {
+            return encodedDayOfMonth;
+        }
+        int week = encodedDayOfMonth / 100;
+        int dayOfWeek = encodedDayOfMonth % 100;
+        int firstDate = 1 + (dayOfWeek - firstDayOfWeek + 7) % 7;
+        if (week == LAST_WEEK) {
+            return firstDate + (lastDayOfMonth - firstDate) / 7 * 7;
+        }
+        int date = firstDate + (week - 1) * 7;
+        // like getAbsoluteDayOfMonth(Calendar, String), fall back to the last day of a month without an nth day-of-week
+        return date <= lastDayOfMonth ? date : lastDayOfMonth;
+    }
+
+    private static long daysOfMonth(int start, int end) {
+        return (end < start) ? 0 : (2L << end) - (1L << start);
+    }
+
     @Override
     protected Integer parseInt(String alias) {
         try {
@@ -30,6 +30,7 @@ import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleValue;
 import org.jboss.as.ejb3.timerservice.schedule.value.SingleValue;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.SortedSet;
@@ -213,4 +214,34 @@ public abstract class IntegerBasedExpression {
 
     public abstract boolean isRelativeValue(String value);
 
+    /**
+     * Returns true if this expression is a wildcard, which matches every value.
+     *
+     * @return true if this expression is a wildcard
+     */
+    public boolean isWildcard() {
+        return this.scheduleExpressionType == ScheduleExpressionType.WILDCARD;
+    }
+
+    /**
+     * Returns the absolute values of this expression as a {@link BitSet}, in which bit <i>n</i> is set if the
+     * value <i>n</i> matches. A wildcard matches every non-negative value up to the maximum value.
+     * Relative values are not included.
+     *
+     * @return the matching absolute values
+     */
+    public BitSet getAbsoluteValues() {
+        BitSet values = new BitSet(this.getMaxValue() + 1);
+        if (this.isWildcard()) {
+            values.set(Math.max(this.getMinValue(), 0), this.getMaxValue() + 1);
+        } else {
+            for (Integer value : this.absoluteValues) {
+                if (value >= 0) {
+                    values.set(value);
+                }
+            }
+        }
+        return values;
+    }
+
 }
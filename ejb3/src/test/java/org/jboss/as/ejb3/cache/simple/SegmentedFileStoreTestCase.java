@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests storage, removal and segment recycling of {@link SegmentedFileStore}.
+ */
+public class SegmentedFileStoreTestCase {
+
+    private Path directory;
+    private SegmentedFileStore<String> store;
+
+    @Before
+    public void init() throws IOException {
+        this.directory = Files.createTempDirectory(SegmentedFileStore.class.getSimpleName());
+        this.store = new SegmentedFileStore<>(this.directory, 64);
+    }
+
+    @After
+    public void destroy() {
+        this.store.close();
+        assertFalse(Files.exists(this.directory));
+    }
+
+    @Test
+    public void writeAndRemove() throws IOException {
+        this.store.write("a", bytes("a1"));
+        this.store.write("b", bytes("b1"));
+        this.store.write("a", bytes("a2"));
+
+        assertEquals(2, this.store.size());
+        assertTrue(this.store.contains("a"));
+        assertEquals("a2", string(this.store.read("a")));
+        assertTrue(this.store.contains("a"));
+        assertEquals("a2", string(this.store.remove("a")));
+        assertFalse(this.store.contains("a"));
+        assertNull(this.store.remove("a"));
+        assertNull(this.store.read("a"));
+
+        assertTrue(this.store.discard("b"));
+        assertFalse(this.store.discard("b"));
+        assertEquals(0, this.store.size());
+    }
+
+    @Test
+    public void recycle() throws IOException {
+        for (int i = 0; i < 1000; ++i) {
+            this.store.write("bean" + (i % 10), bytes("state" + i));
+            if (i % 3 == 0) {
+                assertEquals("state" + i, string(this.store.remove("bean" + (i % 10))));
+            }
+        }
+        // Empty segments are reused, so only live records, plus a bounded number of free segments, occupy disk
+        assertTrue(this.store.getSegmentCount() <= 10);
+        for (int i = 990; i < 1000; ++i) {
+            String key = "bean" + (i % 10);
+            if (i % 3 == 0) {
+                assertFalse(this.store.contains(key));
+            } else {
+                assertEquals("state" + i, string(this.store.remove(key)));
+            }
+        }
+        assertEquals(0, this.store.size());
+        assertTrue(this.store.getSegmentCount() <= 3);
+    }
+
+    @Test
+    public void oversized() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            builder.append(i);
+        }
+        String large = builder.toString();
+        this.store.write("small", bytes("small"));
+        this.store.write("large", bytes(large));
+        assertEquals(2, this.store.getSegmentCount());
+
+        assertEquals(large, string(this.store.remove("large")));
+        // The dedicated segment of an oversized record is deleted once the record is removed
+        assertEquals(1, this.store.getSegmentCount());
+        assertEquals("small", string(this.store.remove("small")));
+    }
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.cache.Identifiable;
+import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests passivation and activation of the beans of a {@link SimpleCache}.
+ */
+public class SimpleCacheTestCase {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService invoker = Executors.newSingleThreadExecutor();
+
+    @After
+    public void destroy() {
+        this.executor.shutdownNow();
+        this.invoker.shutdownNow();
+    }
+
+    @Test
+    public void passivateAndActivate() throws Exception {
+        MapPassivator passivator = new MapPassivator();
+        SimpleCache<String, Bean> cache = new SimpleCache<>(new BeanFactory(), null, null, null, this.executor, passivator, 1);
+        cache.start();
+        try {
+            Bean bean1 = cache.create();
+            bean1.state = 1;
+            Bean bean2 = cache.create();
+            bean2.state = 2;
+            this.awaitPassivation();
+
+            // The least recently used bean is passivated
+            assertEquals(1, cache.getPassivatedCount());
+            assertEquals(1, cache.getCacheSize());
+            assertEquals(2, cache.getTotalSize());
+            assertTrue(passivator.contains(bean1.getId()));
+
+            Bean activated = cache.get(bean1.getId());
+            assertNotSame(bean1, activated);
+            assertEquals(1, activated.state);
+            assertEquals(1, passivator.activations.get());
+            this.awaitPassivation();
+
+            // The other, idle, bean makes room for the activated bean
+            assertEquals(1, cache.getPassivatedCount());
+            assertTrue(passivator.contains(bean2.getId()));
+            // A bean in use is returned as is
+            assertSame(activated, cache.get(bean1.getId()));
+            cache.release(activated);
+            cache.release(activated);
+
+            cache.remove(bean2.getId());
+            assertFalse(passivator.contains(bean2.getId()));
+            assertEquals(0, cache.getPassivatedCount());
+            assertEquals(1, cache.getTotalSize());
+        } finally {
+            cache.stop();
+        }
+    }
+
+    /**
+     * A bean requested while it is being passivated is activated from its passivated state, rather than returned as is.
+     */
+    @Test
+    public void getDuringPassivation() throws Exception {
+        MapPassivator passivator = new MapPassivator();
+        CountDownLatch passivating = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        passivator.passivation = () -> {
+            passivating.countDown();
+            proceed.await();
+        };
+        SimpleCache<String, Bean> cache = new SimpleCache<>(new BeanFactory(), null, null, null, this.executor, passivator, 0);
+        cache.start();
+        try {
+            Bean bean = cache.create();
+            assertTrue(passivating.await(5, TimeUnit.SECONDS));
+
+            Future<Bean> result = this.invoker.submit(() -> cache.get(bean.getId()));
+            // Blocks until the bean is passivated
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertFalse(result.isDone());
+            proceed.countDown();
+
+            Bean activated = result.get(5, TimeUnit.SECONDS);
+            assertNotSame(bean, activated);
+            assertEquals(1, passivator.activations.get());
+            assertEquals(0, cache.getPassivatedCount());
+            assertFalse(passivator.contains(bean.getId()));
+        } finally {
+            proceed.countDown();
+            cache.stop();
+        }
+    }
+
+    private void awaitPassivation() throws Exception {
+        this.executor.submit(() -> { }).get();
+    }
+
+    static class Bean implements Identifiable<String> {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+        private final String id;
+        volatile int state;
+
+        Bean() {
+            this(String.valueOf(COUNTER.incrementAndGet()));
+        }
+
+        Bean(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return this.id;
+        }
+    }
+
+    static class BeanFactory implements StatefulObjectFactory<Bean> {
+        @Override
+        public Bean createInstance() {
+            return new Bean();
+        }
+
+        @Override
+        public void destroyInstance(Bean instance) {
+        }
+    }
+
+    interface Passivation {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Passivates beans to memory, as copies, in place of a file store.
+     */
+    static class MapPassivator extends BeanPassivator<String, Bean> {
+        final Map<String, Bean> store = new ConcurrentHashMap<>();
+        final AtomicInteger activations = new AtomicInteger();
+        volatile Passivation passivation = () -> { };
+
+        MapPassivator() {
+            super(null, null, null);
+        }
+
+        @Override
+        void passivate(String id, Bean bean) {
+            try {
+                this.passivation.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Bean copy = new Bean(id);
+            copy.state = bean.state;
+            this.store.put(id, copy);
+        }
+
+        @Override
+        Bean activate(String id) {
+            Bean bean = this.store.remove(id);
+            if (bean != null) {
+                this.activations.incrementAndGet();
+            }
+            return bean;
+        }
+
+        @Override
+        boolean discard(String id) {
+            return this.store.remove(id) != null;
+        }
+
+        @Override
+        boolean contains(String id) {
+            return this.store.containsKey(id);
+        }
+
+        @Override
+        public void close() {
+            this.store.clear();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link InvocationMetrics} and its {@link LatencyHistogram}.
+ */
+public class InvocationMetricsTestCase {
+
+    @Test
+    public void buckets() {
+        for (long value = 0; value < LatencyHistogram.MAX_VALUE; value = value * 9 / 8 + 1) {
+            int bucket = LatencyHistogram.bucket(value);
+            long highest = LatencyHistogram.highestValue(bucket);
+            assertTrue(bucket < LatencyHistogram.BUCKETS);
+            assertTrue(value <= highest);
+            assertTrue(highest - value <= value / 16);
+            assertEquals(bucket, LatencyHistogram.bucket(highest));
+            assertEquals(bucket + 1, LatencyHistogram.bucket(highest + 1));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() throws NoSuchMethodException {
+        InvocationMetrics metrics = new InvocationMetrics();
+        Method method = Object.class.getMethod("toString");
+        // 1..1000 ms
+        for (int i = 1; i <= 1000; ++i) {
+            metrics.startInvocation();
+            metrics.finishInvocation(method, 1, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(1000, metrics.getInvocations());
+        assertEquals(1000, metrics.getWaitTime());
+        assertEquals(500500, metrics.getExecutionTime());
+        assertEquals(0, metrics.getConcurrent());
+
+        InvocationMetrics.Values values = metrics.getMethods().get("toString");
+        assertEquals(1000, values.getInvocations());
+        assertEquals(500500, values.getExecutionTime());
+        assertEquals(1000000, values.getMaxExecutionTime());
+        assertNear(500000, values.getExecutionTimePercentile(50));
+        assertNear(900000, values.getExecutionTimePercentile(90));
+        assertNear(990000, values.getExecutionTimePercentile(99));
+        assertEquals(1000000, values.getExecutionTimePercentile(100));
+    }
+
+    @Test
+    public void concurrentInvocations() throws Exception {
+        InvocationMetrics metrics = new InvocationMetrics();
+        Method[] methods = { Object.class.getMethod("toString"), Object.class.getMethod("hashCode") };
+        int threads = 8;
+        int invocations = 100000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; ++i) {
+                Method method = methods[i % methods.length];
+                futures[i] = executor.submit((Callable<Void>) () -> {
+                    for (int j = 0; j < invocations; ++j) {
+                        metrics.startInvocation();
+                        metrics.finishInvocation(method, 0, TimeUnit.MICROSECONDS.toNanos(j % 100));
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * invocations, metrics.getInvocations());
+        assertEquals(0, metrics.getConcurrent());
+        assertTrue(metrics.getPeakConcurrent() <= threads);
+        Map<String, InvocationMetrics.Values> values = metrics.getMethods();
+        assertEquals(2, values.size());
+        for (InvocationMetrics.Values methodValues : values.values()) {
+            assertEquals(threads / 2 * invocations, methodValues.getInvocations());
+            assertEquals(99, methodValues.getMaxExecutionTime());
+            assertNear(49, methodValues.getExecutionTimePercentile(50));
+        }
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(actual + " is not near " + expected, actual >= expected && actual <= expected + expected / 16);
+    }
+}
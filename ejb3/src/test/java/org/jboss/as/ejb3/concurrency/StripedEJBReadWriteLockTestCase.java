@@ -0,0 +1,256 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.concurrency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import javax.ejb.IllegalLoopbackException;
+
+import org.jboss.as.ejb3.component.singleton.EJBReadWriteLock;
+import org.jboss.as.ejb3.component.singleton.StripedEJBReadWriteLock;
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StripedEJBReadWriteLock}, and compares its throughput with {@link EJBReadWriteLock}.
+ */
+public class StripedEJBReadWriteLockTestCase {
+
+    private final StripedEJBReadWriteLock lock = new StripedEJBReadWriteLock();
+
+    @Test
+    public void illegalLoopBack() {
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+        readLock.lock();
+        try {
+            this.lock.writeLock().tryLock();
+            fail("Unexpected acquired write lock");
+        } catch (IllegalLoopbackException expected) {
+        } finally {
+            readLock.unlock();
+        }
+        try {
+            this.lock.writeLock().lock();
+            fail("Unexpected acquired write lock");
+        } catch (IllegalLoopbackException expected) {
+        } finally {
+            readLock.unlock();
+        }
+        // all read locks are released, so upgrading is now possible
+        assertTrue(this.lock.writeLock().tryLock());
+        this.lock.writeLock().unlock();
+    }
+
+    @Test
+    public void reentrantWrite() throws Exception {
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+        assertTrue(writeLock.tryLock(1, TimeUnit.SECONDS));
+        // the write lock holder may also acquire the read lock
+        assertTrue(this.lock.readLock().tryLock());
+        this.lock.readLock().unlock();
+        writeLock.unlock();
+        assertFalse(this.tryLockFromOtherThread(this.lock.readLock()));
+        writeLock.unlock();
+        assertTrue(this.tryLockFromOtherThread(this.lock.readLock()));
+    }
+
+    @Test
+    public void downgrade() throws Exception {
+        this.lock.writeLock().lock();
+        this.lock.readLock().lock();
+        this.lock.writeLock().unlock();
+        // the read lock retained by this thread still excludes writers
+        assertFalse(this.tryLockFromOtherThread(this.lock.writeLock()));
+        assertTrue(this.tryLockFromOtherThread(this.lock.readLock()));
+        this.lock.readLock().unlock();
+        assertTrue(this.tryLockFromOtherThread(this.lock.writeLock()));
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        this.lock.readLock().lock();
+        try {
+            assertFalse(this.tryLockFromOtherThread(this.lock.writeLock()));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        this.lock.writeLock().lock();
+        try {
+            assertFalse(this.tryLockFromOtherThread(this.lock.readLock()));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A thread holding the read lock can reacquire it while a writer waits, instead of deadlocking with the writer.
+     */
+    @Test
+    public void reentrantReadWithWaitingWriter() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            this.lock.readLock().lock();
+            Future<Boolean> writer = executor.submit(() -> {
+                boolean locked = this.lock.writeLock().tryLock(10, TimeUnit.SECONDS);
+                if (locked) {
+                    this.lock.writeLock().unlock();
+                }
+                return locked;
+            });
+            Thread.sleep(100);
+            assertTrue(this.lock.readLock().tryLock(1, TimeUnit.SECONDS));
+            this.lock.readLock().unlock();
+            this.lock.readLock().unlock();
+            assertTrue(writer.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void mutualExclusion() throws Exception {
+        int threads = 8;
+        int iterations = 20000;
+        AtomicBoolean writing = new AtomicBoolean();
+        AtomicBoolean violated = new AtomicBoolean();
+        long[] counter = new long[1];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; ++i) {
+                futures[i] = executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int j = 0; j < iterations; ++j) {
+                        if (j % 10 == 0) {
+                            this.lock.writeLock().lock();
+                            try {
+                                if (!writing.compareAndSet(false, true)) {
+                                    violated.set(true);
+                                }
+                                counter[0]++;
+                                writing.set(false);
+                            } finally {
+                                this.lock.writeLock().unlock();
+                            }
+                        } else {
+                            this.lock.readLock().lock();
+                            try {
+                                if (writing.get()) {
+                                    violated.set(true);
+                                }
+                            } finally {
+                                this.lock.readLock().unlock();
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertFalse(violated.get());
+        assertEquals(threads * iterations / 10, counter[0]);
+    }
+
+    /**
+     * Measures concurrent {@link javax.ejb.LockType#READ} invocations, each holding the read lock briefly.
+     */
+    @Test
+    public void readThroughput() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int iterations = 200000;
+        // warm up both locks
+        measure(new EJBReadWriteLock(), threads, iterations);
+        measure(new StripedEJBReadWriteLock(), threads, iterations);
+
+        long standard = measure(new EJBReadWriteLock(), threads, iterations);
+        long striped = measure(new StripedEJBReadWriteLock(), threads, iterations);
+        EjbLogger.ROOT_LOGGER.debugf("%d threads x %d read locks: %s %d ms, %s %d ms", threads, iterations,
+                EJBReadWriteLock.class.getSimpleName(), TimeUnit.NANOSECONDS.toMillis(standard),
+                StripedEJBReadWriteLock.class.getSimpleName(), TimeUnit.NANOSECONDS.toMillis(striped));
+    }
+
+    private static long measure(ReadWriteLock lock, int threads, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; ++i) {
+                futures[i] = executor.submit((Callable<Void>) () -> {
+                    Lock readLock = lock.readLock();
+                    start.await();
+                    for (int j = 0; j < iterations; ++j) {
+                        if (!readLock.tryLock(5, TimeUnit.SECONDS)) {
+                            throw new IllegalStateException();
+                        }
+                        readLock.unlock();
+                    }
+                    return null;
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean tryLockFromOtherThread(Lock lock) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> {
+                boolean locked = lock.tryLock(100, TimeUnit.MILLISECONDS);
+                if (locked) {
+                    lock.unlock();
+                }
+                return locked;
+            }).get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
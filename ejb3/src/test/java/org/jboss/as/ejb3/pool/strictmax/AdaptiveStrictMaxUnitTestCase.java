@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.ejb3.pool.common.MockBean;
+import org.jboss.as.ejb3.pool.common.MockFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests pre-warming, eviction and refilling of {@link AdaptiveStrictMaxPool}.
+ */
+public class AdaptiveStrictMaxUnitTestCase {
+
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void init() {
+        MockBean.reset();
+        this.executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void prewarm() throws Exception {
+        AdaptiveStrictMaxPool<MockBean> pool = new AdaptiveStrictMaxPool<>(new MockFactory(), 5, 10, 1, TimeUnit.SECONDS, 1, TimeUnit.HOURS, this.executor);
+        pool.start();
+        this.executor.submit(() -> { }).get();
+
+        // Nothing is created until the component has started
+        assertEquals(0, pool.getCurrentSize());
+
+        pool.prewarm();
+        // Wait for the pre-warm task
+        this.executor.submit(() -> { }).get();
+
+        assertEquals(5, pool.getCurrentSize());
+        assertEquals(10, pool.getAvailableCount());
+
+        MockBean[] beans = new MockBean[5];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        // All instances were pre-created
+        assertEquals(5, MockBean.getPostConstructs());
+        for (MockBean bean : beans) {
+            pool.release(bean);
+        }
+
+        pool.stop();
+
+        assertEquals(5, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void evict() throws Exception {
+        AdaptiveStrictMaxPool<MockBean> pool = new AdaptiveStrictMaxPool<>(new MockFactory(), 2, 10, 1, TimeUnit.SECONDS, 1, TimeUnit.HOURS, this.executor);
+        pool.start();
+        pool.prewarm();
+        this.executor.submit(() -> { }).get();
+
+        MockBean[] beans = new MockBean[8];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        for (MockBean bean : beans) {
+            pool.release(bean);
+        }
+        assertEquals(8, pool.getCurrentSize());
+
+        // The peak of the first period was 8 concurrent instances, nothing to evict
+        pool.maintain();
+        assertEquals(8, pool.getCurrentSize());
+        assertEquals(0, pool.getEvictionCount());
+
+        // Only 3 concurrent instances were needed during the second period
+        for (int i = 0; i < 3; i++) {
+            beans[i] = pool.get();
+        }
+        for (int i = 0; i < 3; i++) {
+            pool.release(beans[i]);
+        }
+        pool.maintain();
+        assertEquals(3, pool.getCurrentSize());
+        assertEquals(5, pool.getEvictionCount());
+
+        // An idle period shrinks the pool to its minimum size
+        pool.maintain();
+        assertEquals(2, pool.getCurrentSize());
+        assertEquals(6, pool.getEvictionCount());
+
+        pool.stop();
+
+        assertEquals(0, pool.getCurrentSize());
+        assertEquals(8, MockBean.getPostConstructs());
+        assertEquals(8, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void refill() throws Exception {
+        AdaptiveStrictMaxPool<MockBean> pool = new AdaptiveStrictMaxPool<>(new MockFactory(), 0, 10, 1, TimeUnit.SECONDS, 1, TimeUnit.HOURS, this.executor);
+        pool.start();
+
+        MockBean[] beans = new MockBean[4];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        // Discarded instances leave the pool below its observed peak
+        for (MockBean bean : beans) {
+            pool.discard(bean);
+        }
+        assertEquals(0, pool.getCurrentSize());
+
+        pool.maintain();
+        assertEquals(4, pool.getCurrentSize());
+        assertEquals(10, pool.getAvailableCount());
+
+        pool.stop();
+
+        assertEquals(8, MockBean.getPostConstructs());
+        assertEquals(8, MockBean.getPreDestroys());
+    }
+}
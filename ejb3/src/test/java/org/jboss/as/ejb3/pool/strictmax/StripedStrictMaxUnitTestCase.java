@@ -0,0 +1,226 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.pool.Pool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+import org.jboss.as.ejb3.pool.common.MockBean;
+import org.jboss.as.ejb3.pool.common.MockFactory;
+import org.junit.Test;
+
+/**
+ * Tests the strict max semantics of {@link StripedStrictMaxPool}, and compares its throughput with {@link StrictMaxPool}.
+ */
+public class StripedStrictMaxUnitTestCase {
+
+    @Test
+    public void test1() {
+        MockBean.reset();
+        StatelessObjectFactory<MockBean> factory = new MockFactory();
+        Pool<MockBean> pool = new StripedStrictMaxPool<>(factory, 10, 1, TimeUnit.SECONDS);
+        pool.start();
+
+        MockBean[] beans = new MockBean[10];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        assertEquals(0, pool.getAvailableCount());
+
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(beans[i]);
+            beans[i] = null;
+        }
+        assertEquals(10, pool.getAvailableCount());
+
+        // Released instances must be reused, regardless of the stripe they were released to
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(beans[i]);
+        }
+
+        pool.stop();
+
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+    }
+
+    /**
+     * More threads than the pool size.
+     */
+    @Test
+    public void testMultiThread() throws Exception {
+        MockBean.reset();
+        StatelessObjectFactory<MockBean> factory = new MockFactory();
+        final Pool<MockBean> pool = new StripedStrictMaxPool<>(factory, 10, 60, TimeUnit.SECONDS);
+        pool.start();
+
+        final AtomicInteger used = new AtomicInteger(0);
+        final CountDownLatch in = new CountDownLatch(1);
+        final CountDownLatch ready = new CountDownLatch(10);
+
+        Callable<Void> task = () -> {
+            MockBean bean = pool.get();
+            ready.countDown();
+            in.await();
+            pool.release(bean);
+            used.incrementAndGet();
+            return null;
+        };
+
+        ExecutorService service = Executors.newFixedThreadPool(20);
+        Future<?>[] results = new Future<?>[20];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = service.submit(task);
+        }
+
+        ready.await(120, TimeUnit.SECONDS);
+        in.countDown();
+
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        service.shutdown();
+
+        pool.stop();
+
+        assertEquals(20, used.intValue());
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testTooMany() {
+        MockBean.reset();
+        StatelessObjectFactory<MockBean> factory = new MockFactory();
+        Pool<MockBean> pool = new StripedStrictMaxPool<>(factory, 10, 1, TimeUnit.SECONDS);
+        pool.start();
+
+        MockBean[] beans = new MockBean[10];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+
+        try {
+            pool.get();
+            fail("should have thrown an exception");
+        } catch (Exception e) {
+            assertEquals(EjbLogger.ROOT_LOGGER.failedToAcquirePermit(1, TimeUnit.SECONDS).getMessage(), e.getMessage());
+        }
+
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(beans[i]);
+            beans[i] = null;
+        }
+
+        pool.stop();
+
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testDiscard() {
+        MockBean.reset();
+        StatelessObjectFactory<MockBean> factory = new MockFactory();
+        Pool<MockBean> pool = new StripedStrictMaxPool<>(factory, 1, 1, TimeUnit.SECONDS);
+        pool.start();
+
+        pool.discard(pool.get());
+        // The permit of a discarded instance must be returned to the pool
+        pool.release(pool.get());
+
+        pool.stop();
+
+        assertEquals(2, MockBean.getPostConstructs());
+        assertEquals(2, MockBean.getPreDestroys());
+        assertEquals(0, pool.getCurrentSize());
+    }
+
+    /**
+     * Runs the same get/release workload against both pool implementations with 1..2N threads,
+     * verifying that the strict max is never exceeded and reporting the throughput of each.
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        int maxSize = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= 2 * maxSize; threads *= 2) {
+            long queued = this.measure(new StrictMaxPool<>(new MockFactory(), maxSize, 60, TimeUnit.SECONDS), maxSize, threads);
+            long striped = this.measure(new StripedStrictMaxPool<>(new MockFactory(), maxSize, 60, TimeUnit.SECONDS), maxSize, threads);
+            EjbLogger.ROOT_LOGGER.debugf("%d threads: %s %d ms, %s %d ms", threads, StrictMaxPool.class.getSimpleName(), queued, StripedStrictMaxPool.class.getSimpleName(), striped);
+        }
+    }
+
+    private long measure(Pool<MockBean> pool, int maxSize, int threads) throws Exception {
+        int iterations = 20000;
+        AtomicInteger inUse = new AtomicInteger(0);
+        AtomicInteger maxInUse = new AtomicInteger(0);
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Void> task = () -> {
+            start.await();
+            for (int i = 0; i < iterations; ++i) {
+                MockBean bean = pool.get();
+                maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                inUse.decrementAndGet();
+                pool.release(bean);
+            }
+            return null;
+        };
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> results = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) {
+                results.add(service.submit(task));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            assertTrue(maxInUse.get() <= maxSize);
+            assertTrue(pool.getCreateCount() <= maxSize);
+            assertEquals(maxSize, pool.getAvailableCount());
+            return elapsed;
+        } finally {
+            service.shutdown();
+            pool.stop();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Timer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link TimingWheel}, and compares the cost of creating and cancelling timers with {@link Timer}.
+ */
+public class TimingWheelTestCase {
+
+    private TimingWheel wheel;
+
+    @Before
+    public void init() {
+        this.wheel = new TimingWheel(Executors.defaultThreadFactory(), 1, TimeUnit.MILLISECONDS, 64);
+        this.wheel.start();
+    }
+
+    @After
+    public void destroy() {
+        this.wheel.stop();
+    }
+
+    @Test
+    public void schedule() throws Exception {
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+        this.wheel.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+        this.wheel.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+        // Further away than one revolution of the wheel
+        this.wheel.schedule(latch::countDown, 150, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(0, this.wheel.size());
+    }
+
+    @Test
+    public void scheduleAtFixedRate() throws Exception {
+        AtomicInteger count = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(5);
+        TimingWheel.Timeout timeout = this.wheel.scheduleAtFixedRate(() -> {
+            count.incrementAndGet();
+            latch.countDown();
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, this.wheel.size());
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        assertEquals(0, this.wheel.size());
+
+        // Allow a run in progress at the time of cancellation to complete
+        Thread.sleep(20);
+        int cancelled = count.get();
+        Thread.sleep(50);
+        assertEquals(cancelled, count.get());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        AtomicInteger count = new AtomicInteger(0);
+        TimingWheel.Timeout timeout = this.wheel.schedule(count::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        TimingWheel.Timeout expired = this.wheel.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // An expired timeout can no longer be cancelled
+        assertFalse(expired.cancel());
+        assertFalse(expired.isCancelled());
+
+        assertEquals(0, count.get());
+        assertEquals(0, this.wheel.size());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.schedule(() -> {
+            throw new IllegalStateException();
+        }, 0, TimeUnit.MILLISECONDS);
+        // The worker survives a failing task
+        this.wheel.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Creates and cancels one million timers, as a timer service does for short lived timers, reporting the time taken
+     * by {@link TimingWheel} and {@link Timer}.
+     */
+    @Test
+    public void createAndCancel() throws Exception {
+        int timers = 1000000;
+        Runnable task = () -> { };
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < timers; ++i) {
+            this.wheel.schedule(task, 60000 + i, TimeUnit.MILLISECONDS).cancel();
+        }
+        long wheelElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        assertEquals(0, this.wheel.size());
+
+        Timer timer = new Timer();
+        try {
+            begin = System.nanoTime();
+            for (int i = 0; i < timers; ++i) {
+                java.util.TimerTask timerTask = new java.util.TimerTask() {
+                    @Override
+                    public void run() {
+                    }
+                };
+                timer.schedule(timerTask, 60000 + i);
+                timerTask.cancel();
+            }
+            timer.purge();
+            long timerElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            EjbLogger.ROOT_LOGGER.debugf("%d timers: %s %d ms, %s %d ms", timers, TimingWheel.class.getSimpleName(), wheelElapsed, Timer.class.getSimpleName(), timerElapsed);
+        } finally {
+            timer.cancel();
+        }
+
+        // The wheel remains responsive once it has unlinked all cancelled timers
+        CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+}
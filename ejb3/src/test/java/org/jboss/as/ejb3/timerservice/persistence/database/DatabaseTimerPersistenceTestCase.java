@@ -0,0 +1,414 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.timerservice.persistence.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests the write-behind mode of {@link DatabaseTimerPersistence}, against an in-memory timer table.
+ */
+public class DatabaseTimerPersistenceTestCase {
+
+    private static final String TIMED_OBJECT_ID = "bean";
+    private static final long WRITE_BEHIND_INTERVAL = 1000;
+
+    private final Map<Object, Object> resources = new HashMap<>();
+    private final List<Synchronization> synchronizations = new ArrayList<>();
+    private final TimerServiceImpl timerService = mock(TimerServiceImpl.class);
+    private Database database;
+    private DatabaseTimerPersistence persistence;
+    private TimerTask flushTask;
+
+    @Before
+    public void init() throws Exception {
+        this.database = new Database();
+        ManagedReferenceFactory factory = mock(ManagedReferenceFactory.class);
+        ManagedReference reference = mock(ManagedReference.class);
+        when(factory.getReference()).thenReturn(reference);
+        when(reference.getInstance()).thenReturn(this.database.getDataSource());
+        TransactionSynchronizationRegistry tsr = mock(TransactionSynchronizationRegistry.class);
+        when(tsr.getTransactionKey()).thenAnswer(invocation -> this.database.transaction);
+        when(tsr.getResource(any())).thenAnswer(invocation -> this.resources.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> this.resources.put(invocation.getArguments()[0], invocation.getArguments()[1])).when(tsr).putResource(any(), any());
+        doAnswer(invocation -> this.synchronizations.add((Synchronization) invocation.getArguments()[0])).when(tsr).registerInterposedSynchronization(any(Synchronization.class));
+        Timer timer = mock(Timer.class);
+        TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        when(this.timerService.getInvoker()).thenReturn(invoker);
+
+        this.persistence = new DatabaseTimerPersistence("h2", "default", "node", 0, true, (int) WRITE_BEHIND_INTERVAL);
+        this.persistence.getDataSourceInjectedValue().inject(factory);
+        this.persistence.getModuleLoader().inject(mock(ModuleLoader.class));
+        this.persistence.getTimerInjectedValue().inject(timer);
+        this.persistence.getTransactionSynchronizationRegistry().inject(tsr);
+        this.persistence.getTransactionManager().inject(mock(TransactionManager.class));
+        this.persistence.start(mock(StartContext.class));
+
+        ArgumentCaptor<TimerTask> task = ArgumentCaptor.forClass(TimerTask.class);
+        verify(timer).schedule(task.capture(), eq(WRITE_BEHIND_INTERVAL), eq(WRITE_BEHIND_INTERVAL));
+        this.flushTask = task.getValue();
+        this.persistence.loadActiveTimers(TIMED_OBJECT_ID, this.timerService);
+    }
+
+    @After
+    public void destroy() {
+        this.persistence.stop(mock(StopContext.class));
+    }
+
+    /**
+     * Successive changes of a timer are written once, as its most recent state.
+     */
+    @Test
+    public void coalesce() {
+        TimerImpl timer = this.createTimer("timer");
+        this.persistence.addTimer(timer);
+        timer.setTimerState(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+        timer.setTimerState(TimerState.ACTIVE);
+        this.persistence.persistTimer(timer);
+        assertEquals(0, this.database.batches);
+
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("timer", TimerState.ACTIVE), this.database.rows);
+        assertEquals(1, this.database.batches);
+        assertEquals(1, this.persistence.getLastFlushSize());
+
+        // A timer created and removed between two flushes is never written
+        TimerImpl removed = this.createTimer("removed");
+        this.persistence.addTimer(removed);
+        removed.setTimerState(TimerState.CANCELED);
+        this.persistence.persistTimer(removed);
+        timer.setTimerState(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("timer", TimerState.IN_TIMEOUT), this.database.rows);
+        assertEquals(2, this.database.batches);
+    }
+
+    /**
+     * Changes made within a transaction are written before it commits, together with earlier changes of the same timer.
+     */
+    @Test
+    public void commit() {
+        TimerImpl timer = this.createTimer("timer");
+        this.persistence.addTimer(timer);
+
+        this.database.begin();
+        timer.setTimerState(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+        timer.setTimerState(TimerState.RETRY_TIMEOUT);
+        this.persistence.persistTimer(timer);
+        assertEquals(1, this.synchronizations.size());
+        Synchronization synchronization = this.synchronizations.get(0);
+        synchronization.beforeCompletion();
+        assertTrue(this.database.rows.isEmpty());
+        this.database.commit();
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+        assertEquals(Collections.singletonMap("timer", TimerState.RETRY_TIMEOUT), this.database.rows);
+        assertEquals(1, this.database.batches);
+
+        // The change made outside of the transaction was written with it
+        this.flushTask.run();
+        assertEquals(1, this.database.batches);
+    }
+
+    /**
+     * Changes made outside of a transaction that rolled back are still written.
+     */
+    @Test
+    public void rollback() {
+        TimerImpl timer = this.createTimer("timer");
+        this.persistence.addTimer(timer);
+
+        this.database.begin();
+        timer.setTimerState(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+        Synchronization synchronization = this.synchronizations.get(0);
+        synchronization.beforeCompletion();
+        this.database.rollback();
+        synchronization.afterCompletion(Status.STATUS_ROLLEDBACK);
+        assertTrue(this.database.rows.isEmpty());
+
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("timer", TimerState.ACTIVE), this.database.rows);
+    }
+
+    /**
+     * Changes that could not be written, because the database is unavailable, are written by the next flush.
+     */
+    @Test
+    public void retry() {
+        TimerImpl timer = this.createTimer("timer");
+        this.persistence.addTimer(timer);
+
+        this.database.available = false;
+        this.flushTask.run();
+        this.database.available = true;
+        assertTrue(this.database.rows.isEmpty());
+
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("timer", TimerState.ACTIVE), this.database.rows);
+    }
+
+    /**
+     * A change that can never be written does not prevent the changes of other timers from being written.
+     */
+    @Test
+    public void discard() {
+        this.persistence.addTimer(this.createTimer("good"));
+        this.persistence.addTimer(this.createTimer("bad"));
+
+        this.database.failing.add("bad");
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("good", TimerState.ACTIVE), this.database.rows);
+
+        this.database.failing.clear();
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("good", TimerState.ACTIVE), this.database.rows);
+    }
+
+    /**
+     * A created timer whose row already exists, e.g. because its previous write committed without reporting its outcome,
+     * is updated instead.
+     */
+    @Test
+    public void duplicate() {
+        TimerImpl timer = this.createTimer("timer");
+        this.persistence.addTimer(timer);
+        this.database.rows.put("timer", TimerState.ACTIVE);
+        timer.setTimerState(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+
+        this.flushTask.run();
+        assertEquals(Collections.singletonMap("timer", TimerState.IN_TIMEOUT), this.database.rows);
+
+        // The timer is not written again
+        int batches = this.database.batches;
+        this.flushTask.run();
+        assertEquals(batches, this.database.batches);
+    }
+
+    private TimerImpl createTimer(String id) {
+        return TimerImpl.builder()
+                .setId(id)
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(new Date())
+                .setTimerState(TimerState.ACTIVE)
+                .setPersistent(true)
+                .setNewTimer(true)
+                .build(this.timerService);
+    }
+
+    interface Operation {
+        void apply(Map<String, TimerState> rows) throws SQLException;
+    }
+
+    /**
+     * An in-memory timer table, keyed by timer id, accessed via mocked JDBC objects.
+     * Connections without a local transaction write within the global transaction begun by the test, if any.
+     */
+    static class Database {
+        final Properties sql = new Properties();
+        final Map<String, TimerState> rows = new HashMap<>();
+        final Set<String> failing = new HashSet<>();
+        volatile boolean available = true;
+        Object transaction;
+        Map<String, TimerState> global;
+        // The number of executed batches that were not empty
+        int batches;
+
+        Database() throws IOException {
+            try (InputStream input = DatabaseTimerPersistence.class.getClassLoader().getResourceAsStream("timer-sql.properties")) {
+                this.sql.load(input);
+            }
+        }
+
+        DataSource getDataSource() throws SQLException {
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenAnswer(invocation -> {
+                if (!this.available) {
+                    throw new SQLException("Database unavailable");
+                }
+                return this.connect();
+            });
+            return dataSource;
+        }
+
+        void begin() {
+            this.transaction = new Object();
+            this.global = new HashMap<>(this.rows);
+        }
+
+        void commit() {
+            this.rows.clear();
+            this.rows.putAll(this.global);
+            this.rollback();
+        }
+
+        void rollback() {
+            this.transaction = null;
+            this.global = null;
+        }
+
+        private Connection connect() throws SQLException {
+            Connection connection = mock(Connection.class);
+            // The rows as seen by the local transaction of this connection, if any
+            AtomicReference<Map<String, TimerState>> local = new AtomicReference<>();
+            when(connection.getAutoCommit()).thenAnswer(invocation -> local.get() == null);
+            doAnswer(invocation -> {
+                local.set((Boolean) invocation.getArguments()[0] ? null : new HashMap<>(this.rows));
+                return null;
+            }).when(connection).setAutoCommit(anyBoolean());
+            doAnswer(invocation -> {
+                this.rows.clear();
+                this.rows.putAll(local.get());
+                return null;
+            }).when(connection).commit();
+            doAnswer(invocation -> {
+                local.set(new HashMap<>(this.rows));
+                return null;
+            }).when(connection).rollback();
+            Supplier<Map<String, TimerState>> view = () -> (local.get() != null) ? local.get() : (this.global != null) ? this.global : this.rows;
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> this.prepare((String) invocation.getArguments()[0], view));
+            return connection;
+        }
+
+        private PreparedStatement prepare(String sql, Supplier<Map<String, TimerState>> view) throws SQLException {
+            PreparedStatement statement = mock(PreparedStatement.class);
+            Map<Integer, String> parameters = new HashMap<>();
+            List<Operation> batch = new ArrayList<>();
+            doAnswer(invocation -> parameters.put((Integer) invocation.getArguments()[0], (String) invocation.getArguments()[1])).when(statement).setString(anyInt(), (String) any());
+            doAnswer(invocation -> batch.add(this.operation(sql, new HashMap<>(parameters)))).when(statement).addBatch();
+            when(statement.executeBatch()).thenAnswer(invocation -> {
+                this.batches += 1;
+                // A failed batch changes nothing
+                Map<String, TimerState> rows = view.get();
+                Map<String, TimerState> result = new HashMap<>(rows);
+                try {
+                    for (Operation operation : batch) {
+                        operation.apply(result);
+                    }
+                } finally {
+                    batch.clear();
+                }
+                rows.clear();
+                rows.putAll(result);
+                return new int[0];
+            });
+            when(statement.executeQuery()).thenAnswer(invocation -> {
+                // Only the existence of a specific timer is queried
+                boolean exists = sql.equals(this.sql.getProperty("load-timer")) && view.get().containsKey(parameters.get(2));
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.next()).thenReturn(exists, false);
+                return resultSet;
+            });
+            return statement;
+        }
+
+        private Operation operation(String sql, Map<Integer, String> parameters) {
+            if (sql.equals(this.sql.getProperty("create-timer"))) {
+                String id = parameters.get(1);
+                TimerState state = TimerState.valueOf(parameters.get(9));
+                return rows -> {
+                    this.check(id);
+                    if (rows.putIfAbsent(id, state) != null) {
+                        throw new SQLException("Duplicate timer " + id);
+                    }
+                };
+            }
+            if (sql.equals(this.sql.getProperty("update-timer"))) {
+                String id = parameters.get(6);
+                TimerState state = TimerState.valueOf(parameters.get(3));
+                return rows -> {
+                    this.check(id);
+                    rows.replace(id, state);
+                };
+            }
+            if (sql.equals(this.sql.getProperty("delete-timer"))) {
+                String id = parameters.get(2);
+                return rows -> {
+                    this.check(id);
+                    rows.remove(id);
+                };
+            }
+            throw new IllegalArgumentException(sql);
+        }
+
+        private void check(String id) throws SQLException {
+            if (this.failing.contains(id)) {
+                throw new SQLException("Cannot write timer " + id);
+            }
+        }
+    }
+}
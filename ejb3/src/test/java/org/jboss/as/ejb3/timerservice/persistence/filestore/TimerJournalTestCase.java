@@ -0,0 +1,189 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests replay, recovery and compaction of {@link TimerJournal}.
+ */
+public class TimerJournalTestCase {
+
+    private File directory;
+
+    @Before
+    public void init() throws IOException {
+        this.directory = Files.createTempDirectory(TimerJournal.class.getSimpleName()).toFile();
+    }
+
+    @After
+    public void destroy() throws IOException {
+        TimerJournal.delete(this.directory);
+        this.directory.delete();
+    }
+
+    @Test
+    public void replay() throws IOException {
+        TimerJournal journal = new TimerJournal(this.directory);
+        journal.open();
+        journal.put("a", bytes("a1"));
+        journal.put("b", bytes("b1"));
+        journal.put("a", bytes("a2"));
+        journal.put("c", bytes("c1"));
+        journal.remove("b");
+        journal.close();
+
+        journal = new TimerJournal(this.directory);
+        journal.open();
+        try {
+            Map<String, byte[]> timers = journal.readAll();
+            assertEquals(2, timers.size());
+            assertArrayEquals(bytes("a2"), timers.get("a"));
+            assertArrayEquals(bytes("c1"), timers.get("c"));
+            assertFalse(journal.contains("b"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Records appended after the last checkpoint are replayed, and a torn record is discarded.
+     */
+    @Test
+    public void recover() throws IOException {
+        TimerJournal journal = new TimerJournal(this.directory);
+        journal.open();
+        journal.put("a", bytes("a1"));
+        journal.checkpoint();
+        journal.put("b", bytes("b1"));
+        journal.remove("a");
+        journal.put("c", bytes("c1"));
+        // Simulates a crash while appending the last record
+        File log = new File(this.directory, TimerJournal.LOG_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        TimerJournal recovered = new TimerJournal(this.directory);
+        recovered.open();
+        try {
+            Map<String, byte[]> timers = recovered.readAll();
+            assertEquals(1, timers.size());
+            assertArrayEquals(bytes("b1"), timers.get("b"));
+
+            // The journal remains writable after the torn record
+            recovered.put("d", bytes("d1"));
+        } finally {
+            recovered.close();
+        }
+
+        TimerJournal reopened = new TimerJournal(this.directory);
+        reopened.open();
+        try {
+            assertEquals(2, reopened.size());
+            assertTrue(reopened.contains("b"));
+            assertTrue(reopened.contains("d"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void compact() throws IOException {
+        File log = new File(this.directory, TimerJournal.LOG_FILE);
+        TimerJournal journal = new TimerJournal(this.directory, 4096);
+        journal.open();
+        for (int i = 0; i < 10000; ++i) {
+            journal.put("timer" + (i % 10), bytes("state" + i));
+            if (i % 3 == 0) {
+                journal.remove("timer" + (i % 10));
+            }
+        }
+        // The log never grows much beyond twice its live records, or the compaction threshold
+        assertTrue(log.length() < 8192);
+        journal.close();
+
+        journal = new TimerJournal(this.directory, 4096);
+        journal.open();
+        try {
+            Map<String, byte[]> timers = journal.readAll();
+            for (int i = 9990; i < 10000; ++i) {
+                String id = "timer" + (i % 10);
+                if (i % 3 == 0) {
+                    assertFalse(timers.containsKey(id));
+                } else {
+                    assertArrayEquals(bytes("state" + i), timers.get(id));
+                }
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * An index written for a previous generation of the log is ignored.
+     */
+    @Test
+    public void staleIndex() throws IOException {
+        File index = new File(this.directory, TimerJournal.INDEX_FILE);
+        TimerJournal journal = new TimerJournal(this.directory, 64);
+        journal.open();
+        journal.put("a", bytes("a1"));
+        journal.checkpoint();
+        byte[] stale = Files.readAllBytes(index.toPath());
+        for (int i = 0; i < 10; ++i) {
+            journal.put("a", bytes("a" + i));
+        }
+        journal.put("b", bytes("b1"));
+        journal.close();
+        Files.write(index.toPath(), stale);
+
+        journal = new TimerJournal(this.directory, 64);
+        journal.open();
+        try {
+            Map<String, byte[]> timers = journal.readAll();
+            assertEquals(2, timers.size());
+            assertArrayEquals(bytes("a9"), timers.get("a"));
+            assertArrayEquals(bytes("b1"), timers.get("b"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
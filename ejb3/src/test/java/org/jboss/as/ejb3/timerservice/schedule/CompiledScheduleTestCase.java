@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.junit.Test;
+
+/**
+ * Tests that {@link CalendarBasedTimeout} computes the same timeouts from its {@link CompiledSchedule} as by walking
+ * a {@link Calendar}, and compares the time taken by each.
+ */
+public class CompiledScheduleTestCase {
+
+    private static final String[] TIMEZONES = { "UTC", "Europe/Berlin", "America/Los_Angeles", "Australia/Lord_Howe", "Asia/Kolkata", "America/St_Johns" };
+
+    @Test
+    public void sameAsCalendar() {
+        for (String timezone : TIMEZONES) {
+            // every 15 minutes
+            this.assertSameAsCalendar(new ScheduleExpression().hour("*").minute("0/15").second("0").timezone(timezone), 1000);
+            // last day of every month
+            this.assertSameAsCalendar(new ScheduleExpression().dayOfMonth("Last").hour("2").minute("10").second("30").timezone(timezone), 100);
+            // week days
+            this.assertSameAsCalendar(new ScheduleExpression().dayOfWeek("Mon-Fri").hour("9").minute("0").second("0").timezone(timezone), 500);
+            // first Sunday and 15th of every month, at times skipped or repeated by some changes of offset
+            this.assertSameAsCalendar(new ScheduleExpression().dayOfMonth("1st Sun, 15").hour("1, 3").minute("0").second("0").timezone(timezone), 200);
+            // last Friday of February
+            this.assertSameAsCalendar(new ScheduleExpression().dayOfMonth("Last Fri").month("Feb").hour("3").minute("30").second("0").timezone(timezone), 20);
+            // leap days
+            this.assertSameAsCalendar(new ScheduleExpression().dayOfMonth("29").month("2").hour("0").minute("0").second("0").timezone(timezone), 10);
+        }
+    }
+
+    private void assertSameAsCalendar(ScheduleExpression schedule, int timeouts) {
+        CalendarBasedTimeout timeout = new CalendarBasedTimeout(schedule);
+        long time = start(schedule.getTimezone());
+        for (int i = 0; i < timeouts; i++) {
+            Calendar calendar = new GregorianCalendar();
+            calendar.setTimeInMillis(time);
+            long expected = timeout.computeNextTimeout(calendar, true).getTimeInMillis();
+            assertEquals(schedule.getTimezone() + " from " + calendar.getTime(), expected, timeout.getNextTimeout(time));
+            time = expected;
+        }
+    }
+
+    /**
+     * A day-of-week is still matched once the next matching month is found, both by the {@link CompiledSchedule} and
+     * by walking a {@link Calendar}.
+     */
+    @Test
+    public void dayOfWeekOfNextMonth() {
+        TimeZone timezone = TimeZone.getTimeZone("Europe/Berlin");
+        // Sundays of February
+        CalendarBasedTimeout timeout = new CalendarBasedTimeout(new ScheduleExpression().dayOfWeek("Sun").month("Feb").hour("23").minute("0").second("30").timezone(timezone.getID()));
+        Calendar calendar = new GregorianCalendar(timezone);
+        calendar.clear();
+        calendar.set(2020, Calendar.FEBRUARY, 23, 23, 0, 30);
+
+        Calendar next = timeout.getNextTimeout(calendar);
+        assertEquals(2021, next.get(Calendar.YEAR));
+        assertEquals(Calendar.FEBRUARY, next.get(Calendar.MONTH));
+        assertEquals(7, next.get(Calendar.DAY_OF_MONTH));
+        assertEquals(Calendar.SUNDAY, next.get(Calendar.DAY_OF_WEEK));
+        assertEquals(23, next.get(Calendar.HOUR_OF_DAY));
+        assertEquals(next.getTimeInMillis(), timeout.getNextTimeout(calendar.getTimeInMillis()));
+        assertEquals(next.getTimeInMillis(), timeout.computeNextTimeout((Calendar) calendar.clone(), true).getTimeInMillis());
+    }
+
+    /**
+     * Computes the next last Friday of February from one hundred thousand times, reporting the time taken from the
+     * {@link CompiledSchedule} and by walking a {@link Calendar}.
+     */
+    @Test
+    public void lastFridayOfFebruary() {
+        int timeouts = 100000;
+        String timezone = "Europe/Berlin";
+        CalendarBasedTimeout timeout = new CalendarBasedTimeout(new ScheduleExpression().dayOfMonth("Last Fri").month("Feb").hour("3").minute("30").second("0").timezone(timezone));
+        long start = start(timezone);
+        long step = TimeUnit.DAYS.toMillis(3650) / timeouts;
+
+        long compiledSum = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < timeouts; i++) {
+            compiledSum += timeout.getNextTimeout(start + i * step);
+        }
+        long compiledElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        long calendarSum = 0;
+        begin = System.nanoTime();
+        for (int i = 0; i < timeouts; i++) {
+            Calendar calendar = new GregorianCalendar();
+            calendar.setTimeInMillis(start + i * step);
+            calendarSum += timeout.computeNextTimeout(calendar, true).getTimeInMillis();
+        }
+        long calendarElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertEquals(calendarSum, compiledSum);
+        EjbLogger.ROOT_LOGGER.debugf("%d timeouts: %s %d ms, %s %d ms", timeouts, CompiledSchedule.class.getSimpleName(), compiledElapsed, Calendar.class.getSimpleName(), calendarElapsed);
+    }
+
+    private static long start(String timezone) {
+        Calendar start = new GregorianCalendar(TimeZone.getTimeZone(timezone));
+        start.clear();
+        start.set(2018, Calendar.JANUARY, 1, 0, 0, 0);
+        return start.getTimeInMillis();
+    }
+}
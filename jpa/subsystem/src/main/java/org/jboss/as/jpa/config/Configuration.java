@@ -177,6 +177,12 @@ public class Configuration {
 
     public static final String SKIPMIXEDSYNCTYPECHECKING = "wildfly.jpa.skipmixedsynctypechecking";
 
+    /**
+     * set to true to share one transaction scoped entity manager per persistence unit, for all non-tx invocations made
+     * within the same outermost servlet request or session bean invocation
+     */
+    public static final String REUSE_NONTX_ENTITYMANAGER = "wildfly.jpa.reusenontxentitymanager";
+
     /**
      * name of the Hibernate Search module name configuration setting in persistence unit definition
      */
@@ -360,4 +366,25 @@ public class Configuration {
         }
         return result;
     }
+
+    /**
+     * Allow the entity manager created for a non-tx invocation on a transaction scoped persistence context, to be
+     * reused by subsequent non-tx invocations until the outermost servlet request or session bean invocation ends,
+     * rather than only until the current session bean invocation ends.
+     *
+     * @param emf
+     * @param targetEntityManagerProperties
+     * @return
+     */
+    public static boolean reuseNonTxEntityManager(EntityManagerFactory emf, Map targetEntityManagerProperties) {
+        boolean result = false;
+        // EntityManager properties will take priority over persistence.xml (emf) properties
+        if(targetEntityManagerProperties != null && targetEntityManagerProperties.containsKey(REUSE_NONTX_ENTITYMANAGER)) {
+            result = Boolean.parseBoolean((String) targetEntityManagerProperties.get(REUSE_NONTX_ENTITYMANAGER));
+        }
+        else if(emf.getProperties() != null && emf.getProperties().containsKey(REUSE_NONTX_ENTITYMANAGER)) {
+            result = Boolean.parseBoolean((String) emf.getProperties().get(REUSE_NONTX_ENTITYMANAGER));
+        }
+        return result;
+    }
 }
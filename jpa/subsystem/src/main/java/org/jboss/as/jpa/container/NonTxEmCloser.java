@@ -100,4 +100,38 @@ public class NonTxEmCloser {
             map.put(puScopedName, entityManager);
         }
     }
+
+    /**
+     * Return the transactional entity manager for the specified scoped persistence unit name, that is shared by all
+     * invocations within the outermost invocation in progress.
+     *
+     * @param puScopedName
+     * @return
+     */
+    public static EntityManager getOutermost(String puScopedName) {
+        Map<String, EntityManager> map = nonTxStack.peekBottom();
+        if (map != null) {
+            return map.get(puScopedName);
+        }
+        return null;
+    }
+
+    /**
+     * Track the specified entity manager until the outermost invocation in progress ends, so that nested invocations
+     * can reuse it.
+     *
+     * @param puScopedName
+     * @param entityManager
+     */
+    public static void addOutermost(String puScopedName, EntityManager entityManager) {
+        Map<String, EntityManager> map = nonTxStack.peekBottom();
+        if (map == null && !nonTxStack.isEmpty()) {
+            // replace null with a collection to hold the entity managers.
+            map = new HashMap<String, EntityManager>();
+            nonTxStack.replaceBottom(map);
+        }
+        if (map != null) {
+            map.put(puScopedName, entityManager);
+        }
+    }
 }
@@ -72,6 +72,30 @@ public class ThreadLocalStack<E> {
         }
     }
 
+    /**
+     * @return the item at the bottom of the stack, that is, the first item pushed that has not yet been popped
+     */
+    public E peekBottom() {
+        Deque<Object> st = deque.get();
+        Object o =  st.peekLast();
+        if(o == NULL_VALUE) {
+            return null;
+        } else {
+            return (E) o;
+        }
+    }
+
+    /**
+     * Replaces the item at the bottom of the stack, if the stack is not empty.
+     */
+    public void replaceBottom(E item) {
+        Deque<Object> st = deque.get();
+        if(!st.isEmpty()) {
+            st.removeLast();
+            st.addLast(item == null ? NULL_VALUE : item);
+        }
+    }
+
     public boolean isEmpty() {
         return deque.get().isEmpty();
     }
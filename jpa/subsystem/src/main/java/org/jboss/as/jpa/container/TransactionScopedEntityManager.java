@@ -66,6 +66,7 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
     private transient TransactionSynchronizationRegistry transactionSynchronizationRegistry;
     private transient TransactionManager transactionManager;
     private transient Boolean deferDetach;
+    private transient Boolean reuseNonTxEntityManager;
 
     public TransactionScopedEntityManager(String puScopedName, Map properties, EntityManagerFactory emf, SynchronizationType synchronizationType, TransactionSynchronizationRegistry transactionSynchronizationRegistry, TransactionManager transactionManager) {
         this.puScopedName = puScopedName;
@@ -85,6 +86,12 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
 
         if (isInTx) {
             entityManager = getOrCreateTransactionScopedEntityManager(emf, puScopedName, properties, synchronizationType);
+        } else if (reuseNonTxEntityManager()) {
+            entityManager = NonTxEmCloser.getOutermost(puScopedName);
+            if (entityManager == null) {
+                entityManager = createEntityManager(emf, properties, synchronizationType);
+                NonTxEmCloser.addOutermost(puScopedName, entityManager);
+            }
         } else {
             entityManager = NonTxEmCloser.get(puScopedName);
             if (entityManager == null) {
@@ -203,6 +210,16 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
         return deferDetach.booleanValue();
     }
 
+    /**
+     * return true if the entity manager created for a non-tx invocation should be reused until the outermost
+     * servlet request or session bean invocation ends.
+     */
+    private boolean reuseNonTxEntityManager() {
+        if (reuseNonTxEntityManager == null)
+            reuseNonTxEntityManager = Configuration.reuseNonTxEntityManager(emf, properties);
+        return reuseNonTxEntityManager.booleanValue();
+    }
+
     /**
      * throw error if jta transaction already has an UNSYNCHRONIZED persistence context and a SYNCHRONIZED persistence context
      * is requested.  We are only fussy in this test, if the target component persistence context is SYNCHRONIZED.
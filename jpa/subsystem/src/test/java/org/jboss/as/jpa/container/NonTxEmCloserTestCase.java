@@ -0,0 +1,149 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jpa.container;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the tracking of non-transactional entity managers shared by the invocations within the outermost invocation.
+ */
+public class NonTxEmCloserTestCase {
+
+    private static final String PU_NAME = "test.jar#test";
+
+    @After
+    public void cleanup() {
+        while (!NonTxEmCloser.nonTxStack.isEmpty()) {
+            NonTxEmCloser.nonTxStack.pop();
+        }
+    }
+
+    @Test
+    public void testNestedInvocationReusesOutermost() {
+        NonTxEmCloser.pushCall();
+        EntityManager entityManager = createEntityManager();
+        NonTxEmCloser.addOutermost(PU_NAME, entityManager);
+
+        NonTxEmCloser.pushCall();
+        assertSame(entityManager, NonTxEmCloser.getOutermost(PU_NAME));
+        NonTxEmCloser.pushCall();
+        assertSame(entityManager, NonTxEmCloser.getOutermost(PU_NAME));
+        NonTxEmCloser.popCall();
+        NonTxEmCloser.popCall();
+        assertTrue(entityManager.isOpen());
+        assertSame(entityManager, NonTxEmCloser.getOutermost(PU_NAME));
+
+        NonTxEmCloser.popCall();
+        assertFalse(entityManager.isOpen());
+        assertTrue(NonTxEmCloser.nonTxStack.isEmpty());
+    }
+
+    @Test
+    public void testNestedInvocationAddsToOutermost() {
+        NonTxEmCloser.pushCall();
+        NonTxEmCloser.pushCall();
+        assertNull(NonTxEmCloser.getOutermost(PU_NAME));
+        EntityManager entityManager = createEntityManager();
+        NonTxEmCloser.addOutermost(PU_NAME, entityManager);
+        // Not tracked by the nested invocation
+        assertNull(NonTxEmCloser.get(PU_NAME));
+        NonTxEmCloser.popCall();
+        assertTrue(entityManager.isOpen());
+
+        NonTxEmCloser.pushCall();
+        assertSame(entityManager, NonTxEmCloser.getOutermost(PU_NAME));
+        NonTxEmCloser.popCall();
+        assertTrue(entityManager.isOpen());
+
+        NonTxEmCloser.popCall();
+        assertFalse(entityManager.isOpen());
+    }
+
+    @Test
+    public void testOutermostPerInvocation() {
+        NonTxEmCloser.pushCall();
+        EntityManager first = createEntityManager();
+        NonTxEmCloser.addOutermost(PU_NAME, first);
+        NonTxEmCloser.popCall();
+        assertFalse(first.isOpen());
+
+        // A subsequent outermost invocation does not see the entity manager of the previous one
+        NonTxEmCloser.pushCall();
+        assertNull(NonTxEmCloser.getOutermost(PU_NAME));
+        EntityManager second = createEntityManager();
+        NonTxEmCloser.addOutermost(PU_NAME, second);
+        assertSame(second, NonTxEmCloser.getOutermost(PU_NAME));
+        NonTxEmCloser.popCall();
+        assertFalse(second.isOpen());
+    }
+
+    @Test
+    public void testNestedInvocationDoesNotShareWithoutOutermost() {
+        NonTxEmCloser.pushCall();
+        NonTxEmCloser.pushCall();
+        EntityManager entityManager = createEntityManager();
+        NonTxEmCloser.add(PU_NAME, entityManager);
+        assertSame(entityManager, NonTxEmCloser.get(PU_NAME));
+        assertNull(NonTxEmCloser.getOutermost(PU_NAME));
+        NonTxEmCloser.popCall();
+        assertFalse(entityManager.isOpen());
+        assertNull(NonTxEmCloser.get(PU_NAME));
+        NonTxEmCloser.popCall();
+    }
+
+    @Test
+    public void testNoInvocation() {
+        EntityManager entityManager = createEntityManager();
+        NonTxEmCloser.addOutermost(PU_NAME, entityManager);
+        assertNull(NonTxEmCloser.getOutermost(PU_NAME));
+        assertTrue(NonTxEmCloser.nonTxStack.isEmpty());
+    }
+
+    private static EntityManager createEntityManager() {
+        AtomicBoolean open = new AtomicBoolean(true);
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] { EntityManager.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isOpen":
+                    return open.get();
+                case "close":
+                    if (!open.compareAndSet(true, false)) {
+                        throw new IllegalStateException();
+                    }
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -27,10 +27,11 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.NavigableSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
@@ -58,16 +59,30 @@ import org.wildfly.security.manager.WildFlySecurityManager;
  * @author Eduardo Martins
  */
 public class ServiceBasedNamingStore implements NamingStore {
+    /**
+     * The maximum number of resolved bindings kept by a store, beyond which bindings that were not recently looked up
+     * are evicted.
+     */
+    private static final int MAX_RESOLVED_BINDINGS = 4096;
+
     private final Name EMPTY_NAME = new CompositeName();
     private Name baseName;
     private final ServiceRegistry serviceRegistry;
     private final ServiceName serviceNameBase;
 
-    private ConcurrentSkipListSet<ServiceName> boundServices = new ConcurrentSkipListSet<ServiceName>();
+    private final ServiceNameTrie boundServices = new ServiceNameTrie();
+    // Bound names resolved by previous lookups
+    private final Map<ServiceName, ResolvedBinding> resolvedBindings = new ConcurrentHashMap<>();
+    private final int maxResolvedBindings;
 
     public ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase) {
+        this(serviceRegistry, serviceNameBase, MAX_RESOLVED_BINDINGS);
+    }
+
+    ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase, final int maxResolvedBindings) {
         this.serviceRegistry = serviceRegistry;
         this.serviceNameBase = serviceNameBase;
+        this.maxResolvedBindings = maxResolvedBindings;
     }
 
     @Override
@@ -79,11 +94,30 @@ public class ServiceBasedNamingStore implements NamingStore {
         if (name.isEmpty()) {
             return new NamingContext(EMPTY_NAME, this, null);
         }
+        final String nameString = name.toString();
         final ServiceName lookupName = buildServiceName(name);
-        Object obj = lookup(name.toString(), lookupName, dereference);
+        final ResolvedBinding resolved = resolvedBindings.get(lookupName);
+        if (resolved != null) {
+            if (resolved.controller.getState() != ServiceController.State.REMOVED) {
+                if (!resolved.used) {
+                    resolved.used = true;
+                }
+                final Object obj = resolve(nameString, resolved.controller, dereference);
+                if (obj != null) {
+                    return obj;
+                }
+            } else {
+                resolvedBindings.remove(lookupName, resolved);
+            }
+        }
+        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+        Object obj = resolve(nameString, controller, dereference);
+        if (obj != null && boundServices.contains(lookupName)) {
+            cacheResolvedBinding(lookupName, controller);
+        }
         if (obj == null) {
-            final ServiceName lower = boundServices.lower(lookupName);
-            if (lower != null && lower.isParentOf(lookupName)) {
+            final ServiceName lower = boundServices.boundAncestor(lookupName, false);
+            if (lower != null) {
                 // Parent might be a reference or a link
                 obj = lookup(name.toString(), lower, dereference);
                 //if the lower is a context that has been explicitly bound then
@@ -95,9 +129,8 @@ public class ServiceBasedNamingStore implements NamingStore {
                 }
             }
 
-            final ServiceName ceiling = boundServices.ceiling(lookupName);
-            if (ceiling != null && lookupName.isParentOf(ceiling)) {
-                if (lookupName.equals(ceiling)) {
+            if (boundServices.exists(lookupName)) {
+                if (boundServices.contains(lookupName)) {
                     //the binder service returned null
                     return null;
                 }
@@ -124,9 +157,51 @@ public class ServiceBasedNamingStore implements NamingStore {
         return cpe;
     }
 
+    private void cacheResolvedBinding(final ServiceName serviceName, final ServiceController<?> controller) {
+        final ResolvedBinding binding = new ResolvedBinding(controller);
+        if (resolvedBindings.put(serviceName, binding) == null && resolvedBindings.size() > maxResolvedBindings) {
+            evictResolvedBinding(serviceName);
+        }
+        // The binding may have been removed concurrently, before its entry was added
+        if (!boundServices.contains(serviceName)) {
+            resolvedBindings.remove(serviceName, binding);
+        }
+    }
+
+    /**
+     * Evicts a resolved binding other than the one just added, preferring one that was not looked up since it was
+     * last passed over by an eviction.
+     */
+    private void evictResolvedBinding(final ServiceName added) {
+        Map.Entry<ServiceName, ResolvedBinding> candidate = null;
+        final Iterator<Map.Entry<ServiceName, ResolvedBinding>> entries = resolvedBindings.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<ServiceName, ResolvedBinding> entry = entries.next();
+            if (entry.getKey().equals(added)) {
+                continue;
+            }
+            final ResolvedBinding binding = entry.getValue();
+            if (!binding.used) {
+                entries.remove();
+                return;
+            }
+            binding.used = false;
+            if (candidate == null) {
+                candidate = entry;
+            }
+        }
+        // Every other binding was recently looked up
+        if (candidate != null) {
+            resolvedBindings.remove(candidate.getKey(), candidate.getValue());
+        }
+    }
+
     private Object lookup(final String name, final ServiceName lookupName, boolean dereference) throws NamingException {
+        return resolve(name, serviceRegistry.getService(lookupName), dereference);
+    }
+
+    private Object resolve(final String name, final ServiceController<?> controller, boolean dereference) throws NamingException {
         try {
-            final ServiceController<?> controller = serviceRegistry.getService(lookupName);
             if (controller != null) {
                 final Object object = controller.getValue();
                 if (dereference && object instanceof ManagedReferenceFactory) {
@@ -162,9 +237,9 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public List<NameClassPair> list(final Name name) throws NamingException {
         final ServiceName lookupName = buildServiceName(name);
-        final ServiceName floor = boundServices.floor(lookupName);
+        final ServiceName floor = boundServices.boundAncestor(lookupName, true);
         boolean isContextBinding = false;
-        if (floor != null && floor.isParentOf(lookupName)) {
+        if (floor != null) {
             // Parent might be a reference or a link
             Object obj = lookup(name.toString(), floor, true);
             if (obj instanceof NamingContext) {
@@ -174,16 +249,15 @@ public class ServiceBasedNamingStore implements NamingStore {
             }
         }
 
-        final List<ServiceName> children = listChildren(lookupName, isContextBinding);
-        final String[] lookupParts = lookupName.toArray();
+        final List<ServiceNameTrie.Child> children = listChildren(lookupName, isContextBinding);
         final Set<String> childContexts = new HashSet<String>();
         final List<NameClassPair> results = new ArrayList<NameClassPair>();
-        for (ServiceName child : children) {
-            final String[] childParts = child.toArray();
-            if (childParts.length > lookupParts.length + 1) {
-                childContexts.add(childParts[lookupParts.length]);
-            } else {
-                final Object binding = lookup(name.toString(), child, false);
+        for (ServiceNameTrie.Child child : children) {
+            if (child.isContext()) {
+                childContexts.add(child.getSimpleName());
+            }
+            if (child.isBound()) {
+                final Object binding = lookup(name.toString(), child.getName(), false);
                 final String bindingType;
                 if (binding instanceof ContextListManagedReferenceFactory) {
                     bindingType = ContextListManagedReferenceFactory.class.cast(binding)
@@ -195,7 +269,7 @@ public class ServiceBasedNamingStore implements NamingStore {
                         bindingType = binding.getClass().getName();
                     }
                 }
-                results.add(new NameClassPair(childParts[childParts.length - 1],bindingType));
+                results.add(new NameClassPair(child.getSimpleName(), bindingType));
             }
         }
         for (String contextName : childContexts) {
@@ -206,9 +280,9 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public List<Binding> listBindings(final Name name) throws NamingException {
         final ServiceName lookupName = buildServiceName(name);
-        final ServiceName floor = boundServices.floor(lookupName);
+        final ServiceName floor = boundServices.boundAncestor(lookupName, true);
         boolean isContextBinding = false;
-        if (floor != null && floor.isParentOf(lookupName)) {
+        if (floor != null) {
             // Parent might be a reference or a link
             Object obj = lookup(name.toString(), floor, true);
             if (obj instanceof NamingContext) {
@@ -217,17 +291,16 @@ public class ServiceBasedNamingStore implements NamingStore {
                 throw new RequireResolveException(convert(floor));
             }
         }
-        final List<ServiceName> children = listChildren(lookupName, isContextBinding);
-        final String[] lookupParts = lookupName.toArray();
+        final List<ServiceNameTrie.Child> children = listChildren(lookupName, isContextBinding);
         final Set<String> childContexts = new HashSet<String>();
         final List<Binding> results = new ArrayList<Binding>();
-        for (ServiceName child : children) {
-            final String[] childParts = child.toArray();
-            if (childParts.length > lookupParts.length + 1) {
-                childContexts.add(childParts[lookupParts.length]);
-            } else {
-                final Object binding = lookup(name.toString(), child, true);
-                results.add(new Binding(childParts[childParts.length - 1], binding));
+        for (ServiceNameTrie.Child child : children) {
+            if (child.isContext()) {
+                childContexts.add(child.getSimpleName());
+            }
+            if (child.isBound()) {
+                final Object binding = lookup(name.toString(), child.getName(), true);
+                results.add(new Binding(child.getSimpleName(), binding));
             }
         }
         for (String contextName : childContexts) {
@@ -236,27 +309,16 @@ public class ServiceBasedNamingStore implements NamingStore {
         return results;
     }
 
-    private List<ServiceName> listChildren(final ServiceName name, boolean isContextBinding) throws NamingException {
-        final ConcurrentSkipListSet<ServiceName> boundServices = this.boundServices;
+    private List<ServiceNameTrie.Child> listChildren(final ServiceName name, boolean isContextBinding) throws NamingException {
         if (!isContextBinding && boundServices.contains(name)) {
             throw NamingLogger.ROOT_LOGGER.cannotListNonContextBinding();
         }
-        final NavigableSet<ServiceName> tail = boundServices.tailSet(name);
-        final List<ServiceName> children = new ArrayList<ServiceName>();
-        for (ServiceName next : tail) {
-            if (name.isParentOf(next)) {
-                if (!name.equals(next)) {
-                    children.add(next);
-                }
-            } else {
-                break;
-            }
-        }
-        return children;
+        return boundServices.children(name);
     }
 
     public void close() throws NamingException {
         boundServices.clear();
+        resolvedBindings.clear();
     }
 
     public void addNamingListener(Name target, int scope, NamingListener listener) {
@@ -266,15 +328,15 @@ public class ServiceBasedNamingStore implements NamingStore {
     }
 
     public void add(final ServiceName serviceName) {
-        final ConcurrentSkipListSet<ServiceName> boundServices = this.boundServices;
-        if (boundServices.contains(serviceName)) {
+        if (!boundServices.add(serviceName)) {
             throw NamingLogger.ROOT_LOGGER.serviceAlreadyBound(serviceName);
         }
-        boundServices.add(serviceName);
     }
 
     public void remove(final ServiceName serviceName) {
-        boundServices.remove(serviceName);
+        if (boundServices.remove(serviceName)) {
+            resolvedBindings.remove(serviceName);
+        }
     }
 
     protected ServiceName buildServiceName(final Name name) {
@@ -367,4 +429,17 @@ public class ServiceBasedNamingStore implements NamingStore {
         }
         return new CompositeName();
     }
+
+    /**
+     * The service of a bound name, resolved by a previous lookup.
+     */
+    private static final class ResolvedBinding {
+        final ServiceController<?> controller;
+        // Whether this binding was looked up since it was last passed over by an eviction
+        volatile boolean used;
+
+        ResolvedBinding(final ServiceController<?> controller) {
+            this.controller = controller;
+        }
+    }
 }
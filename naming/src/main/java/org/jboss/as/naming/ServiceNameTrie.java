@@ -0,0 +1,196 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * The index of the service names bound within a {@link ServiceBasedNamingStore}, organized as a tree of name
+ * components. Unlike a sorted set, it finds the nearest bound ancestor of a name and the direct children of a
+ * context without scanning the sibling or descendant bindings. Reads do not lock, updates are serialized.
+ */
+final class ServiceNameTrie {
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * Adds a service name to the index.
+     *
+     * @return false if the name was already bound
+     */
+    synchronized boolean add(final ServiceName name) {
+        Node node = this.root;
+        for (String part : name.toArray()) {
+            Node child = node.children.get(part);
+            if (child == null) {
+                child = new Node(node, part);
+                node.children.put(part, child);
+            }
+            node = child;
+        }
+        if (node.bound) {
+            return false;
+        }
+        node.bound = true;
+        return true;
+    }
+
+    /**
+     * Removes a service name from the index, along with any context node left without bindings.
+     *
+     * @return false if the name was not bound
+     */
+    synchronized boolean remove(final ServiceName name) {
+        Node node = this.find(name);
+        if (node == null || !node.bound) {
+            return false;
+        }
+        node.bound = false;
+        while (node.parent != null && !node.bound && node.children.isEmpty()) {
+            node.parent.children.remove(node.name);
+            node = node.parent;
+        }
+        return true;
+    }
+
+    synchronized void clear() {
+        this.root.children.clear();
+        this.root.bound = false;
+    }
+
+    boolean contains(final ServiceName name) {
+        final Node node = this.find(name);
+        return node != null && node.bound;
+    }
+
+    /**
+     * @return true if the name, or any of its descendants, is bound
+     */
+    boolean exists(final ServiceName name) {
+        return this.find(name) != null;
+    }
+
+    /**
+     * Returns the bound name closest to the specified name among its ancestors, or the name itself if inclusive.
+     *
+     * @return the bound ancestor, or null if there is none
+     */
+    ServiceName boundAncestor(final ServiceName name, final boolean inclusive) {
+        final String[] parts = name.toArray();
+        final int length = inclusive ? parts.length : parts.length - 1;
+        Node node = this.root;
+        int found = -1;
+        for (int i = 0; i < length; ++i) {
+            node = node.children.get(parts[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.bound) {
+                found = i;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        ServiceName ancestor = name;
+        for (int i = parts.length - 1; i > found; --i) {
+            ancestor = ancestor.getParent();
+        }
+        return ancestor;
+    }
+
+    /**
+     * Returns the direct children of a name.
+     *
+     * @return the children, empty if the name has no bound descendants
+     */
+    List<Child> children(final ServiceName name) {
+        final Node node = this.find(name);
+        if (node == null) {
+            return new ArrayList<>(0);
+        }
+        final List<Child> children = new ArrayList<>(node.children.size());
+        for (Node child : node.children.values()) {
+            children.add(new Child(name.append(child.name), child.bound, !child.children.isEmpty()));
+        }
+        return children;
+    }
+
+    private Node find(final ServiceName name) {
+        Node node = this.root;
+        for (String part : name.toArray()) {
+            node = node.children.get(part);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * A direct child of a name, which is a binding, a context holding further bindings, or both.
+     */
+    static final class Child {
+        private final ServiceName name;
+        private final boolean bound;
+        private final boolean context;
+
+        Child(final ServiceName name, final boolean bound, final boolean context) {
+            this.name = name;
+            this.bound = bound;
+            this.context = context;
+        }
+
+        ServiceName getName() {
+            return name;
+        }
+
+        String getSimpleName() {
+            return name.getSimpleName();
+        }
+
+        boolean isBound() {
+            return bound;
+        }
+
+        boolean isContext() {
+            return context;
+        }
+    }
+
+    private static final class Node {
+        final Node parent;
+        final String name;
+        final Map<String, Node> children = new ConcurrentHashMap<>(4);
+        volatile boolean bound;
+
+        Node(final Node parent, final String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+    }
+}
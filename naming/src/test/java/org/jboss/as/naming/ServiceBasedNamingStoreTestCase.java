@@ -22,22 +22,29 @@
 
 package org.jboss.as.naming;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.naming.Binding;
 import javax.naming.CompositeName;
 import javax.naming.Context;
 import javax.naming.Name;
 import javax.naming.NameClassPair;
+import javax.naming.NameNotFoundException;
 import javax.naming.NameParser;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.jboss.msc.service.StabilityMonitor;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
@@ -398,6 +405,66 @@ public class ServiceBasedNamingStoreTestCase {
         fail("Child [" + name + "] not found in [" + list + "]");
     }
 
+    @Test
+    public void testLookupAfterUnbind() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
+        final Object value = new Object();
+        bindObject(bindingName, value);
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+        // Resolved from the cache
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+
+        unbindObject(bindingName);
+        try {
+            store.lookup(new CompositeName("foo/bar"));
+            fail("Should have thrown name not found");
+        } catch (NameNotFoundException expected) {
+        }
+
+        final Object newValue = new Object();
+        bindObject(bindingName, newValue);
+        assertEquals(newValue, store.lookup(new CompositeName("foo/bar")));
+    }
+
+    @Test
+    public void testLookupCached() throws Exception {
+        final AtomicInteger resolutions = new AtomicInteger();
+        store = new ServiceBasedNamingStore(countingRegistry(resolutions), ServiceName.JBOSS);
+        final int bindings = 10;
+        for (int i = 0; i < bindings; i++) {
+            bindObject(ServiceName.JBOSS.append("app", "module", "bean" + i), i);
+        }
+        for (int i = 0; i < bindings * 10; i++) {
+            assertEquals(i % bindings, store.lookup(new CompositeName("app/module/bean" + (i % bindings))));
+        }
+        // Only the first lookup of each binding resolves its service
+        assertEquals(bindings, resolutions.get());
+    }
+
+    @Test
+    public void testResolvedBindingEviction() throws Exception {
+        final AtomicInteger resolutions = new AtomicInteger();
+        store = new ServiceBasedNamingStore(countingRegistry(resolutions), ServiceName.JBOSS, 2);
+        for (String binding : new String[] { "a", "b", "c" }) {
+            bindObject(ServiceName.JBOSS.append(binding), binding);
+        }
+        assertEquals("a", store.lookup(new CompositeName("a")));
+        assertEquals("b", store.lookup(new CompositeName("b")));
+        assertEquals(2, resolutions.get());
+        // Marks a as recently used
+        assertEquals("a", store.lookup(new CompositeName("a")));
+        assertEquals(2, resolutions.get());
+
+        // Evicts b, rather than refusing to cache c
+        assertEquals("c", store.lookup(new CompositeName("c")));
+        assertEquals(3, resolutions.get());
+        assertEquals("c", store.lookup(new CompositeName("c")));
+        assertEquals("a", store.lookup(new CompositeName("a")));
+        assertEquals(3, resolutions.get());
+        assertEquals("b", store.lookup(new CompositeName("b")));
+        assertEquals(4, resolutions.get());
+    }
+
     private void bindObject(final ServiceName serviceName, final Object value) throws Exception {
         final CountDownLatch latch = new CountDownLatch(1);
         container.addService(serviceName, new Service<ManagedReferenceFactory>() {
@@ -407,6 +474,7 @@ public class ServiceBasedNamingStoreTestCase {
             }
 
             public void stop(StopContext context) {
+                store.remove(serviceName);
             }
 
             public ManagedReferenceFactory getValue() throws IllegalStateException, IllegalArgumentException {
@@ -415,4 +483,30 @@ public class ServiceBasedNamingStoreTestCase {
         }).install();
         latch.await();
     }
+
+    private void unbindObject(final ServiceName serviceName) throws Exception {
+        final ServiceController<?> controller = container.getRequiredService(serviceName);
+        controller.setMode(ServiceController.Mode.REMOVE);
+        final StabilityMonitor monitor = new StabilityMonitor();
+        monitor.addController(controller);
+        try {
+            monitor.awaitStability();
+        } finally {
+            monitor.removeController(controller);
+        }
+    }
+
+    private ServiceRegistry countingRegistry(final AtomicInteger resolutions) {
+        final ServiceContainer container = this.container;
+        return (ServiceRegistry) Proxy.newProxyInstance(ServiceRegistry.class.getClassLoader(), new Class<?>[] { ServiceRegistry.class }, (proxy, method, args) -> {
+            if (method.getName().equals("getService")) {
+                resolutions.incrementAndGet();
+            }
+            try {
+                return method.invoke(container, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
 }
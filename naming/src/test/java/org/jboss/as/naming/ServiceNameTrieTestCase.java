@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.msc.service.ServiceName;
+import org.junit.Test;
+
+/**
+ * Tests the index of bound service names used by {@link ServiceBasedNamingStore}.
+ */
+public class ServiceNameTrieTestCase {
+
+    private final ServiceNameTrie trie = new ServiceNameTrie();
+
+    @Test
+    public void addRemove() {
+        final ServiceName name = ServiceName.JBOSS.append("foo", "bar");
+        assertTrue(trie.add(name));
+        assertFalse(trie.add(name));
+        assertTrue(trie.contains(name));
+        assertFalse(trie.contains(name.getParent()));
+        assertTrue(trie.exists(name.getParent()));
+
+        assertTrue(trie.remove(name));
+        assertFalse(trie.remove(name));
+        assertFalse(trie.contains(name));
+        // Contexts without bindings are pruned
+        assertFalse(trie.exists(name.getParent()));
+        assertFalse(trie.exists(ServiceName.JBOSS));
+    }
+
+    @Test
+    public void boundAncestor() {
+        trie.add(ServiceName.JBOSS.append("foo"));
+        trie.add(ServiceName.JBOSS.append("foo", "a"));
+        trie.add(ServiceName.JBOSS.append("foo", "bar", "a"));
+
+        // A sorted set would find foo/bar/a, which is not an ancestor, before foo
+        assertEquals(ServiceName.JBOSS.append("foo"), trie.boundAncestor(ServiceName.JBOSS.append("foo", "bar", "b"), false));
+        assertEquals(ServiceName.JBOSS.append("foo"), trie.boundAncestor(ServiceName.JBOSS.append("foo"), true));
+        assertNull(trie.boundAncestor(ServiceName.JBOSS.append("foo"), false));
+        assertEquals(ServiceName.JBOSS.append("foo", "a"), trie.boundAncestor(ServiceName.JBOSS.append("foo", "a", "b", "c"), false));
+        assertNull(trie.boundAncestor(ServiceName.JBOSS.append("other", "a"), true));
+    }
+
+    @Test
+    public void children() {
+        trie.add(ServiceName.JBOSS.append("TestBean"));
+        trie.add(ServiceName.JBOSS.append("foo"));
+        trie.add(ServiceName.JBOSS.append("foo", "TestBean"));
+        trie.add(ServiceName.JBOSS.append("foo", "bar", "baz", "TestBean"));
+        trie.add(ServiceName.JBOSS.append("other", "one"));
+
+        final Map<String, ServiceNameTrie.Child> children = children(ServiceName.JBOSS);
+        assertEquals(3, children.size());
+        assertTrue(children.get("TestBean").isBound());
+        assertFalse(children.get("TestBean").isContext());
+        assertTrue(children.get("foo").isBound());
+        assertTrue(children.get("foo").isContext());
+        assertFalse(children.get("other").isBound());
+        assertTrue(children.get("other").isContext());
+        assertEquals(ServiceName.JBOSS.append("other"), children.get("other").getName());
+
+        final Map<String, ServiceNameTrie.Child> fooChildren = children(ServiceName.JBOSS.append("foo"));
+        assertEquals(2, fooChildren.size());
+        assertTrue(fooChildren.get("TestBean").isBound());
+        assertTrue(fooChildren.get("bar").isContext());
+
+        assertTrue(trie.children(ServiceName.JBOSS.append("missing")).isEmpty());
+    }
+
+    private Map<String, ServiceNameTrie.Child> children(final ServiceName name) {
+        final List<ServiceNameTrie.Child> children = trie.children(name);
+        final Map<String, ServiceNameTrie.Child> result = new HashMap<>();
+        for (ServiceNameTrie.Child child : children) {
+            result.put(child.getSimpleName(), child);
+        }
+        return result;
+    }
+}
@@ -22,6 +22,7 @@
 package org.jboss.as.security;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 
 import java.security.Principal;
@@ -50,6 +51,7 @@ import org.jboss.as.controller.operations.validation.StringAllowedValuesValidato
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.security.logging.SecurityLogger;
+import org.jboss.as.security.lru.CacheStatistics;
 import org.jboss.as.security.plugins.SecurityDomainContext;
 import org.jboss.as.security.service.SecurityDomainService;
 import org.jboss.dmr.ModelNode;
@@ -67,13 +69,29 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
 
     static final String CACHE_CONTAINER_NAME = "security";
     static final String INFINISPAN_CACHE_TYPE = "infinispan";
+    static final String TINY_LFU_CACHE_TYPE = "tiny-lfu";
     static final RuntimeCapability<Void> LEGACY_SECURITY_DOMAIN = RuntimeCapability.Builder.of("org.wildfly.security.legacy-security-domain", true)
             .setServiceType(SecurityDomainContext.class)
             .build();
 
     public static final SimpleAttributeDefinition CACHE_TYPE = new SimpleAttributeDefinitionBuilder(Constants.CACHE_TYPE, ModelType.STRING, true)
             .setAllowExpression(true)
-            .setValidator(new StringAllowedValuesValidator("default", INFINISPAN_CACHE_TYPE))
+            .setValidator(new StringAllowedValuesValidator("default", INFINISPAN_CACHE_TYPE, TINY_LFU_CACHE_TYPE))
+            .build();
+
+    static final SimpleAttributeDefinition CACHE_HIT_COUNT = new SimpleAttributeDefinitionBuilder(Constants.CACHE_HIT_COUNT, ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition CACHE_MISS_COUNT = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MISS_COUNT, ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition CACHE_EVICTION_COUNT = new SimpleAttributeDefinitionBuilder(Constants.CACHE_EVICTION_COUNT, ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setStorageRuntime()
             .build();
 
     private final boolean registerRuntimeOnly;
@@ -109,6 +127,11 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
     @Override
     public void registerAttributes(final ManagementResourceRegistration resourceRegistration) {
         resourceRegistration.registerReadWriteAttribute(CACHE_TYPE, null, new SecurityDomainReloadWriteHandler(CACHE_TYPE));
+        if (registerRuntimeOnly) {
+            resourceRegistration.registerMetric(CACHE_HIT_COUNT, CacheStatisticsHandler.INSTANCE);
+            resourceRegistration.registerMetric(CACHE_MISS_COUNT, CacheStatisticsHandler.INSTANCE);
+            resourceRegistration.registerMetric(CACHE_EVICTION_COUNT, CacheStatisticsHandler.INSTANCE);
+        }
     }
 
     @Override
@@ -216,6 +239,34 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    /**
+     * Reads the hit, miss and eviction counts of the authentication cache of a security domain. These are only
+     * recorded by the default and tiny-lfu cache types, so 0 is reported for other cache types and while the
+     * security domain service is not up.
+     */
+    static final class CacheStatisticsHandler extends AbstractRuntimeOnlyHandler {
+        static final CacheStatisticsHandler INSTANCE = new CacheStatisticsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String securityDomain = context.getCurrentAddressValue();
+            final String attributeName = operation.require(NAME).asString();
+            final ServiceController<?> controller = context.getServiceRegistry(false).getService(SecurityDomainService.SERVICE_NAME.append(securityDomain));
+            final CacheStatistics statistics = (controller != null && controller.getState() == ServiceController.State.UP) ? ((SecurityDomainService) controller.getService()).getCacheStatistics() : null;
+            long value = 0L;
+            if (statistics != null) {
+                if (Constants.CACHE_HIT_COUNT.equals(attributeName)) {
+                    value = statistics.getHitCount();
+                } else if (Constants.CACHE_MISS_COUNT.equals(attributeName)) {
+                    value = statistics.getMissCount();
+                } else if (Constants.CACHE_EVICTION_COUNT.equals(attributeName)) {
+                    value = statistics.getEvictionCount();
+                }
+            }
+            context.getResult().set(value);
+        }
+    }
+
     /**
      * Wait for the required service to start up and fail otherwise. This method is necessary when a runtime operation
      * uses a service that might have been created within a composite operation.
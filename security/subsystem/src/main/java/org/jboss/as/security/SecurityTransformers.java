@@ -63,8 +63,11 @@ public class SecurityTransformers implements ExtensionTransformerRegistration {
                 .addRejectCheck(RejectAttributeChecker.DEFINED, INITIALIZE_JACC);
 
 
-        builder
-                .addChildResource(SecurityExtension.SECURITY_DOMAIN_PATH)
+        ResourceTransformationDescriptionBuilder securityDomain = builder.addChildResource(SecurityExtension.SECURITY_DOMAIN_PATH);
+        securityDomain.getAttributeBuilder()
+                .addRejectCheck(new RejectAttributeChecker.SimpleRejectAttributeChecker(new ModelNode(SecurityDomainResourceDefinition.TINY_LFU_CACHE_TYPE)), SecurityDomainResourceDefinition.CACHE_TYPE)
+                .end();
+        securityDomain
                 .addChildResource(SecurityExtension.PATH_AUDIT_CLASSIC)
                 .addChildResource(PATH_PROVIDER_MODULE)
                 .getAttributeBuilder()
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.lru;
+
+/**
+ * A count-min sketch estimating how often keys were accessed, as described by the TinyLFU admission policy. It consists of
+ * {@value #DEPTH} rows of saturating counters, one byte each, every row indexed by an independent hash of the key; the estimate
+ * of a key is its smallest counter. All counters are halved once the number of recorded accesses reaches a sample size
+ * proportional to the capacity of the cache, so that the sketch favours recent popularity. This class is not thread-safe.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final byte[][] rows = new byte[DEPTH][];
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        for (int i = 0; i < DEPTH; ++i) {
+            this.rows[i] = new byte[width];
+        }
+        this.mask = width - 1;
+        this.sampleSize = Math.max(capacity, 1) * 10;
+    }
+
+    /**
+     * @return the estimated number of accesses of the key, up to {@value #MAX_FREQUENCY}
+     */
+    int frequency(Object key) {
+        long hash = hash(key);
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < DEPTH; ++i) {
+            frequency = Math.min(frequency, this.rows[i][this.index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        long hash = hash(key);
+        int frequency = this.frequency(key);
+        if (frequency == MAX_FREQUENCY) return;
+        // Only the smallest counters are incremented, which reduces the overestimation caused by collisions
+        for (int i = 0; i < DEPTH; ++i) {
+            byte[] row = this.rows[i];
+            int index = this.index(hash, i);
+            if (row[index] == frequency) {
+                row[index] += 1;
+            }
+        }
+        if (++this.additions == this.sampleSize) {
+            this.age();
+        }
+    }
+
+    private void age() {
+        for (byte[] row : this.rows) {
+            for (int i = 0; i < row.length; ++i) {
+                row[i] >>>= 1;
+            }
+        }
+        this.additions >>>= 1;
+    }
+
+    private int index(long hash, int row) {
+        // Derives the hash of each row from the two halves of the hash of the key
+        return ((int) hash + row * (int) (hash >>> 32)) & this.mask;
+    }
+
+    /**
+     * Mixes the hash code of the key into 64 well distributed bits, using the finalizer of the SplitMix64 generator.
+     */
+    private static long hash(Object key) {
+        long z = key.hashCode() * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
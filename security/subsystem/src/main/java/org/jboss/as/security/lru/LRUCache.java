@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A non-blocking cache where entries are indexed by a key.
@@ -37,7 +38,7 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
  *
  * @author Jason T. Greene
  */
-public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, CacheStatistics {
     private static final int SAMPLE_INTERVAL = 5;
 
     /**
@@ -49,6 +50,10 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
     private final ConcurrentDirectDeque<CacheEntry<K, V>> accessQueue;
     private final RemoveCallback<K, V> removeCallback;
 
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
     public LRUCache(int maxEntries) {
         this(maxEntries, null);
     }
@@ -91,6 +96,7 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
             CacheEntry<K, V> oldest = accessQueue.poll();
             if (oldest != entry) {
                 this.remove(oldest.key());
+                evictions.increment();
             }
         }
 
@@ -131,8 +137,12 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
 
     public V get(Object key) {
         CacheEntry<K, V> cacheEntry = get0(key);
-        if (cacheEntry == null) return null;
+        if (cacheEntry == null) {
+            misses.increment();
+            return null;
+        }
 
+        hits.increment();
         return cacheEntry.getValue();
     }
 
@@ -223,6 +233,21 @@ public class LRUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K
         return put(key, value, true);
     }
 
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
     public static final class CacheEntry<K, V> {
         private static final Object CLAIM_TOKEN = new Object();
         private static final Object TOKEN_AVAILABLE = new Object();
@@ -0,0 +1,459 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.lru;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache using the Window-TinyLFU policy, which keeps frequently used entries when scanned by many entries
+ * that are used only once.
+ * <p/>
+ * <p>New entries enter a small LRU window. Entries leaving the window are only admitted to the main region if a
+ * {@link FrequencySketch} estimates that they are accessed more often than the entry the main region would evict.
+ * The main region is a segmented LRU, where entries accessed again are promoted from a probation to a protected
+ * segment.</p>
+ * <p/>
+ * <p>Lookups do not block. The policy is updated under a lock, which lookups skip when it is contended, so that
+ * under heavy concurrency some accesses are not recorded.</p>
+ */
+public class TinyLFUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, CacheStatistics {
+    private final ConcurrentHashMap<K, Node<K, V>> cache = new ConcurrentHashMap<>();
+    private final RemoveCallback<K, V> removeCallback;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessQueue<K, V> window = new AccessQueue<>();
+    private final AccessQueue<K, V> probation = new AccessQueue<>();
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+    private final int maxWindow;
+    private final int maxMain;
+    private final int maxProtected;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLFUCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public TinyLFUCache(int maxEntries, RemoveCallback<K, V> removeCallback) {
+        this.removeCallback = removeCallback;
+        this.sketch = new FrequencySketch(maxEntries);
+        this.maxWindow = Math.max(1, maxEntries / 100);
+        this.maxMain = Math.max(0, maxEntries - this.maxWindow);
+        this.maxProtected = this.maxMain * 4 / 5;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = cache.get(key);
+        if (node == null) {
+            misses.increment();
+            if (lock.tryLock()) {
+                try {
+                    sketch.increment(key);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                onAccess(node);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return cache.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    private V put(K key, V value, boolean ifAbsent) {
+        Node<K, V> node = new Node<>(key, value);
+        for (;;) {
+            Node<K, V> existing = cache.putIfAbsent(key, node);
+            List<Node<K, V>> evicted;
+            lock.lock();
+            try {
+                if (existing != null) {
+                    if (existing.retired) {
+                        // Removed concurrently, try again
+                        continue;
+                    }
+                    V old = existing.value;
+                    if (!ifAbsent) {
+                        existing.value = value;
+                    }
+                    onAccess(existing);
+                    return old;
+                }
+                sketch.increment(key);
+                evicted = onAdd(node);
+            } finally {
+                lock.unlock();
+            }
+            notifyEvicted(evicted);
+            return null;
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Node<K, V> node = cache.get(key);
+        if (node == null) {
+            return null;
+        }
+        V old;
+        lock.lock();
+        try {
+            old = node.value;
+            node.value = value;
+            onAccess(node);
+        } finally {
+            lock.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(key, old);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Node<K, V> node = cache.get(key);
+        if (node == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (node.value != oldValue) {
+                return false;
+            }
+            node.value = newValue;
+            onAccess(node);
+        } finally {
+            lock.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(key, oldValue);
+        }
+        return true;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = cache.remove(key);
+        if (node == null) {
+            return null;
+        }
+        retire(node);
+        if (removeCallback != null) {
+            removeCallback.afterRemove(node.key, node.value);
+        }
+        return node.value;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Node<K, V> node = cache.get(key);
+        if (node == null || node.value != value || !cache.remove(key, node)) {
+            return false;
+        }
+        retire(node);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (K key : cache.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void retire(Node<K, V> node) {
+        lock.lock();
+        try {
+            node.retired = true;
+            unlink(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Requires the lock
+    private void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        if (node.owner == window || node.owner == protectedQueue) {
+            node.owner.moveToBack(node);
+        } else if (node.owner == probation) {
+            probation.unlink(node);
+            protectedQueue.linkLast(node);
+            if (protectedQueue.size > maxProtected) {
+                Node<K, V> demoted = protectedQueue.first;
+                protectedQueue.unlink(demoted);
+                probation.linkLast(demoted);
+            }
+        }
+    }
+
+    // Requires the lock
+    private List<Node<K, V>> onAdd(Node<K, V> node) {
+        if (node.retired) {
+            return null;
+        }
+        window.linkLast(node);
+        List<Node<K, V>> evicted = null;
+        while (window.size > maxWindow) {
+            Node<K, V> candidate = window.first;
+            window.unlink(candidate);
+            if (probation.size + protectedQueue.size < maxMain) {
+                probation.linkLast(candidate);
+                continue;
+            }
+            Node<K, V> victim = (probation.first != null) ? probation.first : protectedQueue.first;
+            if ((victim != null) && (sketch.frequency(candidate.key) > sketch.frequency(victim.key))) {
+                unlink(victim);
+                probation.linkLast(candidate);
+                evicted = evict(victim, evicted);
+            } else {
+                evicted = evict(candidate, evicted);
+            }
+        }
+        return evicted;
+    }
+
+    // Requires the lock
+    private List<Node<K, V>> evict(Node<K, V> node, List<Node<K, V>> evicted) {
+        node.retired = true;
+        if (cache.remove(node.key, node)) {
+            evictions.increment();
+            if (removeCallback != null) {
+                if (evicted == null) {
+                    evicted = new ArrayList<>(1);
+                }
+                evicted.add(node);
+            }
+        }
+        return evicted;
+    }
+
+    private void notifyEvicted(List<Node<K, V>> evicted) {
+        if (evicted != null) {
+            for (Node<K, V> node : evicted) {
+                removeCallback.afterRemove(node.key, node.value);
+            }
+        }
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        if (node.owner != null) {
+            node.owner.unlink(node);
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        // Guarded by the lock
+        boolean retired;
+        AccessQueue<K, V> owner;
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A doubly-linked list of nodes, from least to most recently accessed.
+     */
+    private static final class AccessQueue<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+        int size;
+
+        void linkLast(Node<K, V> node) {
+            node.owner = this;
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.owner != this) {
+                return;
+            }
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            node.owner = null;
+            size--;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            final Iterator<Node<K, V>> iterator = cache.values().iterator();
+            return new Iterator<Entry<K, V>>() {
+                private Node<K, V> last;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    final Node<K, V> node = iterator.next();
+                    last = node;
+                    return new Entry<K, V>() {
+                        @Override
+                        public K getKey() {
+                            return node.key;
+                        }
+
+                        @Override
+                        public V getValue() {
+                            return node.value;
+                        }
+
+                        @Override
+                        public V setValue(V value) {
+                            V old = node.value;
+                            node.value = value;
+                            return old;
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException("next() not called");
+                    }
+                    TinyLFUCache.this.remove(last.key);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return TinyLFUCache.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Node<K, V> node = cache.get(e.getKey());
+            return node != null && node.value != null && node.value.equals(e.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            return TinyLFUCache.this.remove(((Entry<?, ?>) o).getKey()) != null;
+        }
+
+        @Override
+        public void clear() {
+            TinyLFUCache.this.clear();
+        }
+    }
+}
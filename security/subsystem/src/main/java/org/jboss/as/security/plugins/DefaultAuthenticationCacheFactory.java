@@ -26,6 +26,8 @@ import java.security.Principal;
 import java.util.concurrent.ConcurrentMap;
 
 import org.jboss.as.security.lru.LRUCache;
+import org.jboss.as.security.lru.RemoveCallback;
+import org.jboss.as.security.lru.TinyLFUCache;
 import org.jboss.security.authentication.JBossCachedAuthenticationManager.DomainInfo;
 
 /**
@@ -35,16 +37,47 @@ import org.jboss.security.authentication.JBossCachedAuthenticationManager.Domain
  */
 public class DefaultAuthenticationCacheFactory implements AuthenticationCacheFactory {
 
+    private static final int MAX_ENTRIES = 1000;
+
+    /**
+     * The policies deciding which entries are evicted once the cache is full.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used entries.
+         */
+        LRU,
+        /**
+         * Evicts the least frequently used entries, and only admits a new entry if it is used more often than the
+         * entry it would evict.
+         */
+        TINY_LFU,
+    }
+
+    private final EvictionPolicy evictionPolicy;
+
+    public DefaultAuthenticationCacheFactory() {
+        this(EvictionPolicy.LRU);
+    }
+
+    public DefaultAuthenticationCacheFactory(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
     /**
      * Returns a default cache implementation
      *
      * @return cache implementation
      */
     public ConcurrentMap<Principal, DomainInfo> getCache() {
-        return new LRUCache<>(1000, (key, value) -> {
+        final RemoveCallback<Principal, DomainInfo> logout = (key, value) -> {
             if (value != null) {
                 value.logout();
             }
-        });
+        };
+        if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+            return new TinyLFUCache<>(MAX_ENTRIES, logout);
+        }
+        return new LRUCache<>(MAX_ENTRIES, logout);
     }
 }
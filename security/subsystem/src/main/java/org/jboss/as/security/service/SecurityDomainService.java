@@ -22,12 +22,14 @@
 
 package org.jboss.as.security.service;
 
+import java.security.Principal;
 import java.util.concurrent.ConcurrentMap;
 
 import javax.security.auth.login.Configuration;
 
 import org.jboss.as.security.SecurityExtension;
 import org.jboss.as.security.logging.SecurityLogger;
+import org.jboss.as.security.lru.CacheStatistics;
 import org.jboss.as.security.plugins.AuthenticationCacheFactory;
 import org.jboss.as.security.plugins.DefaultAuthenticationCacheFactory;
 import org.jboss.as.security.plugins.JNDIBasedSecurityManagement;
@@ -41,6 +43,7 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.jboss.security.ISecurityManagement;
 import org.jboss.security.JSSESecurityDomain;
+import org.jboss.security.authentication.JBossCachedAuthenticationManager.DomainInfo;
 import org.jboss.security.config.ApplicationPolicy;
 import org.jboss.security.config.ApplicationPolicyRegistration;
 
@@ -69,6 +72,8 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
 
     private final String cacheType;
 
+    private volatile CacheStatistics cacheStatistics;
+
     public SecurityDomainService(String name, ApplicationPolicy applicationPolicy, JSSESecurityDomain jsseSecurityDomain,
             String cacheType) {
         this.name = name;
@@ -91,7 +96,9 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         if ("infinispan".equals(cacheType)) {
             cacheFactory = () -> this.cacheValue.getValue();
         } else if ("default".equals(cacheType)) {
-            cacheFactory = new DefaultAuthenticationCacheFactory();
+            cacheFactory = statisticsCapturing(new DefaultAuthenticationCacheFactory());
+        } else if ("tiny-lfu".equals(cacheType)) {
+            cacheFactory = statisticsCapturing(new DefaultAuthenticationCacheFactory(DefaultAuthenticationCacheFactory.EvictionPolicy.TINY_LFU));
         }
         SecurityDomainContext sdc;
         try {
@@ -128,6 +135,23 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         return securityDomainContext;
     }
 
+    /**
+     * Returns the statistics of the authentication cache of this security domain.
+     *
+     * @return the statistics, or {@code null} if the cache does not record any
+     */
+    public CacheStatistics getCacheStatistics() {
+        return cacheStatistics;
+    }
+
+    private AuthenticationCacheFactory statisticsCapturing(final AuthenticationCacheFactory factory) {
+        return () -> {
+            final ConcurrentMap<Principal, DomainInfo> cache = factory.getCache();
+            this.cacheStatistics = (cache instanceof CacheStatistics) ? (CacheStatistics) cache : null;
+            return cache;
+        };
+    }
+
     /**
      * Target {@code Injector}
      *
@@ -37,6 +37,7 @@ import org.jboss.as.subsystem.test.AbstractSubsystemBaseTest;
 import org.jboss.as.subsystem.test.AdditionalInitialization;
 import org.jboss.as.subsystem.test.KernelServices;
 import org.jboss.as.subsystem.test.KernelServicesBuilder;
+import org.jboss.dmr.ModelNode;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -127,6 +128,10 @@ public class SecurityTransformersTestCase extends AbstractSubsystemBaseTest {
                                         PathElement.pathElement(Constants.PROVIDER_MODULE,
                                                 "org.myorg.security.MyCustomLogAuditProvider")),
                                 new FailedOperationTransformationConfig.NewAttributesConfig(Constants.MODULE))
+                        .addFailedAttribute(
+                                PathAddress.pathAddress(subsystemAddress,
+                                        PathElement.pathElement(Constants.SECURITY_DOMAIN, "tiny-lfu-cache")),
+                                new CorrectTinyLFUCacheType())
                         .addFailedAttribute(PathAddress.pathAddress(subsystemAddress),
                                 new FailedOperationTransformationConfig.NewAttributesConfig(Constants.INITIALIZE_JACC)));
         legacyServices.shutdown();
@@ -151,6 +156,30 @@ public class SecurityTransformersTestCase extends AbstractSubsystemBaseTest {
         mainServices.shutdown();
     }
 
+    /**
+     * The tiny-lfu cache type is not known to model version 1.3.0, so it gets rejected in favour of the default cache.
+     */
+    private static class CorrectTinyLFUCacheType extends FailedOperationTransformationConfig.AttributesPathAddressConfig<CorrectTinyLFUCacheType> {
+
+        CorrectTinyLFUCacheType() {
+            super(Constants.CACHE_TYPE);
+        }
+
+        @Override
+        protected boolean isAttributeWritable(String attributeName) {
+            return true;
+        }
+
+        @Override
+        protected boolean checkValue(String attrName, ModelNode attribute, boolean isWriteAttribute) {
+            return attribute.isDefined() && attribute.asString().equals(SecurityDomainResourceDefinition.TINY_LFU_CACHE_TYPE);
+        }
+
+        @Override
+        protected ModelNode correctValue(ModelNode toResolve, boolean isWriteAttribute) {
+            return new ModelNode("default");
+        }
+    }
 
     @Override
     public void testSchema() throws Exception {
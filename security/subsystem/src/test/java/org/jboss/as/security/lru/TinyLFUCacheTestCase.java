@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.lru;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+
+/**
+ * Tests the eviction policy and statistics of {@link TinyLFUCache}.
+ */
+public class TinyLFUCacheTestCase {
+
+    @Test
+    public void basicOperations() {
+        Set<String> removed = new HashSet<>();
+        TinyLFUCache<String, String> cache = new TinyLFUCache<>(10, (key, value) -> removed.add(value));
+        assertNull(cache.put("a", "a1"));
+        assertEquals("a1", cache.put("a", "a2"));
+        assertEquals("a2", cache.putIfAbsent("a", "a3"));
+        assertEquals("a2", cache.get("a"));
+        assertTrue(cache.replace("a", "a2", "a4"));
+        assertTrue(removed.contains("a2"));
+        assertFalse(cache.remove("a", "a2"));
+        assertEquals("a4", cache.remove("a"));
+        assertTrue(removed.contains("a4"));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertEquals(7, removed.size());
+    }
+
+    @Test
+    public void bounded() {
+        Set<String> removed = new HashSet<>();
+        TinyLFUCache<String, String> cache = new TinyLFUCache<>(100, (key, value) -> removed.add(key));
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.getEvictionCount());
+        assertEquals(900, removed.size());
+        for (Map.Entry<String, String> entry : cache.entrySet()) {
+            assertFalse(removed.contains(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void statistics() {
+        TinyLFUCache<String, String> cache = new TinyLFUCache<>(10);
+        cache.put("a", "a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    /**
+     * Frequently used principals survive a scan of principals that authenticate only once, which evicts them from an
+     * LRU cache.
+     */
+    @Test
+    public void scanResistance() {
+        TinyLFUCache<Integer, Integer> tinyLfu = new TinyLFUCache<>(1000);
+        LRUCache<Integer, Integer> lru = new LRUCache<>(1000);
+        double tinyLfuHitRatio = hitRatio(tinyLfu, tinyLfu);
+        double lruHitRatio = hitRatio(lru, lru);
+        assertTrue("tiny-lfu hit ratio " + tinyLfuHitRatio + " lru hit ratio " + lruHitRatio, tinyLfuHitRatio > lruHitRatio);
+        assertTrue(tinyLfuHitRatio > 0.4);
+    }
+
+    /**
+     * Replays a trace of 500 hot keys, interleaved with a scan of keys that are never requested again.
+     */
+    private static double hitRatio(ConcurrentMap<Integer, Integer> cache, CacheStatistics statistics) {
+        Random random = new Random(1);
+        int scanKey = 1000;
+        for (int i = 0; i < 200000; i++) {
+            Integer key = (random.nextInt(2) == 0) ? random.nextInt(500) : scanKey++;
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        return (double) statistics.getHitCount() / (statistics.getHitCount() + statistics.getMissCount());
+    }
+}
@@ -250,4 +250,7 @@ public interface TransactionLogger extends BasicLogger {
     @Message(id = 38, value = "Unexpected error on suspending transaction for work %s")
     RuntimeException cannotSuspendInflowTransactionUnexpectedError(Work txn, @Cause Exception e);
 
+    @Message(id = 39, value = "Syncs cannot be registered without a transaction")
+    IllegalStateException syncsNotAllowedWithoutTransaction();
+
 }
@@ -22,14 +22,10 @@
 package org.jboss.as.txn.service.internal.tsr;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
-import javax.transaction.Transaction;
 
 import org.jboss.as.txn.logging.TransactionLogger;
 
@@ -49,14 +45,11 @@ import org.jboss.as.txn.logging.TransactionLogger;
  */
 public class JCAOrderedLastSynchronizationList implements Synchronization {
     private final com.arjuna.ats.jta.transaction.Transaction tx;
-    private final Map<Transaction, JCAOrderedLastSynchronizationList> jcaOrderedLastSynchronizations;
     private final List<Synchronization> preJcaSyncs = new ArrayList<Synchronization>();
     private final List<Synchronization> jcaSyncs = new ArrayList<Synchronization>();
 
-    public JCAOrderedLastSynchronizationList(com.arjuna.ats.jta.transaction.Transaction tx,
-        Map<Transaction, JCAOrderedLastSynchronizationList> jcaOrderedLastSynchronizations) {
+    public JCAOrderedLastSynchronizationList(com.arjuna.ats.jta.transaction.Transaction tx) {
         this.tx = tx;
-        this.jcaOrderedLastSynchronizations = jcaOrderedLastSynchronizations;
     }
 
     /**
@@ -167,27 +160,5 @@ public class JCAOrderedLastSynchronizationList implements Synchronization {
                 TransactionLogger.ROOT_LOGGER.jcaSyncAfterCompletionFailed(jcaSync, tx, e);
             }
         }
-
-        if (jcaOrderedLastSynchronizations.remove(tx) == null) {
-            // The identifier wasn't stable - scan for it - this can happen in JTS propagation when the UID needs retrieving
-            // from the parent and the parent has been deactivated
-            Transaction altKey = null;
-            Iterator<Entry<Transaction, JCAOrderedLastSynchronizationList>> iterator = jcaOrderedLastSynchronizations.entrySet().iterator();
-            while (altKey == null && iterator.hasNext()) {
-                Map.Entry<Transaction, JCAOrderedLastSynchronizationList> next = iterator.next();
-                if (next.getValue().equals(this)) {
-                    altKey = next.getKey();
-                    iterator.remove();
-                    if (TransactionLogger.ROOT_LOGGER.isTraceEnabled()) {
-                        TransactionLogger.ROOT_LOGGER.tracef("Removed: %s [%s]", System.identityHashCode(tx), tx.toString());
-                    }
-                    break;
-                }
-            }
-
-            if (altKey == null) {
-                TransactionLogger.ROOT_LOGGER.transactionNotFound(tx);
-            }
-        }
     }
 }
@@ -21,14 +21,14 @@
  */
 package org.jboss.as.txn.service.internal.tsr;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
 
+import org.jboss.as.txn.logging.TransactionLogger;
+
 /**
  * Most of this implementation delegates down to the underlying transactions implementation to provide the services of the
  * TransactionSynchronizationRegistry. The one area it modifies is the registration of the interposed Synchronizations. The
@@ -48,31 +48,50 @@ import javax.transaction.TransactionSynchronizationRegistry;
  * One implication of this approach is that if the underlying transactions implementation has special handling for various types
  * of Synchronization that can also implement other interfaces (i.e. if interposedSync instanceof OtherInterface) these
  * behaviours cannot take effect as the underlying implementation will never directly see the actual Synchronizations.
+ *
+ * The ordered list of interposed Synchronizations is stored as a resource of its transaction, so that it is discarded along with
+ * the transaction, and so that registration does not contend on state shared by all transactions. Its creation is serialized by a
+ * lock chosen by transaction key, since distinct Transaction objects may represent the same transaction, e.g. with JTS.
  */
 public class TransactionSynchronizationRegistryWrapper implements TransactionSynchronizationRegistry {
 
     private TransactionSynchronizationRegistry delegate;
     private TransactionManager transactionManager;
-    private ConcurrentHashMap<Transaction, JCAOrderedLastSynchronizationList> interposedSyncs = new ConcurrentHashMap<Transaction, JCAOrderedLastSynchronizationList>();
+    private static final int LOCK_STRIPES = 64;
+
+    // Transaction resource key of the ordered list of interposed Synchronizations
+    private final Object interposedSyncsKey = new Object();
+    // Serialize the creation of the ordered list of interposed Synchronizations of a transaction
+    private final Object[] locks = new Object[LOCK_STRIPES];
 
     public TransactionSynchronizationRegistryWrapper(TransactionSynchronizationRegistry delegate) {
         this.delegate = delegate;
         transactionManager = com.arjuna.ats.jta.TransactionManager
             .transactionManager();
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            locks[i] = new Object();
+        }
     }
 
     @Override
     public void registerInterposedSynchronization(Synchronization sync)
         throws IllegalStateException {
+        Object key = delegate.getTransactionKey();
+        if (key == null) {
+            throw TransactionLogger.ROOT_LOGGER.syncsNotAllowedWithoutTransaction();
+        }
         try {
-            Transaction tx = transactionManager.getTransaction();
-            JCAOrderedLastSynchronizationList jcaOrderedLastSynchronization = interposedSyncs.get(tx);
+            JCAOrderedLastSynchronizationList jcaOrderedLastSynchronization = (JCAOrderedLastSynchronizationList) delegate.getResource(interposedSyncsKey);
             if (jcaOrderedLastSynchronization == null) {
-                JCAOrderedLastSynchronizationList toPut = new JCAOrderedLastSynchronizationList((com.arjuna.ats.jta.transaction.Transaction) tx, interposedSyncs);
-                jcaOrderedLastSynchronization = interposedSyncs.putIfAbsent(tx, toPut);
-                if (jcaOrderedLastSynchronization == null) {
-                    jcaOrderedLastSynchronization = toPut;
-                    delegate.registerInterposedSynchronization(jcaOrderedLastSynchronization);
+                synchronized (locks[(key.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES]) {
+                    jcaOrderedLastSynchronization = (JCAOrderedLastSynchronizationList) delegate.getResource(interposedSyncsKey);
+                    if (jcaOrderedLastSynchronization == null) {
+                        // The transaction is only looked up when registering its first interposed Synchronization
+                        Transaction tx = transactionManager.getTransaction();
+                        jcaOrderedLastSynchronization = new JCAOrderedLastSynchronizationList((com.arjuna.ats.jta.transaction.Transaction) tx);
+                        delegate.registerInterposedSynchronization(jcaOrderedLastSynchronization);
+                        delegate.putResource(interposedSyncsKey, jcaOrderedLastSynchronization);
+                    }
                 }
             }
             jcaOrderedLastSynchronization.registerInterposedSynchronization(sync);
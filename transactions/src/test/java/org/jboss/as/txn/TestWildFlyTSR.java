@@ -1,11 +1,17 @@
 package org.jboss.as.txn;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
 import javax.transaction.NotSupportedException;
 import javax.transaction.RollbackException;
+import javax.transaction.Status;
 import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.TransactionManager;
@@ -51,4 +57,65 @@ public class TestWildFlyTSR {
 
         assertTrue(innerSyncCalled);
     }
+
+    @Test
+    public void testMultipleRegistrations() throws NotSupportedException, SystemException, SecurityException, IllegalStateException, RollbackException, HeuristicMixedException, HeuristicRollbackException {
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManagerClassName("com.arjuna.ats.internal.jta.transaction.arjunacore.TransactionManagerImple");
+        final TransactionSynchronizationRegistry tsr =
+            new TransactionSynchronizationRegistryWrapper(new com.arjuna.ats.internal.jta.transaction.arjunacore.TransactionSynchronizationRegistryImple());
+        TransactionManager transactionManager = com.arjuna.ats.jta.TransactionManager.transactionManager();
+        final List<String> calls = new ArrayList<>();
+        transactionManager.begin();
+        for (final String name : Arrays.asList("a", "b", "c")) {
+            tsr.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    calls.add("before-" + name);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    assertEquals(Status.STATUS_COMMITTED, status);
+                    calls.add("after-" + name);
+                }
+            });
+        }
+        transactionManager.commit();
+
+        // Each synchronization is called once, before completion in registration order, after completion in reverse order
+        assertEquals(Arrays.asList("before-a", "before-b", "before-c", "after-c", "after-b", "after-a"), calls);
+
+        // The synchronizations of a completed transaction are not called for the next transaction
+        calls.clear();
+        transactionManager.begin();
+        tsr.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                calls.add("before-d");
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                calls.add("after-d");
+            }
+        });
+        transactionManager.rollback();
+        assertEquals(Arrays.asList("after-d"), calls);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegistrationWithoutTransaction() {
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManagerClassName("com.arjuna.ats.internal.jta.transaction.arjunacore.TransactionManagerImple");
+        final TransactionSynchronizationRegistry tsr =
+            new TransactionSynchronizationRegistryWrapper(new com.arjuna.ats.internal.jta.transaction.arjunacore.TransactionSynchronizationRegistryImple());
+        tsr.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+            }
+        });
+    }
 }
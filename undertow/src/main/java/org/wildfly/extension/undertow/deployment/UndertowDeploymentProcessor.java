@@ -461,7 +461,7 @@ public class UndertowDeploymentProcessor implements DeploymentUnitProcessor {
         ServiceName name = deploymentServiceName.append("session");
         if (metaData.getDistributable() != null) {
             if (DistributableSessionManagerFactoryBuilderProvider.INSTANCE.isPresent()) {
-                DistributableSessionManagerConfiguration config = new SimpleDistributableSessionManagerConfiguration(maxActiveSessions, metaData.getReplicationConfig(), serverName, deploymentName, module);
+                DistributableSessionManagerConfiguration config = new SimpleDistributableSessionManagerConfiguration(maxActiveSessions, metaData, serverName, deploymentName, module);
                 return DistributableSessionManagerFactoryBuilderProvider.INSTANCE.get().getBuilder(name, config);
             }
             // Fallback to local session manager if server does not support clustering
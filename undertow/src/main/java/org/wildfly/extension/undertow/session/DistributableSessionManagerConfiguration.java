@@ -21,6 +21,8 @@
  */
 package org.wildfly.extension.undertow.session;
 
+import java.time.Duration;
+
 import org.jboss.metadata.web.jboss.ReplicationGranularity;
 import org.jboss.modules.Module;
 
@@ -36,4 +38,12 @@ public interface DistributableSessionManagerConfiguration {
     Module getModule();
 
     String getCacheName();
+
+    boolean isDirtyDetectionEnabled();
+
+    boolean isDeltaReplicationEnabled();
+
+    Duration getAccessTimeGranularity();
+
+    boolean isAttributeBatchingEnabled();
 }
@@ -21,10 +21,15 @@
  */
 package org.wildfly.extension.undertow.session;
 
+import java.time.Duration;
+import java.util.List;
+
+import org.jboss.metadata.javaee.spec.ParamValueMetaData;
 import org.jboss.metadata.web.jboss.JBossWebMetaData;
 import org.jboss.metadata.web.jboss.ReplicationConfig;
 import org.jboss.metadata.web.jboss.ReplicationGranularity;
 import org.jboss.modules.Module;
+import org.wildfly.extension.undertow.logging.UndertowLogger;
 
 /**
  * Simple {@link DistributableSessionManagerConfiguration} implementation that delegates to {@link JBossWebMetaData}.
@@ -32,14 +37,39 @@ import org.jboss.modules.Module;
  */
 public class SimpleDistributableSessionManagerConfiguration implements DistributableSessionManagerConfiguration {
 
+    /**
+     * Context parameter that enables replicating mutable session attributes only if their marshalled form changed.
+     */
+    public static final String DIRTY_DETECTION_PARAMETER = "org.wildfly.clustering.web.session.dirty-detection";
+    /**
+     * Context parameter that enables replicating only the changed attributes of a session with {@link ReplicationGranularity#SESSION} granularity.
+     */
+    public static final String DELTA_REPLICATION_PARAMETER = "org.wildfly.clustering.web.session.delta-replication";
+    /**
+     * Context parameter specifying the number of seconds within which subsequent accesses of a session do not update its replicated last accessed time.
+     */
+    public static final String ACCESS_TIME_GRANULARITY_PARAMETER = "org.wildfly.clustering.web.session.access-time-granularity";
+    /**
+     * Context parameter that enables deferring the session attribute writes of a request, for {@link ReplicationGranularity#ATTRIBUTE} granularity, until the request completes.
+     */
+    public static final String ATTRIBUTE_BATCHING_PARAMETER = "org.wildfly.clustering.web.session.attribute-batching";
+
     private final Integer maxActiveSessions;
     private final ReplicationConfig replicationConfig;
     private final String serverName;
     private final String deploymentName;
     private final Module module;
+    private final boolean dirtyDetection;
+    private final boolean deltaReplication;
+    private final Duration accessTimeGranularity;
+    private final boolean attributeBatching;
 
     public SimpleDistributableSessionManagerConfiguration(JBossWebMetaData metaData, String serverName, String deploymentName, Module module) {
-        this(metaData.getMaxActiveSessions(), metaData.getReplicationConfig(), serverName, deploymentName, module);
+        this(metaData.getMaxActiveSessions(), metaData, serverName, deploymentName, module);
+    }
+
+    public SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, JBossWebMetaData metaData, String serverName, String deploymentName, Module module) {
+        this(maxActiveSessions, metaData.getReplicationConfig(), serverName, deploymentName, module, Boolean.parseBoolean(getContextParameter(metaData, DIRTY_DETECTION_PARAMETER)), Boolean.parseBoolean(getContextParameter(metaData, DELTA_REPLICATION_PARAMETER)), getAccessTimeGranularity(metaData), Boolean.parseBoolean(getContextParameter(metaData, ATTRIBUTE_BATCHING_PARAMETER)));
     }
 
     public SimpleDistributableSessionManagerConfiguration(SharedSessionManagerConfig config, String serverName, String deploymentName, Module module) {
@@ -47,11 +77,46 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
     }
 
     public SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, ReplicationConfig replicationConfig, String serverName, String deploymentName, Module module) {
+        this(maxActiveSessions, replicationConfig, serverName, deploymentName, module, false, false, Duration.ZERO, false);
+    }
+
+    private SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, ReplicationConfig replicationConfig, String serverName, String deploymentName, Module module, boolean dirtyDetection, boolean deltaReplication, Duration accessTimeGranularity, boolean attributeBatching) {
         this.maxActiveSessions = maxActiveSessions;
         this.replicationConfig = replicationConfig;
         this.serverName = serverName;
         this.deploymentName = deploymentName;
         this.module = module;
+        this.dirtyDetection = dirtyDetection;
+        this.deltaReplication = deltaReplication;
+        this.accessTimeGranularity = accessTimeGranularity;
+        this.attributeBatching = attributeBatching;
+    }
+
+    private static String getContextParameter(JBossWebMetaData metaData, String name) {
+        List<ParamValueMetaData> params = metaData.getContextParams();
+        if (params != null) {
+            for (ParamValueMetaData param : params) {
+                if (name.equals(param.getParamName())) {
+                    return param.getParamValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Duration getAccessTimeGranularity(JBossWebMetaData metaData) {
+        String value = getContextParameter(metaData, ACCESS_TIME_GRANULARITY_PARAMETER);
+        if (value != null) {
+            try {
+                long seconds = Long.parseLong(value.trim());
+                if (seconds > 0) {
+                    return Duration.ofSeconds(seconds);
+                }
+            } catch (NumberFormatException e) {
+                UndertowLogger.ROOT_LOGGER.invalidAccessTimeGranularity(value);
+            }
+        }
+        return Duration.ZERO;
     }
 
     @Override
@@ -83,4 +148,24 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
     public String getCacheName() {
         return (this.replicationConfig != null) ? this.replicationConfig.getCacheName() : null;
     }
+
+    @Override
+    public boolean isDirtyDetectionEnabled() {
+        return this.dirtyDetection;
+    }
+
+    @Override
+    public boolean isDeltaReplicationEnabled() {
+        return this.deltaReplication;
+    }
+
+    @Override
+    public Duration getAccessTimeGranularity() {
+        return this.accessTimeGranularity;
+    }
+
+    @Override
+    public boolean isAttributeBatchingEnabled() {
+        return this.attributeBatching;
+    }
 }
@@ -258,4 +258,12 @@ public interface WeldLogger extends BasicLogger {
     @Message(id = 55, value = "Could not index class [%s] from an external bean archive: %s")
     void cannotIndexClassName(Object name, Object bda);
 
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 56, value = "Could not access the cached annotation index of an external bean archive: %s")
+    void cannotAccessCachedAnnotationIndex(Object file, @Cause Throwable cause);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = Message.NONE, value = "Annotation index cache of external bean archives for deployment %s: %d hits, %d misses")
+    void annotationIndexCacheStatistics(String deploymentName, int hits, int misses);
+
 }
@@ -25,6 +25,7 @@ import org.jboss.as.server.deployment.AttachmentKey;
 import org.jboss.as.server.deployment.AttachmentList;
 import org.jboss.as.server.deployment.module.ResourceRoot;
 import org.jboss.as.weld.discovery.AnnotationType;
+import org.jboss.weld.manager.api.ExecutorServices;
 
 /**
  * {@link AttachmentKey}s for weld attachments
@@ -61,4 +62,9 @@ public class WeldAttachments {
      */
     public static final AttachmentKey<ResourceRoot> CLASSES_RESOURCE_ROOT = AttachmentKey.create(ResourceRoot.class);
 
+    /**
+     * The shared Weld {@link ExecutorServices}, used to discover bean archives concurrently.
+     */
+    public static final AttachmentKey<ExecutorServices> EXECUTOR_SERVICES = AttachmentKey.create(ExecutorServices.class);
+
 }
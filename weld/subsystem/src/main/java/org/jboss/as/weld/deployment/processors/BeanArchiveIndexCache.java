@@ -0,0 +1,250 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.weld.deployment.processors;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.as.weld.logging.WeldLogger;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+
+/**
+ * On-disk cache of the annotation indexes built for external bean archives that do not provide their own index.
+ * Entries are keyed by a hash of the archive content, so that an unchanged archive is not rescanned on each boot,
+ * while a modified archive is always indexed again.
+ * The content hash is computed over the name, size and CRC of every entry of the archive, which are read from its
+ * central directory, rather than over the archive bytes themselves.
+ * This cache may be used concurrently by the discovery of several archives.
+ * The total size of the entries is bounded: the modification time of an entry is refreshed whenever it is read, and the
+ * least recently used entries are deleted whenever a new entry takes the cache over its maximum size.
+ */
+class BeanArchiveIndexCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String SUFFIX = ".idx";
+    static final long DEFAULT_MAX_SIZE = 64L << 20;
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    BeanArchiveIndexCache(Path directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    BeanArchiveIndexCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cache key of the specified archive.
+     * @return the cache key, or null if the archive could not be read
+     */
+    String getKey(File archive) {
+        try (ZipFile zip = new ZipFile(archive)) {
+            MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            try (DataOutputStream output = new DataOutputStream(new DigestOutputStream(NullOutputStream.INSTANCE, digest))) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    output.writeUTF(entry.getName());
+                    output.writeLong(entry.getSize());
+                    output.writeLong(entry.getCrc());
+                }
+            }
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            WeldLogger.DEPLOYMENT_LOGGER.cannotAccessCachedAnnotationIndex(archive, e);
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the cached index of the specified key, recording a cache hit or miss.
+     * @return the cached index, or null if there is no such entry
+     */
+    Index read(String key) {
+        Path file = this.directory.resolve(key + SUFFIX);
+        if (Files.isRegularFile(file)) {
+            try (InputStream input = Files.newInputStream(file)) {
+                Index index = new IndexReader(input).read();
+                this.hits.incrementAndGet();
+                touch(file);
+                return index;
+            } catch (IOException | RuntimeException e) {
+                // Discard the corrupt entry, so that it is replaced by a new one
+                WeldLogger.DEPLOYMENT_LOGGER.cannotAccessCachedAnnotationIndex(file, e);
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        this.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the specified index as the entry of the specified key.
+     */
+    void write(String key, Index index) {
+        Path file = this.directory.resolve(key + SUFFIX);
+        Path temp = null;
+        try {
+            Files.createDirectories(this.directory);
+            // Write to a temporary file first, so that concurrent deployments never observe a partially written entry
+            temp = Files.createTempFile(this.directory, key, null);
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                new IndexWriter(output).write(index);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            WeldLogger.DEPLOYMENT_LOGGER.cannotAccessCachedAnnotationIndex(file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+            return;
+        }
+        this.evict();
+    }
+
+    /**
+     * Deletes the least recently used entries, until the total size of the remaining entries does not exceed the
+     * maximum size of this cache.
+     */
+    void evict() {
+        List<Entry> entries = new ArrayList<>();
+        long size = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    entries.add(new Entry(file, attributes.lastModifiedTime(), attributes.size()));
+                    size += attributes.size();
+                } catch (NoSuchFileException e) {
+                    // Already evicted by a concurrent deployment
+                }
+            }
+        } catch (IOException e) {
+            WeldLogger.DEPLOYMENT_LOGGER.cannotAccessCachedAnnotationIndex(this.directory, e);
+            return;
+        }
+        if (size <= this.maxSize) {
+            return;
+        }
+        entries.sort(Comparator.comparing(entry -> entry.lastModified));
+        for (Entry entry : entries) {
+            if (size <= this.maxSize) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.file);
+                size -= entry.size;
+                WeldLogger.DEPLOYMENT_LOGGER.debugf("Evicted cached annotation index %s", entry.file);
+            } catch (IOException e) {
+                WeldLogger.DEPLOYMENT_LOGGER.cannotAccessCachedAnnotationIndex(entry.file, e);
+            }
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // The entry only becomes more likely to be evicted
+        }
+    }
+
+    int getHits() {
+        return this.hits.get();
+    }
+
+    int getMisses() {
+        return this.misses.get();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static class Entry {
+        final Path file;
+        final FileTime lastModified;
+        final long size;
+
+        Entry(Path file, FileTime lastModified, long size) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        static final OutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -21,6 +21,7 @@
  */
 package org.jboss.as.weld.deployment.processors;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -36,11 +37,17 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 
 import org.jboss.as.ee.component.ComponentDescription;
 import org.jboss.as.ee.component.EEModuleDescription;
 import org.jboss.as.ee.weld.WeldDeploymentMarker;
+import org.jboss.as.server.ServerEnvironment;
+import org.jboss.as.server.ServerEnvironmentService;
 import org.jboss.as.server.deployment.Attachments;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
@@ -73,6 +80,7 @@ import org.jboss.modules.ModuleLoader;
 import org.jboss.weld.bootstrap.api.Service;
 import org.jboss.weld.bootstrap.spi.BeanDiscoveryMode;
 import org.jboss.weld.bootstrap.spi.BeansXml;
+import org.jboss.weld.manager.api.ExecutorServices;
 import org.jboss.weld.xml.BeansXmlParser;
 import org.wildfly.security.manager.WildFlySecurityManager;
 
@@ -93,6 +101,8 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
 
     private static final String META_INF_JANDEX_IDX = "META-INF/jandex.idx";
 
+    private static final String INDEX_CACHE_PATH = "weld/index-cache";
+
     private final String ALL_KNOWN_CLASSES = "ALL_KNOWN_CLASSES";
     private final String BEAN_CLASSES = "BEAN_CLASSES";
 
@@ -121,8 +131,6 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
         deploymentUnits.add(deploymentUnit);
         deploymentUnits.addAll(deploymentUnit.getAttachmentList(Attachments.SUB_DEPLOYMENTS));
 
-        PropertyReplacingBeansXmlParser parser = new PropertyReplacingBeansXmlParser(deploymentUnit);
-
         final HashSet<URL> existing = new HashSet<URL>();
 
         for (DeploymentUnit deployment : deploymentUnits) {
@@ -156,10 +164,91 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
         final ServiceLoader<ModuleServicesProvider> moduleServicesProviders = ServiceLoader.load(ModuleServicesProvider.class,
                 WildFlySecurityManager.getClassLoaderPrivileged(WeldDeploymentProcessor.class));
 
+        final ServerEnvironment environment = (ServerEnvironment) phaseContext.getServiceRegistry().getRequiredService(ServerEnvironmentService.SERVICE_NAME).getValue();
+        final BeanArchiveIndexCache indexCache = new BeanArchiveIndexCache(environment.getServerDataDir().toPath().resolve(INDEX_CACHE_PATH));
+        try {
+            this.processDependencies(deploymentUnit, deploymentUnits, existing, componentClassNames, beanArchiveIdPrefix, beanDefiningAnnotations, moduleServicesProviders, indexCache);
+        } finally {
+            if (indexCache.getHits() + indexCache.getMisses() > 0) {
+                WeldLogger.DEPLOYMENT_LOGGER.annotationIndexCacheStatistics(deploymentUnit.getName(), indexCache.getHits(), indexCache.getMisses());
+            }
+        }
+    }
+
+    private void processDependencies(DeploymentUnit deploymentUnit, List<DeploymentUnit> deploymentUnits, Set<URL> existing, Set<String> componentClassNames, String beanArchiveIdPrefix,
+            Set<AnnotationType> beanDefiningAnnotations, ServiceLoader<ModuleServicesProvider> moduleServicesProviders,
+            BeanArchiveIndexCache indexCache) throws DeploymentUnitProcessingException {
+        final List<List<ExternalBeanArchive>> moduleArchives = findExternalBeanArchives(deploymentUnits, existing);
+
+        // Parse beans.xml and discover the classes of each archive concurrently, then build bean archives in the order they were found
+        final ClassLoader loader = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<ExternalBeanArchive> archives : moduleArchives) {
+            for (ExternalBeanArchive archive : archives) {
+                tasks.add(() -> {
+                    // Weld executor threads do not have a TCCL
+                    ClassLoader existingLoader = WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+                    try {
+                        this.discover(archive, new PropertyReplacingBeansXmlParser(deploymentUnit), beanDefiningAnnotations, indexCache);
+                    } finally {
+                        WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(existingLoader);
+                    }
+                    return null;
+                });
+            }
+        }
+        final ExecutorServices executorServices = deploymentUnit.getAttachment(WeldAttachments.EXECUTOR_SERVICES);
+        invokeAll(tasks, (executorServices != null) ? executorServices.getTaskExecutor() : null);
+
+        for (List<ExternalBeanArchive> archives : moduleArchives) {
+            List<BeanDeploymentArchiveImpl> moduleBdas = new ArrayList<>();
+            for (ExternalBeanArchive archive : archives) {
+                if (BeanDiscoveryMode.NONE.equals(archive.beansXml.getBeanDiscoveryMode())) {
+                    // Scanning suppressed per spec
+                    continue;
+                }
+                if (archive.classes == null) {
+                    // URL scanner probably does not understand the protocol
+                    continue;
+                }
+                Collection<String> discoveredBeanClasses = archive.classes.get(BEAN_CLASSES);
+                Collection<String> allKnownClasses = archive.classes.get(ALL_KNOWN_CLASSES);
+                discoveredBeanClasses.removeAll(componentClassNames);
+
+                final BeanDeploymentArchiveImpl bda = new BeanDeploymentArchiveImpl(new HashSet<String>(discoveredBeanClasses), new HashSet<String>(allKnownClasses), archive.beansXml, archive.dependency, beanArchiveIdPrefix + archive.beansXmlUrl.toExternalForm(), BeanArchiveType.EXTERNAL);
+                WeldLogger.DEPLOYMENT_LOGGER.beanArchiveDiscovered(bda);
+
+                // Add module services to external bean deployment archive
+                for (Entry<Class<? extends Service>, Service> moduleService : ServiceLoaders
+                        .loadModuleServices(moduleServicesProviders, deploymentUnit, archive.deployment, archive.module, null).entrySet()) {
+                    bda.getServices().add(moduleService.getKey(), Reflections.cast(moduleService.getValue()));
+                }
+
+                deploymentUnit.addToAttachmentList(WeldAttachments.ADDITIONAL_BEAN_DEPLOYMENT_MODULES, bda);
+                moduleBdas.add(bda);
+            }
+            //BDA's from inside the same module have visibility on each other
+            for(BeanDeploymentArchiveImpl i : moduleBdas) {
+                for(BeanDeploymentArchiveImpl j : moduleBdas) {
+                    if(i != j) {
+                        i.addBeanDeploymentArchive(j);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the external bean archives exported by the module dependencies of the specified deployments.
+     *
+     * @return the external bean archives, grouped by the module dependency that exports them
+     */
+    private List<List<ExternalBeanArchive>> findExternalBeanArchives(List<DeploymentUnit> deploymentUnits, Set<URL> existing) {
+        List<List<ExternalBeanArchive>> moduleArchives = new ArrayList<>();
         for (DeploymentUnit deployment : deploymentUnits) {
             final Module module = deployment.getAttachment(Attachments.MODULE);
             if (module == null) {
-                return;
+                return moduleArchives;
             }
             for (DependencySpec dep : module.getDependencies()) {
                 final Module dependency = loadModuleDependency(dep);
@@ -168,7 +257,7 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
                 }
                 Map<URL, URL> resourcesMap = findExportedResources(dependency);
                 if (!resourcesMap.isEmpty()) {
-                    List<BeanDeploymentArchiveImpl> moduleBdas = new ArrayList<>();
+                    List<ExternalBeanArchive> archives = new ArrayList<>();
                     for (Entry<URL,URL> entry : resourcesMap.entrySet()) {
                         URL beansXmlUrl = entry.getKey();
                         if (existing.contains(beansXmlUrl)) {
@@ -188,49 +277,78 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
                         }
 
                         WeldLogger.DEPLOYMENT_LOGGER.debugf("Found external beans.xml: %s", beansXmlUrl.toString());
-                        final BeansXml beansXml = parseBeansXml(beansXmlUrl, parser, deploymentUnit);
-
-                        if (BeanDiscoveryMode.NONE.equals(beansXml.getBeanDiscoveryMode())) {
-                            // Scanning suppressed per spec
-                            continue;
-                        }
-
-                        Map<String, List<String>> allAndBeanClasses = discover(beansXml.getBeanDiscoveryMode(), beansXmlUrl, entry.getValue(),
-                                beanDefiningAnnotations);
-                        Collection<String> discoveredBeanClasses = allAndBeanClasses.get(BEAN_CLASSES);
-                        Collection<String> allKnownClasses = allAndBeanClasses.get(ALL_KNOWN_CLASSES);
-                        if (discoveredBeanClasses == null) {
-                            // URL scanner probably does not understand the protocol
-                            continue;
-                        }
-                        discoveredBeanClasses.removeAll(componentClassNames);
-
-                        final BeanDeploymentArchiveImpl bda = new BeanDeploymentArchiveImpl(new HashSet<String>(discoveredBeanClasses), new HashSet<String>(allKnownClasses), beansXml, dependency, beanArchiveIdPrefix + beansXmlUrl.toExternalForm(), BeanArchiveType.EXTERNAL);
-                        WeldLogger.DEPLOYMENT_LOGGER.beanArchiveDiscovered(bda);
-
-                        // Add module services to external bean deployment archive
-                        for (Entry<Class<? extends Service>, Service> moduleService : ServiceLoaders
-                                .loadModuleServices(moduleServicesProviders, deploymentUnit, deployment, module, null).entrySet()) {
-                            bda.getServices().add(moduleService.getKey(), Reflections.cast(moduleService.getValue()));
-                        }
-
-                        deploymentUnit.addToAttachmentList(WeldAttachments.ADDITIONAL_BEAN_DEPLOYMENT_MODULES, bda);
-                        moduleBdas.add(bda);
+                        archives.add(new ExternalBeanArchive(deployment, module, dependency, beansXmlUrl, entry.getValue()));
 
                         // make sure that if this beans.xml is seen by some other module, it is not processed twice
                         existing.add(beansXmlUrl);
                     }
-                    //BDA's from inside the same module have visibility on each other
-                    for(BeanDeploymentArchiveImpl i : moduleBdas) {
-                        for(BeanDeploymentArchiveImpl j : moduleBdas) {
-                            if(i != j) {
-                                i.addBeanDeploymentArchive(j);
-                            }
-                        }
-                    }
+                    moduleArchives.add(archives);
+                }
+            }
+        }
+        return moduleArchives;
+    }
+
+    private void discover(ExternalBeanArchive archive, PropertyReplacingBeansXmlParser parser, Set<AnnotationType> beanDefiningAnnotations,
+            BeanArchiveIndexCache indexCache) throws DeploymentUnitProcessingException {
+        archive.beansXml = parseBeansXml(archive.beansXmlUrl, parser);
+        if (!BeanDiscoveryMode.NONE.equals(archive.beansXml.getBeanDiscoveryMode())) {
+            archive.classes = discover(archive.beansXml.getBeanDiscoveryMode(), archive.beansXmlUrl, archive.indexUrl, beanDefiningAnnotations, indexCache);
+        }
+    }
+
+    /**
+     * Runs the specified tasks using the specified executor, if any, and waits for them to complete.
+     * The results are returned in the order of the tasks, whatever the order in which the tasks complete, so that the
+     * result of concurrent discovery is the same as that of serial discovery.
+     * The first exception thrown by a task, in the order of the tasks, is propagated.
+     */
+    static <T> List<T> invokeAll(List<? extends Callable<T>> tasks, ExecutorService executor) throws DeploymentUnitProcessingException {
+        final List<T> results = new ArrayList<>(tasks.size());
+        if ((executor == null) || (tasks.size() < 2)) {
+            for (Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+        final List<Future<T>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeploymentUnitProcessingException(e);
+        }
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeploymentUnitProcessingException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof DeploymentUnitProcessingException) {
+                    throw (DeploymentUnitProcessingException) cause;
                 }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new DeploymentUnitProcessingException(cause);
             }
         }
+        return results;
+    }
+
+    private static <T> T call(Callable<T> task) throws DeploymentUnitProcessingException {
+        try {
+            return task.call();
+        } catch (DeploymentUnitProcessingException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DeploymentUnitProcessingException(e);
+        }
     }
 
     /**
@@ -239,16 +357,29 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
      * @param beansXmlUrl
      * @param indexUrl
      * @param beanDefiningAnnotations
+     * @param indexCache
      * @return the set of discovered bean classes or null if unable to handle the provided beans.xml url
      */
-    private Map<String, List<String>> discover(BeanDiscoveryMode beanDiscoveryMode, URL beansXmlUrl, URL indexUrl, Set<AnnotationType> beanDefiningAnnotations) {
+    private Map<String, List<String>> discover(BeanDiscoveryMode beanDiscoveryMode, URL beansXmlUrl, URL indexUrl, Set<AnnotationType> beanDefiningAnnotations,
+            BeanArchiveIndexCache indexCache) {
         List<String> discoveredBeanClasses = new ArrayList<String>();
         List<String> allKnownClasses = new ArrayList<String>();
         BiConsumer<String, ClassFile> consumer;
+        Runnable completion = null;
 
         if (BeanDiscoveryMode.ANNOTATED.equals(beanDiscoveryMode)) {
             // We must only consider types with bean defining annotations
-            Index index = tryLoadIndex(indexUrl);
+            Index providedIndex = tryLoadIndex(indexUrl);
+            String cacheKey = null;
+            if (providedIndex == null) {
+                // Otherwise use the index cached for an archive with the same content, if any
+                File archive = UrlScanner.getArchiveFile(beansXmlUrl);
+                cacheKey = (archive != null) ? indexCache.getKey(archive) : null;
+                if (cacheKey != null) {
+                    providedIndex = indexCache.read(cacheKey);
+                }
+            }
+            final Index index = providedIndex;
             if (index != null) {
                 // Use the provided index to find ClassInfo
                 consumer = (name, classFile) -> {
@@ -261,6 +392,7 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
             } else {
                 // Build ClassInfo on the fly
                 Indexer indexer = new Indexer();
+                boolean[] complete = new boolean[] { true };
                 consumer = (name, classFile) -> {
                     try (InputStream in = classFile.openStream()) {
                         ClassInfo classInfo = indexer.index(in);
@@ -269,9 +401,19 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
                             discoveredBeanClasses.add(name);
                         }
                     } catch (IOException e) {
+                        complete[0] = false;
                         WeldLogger.DEPLOYMENT_LOGGER.cannotIndexClassName(name, beansXmlUrl);
                     }
                 };
+                if (cacheKey != null) {
+                    // Only cache an index that covers every class of the archive
+                    String key = cacheKey;
+                    completion = () -> {
+                        if (complete[0]) {
+                            indexCache.write(key, indexer.complete());
+                        }
+                    };
+                }
             }
         } else {
             // Bean discovery mode ALL
@@ -284,7 +426,13 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
         result.put(ALL_KNOWN_CLASSES, allKnownClasses);
         result.put(BEAN_CLASSES, discoveredBeanClasses);
         UrlScanner scanner = new UrlScanner(beansXmlUrl, consumer);
-        return scanner.scan() ? result : null;
+        if (!scanner.scan()) {
+            return null;
+        }
+        if (completion != null) {
+            completion.run();
+        }
+        return result;
     }
 
     private Index tryLoadIndex(URL indexUrl) {
@@ -365,7 +513,29 @@ public class ExternalBeanArchiveProcessor implements DeploymentUnitProcessor {
     public void undeploy(DeploymentUnit context) {
     }
 
-    private BeansXml parseBeansXml(URL beansXmlFile, BeansXmlParser parser, final DeploymentUnit deploymentUnit) throws DeploymentUnitProcessingException {
+    private BeansXml parseBeansXml(URL beansXmlFile, BeansXmlParser parser) throws DeploymentUnitProcessingException {
         return parser.parse(beansXmlFile);
     }
+
+    /**
+     * A bean archive exported by a module dependency of a deployment, and the result of its discovery.
+     */
+    private static class ExternalBeanArchive {
+        final DeploymentUnit deployment;
+        final Module module;
+        final Module dependency;
+        final URL beansXmlUrl;
+        final URL indexUrl;
+        // Written by the discovery task, and read once it has completed
+        BeansXml beansXml;
+        Map<String, List<String>> classes;
+
+        ExternalBeanArchive(DeploymentUnit deployment, Module module, Module dependency, URL beansXmlUrl, URL indexUrl) {
+            this.deployment = deployment;
+            this.module = module;
+            this.dependency = dependency;
+            this.beansXmlUrl = beansXmlUrl;
+            this.indexUrl = indexUrl;
+        }
+    }
 }
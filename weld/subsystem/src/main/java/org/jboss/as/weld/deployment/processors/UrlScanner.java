@@ -57,6 +57,30 @@ class UrlScanner {
         this.classConsumer = classConsumer;
     }
 
+    /**
+     * @return the archive file containing the specified beans.xml, or null if the bean archive is not a file based archive
+     */
+    static File getArchiveFile(URL beansXmlUrl) {
+        if (!"jar".equals(beansXmlUrl.getProtocol())) {
+            return null;
+        }
+        String urlPath = beansXmlUrl.getPath();
+        if (urlPath.indexOf('!') < 0) {
+            return null;
+        }
+        urlPath = urlPath.substring(0, urlPath.indexOf('!'));
+        if (urlPath.startsWith("file:")) {
+            urlPath = urlPath.substring(5);
+        }
+        try {
+            urlPath = URLDecoder.decode(urlPath, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+        File file = new File(urlPath);
+        return file.isFile() ? file : null;
+    }
+
     boolean scan() {
         String urlPath = beansXmlUrl.toExternalForm();
 
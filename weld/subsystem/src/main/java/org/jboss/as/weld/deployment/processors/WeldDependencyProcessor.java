@@ -30,6 +30,8 @@ import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessor;
 import org.jboss.as.server.deployment.module.ModuleDependency;
 import org.jboss.as.server.deployment.module.ModuleSpecification;
+import org.jboss.as.weld.deployment.WeldAttachments;
+import org.jboss.as.weld.services.bootstrap.WeldExecutorServices;
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
 import org.jboss.modules.ModuleLoader;
@@ -85,6 +87,11 @@ public class WeldDependencyProcessor implements DeploymentUnitProcessor {
         weldEjbDependency.addImportFilter(PathFilters.is("org/jboss/as/weld/ejb"), true);
         weldEjbDependency.addImportFilter(PathFilters.acceptAll(), false);
         moduleSpecification.addSystemDependency(weldEjbDependency);
+
+        // Only top level Weld deployments discover external bean archives, for which they use the Weld executor
+        if ((deploymentUnit.getParent() == null) && WeldDeploymentMarker.isWeldDeployment(deploymentUnit)) {
+            phaseContext.addDeploymentDependency(WeldExecutorServices.SERVICE_NAME, WeldAttachments.EXECUTOR_SERVICES);
+        }
     }
 
     private void addDependency(ModuleSpecification moduleSpecification, ModuleLoader moduleLoader,
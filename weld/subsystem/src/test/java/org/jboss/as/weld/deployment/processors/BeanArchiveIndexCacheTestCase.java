@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.weld.deployment.processors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the keys, and the storage and eviction of entries, of {@link BeanArchiveIndexCache}.
+ */
+public class BeanArchiveIndexCacheTestCase {
+
+    private Path directory;
+
+    @Before
+    public void init() throws IOException {
+        this.directory = Files.createTempDirectory(BeanArchiveIndexCache.class.getSimpleName());
+    }
+
+    @After
+    public void destroy() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void key() throws IOException {
+        BeanArchiveIndexCache cache = new BeanArchiveIndexCache(this.directory.resolve("cache"));
+        File archive = this.createArchive("a.jar", "content");
+        File copy = this.createArchive("b.jar", "content");
+        File modified = this.createArchive("c.jar", "modified");
+
+        String key = cache.getKey(archive);
+        assertNotNull(key);
+        assertEquals(key, cache.getKey(copy));
+        assertNotEquals(key, cache.getKey(modified));
+        assertNull(cache.getKey(this.directory.resolve("missing.jar").toFile()));
+    }
+
+    @Test
+    public void readWrite() throws IOException {
+        BeanArchiveIndexCache cache = new BeanArchiveIndexCache(this.directory.resolve("cache"));
+        String key = cache.getKey(this.createArchive("a.jar", "content"));
+
+        assertNull(cache.read(key));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        Indexer indexer = new Indexer();
+        try (InputStream input = this.getClass().getResourceAsStream(this.getClass().getSimpleName() + ".class")) {
+            indexer.index(input);
+        }
+        cache.write(key, indexer.complete());
+
+        // A new cache, as created on a subsequent boot
+        cache = new BeanArchiveIndexCache(this.directory.resolve("cache"));
+        Path entry = this.directory.resolve("cache").resolve(key + ".idx");
+        FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        Files.setLastModifiedTime(entry, lastModified);
+        Index index = cache.read(key);
+        assertNotNull(index);
+        // Reading an entry marks it as recently used
+        assertTrue(Files.getLastModifiedTime(entry).compareTo(lastModified) > 0);
+        assertNotNull(index.getClassByName(DotName.createSimple(this.getClass().getName())));
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void corruptEntry() throws IOException {
+        BeanArchiveIndexCache cache = new BeanArchiveIndexCache(this.directory);
+        String key = cache.getKey(this.createArchive("a.jar", "content"));
+        Path entry = this.directory.resolve(key + ".idx");
+        Files.write(entry, "corrupt".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(cache.read(key));
+        assertEquals(1, cache.getMisses());
+        assertEquals(false, Files.exists(entry));
+    }
+
+    @Test
+    public void evict() throws IOException {
+        BeanArchiveIndexCache cache = new BeanArchiveIndexCache(this.directory, 10);
+        long now = System.currentTimeMillis();
+        Path oldest = this.createEntry("a", now - 3000);
+        Path older = this.createEntry("b", now - 2000);
+        Path recent = this.createEntry("c", now - 1000);
+        Path other = this.directory.resolve("other");
+        Files.write(other, "other entry".getBytes(StandardCharsets.UTF_8));
+
+        cache.evict();
+
+        // Only the least recently used entry is deleted, leaving 8 bytes of entries
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(other));
+
+        // Within the maximum size, nothing is deleted
+        cache.evict();
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    public void archiveFile() throws IOException {
+        File archive = this.createArchive("a b.jar", "content");
+        URL beansXml = new URL("jar:" + archive.toURI().toURL() + "!/META-INF/beans.xml");
+        assertEquals(archive.getCanonicalFile(), UrlScanner.getArchiveFile(beansXml).getCanonicalFile());
+        assertNull(UrlScanner.getArchiveFile(new URL(archive.toURI().toURL(), "META-INF/beans.xml")));
+    }
+
+    private Path createEntry(String key, long lastModified) throws IOException {
+        Path entry = this.directory.resolve(key + ".idx");
+        Files.write(entry, "data".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(lastModified));
+        return entry;
+    }
+
+    private File createArchive(String name, String content) throws IOException {
+        File file = this.directory.resolve(name).toFile();
+        try (OutputStream output = Files.newOutputStream(file.toPath()); ZipOutputStream zip = new ZipOutputStream(output)) {
+            zip.putNextEntry(new ZipEntry("META-INF/beans.xml"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("org/example/Bean.class"));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return file;
+    }
+}
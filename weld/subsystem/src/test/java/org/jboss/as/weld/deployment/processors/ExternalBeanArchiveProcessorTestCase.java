@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2018, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.weld.deployment.processors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent discovery of external bean archives by {@link ExternalBeanArchiveProcessor}.
+ */
+public class ExternalBeanArchiveProcessorTestCase {
+
+    private static final int ARCHIVES = 8;
+
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        this.executor = Executors.newFixedThreadPool(ARCHIVES);
+    }
+
+    @After
+    public void destroy() throws InterruptedException {
+        this.executor.shutdownNow();
+        this.executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void order() throws DeploymentUnitProcessingException {
+        Queue<Integer> completed = new ConcurrentLinkedQueue<>();
+        List<String> serial = ExternalBeanArchiveProcessor.invokeAll(this.createTasks(completed, false), null);
+        assertEquals(createArchiveNames(), serial);
+
+        // Each task waits for the next one, so tasks complete in the reverse order
+        completed.clear();
+        List<String> concurrent = ExternalBeanArchiveProcessor.invokeAll(this.createTasks(completed, true), this.executor);
+        assertEquals(ARCHIVES - 1, completed.peek().intValue());
+        assertEquals(serial, concurrent);
+    }
+
+    @Test
+    public void failure() {
+        DeploymentUnitProcessingException exception = new DeploymentUnitProcessingException("archive-1");
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < ARCHIVES; ++i) {
+            int archive = i;
+            tasks.add(() -> {
+                if (archive == 1) {
+                    throw exception;
+                }
+                if (archive == 3) {
+                    throw new IllegalStateException();
+                }
+                return "archive-" + archive;
+            });
+        }
+        for (ExecutorService executor : new ExecutorService[] { null, this.executor }) {
+            try {
+                ExternalBeanArchiveProcessor.invokeAll(tasks, executor);
+                fail("Expected DeploymentUnitProcessingException");
+            } catch (DeploymentUnitProcessingException e) {
+                assertSame(exception, e);
+            }
+        }
+    }
+
+    @Test
+    public void checkedFailure() {
+        IOException exception = new IOException();
+        List<Callable<String>> tasks = new ArrayList<>();
+        tasks.add(() -> "archive-0");
+        tasks.add(() -> {
+            throw exception;
+        });
+        for (ExecutorService executor : new ExecutorService[] { null, this.executor }) {
+            try {
+                ExternalBeanArchiveProcessor.invokeAll(tasks, executor);
+                fail("Expected DeploymentUnitProcessingException");
+            } catch (DeploymentUnitProcessingException e) {
+                assertSame(exception, e.getCause());
+            }
+        }
+    }
+
+    private List<Callable<String>> createTasks(Queue<Integer> completed, boolean reverse) {
+        List<CountDownLatch> latches = new ArrayList<>();
+        for (int i = 0; i <= ARCHIVES; ++i) {
+            latches.add(new CountDownLatch(reverse && (i < ARCHIVES) ? 1 : 0));
+        }
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < ARCHIVES; ++i) {
+            int archive = i;
+            tasks.add(() -> {
+                if (!latches.get(archive + 1).await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException();
+                }
+                completed.add(archive);
+                latches.get(archive).countDown();
+                return "archive-" + archive;
+            });
+        }
+        return tasks;
+    }
+
+    private static List<String> createArchiveNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < ARCHIVES; ++i) {
+            names.add("archive-" + i);
+        }
+        return names;
+    }
+}